@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.composite;
+
+import com.graphaware.common.policy.inclusion.EntityInclusionPolicy;
+import org.neo4j.graphdb.Entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * {@link CompositeEntityInclusionPolicy} that evaluates the contained policies in the order that makes the decision
+ * cheapest, rather than in declaration order. Depending on its {@link Operator}, all contained policies must "vote"
+ * <code>true</code> ({@link Operator#ALL}), or at least one must ({@link Operator#ANY}), in order for this policy to
+ * return <code>true</code>.
+ * <p/>
+ * A random sample of evaluations (one in {@link #DEFAULT_SAMPLING_RATE} by default) evaluates all the contained
+ * policies, measuring how long each takes and how often it votes <code>true</code>. Every
+ * {@link #DEFAULT_SAMPLES_PER_REORDERING} samples, the policies are reordered by their expected cost of reaching a
+ * decision, i.e. their average cost divided by the probability of them voting <code>false</code> (for
+ * {@link Operator#ALL}) or <code>true</code> (for {@link Operator#ANY}), and the statistics are halved, so that the
+ * order follows changes in the data. The statistics are available through {@link #getStatistics()}.
+ * <p/>
+ * Since the order in which the contained policies are evaluated changes, they must be independent of each other and
+ * free of side effects. For instance, a policy must not rely on another one having rejected an entity it can't handle.
+ */
+public abstract class AdaptiveCompositeEntityInclusionPolicy<E extends Entity, T extends EntityInclusionPolicy<E>> extends CompositeEntityInclusionPolicy<E, T> {
+
+    public static final int DEFAULT_SAMPLING_RATE = 64;
+    public static final int DEFAULT_SAMPLES_PER_REORDERING = 64;
+
+    /**
+     * How the votes of the contained policies are combined.
+     */
+    public enum Operator {
+        /**
+         * All policies must include an entity, i.e. AND.
+         */
+        ALL,
+
+        /**
+         * At least one policy must include an entity, i.e. OR.
+         */
+        ANY
+    }
+
+    private final Operator operator;
+    private final int samplingRate;
+    private final int samplesPerReordering;
+
+    private final double[] samples;
+    private final double[] passes;
+    private final double[] costs;
+    private int samplesSinceReordering;
+
+    private volatile int[] order;
+
+    /**
+     * Construct a new policy.
+     *
+     * @param policies             contained policies, in the order they should be evaluated before any statistics are known.
+     * @param operator             combining the votes of contained policies.
+     * @param samplingRate         one in how many evaluations should be sampled.
+     * @param samplesPerReordering number of samples after which the contained policies are reordered.
+     */
+    protected AdaptiveCompositeEntityInclusionPolicy(T[] policies, Operator operator, int samplingRate, int samplesPerReordering) {
+        super(policies);
+
+        if (operator == null) {
+            throw new IllegalArgumentException("Operator must not be null");
+        }
+        if (samplingRate < 1 || samplesPerReordering < 1) {
+            throw new IllegalArgumentException("Sampling rate and samples per reordering must be positive");
+        }
+
+        this.operator = operator;
+        this.samplingRate = samplingRate;
+        this.samplesPerReordering = samplesPerReordering;
+
+        samples = new double[policies.length];
+        passes = new double[policies.length];
+        costs = new double[policies.length];
+
+        order = new int[policies.length];
+        for (int i = 0; i < policies.length; i++) {
+            order[i] = i;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean include(E object) {
+        return evaluate(policy -> policy.include(object));
+    }
+
+    /**
+     * Combine the votes of the contained policies, evaluating them in the current order and stopping as soon as the
+     * result is known, or sampling all of them.
+     *
+     * @param vote of a contained policy.
+     * @return combined vote.
+     */
+    protected final boolean evaluate(Predicate<T> vote) {
+        if (ThreadLocalRandom.current().nextInt(samplingRate) == 0) {
+            return evaluateAndSample(vote);
+        }
+
+        boolean decisive = operator == Operator.ANY;
+
+        for (int i : order) {
+            if (vote.test(policies[i]) == decisive) {
+                return decisive;
+            }
+        }
+
+        return !decisive;
+    }
+
+    private boolean evaluateAndSample(Predicate<T> vote) {
+        boolean[] votes = new boolean[policies.length];
+        long[] durations = new long[policies.length];
+
+        for (int i = 0; i < policies.length; i++) {
+            long start = System.nanoTime();
+            votes[i] = vote.test(policies[i]);
+            durations[i] = System.nanoTime() - start;
+        }
+
+        record(votes, durations);
+
+        boolean decisive = operator == Operator.ANY;
+
+        for (boolean v : votes) {
+            if (v == decisive) {
+                return decisive;
+            }
+        }
+
+        return !decisive;
+    }
+
+    private synchronized void record(boolean[] votes, long[] durations) {
+        for (int i = 0; i < policies.length; i++) {
+            samples[i]++;
+            passes[i] += votes[i] ? 1 : 0;
+            costs[i] += durations[i];
+        }
+
+        if (++samplesSinceReordering >= samplesPerReordering) {
+            reorder();
+        }
+    }
+
+    private void reorder() {
+        Integer[] newOrder = new Integer[policies.length];
+        for (int i = 0; i < policies.length; i++) {
+            newOrder[i] = i;
+        }
+
+        //stable, so policies that can't be told apart stay in declaration order
+        Arrays.sort(newOrder, Comparator.comparingDouble(this::expectedCost));
+
+        int[] result = new int[policies.length];
+        for (int i = 0; i < policies.length; i++) {
+            result[i] = newOrder[i];
+
+            samples[i] /= 2;
+            passes[i] /= 2;
+            costs[i] /= 2;
+        }
+
+        samplesSinceReordering = 0;
+        order = result;
+    }
+
+    /**
+     * Expected cost of a contained policy reaching a decision, i.e. its average cost divided by the probability of it
+     * casting the decisive vote.
+     *
+     * @param index of the policy.
+     * @return expected cost.
+     */
+    private double expectedCost(int index) {
+        double passRate = passes[index] / samples[index];
+        double decisiveRate = operator == Operator.ALL ? 1 - passRate : passRate;
+        return (costs[index] / samples[index]) / Math.max(decisiveRate, 1e-6);
+    }
+
+    /**
+     * Get the operator combining votes of the contained policies.
+     *
+     * @return operator.
+     */
+    public Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * Get statistics about the contained policies, for diagnostics.
+     *
+     * @return read-only statistics, in the order the policies are currently evaluated.
+     */
+    public synchronized List<Statistics> getStatistics() {
+        List<Statistics> result = new ArrayList<>();
+        for (int i : order) {
+            result.add(new Statistics(policies[i], samples[i], passes[i], costs[i]));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!super.equals(o)) return false;
+
+        AdaptiveCompositeEntityInclusionPolicy that = (AdaptiveCompositeEntityInclusionPolicy) o;
+
+        return operator == that.operator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + operator.hashCode();
+    }
+
+    /**
+     * Statistics about a contained policy. Samples of past periods between reorderings count less than recent ones.
+     */
+    public static final class Statistics {
+
+        private final EntityInclusionPolicy<?> policy;
+        private final double samples;
+        private final double passes;
+        private final double cost;
+
+        private Statistics(EntityInclusionPolicy<?> policy, double samples, double passes, double cost) {
+            this.policy = policy;
+            this.samples = samples;
+            this.passes = passes;
+            this.cost = cost;
+        }
+
+        /**
+         * @return the policy.
+         */
+        public EntityInclusionPolicy<?> getPolicy() {
+            return policy;
+        }
+
+        /**
+         * @return (weighted) number of sampled evaluations of the policy.
+         */
+        public double getSamples() {
+            return samples;
+        }
+
+        /**
+         * @return ratio of sampled evaluations in which the policy included the entity, 0 if there have been no samples.
+         */
+        public double getPassRate() {
+            return samples == 0 ? 0 : passes / samples;
+        }
+
+        /**
+         * @return average duration of the policy's evaluation in nanoseconds, 0 if there have been no samples.
+         */
+        public double getAverageCost() {
+            return samples == 0 ? 0 : cost / samples;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return policy + " (pass rate: " + getPassRate() + ", average cost: " + getAverageCost() + "ns)";
+        }
+    }
+}
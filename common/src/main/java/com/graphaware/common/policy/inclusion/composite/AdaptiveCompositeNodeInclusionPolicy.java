@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.composite;
+
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+
+/**
+ * {@link AdaptiveCompositeEntityInclusionPolicy} for {@link Node}s.
+ */
+public final class AdaptiveCompositeNodeInclusionPolicy extends AdaptiveCompositeEntityInclusionPolicy<Node, NodeInclusionPolicy> implements NodeInclusionPolicy {
+
+    /**
+     * Create a policy that includes nodes included by all the given policies.
+     *
+     * @param policies to compose.
+     * @return policy.
+     */
+    public static AdaptiveCompositeNodeInclusionPolicy allOf(NodeInclusionPolicy... policies) {
+        return new AdaptiveCompositeNodeInclusionPolicy(policies, Operator.ALL, DEFAULT_SAMPLING_RATE, DEFAULT_SAMPLES_PER_REORDERING);
+    }
+
+    /**
+     * Create a policy that includes nodes included by at least one of the given policies.
+     *
+     * @param policies to compose.
+     * @return policy.
+     */
+    public static AdaptiveCompositeNodeInclusionPolicy anyOf(NodeInclusionPolicy... policies) {
+        return new AdaptiveCompositeNodeInclusionPolicy(policies, Operator.ANY, DEFAULT_SAMPLING_RATE, DEFAULT_SAMPLES_PER_REORDERING);
+    }
+
+    AdaptiveCompositeNodeInclusionPolicy(NodeInclusionPolicy[] policies, Operator operator, int samplingRate, int samplesPerReordering) {
+        super(policies, operator, samplingRate, samplesPerReordering);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Iterable<Node> doGetAll(GraphDatabaseService database) {
+        return database.getAllNodes();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.composite;
+
+import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+/**
+ * {@link AdaptiveCompositeEntityInclusionPolicy} for {@link Relationship}s.
+ */
+public final class AdaptiveCompositeRelationshipInclusionPolicy extends AdaptiveCompositeEntityInclusionPolicy<Relationship, RelationshipInclusionPolicy> implements RelationshipInclusionPolicy {
+
+    /**
+     * Create a policy that includes relationships included by all the given policies.
+     *
+     * @param policies to compose.
+     * @return policy.
+     */
+    public static AdaptiveCompositeRelationshipInclusionPolicy allOf(RelationshipInclusionPolicy... policies) {
+        return new AdaptiveCompositeRelationshipInclusionPolicy(policies, Operator.ALL, DEFAULT_SAMPLING_RATE, DEFAULT_SAMPLES_PER_REORDERING);
+    }
+
+    /**
+     * Create a policy that includes relationships included by at least one of the given policies.
+     *
+     * @param policies to compose.
+     * @return policy.
+     */
+    public static AdaptiveCompositeRelationshipInclusionPolicy anyOf(RelationshipInclusionPolicy... policies) {
+        return new AdaptiveCompositeRelationshipInclusionPolicy(policies, Operator.ANY, DEFAULT_SAMPLING_RATE, DEFAULT_SAMPLES_PER_REORDERING);
+    }
+
+    AdaptiveCompositeRelationshipInclusionPolicy(RelationshipInclusionPolicy[] policies, Operator operator, int samplingRate, int samplesPerReordering) {
+        super(policies, operator, samplingRate, samplesPerReordering);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean include(Relationship relationship, Node pointOfView) {
+        return evaluate(policy -> policy.include(relationship, pointOfView));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Iterable<Relationship> doGetAll(GraphDatabaseService database) {
+        return database.getAllRelationships();
+    }
+}
@@ -18,6 +18,7 @@ package com.graphaware.common.policy.inclusion.fluent;
 
 import com.graphaware.common.description.predicate.Predicate;
 import com.graphaware.common.description.property.DetachedPropertiesDescription;
+import com.graphaware.common.description.property.LazyPropertiesDescription;
 import com.graphaware.common.description.property.LiteralPropertiesDescription;
 import com.graphaware.common.policy.inclusion.BaseEntityInclusionPolicy;
 import com.graphaware.common.policy.inclusion.EntityInclusionPolicy;
@@ -73,10 +74,14 @@ public abstract class IncludeEntities<C extends IncludeEntities<?, T>, T extends
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The entity's properties are read lazily, using a {@link LazyPropertiesDescription}, so that a policy configured
+     * with a {@link com.graphaware.common.description.property.WildcardPropertiesDescription} only reads properties
+     * it has predicates for, and stops at the first one that doesn't match.
      */
     @Override
     public boolean include(T entity) {
-        return new LiteralPropertiesDescription(entity).isMoreSpecificThan(propertiesDescription);
+        return new LazyPropertiesDescription(entity).isMoreSpecificThan(propertiesDescription);
     }
 
     /**
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.spel;
+
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.Literal;
+import org.springframework.expression.spel.ast.MethodReference;
+import org.springframework.expression.spel.ast.OpAnd;
+import org.springframework.expression.spel.ast.OpEQ;
+import org.springframework.expression.spel.ast.OpGE;
+import org.springframework.expression.spel.ast.OpGT;
+import org.springframework.expression.spel.ast.OpLE;
+import org.springframework.expression.spel.ast.OpLT;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Top-level conjuncts of a SPEL expression that the database can answer natively, i.e. using a label scan, a schema
+ * index, or a traversal from labelled nodes. Anything that isn't recognised is simply ignored, so every entity matching
+ * the expression satisfies all the collected conjuncts, but not necessarily the other way round. The expression itself
+ * must thus still be applied to the entities found using the conjuncts.
+ */
+final class IndexableConjuncts {
+
+    private final List<String> labels = new ArrayList<>();
+    private final List<PropertyPredicate> propertyPredicates = new ArrayList<>();
+    private final List<String> types = new ArrayList<>();
+    private final List<String> startNodeLabels = new ArrayList<>();
+    private final List<String> endNodeLabels = new ArrayList<>();
+
+    /**
+     * Analyse an expression.
+     *
+     * @param expression root of the expression's AST.
+     * @return recognised conjuncts.
+     */
+    static IndexableConjuncts of(SpelNode expression) {
+        IndexableConjuncts conjuncts = new IndexableConjuncts();
+        conjuncts.collect(expression);
+        return conjuncts;
+    }
+
+    private IndexableConjuncts() {
+    }
+
+    private void collect(SpelNode node) {
+        if (node instanceof OpAnd) {
+            collect(node.getChild(0));
+            collect(node.getChild(1));
+            return;
+        }
+
+        String label = argumentOf(node, "hasLabel");
+        if (label != null) {
+            labels.add(label);
+            return;
+        }
+
+        String type = argumentOf(node, "isType");
+        if (type != null) {
+            types.add(type);
+            return;
+        }
+
+        if (node instanceof CompoundExpression && node.getChildCount() == 2) {
+            String endpointLabel = argumentOf(node.getChild(1), "hasLabel");
+            if (endpointLabel != null && isAccessor(node.getChild(0), "startNode")) {
+                startNodeLabels.add(endpointLabel);
+            } else if (endpointLabel != null && isAccessor(node.getChild(0), "endNode")) {
+                endNodeLabels.add(endpointLabel);
+            }
+            return;
+        }
+
+        String operator = operator(node);
+        if (operator != null) {
+            collectComparison(operator, node.getChild(0), node.getChild(1));
+        }
+    }
+
+    private void collectComparison(String operator, SpelNode left, SpelNode right) {
+        if ("==".equals(operator)) {
+            String type = typeComparedTo(left, right);
+            if (type == null) {
+                type = typeComparedTo(right, left);
+            }
+            if (type != null) {
+                types.add(type);
+                return;
+            }
+        }
+
+        String key = propertyKey(left);
+        Object value = literalValue(right);
+        if (key == null || value == null) {
+            key = propertyKey(right);
+            value = literalValue(left);
+            operator = flip(operator);
+        }
+
+        if (key == null || value == null) {
+            return;
+        }
+
+        if ("==".equals(operator) || value instanceof Number || value instanceof String) {
+            propertyPredicates.add(new PropertyPredicate(key, operator, value));
+        }
+    }
+
+    private static String typeComparedTo(SpelNode accessor, SpelNode literal) {
+        if (isAccessor(accessor, "type") && literal instanceof StringLiteral) {
+            return (String) literalValue(literal);
+        }
+        return null;
+    }
+
+    private static String argumentOf(SpelNode node, String method) {
+        if (node instanceof MethodReference
+                && method.equals(((MethodReference) node).getName())
+                && node.getChildCount() == 1
+                && node.getChild(0) instanceof StringLiteral) {
+            return (String) literalValue(node.getChild(0));
+        }
+        return null;
+    }
+
+    private static String propertyKey(SpelNode node) {
+        return argumentOf(node, "getProperty");
+    }
+
+    private static Object literalValue(SpelNode node) {
+        if (!(node instanceof Literal)) {
+            return null;
+        }
+        return ((Literal) node).getLiteralValue().getValue();
+    }
+
+    private static boolean isAccessor(SpelNode node, String property) {
+        if (node instanceof PropertyOrFieldReference) {
+            return property.equals(((PropertyOrFieldReference) node).getName());
+        }
+        if (node instanceof MethodReference && node.getChildCount() == 0) {
+            String getter = "get" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+            return getter.equals(((MethodReference) node).getName());
+        }
+        return false;
+    }
+
+    private static String operator(SpelNode node) {
+        if (node instanceof OpEQ) {
+            return "==";
+        }
+        if (node instanceof OpGT) {
+            return ">";
+        }
+        if (node instanceof OpGE) {
+            return ">=";
+        }
+        if (node instanceof OpLT) {
+            return "<";
+        }
+        if (node instanceof OpLE) {
+            return "<=";
+        }
+        return null;
+    }
+
+    private static String flip(String operator) {
+        switch (operator) {
+            case ">":
+                return "<";
+            case ">=":
+                return "<=";
+            case "<":
+                return ">";
+            case "<=":
+                return ">=";
+            default:
+                return operator;
+        }
+    }
+
+    /**
+     * @return labels the entity must have.
+     */
+    List<String> getLabels() {
+        return Collections.unmodifiableList(labels);
+    }
+
+    /**
+     * @return predicates on the entity's properties.
+     */
+    List<PropertyPredicate> getPropertyPredicates() {
+        return Collections.unmodifiableList(propertyPredicates);
+    }
+
+    /**
+     * @return types the relationship must have.
+     */
+    List<String> getTypes() {
+        return Collections.unmodifiableList(types);
+    }
+
+    /**
+     * @return labels the relationship's start node must have.
+     */
+    List<String> getStartNodeLabels() {
+        return Collections.unmodifiableList(startNodeLabels);
+    }
+
+    /**
+     * @return labels the relationship's end node must have.
+     */
+    List<String> getEndNodeLabels() {
+        return Collections.unmodifiableList(endNodeLabels);
+    }
+
+    /**
+     * Comparison of a property value to a literal, with the property on the left-hand side.
+     */
+    static final class PropertyPredicate {
+
+        private final String key;
+        private final String operator;
+        private final Object value;
+
+        PropertyPredicate(String key, String operator, Object value) {
+            this.key = key;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        /**
+         * @return one of <code>==, &gt;, &gt;=, &lt;, &lt;=</code>.
+         */
+        String getOperator() {
+            return operator;
+        }
+
+        Object getValue() {
+            return value;
+        }
+
+        boolean isEquality() {
+            return "==".equals(operator);
+        }
+
+        /**
+         * @return true iff this is a range predicate which a missing property fails. SPEL considers <code>null</code>
+         * smaller than anything, so <code>getProperty('k') &lt; 5</code> holds for entities without the property.
+         */
+        boolean isLowerBound() {
+            return ">".equals(operator) || ">=".equals(operator);
+        }
+    }
+}
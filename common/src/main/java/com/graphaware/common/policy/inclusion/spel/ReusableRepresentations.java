@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.spel;
+
+import com.graphaware.common.representation.AttachedNode;
+import com.graphaware.common.representation.AttachedNodeProperty;
+import com.graphaware.common.representation.AttachedRelationship;
+import com.graphaware.common.representation.AttachedRelationshipProperty;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+/**
+ * Per-thread, reusable representations of entities and properties, which SPEL expressions are evaluated against, so
+ * that evaluating an expression does not allocate. Callers must {@link Reusable#release()} a representation once the
+ * expression has been evaluated, so that it does not hold on to the entity.
+ */
+final class ReusableRepresentations {
+
+    private static final ThreadLocal<ReusableNode> NODE = ThreadLocal.withInitial(ReusableNode::new);
+    private static final ThreadLocal<ReusableRelationship> RELATIONSHIP = ThreadLocal.withInitial(ReusableRelationship::new);
+    private static final ThreadLocal<ReusableNodeProperty> NODE_PROPERTY = ThreadLocal.withInitial(ReusableNodeProperty::new);
+    private static final ThreadLocal<ReusableRelationshipProperty> RELATIONSHIP_PROPERTY = ThreadLocal.withInitial(ReusableRelationshipProperty::new);
+
+    private ReusableRepresentations() {
+    }
+
+    static ReusableNode node(Node node) {
+        return NODE.get().represent(node);
+    }
+
+    static ReusableRelationship relationship(Relationship relationship, Node pointOfView) {
+        return RELATIONSHIP.get().represent(relationship, pointOfView);
+    }
+
+    static ReusableNodeProperty nodeProperty(String key, Node node) {
+        return NODE_PROPERTY.get().represent(key, node);
+    }
+
+    static ReusableRelationshipProperty relationshipProperty(String key, Relationship relationship) {
+        return RELATIONSHIP_PROPERTY.get().represent(key, relationship);
+    }
+
+    interface Reusable {
+
+        void release();
+    }
+
+    static final class ReusableNode extends AttachedNode implements Reusable {
+
+        private ReusableNode() {
+            super(null);
+        }
+
+        private ReusableNode represent(Node node) {
+            attach(node);
+            return this;
+        }
+
+        @Override
+        public void release() {
+            attach(null);
+        }
+    }
+
+    static final class ReusableRelationship extends AttachedRelationship implements Reusable {
+
+        private ReusableRelationship() {
+            super(null);
+        }
+
+        private ReusableRelationship represent(Relationship relationship, Node pointOfView) {
+            attach(relationship, pointOfView);
+            return this;
+        }
+
+        @Override
+        public void release() {
+            attach(null, null);
+        }
+    }
+
+    static final class ReusableNodeProperty extends AttachedNodeProperty implements Reusable {
+
+        private final ReusableNode node = new ReusableNode();
+
+        private ReusableNodeProperty() {
+            super(null, null);
+        }
+
+        private ReusableNodeProperty represent(String key, Node node) {
+            attach(key, this.node.represent(node));
+            return this;
+        }
+
+        @Override
+        public void release() {
+            node.release();
+        }
+    }
+
+    static final class ReusableRelationshipProperty extends AttachedRelationshipProperty implements Reusable {
+
+        private final ReusableRelationship relationship = new ReusableRelationship();
+
+        private ReusableRelationshipProperty() {
+            super(null, null);
+        }
+
+        private ReusableRelationshipProperty represent(String key, Relationship relationship) {
+            attach(key, this.relationship.represent(relationship, null));
+            return this;
+        }
+
+        @Override
+        public void release() {
+            relationship.release();
+        }
+    }
+}
@@ -18,27 +18,89 @@ package com.graphaware.common.policy.inclusion.spel;
 
 import com.graphaware.common.policy.inclusion.ObjectInclusionPolicy;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
 import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 
 /**
  * Abstract base-class for {@link ObjectInclusionPolicy} implementations that are based on
  * SPEL expressions.
+ * <p/>
+ * The expression is compiled into bytecode as soon as SPEL has learned the types it operates on, i.e. after its first
+ * evaluation (or a few more, if some parts of the expression are not evaluated every time, like the right-hand side of
+ * <code>||</code>). Expressions that can't be compiled, e.g. ones comparing untyped property values, keep being
+ * interpreted. Should a compiled expression fail, it falls back to interpretation for good.
  */
 public abstract class SpelInclusionPolicy {
 
+    private static final int MAX_COMPILATION_ATTEMPTS = 100;
+
     protected transient final Expression exp;
     protected transient final SpelNode expressionNode;
 
     private final String expression;
 
+    private transient volatile int compilationAttempts;
+    private transient volatile boolean compiled;
+
     protected SpelInclusionPolicy(String expression) {
-        SpelExpressionParser parser = new SpelExpressionParser();
+        SpelExpressionParser parser = new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.OFF, SpelInclusionPolicy.class.getClassLoader()));
         this.expression = expression;
         this.expressionNode = parser.parseRaw(expression).getAST();
         this.exp = parser.parseExpression(expression);
     }
 
+    /**
+     * Evaluate the expression, compiling it if possible.
+     *
+     * @param root object to evaluate the expression against. Must always be of the same type.
+     * @return result of the evaluation.
+     */
+    protected final boolean evaluate(Object root) {
+        SpelExpression spelExpression = (SpelExpression) exp;
+
+        boolean result;
+        try {
+            result = (Boolean) spelExpression.getValue(root);
+        } catch (SpelEvaluationException e) {
+            if (!SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION.equals(e.getMessageCode())) {
+                throw e;
+            }
+
+            compilationAttempts = MAX_COMPILATION_ATTEMPTS;
+            compiled = false;
+            spelExpression.revertToInterpreted();
+            result = (Boolean) spelExpression.getValue(root);
+        }
+
+        if (!compiled && compilationAttempts < MAX_COMPILATION_ATTEMPTS) {
+            compile(spelExpression);
+        }
+
+        return result;
+    }
+
+    private void compile(SpelExpression spelExpression) {
+        compilationAttempts++;
+        try {
+            compiled = spelExpression.compileExpression();
+        } catch (RuntimeException e) {
+            //SPEL produced a class it can't load, don't try again
+            compilationAttempts = MAX_COMPILATION_ATTEMPTS;
+        }
+    }
+
+    /**
+     * @return true iff the expression has been compiled.
+     */
+    boolean isCompiled() {
+        return compiled;
+    }
+
     /**
      * {@inheritDoc}
      */
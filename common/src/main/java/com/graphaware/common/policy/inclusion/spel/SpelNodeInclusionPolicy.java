@@ -18,12 +18,19 @@ package com.graphaware.common.policy.inclusion.spel;
 
 import com.graphaware.common.expression.AttachedNodeExpressions;
 import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
-import com.graphaware.common.representation.AttachedNode;
+import com.graphaware.common.policy.inclusion.spel.IndexableConjuncts.PropertyPredicate;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.graphdb.schema.Schema;
 import org.neo4j.helpers.collection.FilteringIterable;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
 /**
  * {@link NodeInclusionPolicy} based on a SPEL expression. The expression can use methods defined in {@link AttachedNodeExpressions}.
  */
@@ -38,28 +45,106 @@ public class SpelNodeInclusionPolicy extends SpelInclusionPolicy implements Node
      */
     @Override
     public boolean include(Node node) {
-        return (Boolean) exp.getValue(new AttachedNode(node));
+        ReusableRepresentations.ReusableNode root = ReusableRepresentations.node(node);
+        try {
+            return evaluate(root);
+        } finally {
+            root.release();
+        }
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Where the expression is a conjunction containing a label check, nodes are looked up natively rather than by
+     * scanning the whole graph. In order of preference, that is using an online schema index for a property equality
+     * predicate, an online schema index for property range predicates, the label and a property equality predicate,
+     * and finally just the label. Range predicates are only used when there's a lower bound, because an upper bound is
+     * also satisfied by nodes without the property. The whole expression is then applied to the nodes found.
      */
     @Override
     public Iterable<Node> getAll(GraphDatabaseService database) {
-        //In simple cases, we can fetch nodes using more efficient native syntax
-        if(expressionNode.toStringAST().startsWith("hasLabel")) {
-            String labelName = stripWrappingQuotes(expressionNode.getChild(0).toStringAST());
-            return () -> database.findNodes(Label.label(labelName));
+        return new FilteringIterable<>(() -> candidates(database), this::include);
+    }
+
+    private Iterator<Node> candidates(GraphDatabaseService database) {
+        IndexableConjuncts conjuncts = IndexableConjuncts.of(expressionNode);
+
+        if (conjuncts.getLabels().isEmpty()) {
+            return database.getAllNodes().iterator();
+        }
+
+        Label bestLabel = Label.label(conjuncts.getLabels().get(0));
+        PropertyPredicate bestPredicate = null;
+        int bestScore = 0;
+
+        for (String labelName : conjuncts.getLabels()) {
+            Label label = Label.label(labelName);
+            for (PropertyPredicate predicate : conjuncts.getPropertyPredicates()) {
+                int score = score(database, label, predicate);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestLabel = label;
+                    bestPredicate = predicate;
+                }
+            }
+        }
+
+        if (bestPredicate == null) {
+            return database.findNodes(bestLabel);
+        }
+
+        if (bestPredicate.isEquality()) {
+            return database.findNodes(bestLabel, bestPredicate.getKey(), bestPredicate.getValue());
         }
 
+        return findInRange(database, bestLabel, bestPredicate.getKey(), conjuncts.getPropertyPredicates());
+    }
+
+    private int score(GraphDatabaseService database, Label label, PropertyPredicate predicate) {
+        if (predicate.isEquality()) {
+            return isIndexed(database, label, predicate.getKey()) ? 3 : 1;
+        }
+
+        //an upper bound alone would wrongly exclude nodes without the property
+        if (predicate.isLowerBound() && isIndexed(database, label, predicate.getKey())) {
+            return 2;
+        }
+
+        return 0;
+    }
+
+    private Iterator<Node> findInRange(GraphDatabaseService database, Label label, String key, List<PropertyPredicate> predicates) {
+        StringBuilder query = new StringBuilder("MATCH (n:").append(quote(label.name())).append(") WHERE ");
+        Map<String, Object> parameters = new HashMap<>();
+
+        for (PropertyPredicate predicate : predicates) {
+            if (!key.equals(predicate.getKey()) || predicate.isEquality()) {
+                continue;
+            }
+            String parameter = "value" + parameters.size();
+            if (!parameters.isEmpty()) {
+                query.append(" AND ");
+            }
+            query.append("n.").append(quote(key)).append(" ").append(predicate.getOperator()).append(" $").append(parameter);
+            parameters.put(parameter, predicate.getValue());
+        }
 
-        return new FilteringIterable<>(database.getAllNodes(), this::include);
+        return database.execute(query.append(" RETURN n").toString(), parameters).columnAs("n");
     }
 
-    private String stripWrappingQuotes(String s) {
-        if(s.startsWith("\"") || s.startsWith("\'")) {
-            return s.substring(1, s.length() - 1);
+    private boolean isIndexed(GraphDatabaseService database, Label label, String key) {
+        Schema schema = database.schema();
+        for (IndexDefinition index : schema.getIndexes(label)) {
+            Iterator<String> keys = index.getPropertyKeys().iterator();
+            if (key.equals(keys.next()) && !keys.hasNext() && schema.getIndexState(index) == Schema.IndexState.ONLINE) {
+                return true;
+            }
         }
-        return s;
+        return false;
+    }
+
+    private String quote(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
     }
 }
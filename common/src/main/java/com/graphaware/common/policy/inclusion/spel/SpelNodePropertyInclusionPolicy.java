@@ -17,8 +17,6 @@
 package com.graphaware.common.policy.inclusion.spel;
 
 import com.graphaware.common.policy.inclusion.NodePropertyInclusionPolicy;
-import com.graphaware.common.representation.AttachedNode;
-import com.graphaware.common.representation.AttachedNodeProperty;
 import com.graphaware.common.representation.NodeProperty;
 import org.neo4j.graphdb.Node;
 
@@ -37,6 +35,11 @@ public class SpelNodePropertyInclusionPolicy extends SpelInclusionPolicy impleme
      */
     @Override
     public boolean include(String key, Node node) {
-        return (Boolean) exp.getValue(new AttachedNodeProperty(key, new AttachedNode(node)));
+        ReusableRepresentations.ReusableNodeProperty root = ReusableRepresentations.nodeProperty(key, node);
+        try {
+            return evaluate(root);
+        } finally {
+            root.release();
+        }
     }
 }
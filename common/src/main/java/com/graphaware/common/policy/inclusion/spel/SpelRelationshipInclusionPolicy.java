@@ -18,11 +18,16 @@ package com.graphaware.common.policy.inclusion.spel;
 
 import com.graphaware.common.expression.AttachedRelationshipExpressions;
 import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
-import com.graphaware.common.representation.AttachedRelationship;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.helpers.collection.FilteringIterable;
+import org.neo4j.helpers.collection.NestingIterator;
+
+import java.util.Iterator;
 
 /**
  * {@link RelationshipInclusionPolicy} based on a SPEL expression. The expression can use methods defined in
@@ -44,7 +49,7 @@ public class SpelRelationshipInclusionPolicy extends SpelInclusionPolicy impleme
      */
     @Override
     public boolean include(Relationship relationship) {
-        return (Boolean) exp.getValue(new AttachedRelationship(relationship));
+        return include(relationship, null);
     }
 
     /**
@@ -52,14 +57,52 @@ public class SpelRelationshipInclusionPolicy extends SpelInclusionPolicy impleme
      */
     @Override
     public boolean include(Relationship relationship, Node pointOfView) {
-        return (Boolean) exp.getValue(new AttachedRelationship(relationship, pointOfView));
+        ReusableRepresentations.ReusableRelationship root = ReusableRepresentations.relationship(relationship, pointOfView);
+        try {
+            return evaluate(root);
+        } finally {
+            root.release();
+        }
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Where the expression is a conjunction containing a label check on the start or end node, relationships are found
+     * by expanding from nodes with that label (restricted to relationship types the expression requires, if any),
+     * rather than by scanning all relationships. The whole expression is then applied to the relationships found.
      */
     @Override
     public Iterable<Relationship> getAll(GraphDatabaseService database) {
-        return new FilteringIterable<>(database.getAllRelationships(), this::include);
+        return new FilteringIterable<>(() -> candidates(database), this::include);
+    }
+
+    private Iterator<Relationship> candidates(GraphDatabaseService database) {
+        IndexableConjuncts conjuncts = IndexableConjuncts.of(expressionNode);
+
+        RelationshipType[] types = new RelationshipType[conjuncts.getTypes().size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = RelationshipType.withName(conjuncts.getTypes().get(i));
+        }
+
+        if (!conjuncts.getStartNodeLabels().isEmpty()) {
+            return expand(database, Label.label(conjuncts.getStartNodeLabels().get(0)), Direction.OUTGOING, types);
+        }
+
+        if (!conjuncts.getEndNodeLabels().isEmpty()) {
+            return expand(database, Label.label(conjuncts.getEndNodeLabels().get(0)), Direction.INCOMING, types);
+        }
+
+        return database.getAllRelationships().iterator();
+    }
+
+    private Iterator<Relationship> expand(GraphDatabaseService database, Label label, Direction direction, RelationshipType[] types) {
+        return new NestingIterator<Relationship, Node>(database.findNodes(label)) {
+            @Override
+            protected Iterator<Relationship> createNestedIterator(Node node) {
+                //no types means no relationships to Neo4j, rather than all of them
+                return types.length == 0 ? node.getRelationships(direction).iterator() : node.getRelationships(direction, types).iterator();
+            }
+        };
     }
 }
@@ -17,8 +17,6 @@
 package com.graphaware.common.policy.inclusion.spel;
 
 import com.graphaware.common.policy.inclusion.RelationshipPropertyInclusionPolicy;
-import com.graphaware.common.representation.AttachedRelationship;
-import com.graphaware.common.representation.AttachedRelationshipProperty;
 import com.graphaware.common.representation.RelationshipProperty;
 import org.neo4j.graphdb.Relationship;
 
@@ -37,6 +35,11 @@ public class SpelRelationshipPropertyInclusionPolicy extends SpelInclusionPolicy
      */
     @Override
     public boolean include(String key, Relationship relationship) {
-        return (Boolean) exp.getValue(new AttachedRelationshipProperty(key, new AttachedRelationship(relationship)));
+        ReusableRepresentations.ReusableRelationshipProperty root = ReusableRepresentations.relationshipProperty(key, relationship);
+        try {
+            return evaluate(root);
+        } finally {
+            root.release();
+        }
     }
 }
@@ -23,16 +23,42 @@ import java.util.Map;
 
 public abstract class AttachedEntity<T extends Entity> implements EntityExpressions {
 
-    protected final T entity;
+    protected T entity;
 
     public AttachedEntity(T entity) {
         this.entity = entity;
     }
+
+    /**
+     * Make this representation represent a different entity, so that a single instance can be reused for evaluating
+     * expressions against many entities.
+     *
+     * @param entity to represent.
+     */
+    protected void attach(T entity) {
+        this.entity = entity;
+    }
+
     @Override
     public Map<String, Object> getProperties() {
         return entity.getAllProperties();
     }
 
+    @Override
+    public boolean hasProperty(String key) {
+        return entity.hasProperty(key);
+    }
+
+    @Override
+    public Object getProperty(String key) {
+        return entity.getProperty(key, null);
+    }
+
+    @Override
+    public Object getProperty(String key, Object defaultValue) {
+        return entity.getProperty(key, defaultValue);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
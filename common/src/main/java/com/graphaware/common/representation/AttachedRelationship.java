@@ -20,9 +20,11 @@ import com.graphaware.common.expression.AttachedRelationshipExpressions;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 
+import static org.neo4j.graphdb.RelationshipType.withName;
+
 public class AttachedRelationship extends AttachedEntity<Relationship> implements AttachedRelationshipExpressions<AttachedNode> {
 
-    private final Node pointOfView;
+    private Node pointOfView;
 
     public AttachedRelationship(Relationship entity) {
         this(entity, null);
@@ -33,6 +35,17 @@ public class AttachedRelationship extends AttachedEntity<Relationship> implement
         this.pointOfView = pointOfView;
     }
 
+    /**
+     * Make this representation represent a different relationship, from the point of view of a different node.
+     *
+     * @param relationship to represent.
+     * @param pointOfView  node whose point of view the relationship is looked at, can be <code>null</code>.
+     */
+    protected void attach(Relationship relationship, Node pointOfView) {
+        attach(relationship);
+        this.pointOfView = pointOfView;
+    }
+
     @Override
     public String getType() {
         return entity.getType().name();
@@ -52,4 +65,27 @@ public class AttachedRelationship extends AttachedEntity<Relationship> implement
     public AttachedNode pointOfView() {
         return new AttachedNode(pointOfView);
     }
+
+    //The following methods are overridden so that compiled SPEL expressions invoke them on a class rather than as
+    //default methods of an interface, which SPEL's compiler can't do.
+
+    @Override
+    public boolean isType(String type) {
+        return entity.isType(withName(type));
+    }
+
+    @Override
+    public AttachedNode getOtherNode() {
+        return AttachedRelationshipExpressions.super.getOtherNode();
+    }
+
+    @Override
+    public boolean isOutgoing() {
+        return AttachedRelationshipExpressions.super.isOutgoing();
+    }
+
+    @Override
+    public boolean isIncoming() {
+        return AttachedRelationshipExpressions.super.isIncoming();
+    }
 }
@@ -20,14 +20,26 @@ import com.graphaware.common.expression.EntityExpressions;
 
 public abstract class Property<T extends EntityExpressions> {
 
-    private final String key;
-    protected final T entity;
+    private String key;
+    protected T entity;
 
     protected Property(String key, T entity) {
         this.key = key;
         this.entity = entity;
     }
 
+    /**
+     * Make this representation represent a different property, so that a single instance can be reused for evaluating
+     * expressions against many properties.
+     *
+     * @param key    of the property.
+     * @param entity the property belongs to.
+     */
+    protected void attach(String key, T entity) {
+        this.key = key;
+        this.entity = entity;
+    }
+
     public String getKey() {
         return key;
     }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A compact {@link Map} backed by a single array of alternating keys and values, with linear-time lookups. Uses far
+ * less memory than a {@link java.util.HashMap} and is faster for the handful of entries typical of, e.g., properties
+ * of a single entity, but unsuitable for large maps. Preserves insertion order. <code>null</code> keys are not
+ * supported. Not thread-safe.
+ *
+ * @param <K> type of the keys.
+ * @param <V> type of the values.
+ */
+public final class ArrayMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private Object[] table;
+    private int size;
+    private int modCount;
+
+    /**
+     * Construct a new map with default initial capacity.
+     */
+    public ArrayMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct a new map.
+     *
+     * @param initialCapacity number of entries the map can hold before it needs to grow.
+     */
+    public ArrayMap(int initialCapacity) {
+        table = new Object[Math.max(1, initialCapacity) * 2];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) table[index + 1];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Objects.requireNonNull(key, "Key must not be null");
+
+        int index = indexOf(key);
+        if (index >= 0) {
+            V previous = (V) table[index + 1];
+            table[index + 1] = value;
+            return previous;
+        }
+
+        if (size * 2 == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+
+        table[size * 2] = key;
+        table[size * 2 + 1] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+
+        V previous = (V) table[index + 1];
+        removeAt(index);
+        return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(table, 0, size * 2, null);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < size * 2; i += 2) {
+            if (table[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        int end = size * 2;
+        System.arraycopy(table, index + 2, table, index, end - index - 2);
+        table[end - 2] = null;
+        table[end - 1] = null;
+        size--;
+        modCount++;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private int next = 0;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size * 2;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            last = next;
+            next += 2;
+            return new SimpleImmutableEntry<>((K) table[last], (V) table[last + 1]);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive <code>long</code> keys to primitive <code>long</code> values, which doesn't box and doesn't
+ * allocate an object per entry. Keys and values are held in dense arrays in insertion order, indexed by an
+ * open-addressing hash table with linear probing.
+ * <p/>
+ * Intended for large indexes keyed by entity IDs, e.g. positions of records in a file. Entries can't be removed.
+ * Not thread-safe.
+ */
+public final class LongLongMap {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private long[] keys;
+    private long[] values;
+    private int[] slots; //index of entry + 1, 0 for empty slot
+    private int size;
+
+    /**
+     * Construct a new map with default initial capacity.
+     */
+    public LongLongMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct a new map.
+     *
+     * @param initialCapacity number of entries the map can hold before it needs to grow.
+     */
+    public LongLongMap(int initialCapacity) {
+        int capacity = Math.max(2, initialCapacity);
+        keys = new long[capacity];
+        values = new long[capacity];
+        slots = new int[tableSizeFor(capacity)];
+    }
+
+    /**
+     * Get the value associated with a key.
+     *
+     * @param key          to look up.
+     * @param defaultValue to return if there is no value associated with the key.
+     * @return value, <code>defaultValue</code> if there is none.
+     */
+    public long get(long key, long defaultValue) {
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    /**
+     * Check whether a key is present in the map.
+     *
+     * @param key to look up.
+     * @return true iff the key is present.
+     */
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Associate a value with a key, replacing the previous value, if any.
+     *
+     * @param key   key.
+     * @param value value.
+     */
+    public void put(long key, long value) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+
+        while (slots[slot] != 0) {
+            int index = slots[slot] - 1;
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == keys.length) {
+            grow();
+            put(key, value);
+            return;
+        }
+
+        keys[size] = key;
+        values[size] = value;
+        slots[slot] = ++size;
+    }
+
+    /**
+     * @return number of entries in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true iff the map has no entries.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the key of the i-th entry, in insertion order. Allows iterating over the map without allocating.
+     *
+     * @param i index of the entry, 0 &lt;= i &lt; {@link #size()}.
+     * @return key.
+     */
+    public long keyAt(int i) {
+        checkIndex(i);
+        return keys[i];
+    }
+
+    /**
+     * Get the value of the i-th entry, in insertion order. Allows iterating over the map without allocating.
+     *
+     * @param i index of the entry, 0 &lt;= i &lt; {@link #size()}.
+     * @return value.
+     */
+    public long valueAt(int i) {
+        checkIndex(i);
+        return values[i];
+    }
+
+    private int indexOf(long key) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+
+        while (slots[slot] != 0) {
+            int index = slots[slot] - 1;
+            if (keys[index] == key) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        slots = new int[tableSizeFor(capacity)];
+
+        int mask = slots.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = hash(keys[index]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index + 1;
+        }
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+        }
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1; //load factor at most 0.5
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -18,6 +18,7 @@ package com.graphaware.common.policy;
 
 import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
 import org.junit.Test;
+import org.mockito.Matchers;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
@@ -27,8 +28,15 @@ import org.neo4j.test.TestGraphDatabaseFactory;
 import static com.graphaware.common.description.predicate.Predicates.equalTo;
 import static com.graphaware.common.description.predicate.Predicates.undefined;
 import static com.graphaware.common.util.DatabaseUtils.registerShutdownHook;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.neo4j.graphdb.Label.label;
 
 /**
@@ -70,4 +78,42 @@ public class IncludeNodesTest {
 
         database.shutdown();
     }
+
+    @Test
+    public void shouldOnlyEvaluateConfiguredPropertiesOfWideNodes() {
+        GraphDatabaseService database = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        registerShutdownHook(database);
+
+        try (Transaction tx = database.beginTx()) {
+            Node n = database.createNode(label("Test"));
+            for (int i = 0; i < 50; i++) {
+                n.setProperty("key" + i, i);
+            }
+
+            //each policy reads only the properties it has predicates for, and stops at the first mismatch
+            assertEvaluation(n, IncludeNodes.all().with("key25", equalTo(25)), true, 1);
+            assertEvaluation(n, IncludeNodes.all().with("key25", equalTo(25)).with("key49", equalTo(49)), true, 2);
+            assertEvaluation(n, IncludeNodes.all().with("key50", undefined()), true, 1);
+
+            assertEvaluation(n, IncludeNodes.all().with("key25", equalTo(24)), false, 1);
+            assertEvaluation(n, IncludeNodes.all().with("key0", equalTo(0)).with("key1", equalTo(0)), false, 2);
+            assertEvaluation(n, IncludeNodes.all().with("key50", equalTo(50)), false, 1);
+
+            tx.success();
+        }
+
+        database.shutdown();
+    }
+
+    private void assertEvaluation(Node node, IncludeNodes policy, boolean expected, int maxPropertyReads) {
+        Node counting = spy(node);
+
+        assertEquals(expected, policy.include(counting));
+
+        verify(counting, atMost(maxPropertyReads)).getProperty(anyString(), any());
+        verify(counting, never()).getProperty(anyString());
+        verify(counting, never()).getAllProperties();
+        verify(counting, never()).getProperties(Matchers.<String>anyVararg());
+        verify(counting, never()).getPropertyKeys();
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.policy.inclusion.composite;
+
+import com.graphaware.common.policy.inclusion.BaseNodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.all.IncludeAllNodes;
+import com.graphaware.common.policy.inclusion.all.IncludeAllRelationships;
+import com.graphaware.common.policy.inclusion.composite.AdaptiveCompositeEntityInclusionPolicy.Statistics;
+import com.graphaware.common.policy.inclusion.none.IncludeNoNodes;
+import com.graphaware.common.policy.inclusion.none.IncludeNoRelationships;
+import org.junit.Test;
+import org.neo4j.graphdb.Node;
+
+import java.util.List;
+
+import static com.graphaware.common.policy.inclusion.composite.AdaptiveCompositeEntityInclusionPolicy.Operator.ALL;
+import static com.graphaware.common.policy.inclusion.composite.AdaptiveCompositeEntityInclusionPolicy.Operator.ANY;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link AdaptiveCompositeEntityInclusionPolicy}.
+ */
+public class AdaptiveCompositeEntityInclusionPolicyTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cannotConstructEmptyCompositePolicy() {
+        AdaptiveCompositeNodeInclusionPolicy.allOf();
+    }
+
+    @Test
+    public void shouldCombineVotesWithCorrectOperator() {
+        for (int samplingRate : new int[]{1, Integer.MAX_VALUE}) {
+            assertTrue(new AdaptiveCompositeNodeInclusionPolicy(new NodeInclusionPolicy[]{IncludeAllNodes.getInstance(), IncludeAllNodes.getInstance()}, ALL, samplingRate, 1).include(null));
+            assertFalse(new AdaptiveCompositeNodeInclusionPolicy(new NodeInclusionPolicy[]{IncludeAllNodes.getInstance(), IncludeNoNodes.getInstance()}, ALL, samplingRate, 1).include(null));
+            assertTrue(new AdaptiveCompositeNodeInclusionPolicy(new NodeInclusionPolicy[]{IncludeNoNodes.getInstance(), IncludeAllNodes.getInstance()}, ANY, samplingRate, 1).include(null));
+            assertFalse(new AdaptiveCompositeNodeInclusionPolicy(new NodeInclusionPolicy[]{IncludeNoNodes.getInstance(), IncludeNoNodes.getInstance()}, ANY, samplingRate, 1).include(null));
+        }
+
+        assertTrue(AdaptiveCompositeRelationshipInclusionPolicy.anyOf(IncludeNoRelationships.getInstance(), IncludeAllRelationships.getInstance()).include(null, null));
+        assertFalse(AdaptiveCompositeRelationshipInclusionPolicy.allOf(IncludeNoRelationships.getInstance(), IncludeAllRelationships.getInstance()).include(null, null));
+    }
+
+    @Test
+    public void cheapSelectivePoliciesShouldBeEvaluatedFirst() {
+        NodeInclusionPolicy expensiveAndPermissive = new SlowPolicy(true);
+        NodeInclusionPolicy cheapAndSelective = IncludeNoNodes.getInstance();
+
+        AdaptiveCompositeNodeInclusionPolicy policy = new AdaptiveCompositeNodeInclusionPolicy(new NodeInclusionPolicy[]{expensiveAndPermissive, cheapAndSelective}, ALL, 1, 10);
+
+        assertEquals(expensiveAndPermissive, policy.getStatistics().get(0).getPolicy());
+
+        for (int i = 0; i < 10; i++) {
+            assertFalse(policy.include(null));
+        }
+
+        List<Statistics> statistics = policy.getStatistics();
+        assertEquals(cheapAndSelective, statistics.get(0).getPolicy());
+        assertEquals(0.0, statistics.get(0).getPassRate(), 0.0);
+        assertEquals(expensiveAndPermissive, statistics.get(1).getPolicy());
+        assertEquals(1.0, statistics.get(1).getPassRate(), 0.0);
+        assertTrue(statistics.get(1).getAverageCost() > statistics.get(0).getAverageCost());
+        assertEquals(5.0, statistics.get(0).getSamples(), 0.0);
+    }
+
+    @Test
+    public void cheapPermissivePoliciesShouldBeEvaluatedFirstInDisjunction() {
+        NodeInclusionPolicy expensiveAndSelective = new SlowPolicy(false);
+        NodeInclusionPolicy cheapAndPermissive = IncludeAllNodes.getInstance();
+
+        AdaptiveCompositeNodeInclusionPolicy policy = new AdaptiveCompositeNodeInclusionPolicy(new NodeInclusionPolicy[]{expensiveAndSelective, cheapAndPermissive}, ANY, 1, 10);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(policy.include(null));
+        }
+
+        assertEquals(cheapAndPermissive, policy.getStatistics().get(0).getPolicy());
+        assertEquals(expensiveAndSelective, policy.getStatistics().get(1).getPolicy());
+    }
+
+    @Test
+    public void operatorShouldBePartOfEquality() {
+        assertEquals(AdaptiveCompositeNodeInclusionPolicy.allOf(IncludeAllNodes.getInstance()), AdaptiveCompositeNodeInclusionPolicy.allOf(IncludeAllNodes.getInstance()));
+        assertNotEquals(AdaptiveCompositeNodeInclusionPolicy.allOf(IncludeAllNodes.getInstance()), AdaptiveCompositeNodeInclusionPolicy.anyOf(IncludeAllNodes.getInstance()));
+    }
+
+    private static class SlowPolicy extends BaseNodeInclusionPolicy {
+
+        private final boolean vote;
+
+        private SlowPolicy(boolean vote) {
+            this.vote = vote;
+        }
+
+        @Override
+        public boolean include(Node node) {
+            long start = System.nanoTime();
+            while (System.nanoTime() - start < 100_000) {
+                //spin
+            }
+            return vote;
+        }
+    }
+}
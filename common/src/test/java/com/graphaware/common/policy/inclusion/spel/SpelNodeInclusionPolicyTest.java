@@ -21,7 +21,10 @@ import org.junit.Test;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.helpers.collection.Iterables;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.*;
+import static org.neo4j.graphdb.Label.label;
 
 /**
  * Unit test for {@link com.graphaware.common.policy.inclusion.spel.SpelNodeInclusionPolicy}.
@@ -55,6 +58,35 @@ public class SpelNodeInclusionPolicyTest extends SpelInclusionPolicyTest {
         policy7 = new SpelNodeInclusionPolicy("hasLabel('Intern') || hasLabel('Employee')");
     }
 
+    @Test
+    public void typedExpressionsShouldBeCompiled() {
+        try (Transaction tx = database.beginTx()) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(simplePolicy1.include(michal()));
+                assertFalse(simplePolicy1.include(vojta()));
+
+                assertTrue(policy1.include(vojta()));
+                assertFalse(policy1.include(london()));
+
+                assertTrue(policy2.include(michal()));
+                assertFalse(policy2.include(graphaware()));
+
+                assertTrue(policy6.include(michal()));
+                assertTrue(policy6.include(vojta()));
+                assertFalse(policy6.include(london()));
+            }
+
+            tx.success();
+        }
+
+        assertTrue(((SpelInclusionPolicy) simplePolicy1).isCompiled());
+        assertTrue(((SpelInclusionPolicy) policy2).isCompiled());
+        assertTrue(((SpelInclusionPolicy) policy6).isCompiled());
+
+        //comparison of an untyped property value can't be compiled, but is still evaluated correctly
+        assertFalse(((SpelInclusionPolicy) policy1).isCompiled());
+    }
+
     @Test
     public void shouldIncludeCorrectNodes() {
         try (Transaction tx = database.beginTx()) {
@@ -123,4 +155,34 @@ public class SpelNodeInclusionPolicyTest extends SpelInclusionPolicyTest {
             tx.success();
         }
     }
+
+    @Test
+    public void shouldGetAllNodesUsingLabelsAndIndexes() {
+        try (Transaction tx = database.beginTx()) {
+            database.schema().indexFor(label("Intern")).on("age").create();
+            tx.success();
+        }
+
+        try (Transaction tx = database.beginTx()) {
+            database.schema().awaitIndexesOnline(10, TimeUnit.SECONDS);
+            database.execute("UNWIND range(1, 10) AS i CREATE (:Intern {name:'Intern' + i, age:20 + i})");
+            database.execute("CREATE (:Intern {name:'Ageless'})");
+            tx.success();
+        }
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(2, Iterables.count(new SpelNodeInclusionPolicy("hasLabel('Intern') && getProperty('age') == 25").getAll(database)));
+            assertEquals(3, Iterables.count(new SpelNodeInclusionPolicy("getProperty('age') >= 28 and hasLabel('Intern')").getAll(database)));
+            assertEquals(2, Iterables.count(new SpelNodeInclusionPolicy("hasLabel('Intern') && 27 < getProperty('age') && getProperty('age') <= 29").getAll(database)));
+            assertEquals(3, Iterables.count(new SpelNodeInclusionPolicy("hasLabel('Intern') && getProperty('age') < 23").getAll(database)));
+            assertEquals(1, Iterables.count(new SpelNodeInclusionPolicy("hasLabel('Intern') && getProperty('age') >= 28 && getProperty('name') == 'Intern9'").getAll(database)));
+            assertEquals(1, Iterables.count(new SpelNodeInclusionPolicy("hasLabel('Employee') && getProperty('name') == 'Michal'").getAll(database)));
+            assertEquals(1, Iterables.count(new SpelNodeInclusionPolicy("hasLabel('Company') && getProperty('name') > 'A'").getAll(database)));
+            assertEquals(1, Iterables.count(new SpelNodeInclusionPolicy("hasLabel('Intern') && getDegree('OUTGOING') > 1").getAll(database)));
+            assertEquals(2, Iterables.count(new SpelNodeInclusionPolicy("hasLabel('Intern') && getProperty('name') == 'Vojta' || hasLabel('Employee')").getAll(database)));
+            assertEquals(vojta(), new SpelNodeInclusionPolicy("hasLabel('Intern') && getProperty('age', 0) == 25 && getProperty('name') == 'Vojta'").getAll(database).iterator().next());
+
+            tx.success();
+        }
+    }
 }
@@ -21,6 +21,7 @@ import org.junit.Test;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.helpers.collection.Iterables;
 
+import static com.graphaware.common.util.IterableUtils.getSingle;
 import static org.junit.Assert.*;
 
 /**
@@ -36,6 +37,28 @@ public class SpelRelationshipInclusionPolicyTest extends SpelInclusionPolicyTest
     private RelationshipInclusionPolicy policy6 = new SpelRelationshipInclusionPolicy("hasProperty('until')");
     private RelationshipInclusionPolicy policy7 = new SpelRelationshipInclusionPolicy("type == 'WORKS_FOR'");
 
+    @Test
+    public void expressionsShouldBeCompiled() {
+        try (Transaction tx = database.beginTx()) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(policy1.include(michalWorksFor()));
+                assertFalse(policy1.include(michalLivesIn()));
+
+                assertTrue(policy3.include(michalLivesIn(), london()));
+                assertFalse(policy3.include(michalLivesIn(), michal()));
+
+                assertTrue(policy4.include(michalWorksFor()));
+                assertFalse(policy4.include(vojtaWorksFor()));
+            }
+
+            tx.success();
+        }
+
+        assertTrue(((SpelInclusionPolicy) policy1).isCompiled());
+        assertTrue(((SpelInclusionPolicy) policy3).isCompiled());
+        assertTrue(((SpelInclusionPolicy) policy4).isCompiled());
+    }
+
     @Test
     public void shouldIncludeCorrectRelationships() {
         try (Transaction tx = database.beginTx()) {
@@ -120,4 +143,18 @@ public class SpelRelationshipInclusionPolicyTest extends SpelInclusionPolicyTest
             tx.success();
         }
     }
+
+    @Test
+    public void shouldGetAllRelationshipsByExpandingFromLabelledNodes() {
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(michalWorksFor(), getSingle(new SpelRelationshipInclusionPolicy("startNode.hasLabel('Employee') && isType('WORKS_FOR')").getAll(database)));
+            assertEquals(vojtaLivesIn(), getSingle(new SpelRelationshipInclusionPolicy("type == 'LIVES_IN' && getStartNode().hasLabel('Intern')").getAll(database)));
+            assertEquals(vojtaWorksFor(), getSingle(new SpelRelationshipInclusionPolicy("getEndNode().hasLabel('Company') && getProperty('since') > 2013").getAll(database)));
+            assertEquals(2, Iterables.count(new SpelRelationshipInclusionPolicy("endNode.hasLabel('Place')").getAll(database)));
+            assertEquals(0, Iterables.count(new SpelRelationshipInclusionPolicy("endNode.hasLabel('Place') && isType('WORKS_FOR')").getAll(database)));
+            assertEquals(3, Iterables.count(new SpelRelationshipInclusionPolicy("startNode.hasLabel('Intern') || endNode.hasLabel('Company')").getAll(database)));
+
+            tx.success();
+        }
+    }
 }
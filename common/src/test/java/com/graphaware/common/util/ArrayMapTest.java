@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link ArrayMap}.
+ */
+public class ArrayMapTest {
+
+    @Test
+    public void shouldBehaveLikeMap() {
+        Map<String, Object> map = new ArrayMap<>(1);
+
+        assertTrue(map.isEmpty());
+        assertNull(map.put("name", "Michal"));
+        assertNull(map.put("age", 30));
+        assertNull(map.put("location", null));
+
+        assertEquals(3, map.size());
+        assertEquals("Michal", map.get("name"));
+        assertEquals(30, map.get("age"));
+        assertNull(map.get("location"));
+        assertTrue(map.containsKey("location"));
+        assertFalse(map.containsKey("unknown"));
+
+        assertEquals(30, map.put("age", 31));
+        assertEquals(31, map.get("age"));
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("name", "Michal");
+        expected.put("age", 31);
+        expected.put("location", null);
+
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void shouldPreserveInsertionOrderAndSupportRemoval() {
+        Map<String, Integer> map = new ArrayMap<>();
+        map.put("c", 3);
+        map.put("a", 1);
+        map.put("b", 2);
+
+        assertEquals(asList("c", "a", "b"), asList(map.keySet().toArray()));
+
+        assertEquals(Integer.valueOf(1), map.remove("a"));
+        assertNull(map.remove("a"));
+        assertEquals(asList("c", "b"), asList(map.keySet().toArray()));
+
+        Iterator<Map.Entry<String, Integer>> iterator = map.entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals("b", iterator.next().getKey());
+        assertFalse(iterator.hasNext());
+        assertEquals(1, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldNotAcceptNullKeys() {
+        new ArrayMap<String, String>().put(null, "value");
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link LongLongMap}.
+ */
+public class LongLongMapTest {
+
+    @Test
+    public void shouldStoreAndRetrieveValues() {
+        LongLongMap map = new LongLongMap();
+
+        assertTrue(map.isEmpty());
+        map.put(0, 10);
+        map.put(-5, -50);
+        map.put(Long.MAX_VALUE, Long.MIN_VALUE);
+
+        assertEquals(3, map.size());
+        assertEquals(10, map.get(0, -1));
+        assertEquals(-50, map.get(-5, -1));
+        assertEquals(Long.MIN_VALUE, map.get(Long.MAX_VALUE, -1));
+        assertEquals(-1, map.get(1, -1));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(1));
+
+        map.put(0, 11);
+        assertEquals(11, map.get(0, -1));
+        assertEquals(3, map.size());
+        assertEquals(0, map.keyAt(0));
+        assertEquals(11, map.valueAt(0));
+    }
+
+    @Test
+    public void shouldBehaveLikeHashMapWhenGrowing() {
+        LongLongMap map = new LongLongMap(2);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            long key = random.nextInt(5_000);
+            map.put(key, i);
+            expected.put(key, (long) i);
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals((long) entry.getValue(), map.get(entry.getKey(), -1));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.common.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link LongObjectMap}.
+ */
+public class LongObjectMapTest {
+
+    @Test
+    public void shouldStoreAndRetrieveValues() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(-5, "minus five"));
+        assertNull(map.put(Long.MAX_VALUE, "max"));
+
+        assertEquals(3, map.size());
+        assertEquals("zero", map.get(0));
+        assertEquals("minus five", map.get(-5));
+        assertEquals("max", map.get(Long.MAX_VALUE));
+        assertNull(map.get(1));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(1));
+
+        assertEquals("zero", map.put(0, "nula"));
+        assertEquals("nula", map.get(0));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void shouldPreserveInsertionOrder() {
+        LongObjectMap<String> map = new LongObjectMap<>(2);
+
+        map.put(30, "c");
+        map.put(10, "a");
+        map.put(20, "b");
+        map.put(10, "A");
+
+        assertEquals(asList("c", "A", "b"), map.values());
+        assertEquals(30, map.keyAt(0));
+        assertEquals(10, map.keyAt(1));
+        assertEquals("b", map.valueAt(2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldNotReturnKeysOutOfBounds() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1, "a");
+        map.keyAt(1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void valuesShouldBeReadOnly() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.values().add("a");
+    }
+
+    @Test
+    public void shouldBehaveLikeHashMapWhenGrowing() {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(50_000) * 1024L;
+            map.put(key, (long) i);
+            expected.put(key, (long) i);
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertFalse(map.containsKey(1));
+    }
+}
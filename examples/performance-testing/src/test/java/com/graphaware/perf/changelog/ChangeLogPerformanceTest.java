@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.perf.changelog;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.runtime.GraphAwareRuntime;
+import com.graphaware.runtime.GraphAwareRuntimeFactory;
+import com.graphaware.runtime.config.AfterCommitDelivery;
+import com.graphaware.runtime.config.FluentTxDrivenModuleConfiguration;
+import com.graphaware.runtime.module.changelog.ChangeLogModule;
+import com.graphaware.runtime.module.changelog.ChangeLogReader;
+import com.graphaware.runtime.module.changelog.ChangeLogRecord;
+import com.graphaware.test.performance.EnumParameter;
+import com.graphaware.test.performance.ExponentialParameter;
+import com.graphaware.test.performance.Parameter;
+import com.graphaware.test.performance.PerformanceTest;
+import com.graphaware.test.util.TestUtils;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Performance test for the throughput of writing transactions with {@link ChangeLogModule} registered.
+ * <p/>
+ * The time to commit all transactions is reported. The time it takes a {@link ChangeLogReader} to stream all
+ * records back is logged.
+ */
+public class ChangeLogPerformanceTest implements PerformanceTest {
+
+    private static final Log LOG = LoggerFactory.getLogger(ChangeLogPerformanceTest.class);
+
+    private static final String DELIVERY = "delivery";
+    private static final String TX_SIZE = "txSize";
+
+    private static final int NUMBER_OF_NODES = 10_000;
+    private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    enum Delivery {
+        NO_MODULE,
+        SYNCHRONOUS,
+        ASYNCHRONOUS
+    }
+
+    @Override
+    public String shortName() {
+        return "changeLog";
+    }
+
+    @Override
+    public String longName() {
+        return "Write transactions with the change log module registered";
+    }
+
+    @Override
+    public List<Parameter> parameters() {
+        List<Parameter> result = new LinkedList<>();
+
+        result.add(new EnumParameter(DELIVERY, Delivery.class));
+        result.add(new ExponentialParameter(TX_SIZE, 10, 0, 3, 1));
+
+        return result;
+    }
+
+    @Override
+    public int dryRuns(Map<String, Object> params) {
+        return 1;
+    }
+
+    @Override
+    public int measuredRuns() {
+        return 3;
+    }
+
+    @Override
+    public Map<String, String> databaseParameters(Map<String, Object> params) {
+        return null;
+    }
+
+    @Override
+    public void prepare(GraphDatabaseService database, Map<String, Object> params) {
+    }
+
+    @Override
+    public long run(GraphDatabaseService database, Map<String, Object> params) {
+        Delivery delivery = (Delivery) params.get(DELIVERY);
+        int txSize = (Integer) params.get(TX_SIZE);
+
+        File directory = createDirectory();
+        ChangeLogModule module = null;
+
+        if (delivery != Delivery.NO_MODULE) {
+            AfterCommitDelivery afterCommitDelivery = delivery == Delivery.ASYNCHRONOUS ? AfterCommitDelivery.asynchronous() : AfterCommitDelivery.SYNCHRONOUS;
+            module = new ChangeLogModule("CL", FluentTxDrivenModuleConfiguration.defaultConfiguration().withAfterCommitDelivery(afterCommitDelivery), directory, SEGMENT_SIZE);
+
+            GraphAwareRuntime runtime = GraphAwareRuntimeFactory.createRuntime(database);
+            runtime.registerModule(module);
+            runtime.start();
+            runtime.waitUntilStarted();
+        }
+
+        long time = TestUtils.time(() -> {
+            for (int i = 0; i < NUMBER_OF_NODES / txSize; i++) {
+                try (Transaction tx = database.beginTx()) {
+                    for (int j = 0; j < txSize; j++) {
+                        Node node = database.createNode(Label.label("Person"));
+                        node.setProperty("name", "Person " + i + "-" + j);
+                        node.setProperty("age", j);
+                    }
+                    tx.success();
+                }
+            }
+        });
+
+        if (module != null) {
+            logReadTime(module);
+        }
+
+        deleteDirectory(directory);
+
+        return time;
+    }
+
+    @Override
+    public RebuildDatabase rebuildDatabase() {
+        return RebuildDatabase.AFTER_EVERY_RUN;
+    }
+
+    @Override
+    public boolean rebuildDatabase(Map<String, Object> params) {
+        return false;
+    }
+
+    private void logReadTime(ChangeLogModule module) {
+        final int[] records = {0};
+
+        long time = TestUtils.time(() -> {
+            try (ChangeLogReader reader = module.newReader()) {
+                long offset = reader.getStartOffset();
+                List<ChangeLogRecord> read;
+                while (!(read = reader.read(offset, 1000)).isEmpty()) {
+                    for (ChangeLogRecord record : read) {
+                        record.getOperations();
+                        records[0]++;
+                    }
+                    offset = read.get(read.size() - 1).getNextOffset();
+                }
+            }
+        });
+
+        LOG.info("Read " + records[0] + " change log records in " + time + " ms");
+    }
+
+    private File createDirectory() {
+        try {
+            return Files.createTempDirectory("changelog").toFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteDirectory(File directory) {
+        try {
+            FileUtils.deleteRecursively(directory);
+        } catch (IOException e) {
+            LOG.warn("Could not delete " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.perf.fluent;
+
+import com.graphaware.common.description.property.LiteralPropertiesDescription;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
+import com.graphaware.test.performance.EnumParameter;
+import com.graphaware.test.performance.ExponentialParameter;
+import com.graphaware.test.performance.Parameter;
+import com.graphaware.test.performance.PerformanceTest;
+import com.graphaware.test.util.TestUtils;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static com.graphaware.common.description.predicate.Predicates.equalTo;
+import static org.neo4j.graphdb.Label.label;
+
+/**
+ * Performance test comparing the evaluation of a fluent node inclusion policy with a single property predicate, which
+ * lazily reads only the property it needs, to matching a literal description of all properties of each node against it.
+ */
+public class IncludeEntitiesPerformanceTest implements PerformanceTest {
+
+    private static final String EVALUATION = "evaluation";
+    private static final String PROPERTIES = "properties";
+
+    private static final int NUMBER_OF_NODES = 10_000;
+    private static final int EVALUATIONS_PER_NODE = 10;
+
+    private static final IncludeNodes POLICY = IncludeNodes.all().with("Person").with("key0", equalTo(0));
+
+    enum Evaluation {
+        LITERAL,
+        LAZY
+    }
+
+    @Override
+    public String shortName() {
+        return "includeEntities";
+    }
+
+    @Override
+    public String longName() {
+        return "Evaluate fluent node inclusion policies against nodes with many properties";
+    }
+
+    @Override
+    public List<Parameter> parameters() {
+        List<Parameter> result = new LinkedList<>();
+
+        result.add(new EnumParameter(EVALUATION, Evaluation.class));
+        result.add(new ExponentialParameter(PROPERTIES, 10, 0, 2, 1));
+
+        return result;
+    }
+
+    @Override
+    public int dryRuns(Map<String, Object> params) {
+        return 2;
+    }
+
+    @Override
+    public int measuredRuns() {
+        return 10;
+    }
+
+    @Override
+    public Map<String, String> databaseParameters(Map<String, Object> params) {
+        return null;
+    }
+
+    @Override
+    public void prepare(GraphDatabaseService database, Map<String, Object> params) {
+        int properties = (int) params.get(PROPERTIES);
+
+        try (Transaction tx = database.beginTx()) {
+            for (int i = 0; i < NUMBER_OF_NODES; i++) {
+                Node node = database.createNode(label("Person"));
+                for (int j = 0; j < properties; j++) {
+                    node.setProperty("key" + j, (i + j) % 2);
+                }
+            }
+            tx.success();
+        }
+    }
+
+    @Override
+    public long run(GraphDatabaseService database, Map<String, Object> params) {
+        Predicate<Node> predicate = predicate((Evaluation) params.get(EVALUATION));
+
+        final int[] included = {0};
+        try (Transaction tx = database.beginTx()) {
+            long time = TestUtils.time(() -> {
+                for (Node node : database.getAllNodes()) {
+                    for (int i = 0; i < EVALUATIONS_PER_NODE; i++) {
+                        if (predicate.test(node)) {
+                            included[0]++;
+                        }
+                    }
+                }
+            });
+
+            tx.success();
+            return time;
+        }
+    }
+
+    @Override
+    public RebuildDatabase rebuildDatabase() {
+        return RebuildDatabase.AFTER_PARAM_CHANGE;
+    }
+
+    @Override
+    public boolean rebuildDatabase(Map<String, Object> params) {
+        return false;
+    }
+
+    private Predicate<Node> predicate(Evaluation evaluation) {
+        switch (evaluation) {
+            case LITERAL:
+                return node -> node.hasLabel(label("Person")) && new LiteralPropertiesDescription(node).isMoreSpecificThan(POLICY.getPropertiesDescription());
+            case LAZY:
+                return POLICY::include;
+            default:
+                throw new IllegalStateException("Unknown evaluation");
+        }
+    }
+}
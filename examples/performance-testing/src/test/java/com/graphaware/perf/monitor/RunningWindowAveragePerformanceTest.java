@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.perf.monitor;
+
+import com.graphaware.common.util.BoundedConcurrentStack;
+import com.graphaware.common.util.Pair;
+import com.graphaware.runtime.monitor.RunningWindowAverage;
+import com.graphaware.runtime.schedule.TimingStrategy;
+import com.graphaware.test.performance.EnumParameter;
+import com.graphaware.test.performance.ExponentialParameter;
+import com.graphaware.test.performance.Parameter;
+import com.graphaware.test.performance.PerformanceTest;
+import com.graphaware.test.util.TestUtils;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Performance test comparing the ring buffer based {@link RunningWindowAverage} to the previous implementation backed
+ * by a {@link BoundedConcurrentStack} of boxed samples. Each run takes a sample and queries the average many times, the
+ * way load monitors do on every scheduled task.
+ * <p/>
+ * Depending on the {@link Measurement} parameter, a run reports either the time it took in microseconds, or the number
+ * of bytes the measuring thread allocated in the meantime.
+ */
+public class RunningWindowAveragePerformanceTest implements PerformanceTest {
+
+    private static final String IMPLEMENTATION = "implementation";
+    private static final String MEASUREMENT = "measurement";
+    private static final String SAMPLES = "samples";
+
+    private static final int ITERATIONS = 1_000_000;
+    private static final int MAX_TIME = 10_000;
+
+    enum Implementation {
+        RING_BUFFER,
+        BOUNDED_STACK
+    }
+
+    enum Measurement {
+        TIME,
+        ALLOCATED_BYTES
+    }
+
+    @Override
+    public String shortName() {
+        return "runningWindowAverage";
+    }
+
+    @Override
+    public String longName() {
+        return "Sample and query running window averages";
+    }
+
+    @Override
+    public List<Parameter> parameters() {
+        List<Parameter> result = new LinkedList<>();
+
+        result.add(new EnumParameter(IMPLEMENTATION, Implementation.class));
+        result.add(new EnumParameter(MEASUREMENT, Measurement.class));
+        result.add(new ExponentialParameter(SAMPLES, 10, 1, 3, 1));
+
+        return result;
+    }
+
+    @Override
+    public int dryRuns(Map<String, Object> params) {
+        return 5;
+    }
+
+    @Override
+    public int measuredRuns() {
+        return 20;
+    }
+
+    @Override
+    public Map<String, String> databaseParameters(Map<String, Object> params) {
+        return null;
+    }
+
+    @Override
+    public void prepare(GraphDatabaseService database, Map<String, Object> params) {
+        //no need for any data
+    }
+
+    @Override
+    public long run(GraphDatabaseService database, Map<String, Object> params) {
+        Average average = average((Implementation) params.get(IMPLEMENTATION), (int) params.get(SAMPLES));
+        final long[] result = {0};
+
+        switch ((Measurement) params.get(MEASUREMENT)) {
+            case TIME:
+                return TestUtils.time(() -> result[0] = exercise(average));
+            case ALLOCATED_BYTES:
+                com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+                long threadId = Thread.currentThread().getId();
+                long before = threadBean.getThreadAllocatedBytes(threadId);
+                result[0] = exercise(average);
+                return threadBean.getThreadAllocatedBytes(threadId) - before;
+            default:
+                throw new IllegalStateException("Unknown measurement");
+        }
+    }
+
+    @Override
+    public RebuildDatabase rebuildDatabase() {
+        return RebuildDatabase.NEVER;
+    }
+
+    @Override
+    public boolean rebuildDatabase(Map<String, Object> params) {
+        return false;
+    }
+
+    private long exercise(Average average) {
+        long result = 0;
+        for (long i = 0; i < ITERATIONS; i++) {
+            average.sample(i * 10, i * 3);
+            result += average.getAverage();
+        }
+        return result;
+    }
+
+    private Average average(Implementation implementation, int samples) {
+        switch (implementation) {
+            case RING_BUFFER:
+                RunningWindowAverage ringBuffer = new RunningWindowAverage(samples, MAX_TIME);
+                return new Average() {
+                    @Override
+                    public void sample(long time, long value) {
+                        ringBuffer.sample(time, value);
+                    }
+
+                    @Override
+                    public long getAverage() {
+                        return ringBuffer.getAverage();
+                    }
+                };
+            case BOUNDED_STACK:
+                return new BoundedStackAverage(samples, MAX_TIME);
+            default:
+                throw new IllegalStateException("Unknown implementation");
+        }
+    }
+
+    private interface Average {
+
+        void sample(long time, long value);
+
+        long getAverage();
+    }
+
+    /**
+     * The previous implementation of {@link RunningWindowAverage}, kept here as the baseline.
+     */
+    private static class BoundedStackAverage implements Average {
+
+        private final BoundedConcurrentStack<Pair<Long, Long>> timesAndValues;
+        private final int maxTime;
+
+        BoundedStackAverage(int maxSamples, int maxTime) {
+            this.timesAndValues = new BoundedConcurrentStack<>(maxSamples);
+            this.maxTime = maxTime;
+        }
+
+        @Override
+        public void sample(long time, long value) {
+            timesAndValues.push(new Pair<>(time, value));
+        }
+
+        @Override
+        public long getAverage() {
+            if (timesAndValues.isEmpty()) {
+                return TimingStrategy.UNKNOWN;
+            }
+
+            Iterator<Pair<Long, Long>> iterator = timesAndValues.iterator();
+            Pair<Long, Long> latest = iterator.next();
+            long latestTime = latest.first();
+            long latestValue = latest.second();
+
+            if (!iterator.hasNext()) {
+                return TimingStrategy.UNKNOWN;
+            }
+
+            long pastTime = 0;
+            long pastValue = 0;
+
+            while (iterator.hasNext()) {
+                Pair<Long, Long> next = iterator.next();
+
+                if (latestTime - next.first() > maxTime) {
+                    break;
+                }
+
+                pastTime = next.first();
+                pastValue = next.second();
+            }
+
+            int period = (int) (latestTime - pastTime);
+
+            if (period < 1) {
+                return TimingStrategy.UNKNOWN;
+            }
+
+            return ((latestValue - pastValue) * 1000) / period;
+        }
+    }
+}
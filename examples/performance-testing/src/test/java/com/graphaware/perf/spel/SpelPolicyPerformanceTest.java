@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.perf.spel;
+
+import com.graphaware.common.policy.inclusion.spel.SpelNodeInclusionPolicy;
+import com.graphaware.common.representation.AttachedNode;
+import com.graphaware.test.performance.EnumParameter;
+import com.graphaware.test.performance.ObjectParameter;
+import com.graphaware.test.performance.Parameter;
+import com.graphaware.test.performance.PerformanceTest;
+import com.graphaware.test.util.TestUtils;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Performance test comparing the evaluation of SPEL-based node inclusion policies, which are compiled where possible and
+ * evaluated against reused representations, to plain interpreted SPEL evaluated against a new representation of
+ * every node.
+ */
+public class SpelPolicyPerformanceTest implements PerformanceTest {
+
+    private static final String EVALUATION = "evaluation";
+    private static final String EXPRESSION = "expression";
+
+    private static final int NUMBER_OF_NODES = 10_000;
+    private static final int EVALUATIONS_PER_NODE = 10;
+
+    enum Evaluation {
+        INTERPRETED,
+        POLICY
+    }
+
+    @Override
+    public String shortName() {
+        return "spelPolicy";
+    }
+
+    @Override
+    public String longName() {
+        return "Evaluate SPEL node inclusion policies";
+    }
+
+    @Override
+    public List<Parameter> parameters() {
+        List<Parameter> result = new LinkedList<>();
+
+        result.add(new EnumParameter(EVALUATION, Evaluation.class));
+        result.add(new ObjectParameter<>(EXPRESSION,
+                "hasLabel('Person')",
+                "hasLabel('Person') && degree > 0",
+                "hasLabel('Person') && getProperty('age', 0) > 18"));
+
+        return result;
+    }
+
+    @Override
+    public int dryRuns(Map<String, Object> params) {
+        return 2;
+    }
+
+    @Override
+    public int measuredRuns() {
+        return 10;
+    }
+
+    @Override
+    public Map<String, String> databaseParameters(Map<String, Object> params) {
+        return null;
+    }
+
+    @Override
+    public void prepare(GraphDatabaseService database, Map<String, Object> params) {
+        try (Transaction tx = database.beginTx()) {
+            for (int i = 0; i < NUMBER_OF_NODES; i++) {
+                Node node = database.createNode(i % 2 == 0 ? Label.label("Person") : Label.label("Company"));
+                node.setProperty("age", i % 50);
+            }
+            tx.success();
+        }
+    }
+
+    @Override
+    public long run(GraphDatabaseService database, Map<String, Object> params) {
+        Predicate<Node> predicate = predicate((Evaluation) params.get(EVALUATION), (String) params.get(EXPRESSION));
+
+        final int[] included = {0};
+        try (Transaction tx = database.beginTx()) {
+            long time = TestUtils.time(() -> {
+                for (Node node : database.getAllNodes()) {
+                    for (int i = 0; i < EVALUATIONS_PER_NODE; i++) {
+                        if (predicate.test(node)) {
+                            included[0]++;
+                        }
+                    }
+                }
+            });
+
+            tx.success();
+            return time;
+        }
+    }
+
+    @Override
+    public RebuildDatabase rebuildDatabase() {
+        return RebuildDatabase.NEVER;
+    }
+
+    @Override
+    public boolean rebuildDatabase(Map<String, Object> params) {
+        return false;
+    }
+
+    private Predicate<Node> predicate(Evaluation evaluation, String expression) {
+        switch (evaluation) {
+            case INTERPRETED:
+                Expression exp = new SpelExpressionParser().parseExpression(expression);
+                return node -> (Boolean) exp.getValue(new AttachedNode(node));
+            case POLICY:
+                return new SpelNodeInclusionPolicy(expression)::include;
+            default:
+                throw new IllegalStateException("Unknown evaluation");
+        }
+    }
+}
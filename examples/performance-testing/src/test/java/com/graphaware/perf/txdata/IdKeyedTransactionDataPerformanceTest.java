@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.perf.txdata;
+
+import com.graphaware.common.util.ArrayMap;
+import com.graphaware.common.util.LongObjectMap;
+import com.graphaware.test.performance.EnumParameter;
+import com.graphaware.test.performance.ExponentialParameter;
+import com.graphaware.test.performance.Parameter;
+import com.graphaware.test.performance.PerformanceTest;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static org.neo4j.graphdb.Label.label;
+
+/**
+ * Performance test comparing the primitive ID-keyed structures used by
+ * {@link com.graphaware.tx.event.improved.data.lazy.LazyEntityTransactionData} ({@link LongObjectMap} of entities and
+ * of {@link ArrayMap}s of properties) to the boxed {@link HashMap}s they replaced, on a single large transaction.
+ * <p/>
+ * Each run commits a transaction creating many nodes with a few properties each. A {@link TransactionEventHandler}
+ * indexes the created nodes and their assigned properties by node ID, the way the lazy transaction data does, and
+ * then looks every node and its properties up. Only the time spent in the handler is measured. Depending on the
+ * {@link Measurement} parameter, a run reports either that time in microseconds, or the number of bytes the handler
+ * allocated.
+ */
+public class IdKeyedTransactionDataPerformanceTest implements PerformanceTest {
+
+    private static final String STRUCTURE = "structure";
+    private static final String MEASUREMENT = "measurement";
+    private static final String NODES = "nodes";
+
+    private static final int PROPERTIES_PER_NODE = 3;
+
+    enum Structure {
+        ID_KEYED,
+        BOXED_HASH_MAP
+    }
+
+    enum Measurement {
+        TIME,
+        ALLOCATED_BYTES
+    }
+
+    @Override
+    public String shortName() {
+        return "idKeyedTransactionData";
+    }
+
+    @Override
+    public String longName() {
+        return "Index entities and properties of a large transaction by ID";
+    }
+
+    @Override
+    public List<Parameter> parameters() {
+        List<Parameter> result = new LinkedList<>();
+
+        result.add(new EnumParameter(STRUCTURE, Structure.class));
+        result.add(new EnumParameter(MEASUREMENT, Measurement.class));
+        result.add(new ExponentialParameter(NODES, 10, 3, 5, 1));
+
+        return result;
+    }
+
+    @Override
+    public int dryRuns(Map<String, Object> params) {
+        return 3;
+    }
+
+    @Override
+    public int measuredRuns() {
+        return 10;
+    }
+
+    @Override
+    public Map<String, String> databaseParameters(Map<String, Object> params) {
+        return null;
+    }
+
+    @Override
+    public void prepare(GraphDatabaseService database, Map<String, Object> params) {
+        //no need for any data, each run creates its own
+    }
+
+    @Override
+    public long run(GraphDatabaseService database, Map<String, Object> params) {
+        IndexingHandler handler = new IndexingHandler((Structure) params.get(STRUCTURE), (Measurement) params.get(MEASUREMENT));
+        database.registerTransactionEventHandler(handler);
+
+        try (Transaction tx = database.beginTx()) {
+            int nodes = (int) params.get(NODES);
+            for (int i = 0; i < nodes; i++) {
+                Node node = database.createNode(label("Person"));
+                for (int j = 0; j < PROPERTIES_PER_NODE; j++) {
+                    node.setProperty("key" + j, i + j);
+                }
+            }
+            tx.success();
+        } finally {
+            database.unregisterTransactionEventHandler(handler);
+        }
+
+        return handler.result;
+    }
+
+    @Override
+    public RebuildDatabase rebuildDatabase() {
+        return RebuildDatabase.AFTER_PARAM_CHANGE;
+    }
+
+    @Override
+    public boolean rebuildDatabase(Map<String, Object> params) {
+        return false;
+    }
+
+    private static class IndexingHandler extends TransactionEventHandler.Adapter<Void> {
+
+        private final Structure structure;
+        private final Measurement measurement;
+        private long result;
+
+        IndexingHandler(Structure structure, Measurement measurement) {
+            this.structure = structure;
+            this.measurement = measurement;
+        }
+
+        @Override
+        public Void beforeCommit(TransactionData data) {
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            long bytesBefore = threadBean.getThreadAllocatedBytes(threadId);
+            long timeBefore = System.nanoTime();
+
+            long found = structure == Structure.ID_KEYED ? idKeyed(data) : boxed(data);
+
+            long time = (System.nanoTime() - timeBefore) / 1000;
+            long bytes = threadBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            if (found == 0) {
+                throw new IllegalStateException("Nothing was indexed, this is a bug.");
+            }
+
+            result = measurement == Measurement.TIME ? time : bytes;
+            return null;
+        }
+
+        private long idKeyed(TransactionData data) {
+            LongObjectMap<Node> created = new LongObjectMap<>();
+            for (Node node : data.createdNodes()) {
+                created.put(node.getId(), node);
+            }
+
+            LongObjectMap<ArrayMap<String, Object>> assigned = new LongObjectMap<>();
+            for (PropertyEntry<Node> entry : data.assignedNodeProperties()) {
+                long id = entry.entity().getId();
+                ArrayMap<String, Object> properties = assigned.get(id);
+                if (properties == null) {
+                    properties = new ArrayMap<>();
+                    assigned.put(id, properties);
+                }
+                properties.put(entry.key(), entry.value());
+            }
+
+            long found = 0;
+            for (int i = 0; i < created.size(); i++) {
+                long id = created.keyAt(i);
+                if (created.containsKey(id) && assigned.get(id).containsKey("key0")) {
+                    found++;
+                }
+            }
+            return found;
+        }
+
+        private long boxed(TransactionData data) {
+            Map<Long, Node> created = new HashMap<>();
+            for (Node node : data.createdNodes()) {
+                created.put(node.getId(), node);
+            }
+
+            Map<Long, Map<String, Object>> assigned = new HashMap<>();
+            for (PropertyEntry<Node> entry : data.assignedNodeProperties()) {
+                Long id = entry.entity().getId();
+                Map<String, Object> properties = assigned.get(id);
+                if (properties == null) {
+                    properties = new HashMap<>();
+                    assigned.put(id, properties);
+                }
+                properties.put(entry.key(), entry.value());
+            }
+
+            long found = 0;
+            for (Long id : created.keySet()) {
+                if (created.containsKey(id) && assigned.get(id).containsKey("key0")) {
+                    found++;
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.graphaware.runtime.config;
 
 import com.graphaware.common.ping.StatsCollector;
+import com.graphaware.runtime.schedule.SchedulingConfig;
 import com.graphaware.runtime.schedule.TimingStrategy;
 import com.graphaware.runtime.write.WritingConfig;
 import org.neo4j.kernel.configuration.Config;
@@ -58,6 +59,13 @@ public interface RuntimeConfiguration {
      */
     TimingStrategy getTimingStrategy();
 
+    /**
+     * Retrieves the {@link SchedulingConfig} used for configuring the scheduler of {@link com.graphaware.runtime.module.TimerDrivenModule}s.
+     *
+     * @return The {@link SchedulingConfig}, may not be null.
+     */
+    SchedulingConfig getSchedulingConfig();
+
     /**
      * Retrieves the {@link WritingConfig} used for configuring a {@link com.graphaware.writer.neo4j.Neo4jWriter}.
      *
@@ -65,6 +73,17 @@ public interface RuntimeConfiguration {
      */
     WritingConfig getWritingConfig();
 
+    /**
+     * Retrieves the number of created, deleted, and changed properties in a single transaction above which the
+     * transaction data handed to {@link com.graphaware.runtime.module.TxDrivenModule}s keeps properties in a temporary
+     * file rather than on heap.
+     *
+     * @return spill threshold, {@link Long#MAX_VALUE} (the default) for never spilling.
+     */
+    default long getTransactionDataSpillThreshold() {
+        return Long.MAX_VALUE;
+    }
+
     /**
      * @return statistics collector.
      */
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+/**
+ * A configuration of the task scheduler delegating work to timer-driven modules for the purposes of the framework.
+ */
+public interface SchedulingConfig {
+
+    /**
+     * Get the type of the task scheduler.
+     *
+     * @return scheduler type.
+     */
+    TaskSchedulerType getSchedulerType();
+
+    /**
+     * Get the number of threads performing work of timer-driven modules. A single module is only ever delegated to by
+     * one thread at a time, so there is no point having more threads than there are timer-driven modules.
+     *
+     * @return number of worker threads, at least 1.
+     */
+    int getWorkerThreads();
+
+    /**
+     * Get the number of additional threads performing work of timer-driven modules while the {@link TimingStrategy} is
+     * bursting (see {@link TimingStrategy#isBursting()}), i.e. when the database is idle. The additional threads stop
+     * as soon as the burst is over.
+     *
+     * @return number of additional worker threads, 0 for none.
+     */
+    int getBurstWorkerThreads();
+
+    /**
+     * Get the maximum number of tasks a timer-driven module performs before its latest context is persisted (checkpointed).
+     * With the default of 1, the context is persisted in the same transaction as the work that produced it. With higher
+     * values, the latest context is only kept in memory between checkpoints, which saves a lot of tiny writes on a busy
+     * scheduler. In case of a crash, modules resume from their last checkpoint, i.e. the work done since then is
+     * performed again (at-least-once semantics). All contexts that haven't been persisted yet are persisted when the
+     * scheduler stops.
+     *
+     * @return maximum number of tasks between checkpoints, at least 1.
+     */
+    int getMaxTasksBetweenCheckpoints();
+
+    /**
+     * Get the maximum time that can pass since the last checkpoint of a timer-driven module, before its latest context is
+     * persisted again, regardless of {@link #getMaxTasksBetweenCheckpoints()}. Checkpoints only ever happen after a task,
+     * so this is a limit on the age of the checkpoint of modules that are being delegated to.
+     *
+     * @return maximum time between checkpoints in ms, 0 for no time-based checkpointing.
+     */
+    long getMaxMillisBetweenCheckpoints();
+}
@@ -17,6 +17,7 @@
 package com.graphaware.runtime;
 
 import com.graphaware.runtime.config.RuntimeConfiguration;
+import com.graphaware.runtime.manager.AfterCommitQueueMetrics;
 import com.graphaware.runtime.manager.TxDrivenModuleManager;
 import com.graphaware.runtime.module.RuntimeModule;
 import com.graphaware.runtime.module.TxDrivenModule;
@@ -67,13 +68,13 @@ public abstract class TxDrivenRuntime<T extends TxDrivenModule> extends BaseGrap
      */
     @Override
     public Map<String, Object> beforeCommit(TransactionData data) throws Exception {
-        LazyTransactionData transactionData = new LazyTransactionData(data);
+        try (LazyTransactionData transactionData = new LazyTransactionData(data, getConfiguration().getTransactionDataSpillThreshold())) {
+            if (!isStarted(transactionData)) {
+                return null;
+            }
 
-        if (!isStarted(transactionData)) {
-            return null;
+            return getTxDrivenModuleManager().beforeCommit(transactionData);
         }
-
-        return getTxDrivenModuleManager().beforeCommit(transactionData);
     }
 
     /**
@@ -122,6 +123,17 @@ public abstract class TxDrivenRuntime<T extends TxDrivenModule> extends BaseGrap
         return getTxDrivenModuleManager().getModule(clazz);
     }
 
+    /**
+     * Get metrics of the queue of states waiting to be delivered to a module after commit.
+     *
+     * @param moduleId ID of the module.
+     * @return metrics, <code>null</code> if no such module has been registered, or if it is configured to receive states
+     * synchronously (see {@link com.graphaware.runtime.config.AfterCommitDelivery}).
+     */
+    public AfterCommitQueueMetrics getAfterCommitQueueMetrics(String moduleId) {
+        return getTxDrivenModuleManager().getAfterCommitQueueMetrics(moduleId);
+    }
+
     /**
      * {@inheritDoc}
      */
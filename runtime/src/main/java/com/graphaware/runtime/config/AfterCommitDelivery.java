@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.config;
+
+/**
+ * Specifies how the states returned by {@link com.graphaware.runtime.module.TxDrivenModule#beforeCommit(com.graphaware.tx.event.improved.api.ImprovedTransactionData)}
+ * are delivered to {@link com.graphaware.runtime.module.TxDrivenModule#afterCommit(Object)}.
+ * <p>
+ * By default ({@link #SYNCHRONOUS}), the module's {@code afterCommit} is called on the committing thread, so whatever
+ * it does adds to the latency of the commit. With asynchronous delivery, the states are placed onto a bounded
+ * per-module queue and delivered by a pool of worker threads, in the order in which they were queued. What happens
+ * when the queue is full is determined by the {@link OverflowPolicy}.
+ * <p>
+ * Note that {@code afterRollback} is always delivered synchronously.
+ */
+public final class AfterCommitDelivery {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    /**
+     * What to do with a state when the module's queue is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Block the committing thread until there is space in the queue.
+         */
+        BLOCK,
+
+        /**
+         * Discard the state; the module's {@code afterCommit} is never called with it.
+         */
+        DROP,
+
+        /**
+         * Serialize the state to a temporary file and deliver it once the in-memory queue has been drained. Order is
+         * preserved. States that can't be serialized are discarded.
+         */
+        SPILL
+    }
+
+    /**
+     * Deliver states synchronously, on the committing thread.
+     */
+    public static final AfterCommitDelivery SYNCHRONOUS = new AfterCommitDelivery(false, DEFAULT_QUEUE_CAPACITY, OverflowPolicy.BLOCK);
+
+    private final boolean asynchronous;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * Deliver states asynchronously, with a queue of {@link #DEFAULT_QUEUE_CAPACITY}, blocking when it is full.
+     *
+     * @return delivery.
+     */
+    public static AfterCommitDelivery asynchronous() {
+        return asynchronous(DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Deliver states asynchronously, blocking when the queue is full.
+     *
+     * @param queueCapacity maximum number of states held in memory, waiting for delivery. Must be positive.
+     * @return delivery.
+     */
+    public static AfterCommitDelivery asynchronous(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("After-commit queue capacity must be positive, was " + queueCapacity);
+        }
+
+        return new AfterCommitDelivery(true, queueCapacity, OverflowPolicy.BLOCK);
+    }
+
+    private AfterCommitDelivery(boolean asynchronous, int queueCapacity, OverflowPolicy overflowPolicy) {
+        this.asynchronous = asynchronous;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Create a new instance of this delivery with a different overflow policy. Only meaningful for asynchronous delivery.
+     *
+     * @param overflowPolicy of the new instance. Must not be <code>null</code>.
+     * @return new instance.
+     */
+    public AfterCommitDelivery withOverflowPolicy(OverflowPolicy overflowPolicy) {
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Overflow policy must not be null");
+        }
+
+        return new AfterCommitDelivery(asynchronous, queueCapacity, overflowPolicy);
+    }
+
+    /**
+     * @return <code>true</code> iff states are delivered asynchronously.
+     */
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+
+    /**
+     * @return maximum number of states held in memory, waiting for delivery.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return what happens when the queue is full.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        AfterCommitDelivery that = (AfterCommitDelivery) o;
+
+        return asynchronous == that.asynchronous && queueCapacity == that.queueCapacity && overflowPolicy == that.overflowPolicy;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = (asynchronous ? 1 : 0);
+        result = 31 * result + queueCapacity;
+        result = 31 * result + overflowPolicy.hashCode();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return asynchronous ? "AfterCommitDelivery{queueCapacity=" + queueCapacity + ", overflowPolicy=" + overflowPolicy + "}" : "AfterCommitDelivery{synchronous}";
+    }
+}
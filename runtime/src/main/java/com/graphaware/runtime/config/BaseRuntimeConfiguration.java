@@ -17,6 +17,7 @@
 package com.graphaware.runtime.config;
 
 import com.graphaware.common.ping.StatsCollector;
+import com.graphaware.runtime.schedule.SchedulingConfig;
 import com.graphaware.runtime.schedule.TimingStrategy;
 import com.graphaware.runtime.write.WritingConfig;
 import org.neo4j.kernel.configuration.Config;
@@ -28,14 +29,18 @@ public abstract class BaseRuntimeConfiguration implements RuntimeConfiguration {
 
     private final Config config;
     private final TimingStrategy timingStrategy;
+    private final SchedulingConfig schedulingConfig;
     private final WritingConfig writingConfig;
     private final StatsCollector statsCollector;
+    private final long transactionDataSpillThreshold;
 
-    protected BaseRuntimeConfiguration(Config config, TimingStrategy timingStrategy, WritingConfig writingConfig, StatsCollector statsCollector) {
+    protected BaseRuntimeConfiguration(Config config, TimingStrategy timingStrategy, SchedulingConfig schedulingConfig, WritingConfig writingConfig, StatsCollector statsCollector, long transactionDataSpillThreshold) {
         this.config = config;
         this.timingStrategy = timingStrategy;
+        this.schedulingConfig = schedulingConfig;
         this.writingConfig = writingConfig;
         this.statsCollector = statsCollector;
+        this.transactionDataSpillThreshold = transactionDataSpillThreshold;
     }
 
     /**
@@ -46,6 +51,14 @@ public abstract class BaseRuntimeConfiguration implements RuntimeConfiguration {
         return timingStrategy;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SchedulingConfig getSchedulingConfig() {
+        return schedulingConfig;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -62,6 +75,14 @@ public abstract class BaseRuntimeConfiguration implements RuntimeConfiguration {
         return statsCollector;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTransactionDataSpillThreshold() {
+        return transactionDataSpillThreshold;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -90,7 +111,9 @@ public abstract class BaseRuntimeConfiguration implements RuntimeConfiguration {
 
         if (!writingConfig.equals(that.writingConfig)) return false;
         if (!timingStrategy.equals(that.timingStrategy)) return false;
+        if (!schedulingConfig.equals(that.schedulingConfig)) return false;
         if (!statsCollector.equals(that.statsCollector)) return false;
+        if (transactionDataSpillThreshold != that.transactionDataSpillThreshold) return false;
 
         return true;
     }
@@ -101,8 +124,10 @@ public abstract class BaseRuntimeConfiguration implements RuntimeConfiguration {
     @Override
     public int hashCode() {
         int result = timingStrategy.hashCode();
+        result = 31 * result + schedulingConfig.hashCode();
         result = 31 * result + writingConfig.hashCode();
         result = 31 * result + statsCollector.hashCode();
+        result = 31 * result + (int) (transactionDataSpillThreshold ^ (transactionDataSpillThreshold >>> 32));
         return result;
     }
 }
@@ -18,6 +18,7 @@ package com.graphaware.runtime.config;
 
 import com.graphaware.common.policy.role.InstanceRolePolicy;
 
+import static org.springframework.util.Assert.isTrue;
 import static org.springframework.util.Assert.notNull;
 
 /**
@@ -26,15 +27,33 @@ import static org.springframework.util.Assert.notNull;
 public abstract class BaseTimerDrivenModuleConfiguration<T extends BaseTimerDrivenModuleConfiguration<T>> implements TimerDrivenModuleConfiguration {
 
     private final InstanceRolePolicy instanceRolePolicy;
+    private int weight;
+    private int maxSteps;
+    private long timeBudgetMillis;
+    private CpuBudget cpuBudget;
 
     /**
-     * Construct a new configuration.
+     * Construct a new configuration with {@link #DEFAULT_WEIGHT}, running a single step per transaction.
      *
      * @param instanceRolePolicy specifies which role a machine must have in order to run the module with this configuration. Must not be <code>null</code>.
      */
     protected BaseTimerDrivenModuleConfiguration(InstanceRolePolicy instanceRolePolicy) {
+        this(instanceRolePolicy, DEFAULT_WEIGHT, DEFAULT_MAX_STEPS, NO_TIME_BUDGET, CpuBudget.UNLIMITED);
+    }
+
+    /**
+     * Construct a new configuration.
+     *
+     * @param instanceRolePolicy specifies which role a machine must have in order to run the module with this configuration. Must not be <code>null</code>.
+     * @param weight             scheduling weight of the module, must be positive.
+     * @param maxSteps           maximum number of steps performed in a single transaction, must be positive.
+     * @param timeBudgetMillis   time budget for the steps performed in a single transaction, {@link #NO_TIME_BUDGET} for none.
+     * @param cpuBudget          limit on the CPU time used by the module, {@link CpuBudget#UNLIMITED} for none. Must not be <code>null</code>.
+     */
+    protected BaseTimerDrivenModuleConfiguration(InstanceRolePolicy instanceRolePolicy, int weight, int maxSteps, long timeBudgetMillis, CpuBudget cpuBudget) {
         notNull(instanceRolePolicy);
         this.instanceRolePolicy = instanceRolePolicy;
+        setScheduling(this, weight, maxSteps, timeBudgetMillis, cpuBudget);
     }
 
     /**
@@ -45,6 +64,37 @@ public abstract class BaseTimerDrivenModuleConfiguration<T extends BaseTimerDriv
      */
     protected abstract T newInstance(InstanceRolePolicy instanceRolePolicy);
 
+    /**
+     * Create a new instance of this {@link TimerDrivenModuleConfiguration} with different settings.
+     * <p/>
+     * By default, the instance is created by {@link #newInstance(InstanceRolePolicy)} and the scheduling settings are
+     * then set on it, so that subclasses only have to implement that method. Subclasses able to construct an instance
+     * with all the settings directly can override this method.
+     *
+     * @param instanceRolePolicy of the new instance.
+     * @param weight             of the new instance, must be positive.
+     * @param maxSteps           of the new instance, must be positive.
+     * @param timeBudgetMillis   of the new instance, must not be negative.
+     * @param cpuBudget          of the new instance. Must not be <code>null</code>.
+     * @return new instance.
+     */
+    protected T newInstance(InstanceRolePolicy instanceRolePolicy, int weight, int maxSteps, long timeBudgetMillis, CpuBudget cpuBudget) {
+        T instance = newInstance(instanceRolePolicy);
+        setScheduling(instance, weight, maxSteps, timeBudgetMillis, cpuBudget);
+        return instance;
+    }
+
+    private static void setScheduling(BaseTimerDrivenModuleConfiguration<?> configuration, int weight, int maxSteps, long timeBudgetMillis, CpuBudget cpuBudget) {
+        isTrue(weight > 0, "Weight must be positive");
+        isTrue(maxSteps > 0, "Max steps must be positive");
+        isTrue(timeBudgetMillis >= 0, "Time budget must not be negative");
+        notNull(cpuBudget);
+        configuration.weight = weight;
+        configuration.maxSteps = maxSteps;
+        configuration.timeBudgetMillis = timeBudgetMillis;
+        configuration.cpuBudget = cpuBudget;
+    }
+
     /**
      * Get instance role policy encapsulated by this configuration.
      *
@@ -61,7 +111,82 @@ public abstract class BaseTimerDrivenModuleConfiguration<T extends BaseTimerDriv
      * @return new instance.
      */
     public T with(InstanceRolePolicy instanceRolePolicy) {
-        return newInstance(instanceRolePolicy);
+        return newInstance(instanceRolePolicy, weight, maxSteps, timeBudgetMillis, cpuBudget);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Create a new instance of {@link TimerDrivenModuleConfiguration} with different scheduling weight.
+     *
+     * @param weight of the new instance, must be positive.
+     * @return new instance.
+     */
+    public T withWeight(int weight) {
+        return newInstance(instanceRolePolicy, weight, maxSteps, timeBudgetMillis, cpuBudget);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    /**
+     * Create a new instance of {@link TimerDrivenModuleConfiguration} that performs up to the given number of steps in
+     * a single transaction, without a time budget.
+     *
+     * @param maxSteps of the new instance, must be positive.
+     * @return new instance.
+     */
+    public T withMaxSteps(int maxSteps) {
+        return newInstance(instanceRolePolicy, weight, maxSteps, NO_TIME_BUDGET, cpuBudget);
+    }
+
+    /**
+     * Create a new instance of {@link TimerDrivenModuleConfiguration} that performs as many steps in a single transaction
+     * as fit into the given time budget, up to the given maximum number of steps.
+     *
+     * @param maxSteps         of the new instance, must be positive. Use {@link Integer#MAX_VALUE} to only limit by time.
+     * @param timeBudgetMillis of the new instance, must not be negative.
+     * @return new instance.
+     */
+    public T withWorkQuantum(int maxSteps, long timeBudgetMillis) {
+        return newInstance(instanceRolePolicy, weight, maxSteps, timeBudgetMillis, cpuBudget);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CpuBudget getCpuBudget() {
+        return cpuBudget;
+    }
+
+    /**
+     * Create a new instance of {@link TimerDrivenModuleConfiguration} with a limit on the CPU time used by the module.
+     *
+     * @param cpuBudget of the new instance, {@link CpuBudget#UNLIMITED} for none. Must not be <code>null</code>.
+     * @return new instance.
+     */
+    public T withCpuBudget(CpuBudget cpuBudget) {
+        return newInstance(instanceRolePolicy, weight, maxSteps, timeBudgetMillis, cpuBudget);
     }
 
     /**
@@ -81,6 +206,18 @@ public abstract class BaseTimerDrivenModuleConfiguration<T extends BaseTimerDriv
         if (!instanceRolePolicy.equals(that.instanceRolePolicy)) {
             return false;
         }
+        if (weight != that.weight) {
+            return false;
+        }
+        if (maxSteps != that.maxSteps) {
+            return false;
+        }
+        if (timeBudgetMillis != that.timeBudgetMillis) {
+            return false;
+        }
+        if (!cpuBudget.equals(that.cpuBudget)) {
+            return false;
+        }
 
         return true;
     }
@@ -90,6 +227,11 @@ public abstract class BaseTimerDrivenModuleConfiguration<T extends BaseTimerDriv
      */
     @Override
     public int hashCode() {
-        return instanceRolePolicy.hashCode();
+        int result = instanceRolePolicy.hashCode();
+        result = 31 * result + weight;
+        result = 31 * result + maxSteps;
+        result = 31 * result + (int) (timeBudgetMillis ^ (timeBudgetMillis >>> 32));
+        result = 31 * result + cpuBudget.hashCode();
+        return result;
     }
 }
@@ -19,15 +19,22 @@ package com.graphaware.runtime.config;
 import com.graphaware.common.policy.inclusion.InclusionPolicies;
 import com.graphaware.common.policy.role.InstanceRolePolicy;
 
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
 /**
  * Base-class for {@link TimerDrivenModuleConfiguration} implementations.
  */
 public abstract class BaseTxAndTimerDrivenModuleConfiguration<T extends BaseTxAndTimerDrivenModuleConfiguration<T>> extends BaseTxDrivenModuleConfiguration<T> implements TxAndTimerDrivenModuleConfiguration {
 
     private final InstanceRolePolicy instanceRolePolicy;
+    private int weight;
+    private int maxSteps;
+    private long timeBudgetMillis;
+    private CpuBudget cpuBudget;
 
     /**
-     * Construct a new configuration.
+     * Construct a new configuration with {@link #DEFAULT_WEIGHT}, running a single step per transaction.
      *
      * @param inclusionPolicies  policies for inclusion of nodes, relationships, and properties for processing by the module. Must not be <code>null</code>.
      * @param initializeUntil    until what time in ms since epoch it is ok to re(initialize) the entire module in case the configuration
@@ -36,8 +43,27 @@ public abstract class BaseTxAndTimerDrivenModuleConfiguration<T extends BaseTxAn
      * @param instanceRolePolicy specifies which role a machine must have in order to run the module with this configuration. Must not be <code>null</code>.
      */
     public BaseTxAndTimerDrivenModuleConfiguration(InclusionPolicies inclusionPolicies, long initializeUntil, InstanceRolePolicy instanceRolePolicy) {
-        super(inclusionPolicies, initializeUntil);
+        this(inclusionPolicies, initializeUntil, instanceRolePolicy, DEFAULT_WEIGHT, DEFAULT_MAX_STEPS, NO_TIME_BUDGET, CpuBudget.UNLIMITED, AfterCommitDelivery.SYNCHRONOUS);
+    }
+
+    /**
+     * Construct a new configuration.
+     *
+     * @param inclusionPolicies   policies for inclusion of nodes, relationships, and properties for processing by the module. Must not be <code>null</code>.
+     * @param initializeUntil     until what time in ms since epoch it is ok to re(initialize) the entire module in case the configuration
+     *                            has changed since the last time the module was started, or if it is the first time the module was registered.
+     *                            {@link #NEVER} for never, {@link #ALWAYS} for always.
+     * @param instanceRolePolicy  specifies which role a machine must have in order to run the module with this configuration. Must not be <code>null</code>.
+     * @param weight              scheduling weight of the module, must be positive.
+     * @param maxSteps            maximum number of steps performed in a single transaction, must be positive.
+     * @param timeBudgetMillis    time budget for the steps performed in a single transaction, {@link #NO_TIME_BUDGET} for none.
+     * @param cpuBudget           limit on the CPU time used by the module, {@link CpuBudget#UNLIMITED} for none. Must not be <code>null</code>.
+     * @param afterCommitDelivery the way states are delivered to the module after commit. Must not be <code>null</code>.
+     */
+    public BaseTxAndTimerDrivenModuleConfiguration(InclusionPolicies inclusionPolicies, long initializeUntil, InstanceRolePolicy instanceRolePolicy, int weight, int maxSteps, long timeBudgetMillis, CpuBudget cpuBudget, AfterCommitDelivery afterCommitDelivery) {
+        super(inclusionPolicies, initializeUntil, afterCommitDelivery);
         this.instanceRolePolicy = instanceRolePolicy;
+        setScheduling(this, weight, maxSteps, timeBudgetMillis, cpuBudget);
     }
 
     /**
@@ -45,7 +71,15 @@ public abstract class BaseTxAndTimerDrivenModuleConfiguration<T extends BaseTxAn
      */
     @Override
     protected T newInstance(InclusionPolicies inclusionPolicies, long initializeUntil) {
-        return newInstance(inclusionPolicies, initializeUntil, getInstanceRolePolicy());
+        return newInstance(inclusionPolicies, initializeUntil, getAfterCommitDelivery());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected T newInstance(InclusionPolicies inclusionPolicies, long initializeUntil, AfterCommitDelivery afterCommitDelivery) {
+        return newInstance(inclusionPolicies, initializeUntil, instanceRolePolicy, weight, maxSteps, timeBudgetMillis, cpuBudget, afterCommitDelivery);
     }
 
     /**
@@ -58,6 +92,40 @@ public abstract class BaseTxAndTimerDrivenModuleConfiguration<T extends BaseTxAn
      */
     protected abstract T newInstance(InclusionPolicies inclusionPolicies, long initializeUntil, InstanceRolePolicy instanceRolePolicy);
 
+    /**
+     * Create a new instance of this {@link TimerDrivenModuleConfiguration} with different settings.
+     * <p/>
+     * By default, the instance is created by {@link #newInstance(InclusionPolicies, long, InstanceRolePolicy)} and the
+     * remaining settings are then set on it, so that subclasses only have to implement that method. Subclasses able to
+     * construct an instance with all the settings directly can override this method.
+     *
+     * @param inclusionPolicies   of the new instance.
+     * @param initializeUntil     of the new instance.
+     * @param instanceRolePolicy  of the new instance.
+     * @param weight              of the new instance, must be positive.
+     * @param maxSteps            of the new instance, must be positive.
+     * @param timeBudgetMillis    of the new instance, must not be negative.
+     * @param cpuBudget           of the new instance. Must not be <code>null</code>.
+     * @param afterCommitDelivery of the new instance. Must not be <code>null</code>.
+     * @return new instance.
+     */
+    protected T newInstance(InclusionPolicies inclusionPolicies, long initializeUntil, InstanceRolePolicy instanceRolePolicy, int weight, int maxSteps, long timeBudgetMillis, CpuBudget cpuBudget, AfterCommitDelivery afterCommitDelivery) {
+        T instance = newInstance(inclusionPolicies, initializeUntil, instanceRolePolicy);
+        setScheduling(instance, weight, maxSteps, timeBudgetMillis, cpuBudget);
+        return setAfterCommitDelivery(instance, afterCommitDelivery);
+    }
+
+    private static void setScheduling(BaseTxAndTimerDrivenModuleConfiguration<?> configuration, int weight, int maxSteps, long timeBudgetMillis, CpuBudget cpuBudget) {
+        isTrue(weight > 0, "Weight must be positive");
+        isTrue(maxSteps > 0, "Max steps must be positive");
+        isTrue(timeBudgetMillis >= 0, "Time budget must not be negative");
+        notNull(cpuBudget);
+        configuration.weight = weight;
+        configuration.maxSteps = maxSteps;
+        configuration.timeBudgetMillis = timeBudgetMillis;
+        configuration.cpuBudget = cpuBudget;
+    }
+
     /**
      * Get instance role policy encapsulated by this configuration.
      *
@@ -74,7 +142,82 @@ public abstract class BaseTxAndTimerDrivenModuleConfiguration<T extends BaseTxAn
      * @return new instance.
      */
     public T with(InstanceRolePolicy instanceRolePolicy) {
-        return newInstance(getInclusionPolicies(), initializeUntil(), instanceRolePolicy);
+        return newInstance(getInclusionPolicies(), initializeUntil(), instanceRolePolicy, weight, maxSteps, timeBudgetMillis, cpuBudget, getAfterCommitDelivery());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Create a new instance of {@link TimerDrivenModuleConfiguration} with different scheduling weight.
+     *
+     * @param weight of the new instance, must be positive.
+     * @return new instance.
+     */
+    public T withWeight(int weight) {
+        return newInstance(getInclusionPolicies(), initializeUntil(), instanceRolePolicy, weight, maxSteps, timeBudgetMillis, cpuBudget, getAfterCommitDelivery());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    /**
+     * Create a new instance of {@link TimerDrivenModuleConfiguration} that performs up to the given number of steps in
+     * a single transaction, without a time budget.
+     *
+     * @param maxSteps of the new instance, must be positive.
+     * @return new instance.
+     */
+    public T withMaxSteps(int maxSteps) {
+        return newInstance(getInclusionPolicies(), initializeUntil(), instanceRolePolicy, weight, maxSteps, NO_TIME_BUDGET, cpuBudget, getAfterCommitDelivery());
+    }
+
+    /**
+     * Create a new instance of {@link TimerDrivenModuleConfiguration} that performs as many steps in a single transaction
+     * as fit into the given time budget, up to the given maximum number of steps.
+     *
+     * @param maxSteps         of the new instance, must be positive. Use {@link Integer#MAX_VALUE} to only limit by time.
+     * @param timeBudgetMillis of the new instance, must not be negative.
+     * @return new instance.
+     */
+    public T withWorkQuantum(int maxSteps, long timeBudgetMillis) {
+        return newInstance(getInclusionPolicies(), initializeUntil(), instanceRolePolicy, weight, maxSteps, timeBudgetMillis, cpuBudget, getAfterCommitDelivery());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CpuBudget getCpuBudget() {
+        return cpuBudget;
+    }
+
+    /**
+     * Create a new instance of {@link TimerDrivenModuleConfiguration} with a limit on the CPU time used by the module.
+     *
+     * @param cpuBudget of the new instance, {@link CpuBudget#UNLIMITED} for none. Must not be <code>null</code>.
+     * @return new instance.
+     */
+    public T withCpuBudget(CpuBudget cpuBudget) {
+        return newInstance(getInclusionPolicies(), initializeUntil(), instanceRolePolicy, weight, maxSteps, timeBudgetMillis, cpuBudget, getAfterCommitDelivery());
     }
 
     /**
@@ -94,7 +237,11 @@ public abstract class BaseTxAndTimerDrivenModuleConfiguration<T extends BaseTxAn
 
         BaseTxAndTimerDrivenModuleConfiguration<?> that = (BaseTxAndTimerDrivenModuleConfiguration<?>) o;
 
-        return instanceRolePolicy == that.instanceRolePolicy;
+        return instanceRolePolicy == that.instanceRolePolicy
+                && weight == that.weight
+                && maxSteps == that.maxSteps
+                && timeBudgetMillis == that.timeBudgetMillis
+                && cpuBudget.equals(that.cpuBudget);
 
     }
 
@@ -105,6 +252,10 @@ public abstract class BaseTxAndTimerDrivenModuleConfiguration<T extends BaseTxAn
     public int hashCode() {
         int result = super.hashCode();
         result = 31 * result + instanceRolePolicy.hashCode();
+        result = 31 * result + weight;
+        result = 31 * result + maxSteps;
+        result = 31 * result + (int) (timeBudgetMillis ^ (timeBudgetMillis >>> 32));
+        result = 31 * result + cpuBudget.hashCode();
         return result;
     }
 }
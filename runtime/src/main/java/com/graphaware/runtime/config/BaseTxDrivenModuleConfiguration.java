@@ -27,6 +27,7 @@ public abstract class BaseTxDrivenModuleConfiguration<T extends BaseTxDrivenModu
 
     private final InclusionPolicies inclusionPolicies;
     private final long initializeUntil;
+    private AfterCommitDelivery afterCommitDelivery;
 
     /**
      * Construct a new configuration.
@@ -48,9 +49,24 @@ public abstract class BaseTxDrivenModuleConfiguration<T extends BaseTxDrivenModu
      *                          {@link #NEVER} for never, {@link #ALWAYS} for always.
      */
     protected BaseTxDrivenModuleConfiguration(InclusionPolicies inclusionPolicies, long initializeUntil) {
+        this(inclusionPolicies, initializeUntil, AfterCommitDelivery.SYNCHRONOUS);
+    }
+
+    /**
+     * Construct a new configuration.
+     *
+     * @param inclusionPolicies   policies for inclusion of nodes, relationships, and properties for processing by the module. Must not be <code>null</code>.
+     * @param initializeUntil     until what time in ms since epoch it is ok to re(initialize) the entire module in case the configuration
+     *                            has changed since the last time the module was started, or if it is the first time the module was registered.
+     *                            {@link #NEVER} for never, {@link #ALWAYS} for always.
+     * @param afterCommitDelivery the way states are delivered to the module after commit. Must not be <code>null</code>.
+     */
+    protected BaseTxDrivenModuleConfiguration(InclusionPolicies inclusionPolicies, long initializeUntil, AfterCommitDelivery afterCommitDelivery) {
         notNull(inclusionPolicies);
+        notNull(afterCommitDelivery);
         this.inclusionPolicies = inclusionPolicies;
         this.initializeUntil = initializeUntil;
+        this.afterCommitDelivery = afterCommitDelivery;
     }
 
     /**
@@ -62,6 +78,37 @@ public abstract class BaseTxDrivenModuleConfiguration<T extends BaseTxDrivenModu
      */
     protected abstract T newInstance(InclusionPolicies inclusionPolicies, long initializeUntil);
 
+    /**
+     * Create a new instance of this {@link TxDrivenModuleConfiguration} with different settings.
+     * <p/>
+     * By default, the instance is created by {@link #newInstance(InclusionPolicies, long)} and the after-commit delivery
+     * is then set on it, so that subclasses only have to implement that method. Subclasses able to construct an instance
+     * with all the settings directly can override this method.
+     *
+     * @param inclusionPolicies   of the new instance.
+     * @param initializeUntil     of the new instance.
+     * @param afterCommitDelivery of the new instance. Must not be <code>null</code>.
+     * @return new instance.
+     */
+    protected T newInstance(InclusionPolicies inclusionPolicies, long initializeUntil, AfterCommitDelivery afterCommitDelivery) {
+        return setAfterCommitDelivery(newInstance(inclusionPolicies, initializeUntil), afterCommitDelivery);
+    }
+
+    /**
+     * Set the after-commit delivery of a configuration. Only intended to be used on a new instance, before it is returned
+     * from a <code>newInstance</code> method.
+     *
+     * @param configuration       to set the delivery on.
+     * @param afterCommitDelivery to set. Must not be <code>null</code>.
+     * @param <C>                 type of the configuration.
+     * @return the configuration.
+     */
+    protected static <C extends BaseTxDrivenModuleConfiguration<C>> C setAfterCommitDelivery(C configuration, AfterCommitDelivery afterCommitDelivery) {
+        notNull(afterCommitDelivery);
+        ((BaseTxDrivenModuleConfiguration<?>) configuration).afterCommitDelivery = afterCommitDelivery;
+        return configuration;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -78,6 +125,14 @@ public abstract class BaseTxDrivenModuleConfiguration<T extends BaseTxDrivenModu
         return initializeUntil;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AfterCommitDelivery getAfterCommitDelivery() {
+        return afterCommitDelivery;
+    }
+
     /**
      * Create a new instance of this {@link TxDrivenModuleConfiguration} with different node inclusion policy.
      *
@@ -85,7 +140,7 @@ public abstract class BaseTxDrivenModuleConfiguration<T extends BaseTxDrivenModu
      * @return new instance.
      */
     public T with(NodeInclusionPolicy nodeInclusionPolicy) {
-        return newInstance(inclusionPolicies.with(nodeInclusionPolicy), initializeUntil);
+        return newInstance(inclusionPolicies.with(nodeInclusionPolicy), initializeUntil, afterCommitDelivery);
     }
 
     /**
@@ -95,7 +150,7 @@ public abstract class BaseTxDrivenModuleConfiguration<T extends BaseTxDrivenModu
      * @return new instance.
      */
     public T with(NodePropertyInclusionPolicy nodePropertyInclusionPolicy) {
-        return newInstance(inclusionPolicies.with(nodePropertyInclusionPolicy), initializeUntil);
+        return newInstance(inclusionPolicies.with(nodePropertyInclusionPolicy), initializeUntil, afterCommitDelivery);
     }
 
     /**
@@ -105,7 +160,7 @@ public abstract class BaseTxDrivenModuleConfiguration<T extends BaseTxDrivenModu
      * @return new instance.
      */
     public T with(RelationshipInclusionPolicy relationshipInclusionPolicy) {
-        return newInstance(inclusionPolicies.with(relationshipInclusionPolicy), initializeUntil);
+        return newInstance(inclusionPolicies.with(relationshipInclusionPolicy), initializeUntil, afterCommitDelivery);
     }
 
     /**
@@ -115,7 +170,7 @@ public abstract class BaseTxDrivenModuleConfiguration<T extends BaseTxDrivenModu
      * @return new instance.
      */
     public T with(RelationshipPropertyInclusionPolicy relationshipPropertyInclusionPolicy) {
-        return newInstance(inclusionPolicies.with(relationshipPropertyInclusionPolicy), initializeUntil);
+        return newInstance(inclusionPolicies.with(relationshipPropertyInclusionPolicy), initializeUntil, afterCommitDelivery);
     }
 
     /**
@@ -125,7 +180,7 @@ public abstract class BaseTxDrivenModuleConfiguration<T extends BaseTxDrivenModu
      * @return new instance.
      */
     public T with(InclusionPolicies inclusionPolicies) {
-        return newInstance(inclusionPolicies, initializeUntil);
+        return newInstance(inclusionPolicies, initializeUntil, afterCommitDelivery);
     }
 
     /**
@@ -135,7 +190,19 @@ public abstract class BaseTxDrivenModuleConfiguration<T extends BaseTxDrivenModu
      * @return new instance.
      */
     public T withInitializeUntil(long initializeUntil) {
-        return newInstance(inclusionPolicies, initializeUntil);
+        return newInstance(inclusionPolicies, initializeUntil, afterCommitDelivery);
+    }
+
+    /**
+     * Create a new instance of {@link TxDrivenModuleConfiguration} with a different way of delivering states after commit.
+     * Note that this setting isn't taken into account when deciding whether the module's configuration has changed
+     * and the module needs re-initializing.
+     *
+     * @param afterCommitDelivery of the new instance. Must not be <code>null</code>.
+     * @return new instance.
+     */
+    public T withAfterCommitDelivery(AfterCommitDelivery afterCommitDelivery) {
+        return newInstance(inclusionPolicies, initializeUntil, afterCommitDelivery);
     }
 
     /**
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.config;
+
+/**
+ * Limit on the CPU time a {@link com.graphaware.runtime.module.TimerDrivenModule} may use for its work, expressed as
+ * a maximum share of a single core over a sliding window of time. For example, a budget with max share 0.1 and a window
+ * of 10 seconds allows the module to use at most 1 second of CPU time in any 10 seconds. A module that exceeds its budget
+ * isn't delegated to until it is back within the budget.
+ */
+public final class CpuBudget {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 10_000;
+
+    /**
+     * Budget that doesn't limit the module in any way.
+     */
+    public static final CpuBudget UNLIMITED = new CpuBudget(0, DEFAULT_WINDOW_MILLIS);
+
+    private final double maxShare;
+    private final long windowMillis;
+
+    /**
+     * Create a budget with {@link #DEFAULT_WINDOW_MILLIS}.
+     *
+     * @param maxShare maximum share of a single core, greater than 0 and at most 1.
+     * @return budget.
+     */
+    public static CpuBudget of(double maxShare) {
+        return of(maxShare, DEFAULT_WINDOW_MILLIS);
+    }
+
+    /**
+     * Create a budget.
+     *
+     * @param maxShare     maximum share of a single core, greater than 0 and at most 1.
+     * @param windowMillis length of the sliding window in ms, must be positive.
+     * @return budget.
+     */
+    public static CpuBudget of(double maxShare, long windowMillis) {
+        if (!(maxShare > 0) || maxShare > 1) {
+            throw new IllegalArgumentException("Max CPU share must be greater than 0 and at most 1, was " + maxShare);
+        }
+
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("CPU budget window must be positive, was " + windowMillis);
+        }
+
+        return new CpuBudget(maxShare, windowMillis);
+    }
+
+    private CpuBudget(double maxShare, long windowMillis) {
+        this.maxShare = maxShare;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * @return maximum share of a single core, 0 if {@link #UNLIMITED}.
+     */
+    public double getMaxShare() {
+        return maxShare;
+    }
+
+    /**
+     * @return length of the sliding window in ms.
+     */
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * @return <code>true</code> iff this budget limits the CPU usage, i.e. it isn't {@link #UNLIMITED}.
+     */
+    public boolean isLimited() {
+        return maxShare > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        CpuBudget that = (CpuBudget) o;
+
+        return Double.compare(that.maxShare, maxShare) == 0 && windowMillis == that.windowMillis;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        long temp = Double.doubleToLongBits(maxShare);
+        int result = (int) (temp ^ (temp >>> 32));
+        result = 31 * result + (int) (windowMillis ^ (windowMillis >>> 32));
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return isLimited() ? "CpuBudget{maxShare=" + maxShare + ", windowMillis=" + windowMillis + "}" : "CpuBudget{unlimited}";
+    }
+}
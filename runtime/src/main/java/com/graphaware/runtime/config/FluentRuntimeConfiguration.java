@@ -19,6 +19,8 @@ package com.graphaware.runtime.config;
 import com.graphaware.common.ping.GoogleAnalyticsStatsCollector;
 import com.graphaware.common.ping.StatsCollector;
 import com.graphaware.runtime.schedule.AdaptiveTimingStrategy;
+import com.graphaware.runtime.schedule.FluentSchedulingConfig;
+import com.graphaware.runtime.schedule.SchedulingConfig;
 import com.graphaware.runtime.schedule.TimingStrategy;
 import com.graphaware.runtime.write.FluentWritingConfig;
 import com.graphaware.runtime.write.WritingConfig;
@@ -37,11 +39,11 @@ public final class FluentRuntimeConfiguration extends BaseRuntimeConfiguration {
      * @return The {@link FluentRuntimeConfiguration} instance.
      */
     public static FluentRuntimeConfiguration defaultConfiguration(GraphDatabaseService database) {
-        return new FluentRuntimeConfiguration(Config.defaults(), AdaptiveTimingStrategy.defaultConfiguration(), FluentWritingConfig.defaultConfiguration(), new GoogleAnalyticsStatsCollector(database));
+        return new FluentRuntimeConfiguration(Config.defaults(), AdaptiveTimingStrategy.defaultConfiguration(), FluentSchedulingConfig.defaultConfiguration(), FluentWritingConfig.defaultConfiguration(), new GoogleAnalyticsStatsCollector(database), Long.MAX_VALUE);
     }
 
-    private FluentRuntimeConfiguration(Config config, TimingStrategy timingStrategy, WritingConfig writingConfig, StatsCollector statsCollector) {
-        super(config, timingStrategy, writingConfig, statsCollector);
+    private FluentRuntimeConfiguration(Config config, TimingStrategy timingStrategy, SchedulingConfig schedulingConfig, WritingConfig writingConfig, StatsCollector statsCollector, long transactionDataSpillThreshold) {
+        super(config, timingStrategy, schedulingConfig, writingConfig, statsCollector, transactionDataSpillThreshold);
     }
 
     /**
@@ -51,7 +53,7 @@ public final class FluentRuntimeConfiguration extends BaseRuntimeConfiguration {
      * @return new instance.
      */
     public FluentRuntimeConfiguration withConfig(Config config) {
-        return new FluentRuntimeConfiguration(config, getTimingStrategy(), getWritingConfig(), getStatsCollector());
+        return new FluentRuntimeConfiguration(config, getTimingStrategy(), getSchedulingConfig(), getWritingConfig(), getStatsCollector(), getTransactionDataSpillThreshold());
     }
 
     /**
@@ -61,7 +63,17 @@ public final class FluentRuntimeConfiguration extends BaseRuntimeConfiguration {
      * @return new instance.
      */
     public FluentRuntimeConfiguration withTimingStrategy(TimingStrategy timingStrategy) {
-        return new FluentRuntimeConfiguration(kernelConfig(), timingStrategy, getWritingConfig(), getStatsCollector());
+        return new FluentRuntimeConfiguration(kernelConfig(), timingStrategy, getSchedulingConfig(), getWritingConfig(), getStatsCollector(), getTransactionDataSpillThreshold());
+    }
+
+    /**
+     * Create an instance with different {@link SchedulingConfig}.
+     *
+     * @param schedulingConfig of the new instance.
+     * @return new instance.
+     */
+    public FluentRuntimeConfiguration withSchedulingConfig(SchedulingConfig schedulingConfig) {
+        return new FluentRuntimeConfiguration(kernelConfig(), getTimingStrategy(), schedulingConfig, getWritingConfig(), getStatsCollector(), getTransactionDataSpillThreshold());
     }
 
     /**
@@ -71,7 +83,7 @@ public final class FluentRuntimeConfiguration extends BaseRuntimeConfiguration {
      * @return new instance.
      */
     public FluentRuntimeConfiguration withWritingConfig(WritingConfig writingConfig) {
-        return new FluentRuntimeConfiguration(kernelConfig(), getTimingStrategy(), writingConfig, getStatsCollector());
+        return new FluentRuntimeConfiguration(kernelConfig(), getTimingStrategy(), getSchedulingConfig(), writingConfig, getStatsCollector(), getTransactionDataSpillThreshold());
     }
 
     /**
@@ -81,6 +93,17 @@ public final class FluentRuntimeConfiguration extends BaseRuntimeConfiguration {
      * @return new instance.
      */
     public FluentRuntimeConfiguration withStatsCollector(StatsCollector statsCollector) {
-        return new FluentRuntimeConfiguration(kernelConfig(), getTimingStrategy(), getWritingConfig(), statsCollector);
+        return new FluentRuntimeConfiguration(kernelConfig(), getTimingStrategy(), getSchedulingConfig(), getWritingConfig(), statsCollector, getTransactionDataSpillThreshold());
+    }
+
+    /**
+     * Create an instance with different transaction data spill threshold.
+     *
+     * @param transactionDataSpillThreshold number of created, deleted, and changed properties in a single transaction
+     *                                      above which they are kept in a temporary file rather than on heap.
+     * @return new instance.
+     */
+    public FluentRuntimeConfiguration withTransactionDataSpillThreshold(long transactionDataSpillThreshold) {
+        return new FluentRuntimeConfiguration(kernelConfig(), getTimingStrategy(), getSchedulingConfig(), getWritingConfig(), getStatsCollector(), transactionDataSpillThreshold);
     }
 }
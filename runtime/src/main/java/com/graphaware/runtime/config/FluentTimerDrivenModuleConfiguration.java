@@ -45,9 +45,13 @@ public final class FluentTimerDrivenModuleConfiguration extends BaseTimerDrivenM
      * Create a new configuration.
      *
      * @param instanceRolePolicy of the configuration.
+     * @param weight             of the configuration.
+     * @param maxSteps           of the configuration.
+     * @param timeBudgetMillis   of the configuration.
+     * @param cpuBudget          of the configuration.
      */
-    private FluentTimerDrivenModuleConfiguration(InstanceRolePolicy instanceRolePolicy) {
-        super(instanceRolePolicy);
+    private FluentTimerDrivenModuleConfiguration(InstanceRolePolicy instanceRolePolicy, int weight, int maxSteps, long timeBudgetMillis, CpuBudget cpuBudget) {
+        super(instanceRolePolicy, weight, maxSteps, timeBudgetMillis, cpuBudget);
     }
 
     /**
@@ -55,6 +59,14 @@ public final class FluentTimerDrivenModuleConfiguration extends BaseTimerDrivenM
      */
     @Override
     protected FluentTimerDrivenModuleConfiguration newInstance(InstanceRolePolicy instanceRolePolicy) {
-        return new FluentTimerDrivenModuleConfiguration(instanceRolePolicy);
+        return newInstance(instanceRolePolicy, getWeight(), getMaxSteps(), getTimeBudgetMillis(), getCpuBudget());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected FluentTimerDrivenModuleConfiguration newInstance(InstanceRolePolicy instanceRolePolicy, int weight, int maxSteps, long timeBudgetMillis, CpuBudget cpuBudget) {
+        return new FluentTimerDrivenModuleConfiguration(instanceRolePolicy, weight, maxSteps, timeBudgetMillis, cpuBudget);
     }
 }
@@ -44,11 +44,12 @@ public final class FluentTxDrivenModuleConfiguration extends BaseTxDrivenModuleC
     /**
      * Create a new configuration.
      *
-     * @param inclusionPolicies of the configuration.
-     * @param initializeUntil   of the new configuration.
+     * @param inclusionPolicies   of the configuration.
+     * @param initializeUntil     of the new configuration.
+     * @param afterCommitDelivery of the new configuration.
      */
-    private FluentTxDrivenModuleConfiguration(InclusionPolicies inclusionPolicies, long initializeUntil) {
-        super(inclusionPolicies, initializeUntil);
+    private FluentTxDrivenModuleConfiguration(InclusionPolicies inclusionPolicies, long initializeUntil, AfterCommitDelivery afterCommitDelivery) {
+        super(inclusionPolicies, initializeUntil, afterCommitDelivery);
     }
 
     /**
@@ -56,6 +57,14 @@ public final class FluentTxDrivenModuleConfiguration extends BaseTxDrivenModuleC
      */
     @Override
     protected FluentTxDrivenModuleConfiguration newInstance(InclusionPolicies inclusionPolicies, long initializeUntil) {
-        return new FluentTxDrivenModuleConfiguration(inclusionPolicies, initializeUntil);
+        return newInstance(inclusionPolicies, initializeUntil, getAfterCommitDelivery());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected FluentTxDrivenModuleConfiguration newInstance(InclusionPolicies inclusionPolicies, long initializeUntil, AfterCommitDelivery afterCommitDelivery) {
+        return new FluentTxDrivenModuleConfiguration(inclusionPolicies, initializeUntil, afterCommitDelivery);
     }
 }
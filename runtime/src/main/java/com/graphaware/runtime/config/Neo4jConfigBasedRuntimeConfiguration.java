@@ -20,10 +20,20 @@ import com.graphaware.common.ping.GoogleAnalyticsStatsCollector;
 import com.graphaware.common.ping.NullStatsCollector;
 import com.graphaware.common.ping.StatsCollector;
 import com.graphaware.runtime.config.function.StringToDatabaseWriterType;
+import com.graphaware.runtime.config.function.StringToTaskSchedulerType;
 import com.graphaware.runtime.config.function.StringToTimingStrategy;
+import com.graphaware.runtime.monitor.LoadThresholds;
 import com.graphaware.runtime.schedule.AdaptiveTimingStrategy;
+import com.graphaware.runtime.schedule.BurstMode;
+import com.graphaware.runtime.schedule.DueTimeTaskScheduler;
 import com.graphaware.runtime.schedule.FixedDelayTimingStrategy;
+import com.graphaware.runtime.schedule.FluentSchedulingConfig;
+import com.graphaware.runtime.schedule.PidTimingStrategy;
+import com.graphaware.runtime.schedule.RotatingTaskScheduler;
+import com.graphaware.runtime.schedule.SchedulingConfig;
+import com.graphaware.runtime.schedule.TaskSchedulerType;
 import com.graphaware.runtime.schedule.TimingStrategy;
+import com.graphaware.runtime.schedule.WeightedFairTaskScheduler;
 import com.graphaware.runtime.write.DatabaseWriterType;
 import com.graphaware.runtime.write.FluentWritingConfig;
 import com.graphaware.runtime.write.WritingConfig;
@@ -40,9 +50,10 @@ import static org.neo4j.kernel.configuration.Settings.*;
  * Implementation of {@link RuntimeConfiguration} that loads bespoke settings from Neo4j's configuration properties, falling
  * back to default values when overrides aren't available. Intended for internal framework use, mainly for server deployments.
  * <p>
- * There are three main things configured using this mechanism: the {@link TimingStrategy}, the {@link DatabaseWriterType}, and the {@link StatsCollector}.
+ * There are four main things configured using this mechanism: the {@link TimingStrategy}, the {@link SchedulingConfig},
+ * the {@link DatabaseWriterType}, and the {@link StatsCollector}.
  * <p>
- * For {@link TimingStrategy}, there are two choices. The first one is {@link AdaptiveTimingStrategy}, configured by using the following settings
+ * For {@link TimingStrategy}, there are three choices. The first one is {@link AdaptiveTimingStrategy}, configured by using the following settings
  * <pre>
  *     com.graphaware.runtime.timing.strategy=adaptive
  *     com.graphaware.runtime.timing.delay=2000
@@ -62,6 +73,70 @@ import static org.neo4j.kernel.configuration.Settings.*;
  *     com.graphaware.runtime.timing.initialDelay=1000
  * </pre>
  * <p>
+ * The third option is {@link PidTimingStrategy}, configured by using the following settings
+ * <pre>
+ *     com.graphaware.runtime.timing.strategy=pid
+ *     com.graphaware.runtime.timing.delay=2000
+ *     com.graphaware.runtime.timing.maxDelay=5000
+ *     com.graphaware.runtime.timing.minDelay=5
+ *     com.graphaware.runtime.timing.busyThreshold=100
+ *     com.graphaware.runtime.timing.maxSamples=200
+ *     com.graphaware.runtime.timing.maxTime=2000
+ *     com.graphaware.runtime.timing.targetShare=0.1
+ *     com.graphaware.runtime.timing.pid.kp=0.5
+ *     com.graphaware.runtime.timing.pid.ki=0.1
+ *     com.graphaware.runtime.timing.pid.kd=0.2
+ * </pre>
+ * The above are also the default values. For exact meaning of the values, please refer to the Javadoc of
+ * {@link PidTimingStrategy} and {@link com.graphaware.runtime.schedule.PidDelayAdjuster}.
+ * <p>
+ * Both the adaptive and the pid strategies can take into account load signals other than the number of started transactions
+ * (see {@link LoadThresholds}), by specifying the thresholds above which the database is deemed to be busy:
+ * <pre>
+ *     #optional number of active transactions
+ *     com.graphaware.runtime.timing.threshold.activeTx=50
+ *     #optional page cache faults and evictions per second
+ *     com.graphaware.runtime.timing.threshold.pageFaults=10000
+ *     #optional CPU usage of the process in percent
+ *     com.graphaware.runtime.timing.threshold.cpu=80
+ *     #optional average commit latency in microseconds
+ *     com.graphaware.runtime.timing.threshold.commitLatency=20000
+ * </pre>
+ * None of these are monitored by default.
+ * <p>
+ * Both the adaptive and the pid strategies can also run tasks back-to-back once the database has been idle for a while
+ * (see {@link BurstMode}), which is configured by specifying the load below which the database is deemed idle:
+ * <pre>
+ *     #optional load below which the database is idle, burst mode is disabled by default
+ *     com.graphaware.runtime.timing.burst.threshold=10
+ *     #optional time in ms the database must be idle before bursting, defaults to 60000
+ *     com.graphaware.runtime.timing.burst.idlePeriod=60000
+ *     #optional delay between tasks in ms when bursting, defaults to 0
+ *     com.graphaware.runtime.timing.burst.delay=0
+ * </pre>
+ * <p>
+ * For {@link SchedulingConfig}, the type of the scheduler and the number of threads delegating work to timer-driven modules
+ * can be configured using
+ * <pre>
+ *     #optional scheduler type, rotating, weighted, or due, defaults to rotating
+ *     com.graphaware.runtime.scheduler=rotating
+ *     #optional number of worker threads, defaults to 1
+ *     com.graphaware.runtime.scheduler.threads=1
+ *     #optional number of additional worker threads when the timing strategy is bursting, defaults to 0
+ *     com.graphaware.runtime.scheduler.burst.threads=0
+ *     #optional maximum number of tasks a module performs before its context is persisted, defaults to 1
+ *     com.graphaware.runtime.scheduler.checkpoint.tasks=1
+ *     #optional maximum time in ms before the context of a module is persisted, defaults to 0 (not time-based)
+ *     com.graphaware.runtime.scheduler.checkpoint.interval=0
+ * </pre>
+ * The rotating scheduler results in a {@link RotatingTaskScheduler}, which gives all modules the same number of turns.
+ * The weighted scheduler results in a {@link WeightedFairTaskScheduler}, which shares the time spent on background work
+ * between modules in proportion to their configured weights. The due scheduler results in a {@link DueTimeTaskScheduler},
+ * which keeps modules in a queue ordered by the time they next wish to be called and sleeps until the first one is due,
+ * which is preferable when there are many modules that don't need to run often. With more than one thread, timer-driven modules run
+ * concurrently, but every module is only ever delegated to by a single thread at a time. When module contexts aren't
+ * persisted after every task, modules resume from their last persisted context after a crash, thus repeating some work.
+ * <p>
  * For {@link WritingConfig}, there are three choices:
  * <pre>
  *     com.graphaware.runtime.db.writer=default
@@ -84,6 +159,14 @@ import static org.neo4j.kernel.configuration.Settings.*;
  * </pre>
  * results in a {@link BatchWriter} being constructed with the configured queue and batch sizes.
  * <p>
+ * Transaction data handed to {@link com.graphaware.runtime.module.TxDrivenModule}s can keep properties of very large
+ * transactions in a temporary file rather than on heap, once the number of created, deleted, and changed properties
+ * exceeds a threshold:
+ * <pre>
+ *     #optional number of properties above which they are spilled to disk, never spilled by default
+ *     com.graphaware.runtime.tx.spillThreshold=1000000
+ * </pre>
+ * <p>
  * For {@link StatsCollector}, {@link GoogleAnalyticsStatsCollector} is used by default. For disabling statistics reporting, use
  * <pre>
  *     com.graphaware.runtime.stats.disable=true
@@ -106,13 +189,40 @@ public final class Neo4jConfigBasedRuntimeConfiguration extends BaseRuntimeConfi
     //for FixedDelayTimingStrategy only
     private static final Setting<Long> INITIAL_DELAY_SETTING = setting("com.graphaware.runtime.timing.initialDelay", LONG, (String) null);
 
-    //for AdaptiveTimingStrategy only
+    //for AdaptiveTimingStrategy and PidTimingStrategy
     private static final Setting<Long> MAX_DELAY_SETTING = setting("com.graphaware.runtime.timing.maxDelay", LONG, (String) null);
     private static final Setting<Long> MIN_DELAY_SETTING = setting("com.graphaware.runtime.timing.minDelay", LONG, (String) null);
     private static final Setting<Integer> BUSY_THRESHOLD_SETTING = setting("com.graphaware.runtime.timing.busyThreshold", INTEGER, (String) null);
     private static final Setting<Integer> MAX_SAMPLES_SETTING = setting("com.graphaware.runtime.timing.maxSamples", INTEGER, (String) null);
     private static final Setting<Integer> MAX_TIME_SETTING = setting("com.graphaware.runtime.timing.maxTime", INTEGER, (String) null);
 
+    //for AdaptiveTimingStrategy and PidTimingStrategy, additional load signals
+    private static final Setting<Long> ACTIVE_TX_THRESHOLD_SETTING = setting("com.graphaware.runtime.timing.threshold.activeTx", LONG, (String) null);
+    private static final Setting<Long> PAGE_FAULTS_THRESHOLD_SETTING = setting("com.graphaware.runtime.timing.threshold.pageFaults", LONG, (String) null);
+    private static final Setting<Long> CPU_THRESHOLD_SETTING = setting("com.graphaware.runtime.timing.threshold.cpu", LONG, (String) null);
+    private static final Setting<Long> COMMIT_LATENCY_THRESHOLD_SETTING = setting("com.graphaware.runtime.timing.threshold.commitLatency", LONG, (String) null);
+
+    //for AdaptiveTimingStrategy and PidTimingStrategy, burst mode
+    private static final Setting<Long> BURST_THRESHOLD_SETTING = setting("com.graphaware.runtime.timing.burst.threshold", LONG, (String) null);
+    private static final Setting<Long> BURST_IDLE_PERIOD_SETTING = setting("com.graphaware.runtime.timing.burst.idlePeriod", LONG, (String) null);
+    private static final Setting<Long> BURST_DELAY_SETTING = setting("com.graphaware.runtime.timing.burst.delay", LONG, (String) null);
+
+    //for PidTimingStrategy only
+    private static final Setting<Double> TARGET_SHARE_SETTING = setting("com.graphaware.runtime.timing.targetShare", DOUBLE, (String) null);
+    private static final Setting<Double> KP_SETTING = setting("com.graphaware.runtime.timing.pid.kp", DOUBLE, (String) null);
+    private static final Setting<Double> KI_SETTING = setting("com.graphaware.runtime.timing.pid.ki", DOUBLE, (String) null);
+    private static final Setting<Double> KD_SETTING = setting("com.graphaware.runtime.timing.pid.kd", DOUBLE, (String) null);
+
+    //scheduler
+    private static final Setting<TaskSchedulerType> SCHEDULER_TYPE_SETTING = setting("com.graphaware.runtime.scheduler", StringToTaskSchedulerType.getInstance(), (String) null);
+    private static final Setting<Integer> SCHEDULER_THREADS_SETTING = setting("com.graphaware.runtime.scheduler.threads", INTEGER, (String) null);
+    private static final Setting<Integer> BURST_THREADS_SETTING = setting("com.graphaware.runtime.scheduler.burst.threads", INTEGER, (String) null);
+    private static final Setting<Integer> CHECKPOINT_TASKS_SETTING = setting("com.graphaware.runtime.scheduler.checkpoint.tasks", INTEGER, (String) null);
+    private static final Setting<Long> CHECKPOINT_INTERVAL_SETTING = setting("com.graphaware.runtime.scheduler.checkpoint.interval", LONG, (String) null);
+
+    //transaction data
+    private static final Setting<Long> SPILL_THRESHOLD_SETTING = setting("com.graphaware.runtime.tx.spillThreshold", LONG, (String) null);
+
     //stats
     //see https://github.com/graphaware/neo4j-framework/issues/59
     private static final Setting<Boolean> STATS_DISABLE_SETTING_LEGACY = setting("com.graphaware.runtime.stats.disable", BOOLEAN, "false");
@@ -124,7 +234,7 @@ public final class Neo4jConfigBasedRuntimeConfiguration extends BaseRuntimeConfi
      * @param config The {@link Config} containing the settings used to configure the runtime
      */
     public Neo4jConfigBasedRuntimeConfiguration(GraphDatabaseService database, Config config) {
-        super(config, createTimingStrategy(config), createWritingConfig(config), createStatsCollector(database, config));
+        super(config, createTimingStrategy(config), createSchedulingConfig(config), createWritingConfig(config), createStatsCollector(database, config), createSpillThreshold(config));
     }
 
     private static TimingStrategy createTimingStrategy(Config config) {
@@ -175,12 +285,120 @@ public final class Neo4jConfigBasedRuntimeConfiguration extends BaseRuntimeConfi
                 strategy = strategy.withMaxTime(config.get(MAX_TIME_SETTING));
             }
 
+            strategy = strategy.withLoadThresholds(createLoadThresholds(config));
+            strategy = strategy.withBurstMode(createBurstMode(config));
+
+            return strategy;
+        }
+
+        if (timingStrategy instanceof PidTimingStrategy) {
+            PidTimingStrategy strategy = (PidTimingStrategy) timingStrategy;
+
+            if (config.get(DELAY_SETTING) != null) {
+                strategy = strategy.withDefaultDelayMillis(config.get(DELAY_SETTING));
+            }
+
+            if (config.get(MAX_DELAY_SETTING) != null) {
+                strategy = strategy.withMaximumDelayMillis(config.get(MAX_DELAY_SETTING));
+            }
+
+            if (config.get(MIN_DELAY_SETTING) != null) {
+                strategy = strategy.withMinimumDelayMillis(config.get(MIN_DELAY_SETTING));
+            }
+
+            if (config.get(BUSY_THRESHOLD_SETTING) != null) {
+                strategy = strategy.withBusyThreshold(config.get(BUSY_THRESHOLD_SETTING));
+            }
+
+            if (config.get(MAX_SAMPLES_SETTING) != null) {
+                strategy = strategy.withMaxSamples(config.get(MAX_SAMPLES_SETTING));
+            }
+
+            if (config.get(MAX_TIME_SETTING) != null) {
+                strategy = strategy.withMaxTime(config.get(MAX_TIME_SETTING));
+            }
+
+            strategy = strategy.withLoadThresholds(createLoadThresholds(config));
+            strategy = strategy.withBurstMode(createBurstMode(config));
+
+            if (config.get(TARGET_SHARE_SETTING) != null) {
+                strategy = strategy.withTargetShare(config.get(TARGET_SHARE_SETTING));
+            }
+
+            if (config.get(KP_SETTING) != null || config.get(KI_SETTING) != null || config.get(KD_SETTING) != null) {
+                strategy = strategy.withGains(
+                        config.get(KP_SETTING) != null ? config.get(KP_SETTING) : PidTimingStrategy.DEFAULT_KP,
+                        config.get(KI_SETTING) != null ? config.get(KI_SETTING) : PidTimingStrategy.DEFAULT_KI,
+                        config.get(KD_SETTING) != null ? config.get(KD_SETTING) : PidTimingStrategy.DEFAULT_KD);
+            }
+
             return strategy;
         }
 
         throw new IllegalStateException("Unknown timing strategy!");
     }
 
+    private static LoadThresholds createLoadThresholds(Config config) {
+        LoadThresholds result = LoadThresholds.none();
+
+        if (config.get(ACTIVE_TX_THRESHOLD_SETTING) != null) {
+            result = result.withActiveTransactions(config.get(ACTIVE_TX_THRESHOLD_SETTING));
+        }
+
+        if (config.get(PAGE_FAULTS_THRESHOLD_SETTING) != null) {
+            result = result.withPageCacheFaults(config.get(PAGE_FAULTS_THRESHOLD_SETTING));
+        }
+
+        if (config.get(CPU_THRESHOLD_SETTING) != null) {
+            result = result.withCpuPercent(config.get(CPU_THRESHOLD_SETTING));
+        }
+
+        if (config.get(COMMIT_LATENCY_THRESHOLD_SETTING) != null) {
+            result = result.withCommitLatencyMicros(config.get(COMMIT_LATENCY_THRESHOLD_SETTING));
+        }
+
+        return result;
+    }
+
+    private static BurstMode createBurstMode(Config config) {
+        if (config.get(BURST_THRESHOLD_SETTING) == null) {
+            return BurstMode.disabled();
+        }
+
+        BurstMode result = BurstMode.afterIdleFor(config.get(BURST_THRESHOLD_SETTING),
+                config.get(BURST_IDLE_PERIOD_SETTING) != null ? config.get(BURST_IDLE_PERIOD_SETTING) : BurstMode.DEFAULT_IDLE_PERIOD_MILLIS);
+
+        if (config.get(BURST_DELAY_SETTING) != null) {
+            result = result.withBurstDelayMillis(config.get(BURST_DELAY_SETTING));
+        }
+
+        return result;
+    }
+
+    private static SchedulingConfig createSchedulingConfig(Config config) {
+        FluentSchedulingConfig result = FluentSchedulingConfig.defaultConfiguration();
+
+        if (config.get(SCHEDULER_TYPE_SETTING) != null) {
+            result = result.withSchedulerType(config.get(SCHEDULER_TYPE_SETTING));
+        }
+
+        if (config.get(SCHEDULER_THREADS_SETTING) != null) {
+            result = result.withWorkerThreads(config.get(SCHEDULER_THREADS_SETTING));
+        }
+
+        if (config.get(BURST_THREADS_SETTING) != null) {
+            result = result.withBurstWorkerThreads(config.get(BURST_THREADS_SETTING));
+        }
+
+        if (config.get(CHECKPOINT_TASKS_SETTING) != null || config.get(CHECKPOINT_INTERVAL_SETTING) != null) {
+            result = result.withCheckpointing(
+                    config.get(CHECKPOINT_TASKS_SETTING) != null ? config.get(CHECKPOINT_TASKS_SETTING) : FluentSchedulingConfig.DEFAULT_MAX_TASKS_BETWEEN_CHECKPOINTS,
+                    config.get(CHECKPOINT_INTERVAL_SETTING) != null ? config.get(CHECKPOINT_INTERVAL_SETTING) : FluentSchedulingConfig.DEFAULT_MAX_MILLIS_BETWEEN_CHECKPOINTS);
+        }
+
+        return result;
+    }
+
     private static WritingConfig createWritingConfig(Config config) {
         DatabaseWriterType databaseWriterType = config.get(DATABASE_WRITER_TYPE_SETTING);
 
@@ -201,6 +419,14 @@ public final class Neo4jConfigBasedRuntimeConfiguration extends BaseRuntimeConfi
         return result;
     }
 
+    private static long createSpillThreshold(Config config) {
+        if (config.get(SPILL_THRESHOLD_SETTING) == null) {
+            return Long.MAX_VALUE;
+        }
+
+        return config.get(SPILL_THRESHOLD_SETTING);
+    }
+
     private static StatsCollector createStatsCollector(GraphDatabaseService database, Config config) {
         if (config.get(STATS_DISABLE_SETTING_LEGACY)) {
             return NullStatsCollector.getInstance();
@@ -25,10 +25,63 @@ import com.graphaware.common.policy.role.InstanceRolePolicy;
  */
 public interface TimerDrivenModuleConfiguration {
 
+    int DEFAULT_WEIGHT = 1;
+    int DEFAULT_MAX_STEPS = 1;
+    long NO_TIME_BUDGET = 0;
+
     /**
      * Get the instance role policy used by this module. If unsure, return {@link com.graphaware.runtime.config.TimerDrivenModuleConfiguration.InstanceRolePolicy#MASTER_ONLY}.
      *
      * @return policy.
      */
     InstanceRolePolicy getInstanceRolePolicy();
+
+    /**
+     * Get the scheduling weight of this module. Only taken into account by schedulers that share the capacity for background
+     * work between modules according to their weights, such as {@link com.graphaware.runtime.schedule.WeightedFairTaskScheduler},
+     * in which case a module with twice the weight of another module gets twice as much time for its work.
+     *
+     * @return weight, a positive number. {@link #DEFAULT_WEIGHT} by default.
+     */
+    default int getWeight() {
+        return DEFAULT_WEIGHT;
+    }
+
+    /**
+     * Get the maximum number of times {@link com.graphaware.runtime.module.TimerDrivenModule#doSomeWork(com.graphaware.runtime.metadata.TimerDrivenModuleContext, org.neo4j.graphdb.GraphDatabaseService)}
+     * is called in a single transaction, each call receiving the context produced by the previous one. Only the context
+     * produced by the last call is persisted, so the cost of the transaction and of persisting the metadata is shared
+     * by all the calls. The calls stop earlier when the {@link #getTimeBudgetMillis()} is exhausted, or when the module
+     * produces a context which indicates it doesn't wish to be called again yet.
+     * <p>
+     * Note that when any of the calls fails, the work done by all the calls in the same transaction is rolled back.
+     *
+     * @return maximum number of steps per transaction, a positive number. {@link #DEFAULT_MAX_STEPS} by default, i.e.
+     * a transaction per step.
+     */
+    default int getMaxSteps() {
+        return DEFAULT_MAX_STEPS;
+    }
+
+    /**
+     * Get the time budget for the steps performed by the module in a single transaction. Once the budget is exhausted,
+     * no more steps are performed in the transaction. Only relevant when {@link #getMaxSteps()} is greater than 1.
+     *
+     * @return time budget in ms, {@link #NO_TIME_BUDGET} (by default) if the number of steps is only limited by {@link #getMaxSteps()}.
+     */
+    default long getTimeBudgetMillis() {
+        return NO_TIME_BUDGET;
+    }
+
+    /**
+     * Get the limit on the CPU time the module may use for its work. The scheduler measures the CPU time of the threads
+     * delegating work to the module and doesn't delegate to a module that exceeds its budget until it is back within it.
+     * This protects the latency of the database's own workload on shared machines more precisely than global delays
+     * between tasks.
+     *
+     * @return CPU budget, {@link CpuBudget#UNLIMITED} by default.
+     */
+    default CpuBudget getCpuBudget() {
+        return CpuBudget.UNLIMITED;
+    }
 }
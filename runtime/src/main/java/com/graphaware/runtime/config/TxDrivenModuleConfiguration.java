@@ -41,4 +41,14 @@ public interface TxDrivenModuleConfiguration {
      * {@link #NEVER} for never, {@link #ALWAYS} for always.
      */
     long initializeUntil();
+
+    /**
+     * Get the way in which states returned by {@link com.graphaware.runtime.module.TxDrivenModule#beforeCommit(com.graphaware.tx.event.improved.api.ImprovedTransactionData)}
+     * are delivered to {@link com.graphaware.runtime.module.TxDrivenModule#afterCommit(Object)}.
+     *
+     * @return delivery, {@link AfterCommitDelivery#SYNCHRONOUS} by default.
+     */
+    default AfterCommitDelivery getAfterCommitDelivery() {
+        return AfterCommitDelivery.SYNCHRONOUS;
+    }
 }
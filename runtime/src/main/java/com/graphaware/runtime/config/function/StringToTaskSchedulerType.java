@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.config.function;
+
+import com.graphaware.runtime.schedule.TaskSchedulerType;
+
+import java.util.function.Function;
+
+/**
+ * A {@link Function} that converts String to {@link TaskSchedulerType}. Singleton.
+ */
+public final class StringToTaskSchedulerType implements Function<String, TaskSchedulerType> {
+
+    public static final String ROTATING = "rotating";
+    public static final String WEIGHTED_FAIR = "weighted";
+    public static final String DUE_TIME = "due";
+
+    private static StringToTaskSchedulerType INSTANCE = new StringToTaskSchedulerType();
+
+    public static StringToTaskSchedulerType getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TaskSchedulerType apply(String s) {
+        if (s.equalsIgnoreCase(ROTATING)) {
+            return TaskSchedulerType.ROTATING;
+        }
+
+        if (s.equalsIgnoreCase(WEIGHTED_FAIR)) {
+            return TaskSchedulerType.WEIGHTED_FAIR;
+        }
+
+        if (s.equalsIgnoreCase(DUE_TIME)) {
+            return TaskSchedulerType.DUE_TIME;
+        }
+
+        throw new IllegalStateException("Unknown task scheduler: " + s);
+    }
+}
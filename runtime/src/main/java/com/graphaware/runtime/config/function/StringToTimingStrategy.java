@@ -18,6 +18,7 @@ package com.graphaware.runtime.config.function;
 
 import com.graphaware.runtime.schedule.AdaptiveTimingStrategy;
 import com.graphaware.runtime.schedule.FixedDelayTimingStrategy;
+import com.graphaware.runtime.schedule.PidTimingStrategy;
 import com.graphaware.runtime.schedule.TimingStrategy;
 
 import java.util.function.Function;
@@ -25,12 +26,14 @@ import java.util.function.Function;
 /**
  * A {@link Function} that converts String to {@link TimingStrategy}. Singleton.
  * <p/>
- * Converts "fixed" to {@link FixedDelayTimingStrategy} and "adaptive" to {@link AdaptiveTimingStrategy}.
+ * Converts "fixed" to {@link FixedDelayTimingStrategy}, "adaptive" to {@link AdaptiveTimingStrategy}, and "pid" to
+ * {@link PidTimingStrategy}.
  */
 public final class StringToTimingStrategy implements Function<String, TimingStrategy> {
 
     public static final String FIXED = "fixed";
     public static final String ADAPTIVE = "adaptive";
+    public static final String PID = "pid";
 
     private static StringToTimingStrategy INSTANCE = new StringToTimingStrategy();
 
@@ -51,6 +54,10 @@ public final class StringToTimingStrategy implements Function<String, TimingStra
             return AdaptiveTimingStrategy.defaultConfiguration();
         }
 
+        if (s.equalsIgnoreCase(PID)) {
+            return PidTimingStrategy.defaultConfiguration();
+        }
+
         throw new IllegalStateException("Unknown timing strategy: " + s);
     }
 }
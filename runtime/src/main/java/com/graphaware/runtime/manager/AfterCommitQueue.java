@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.manager;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.common.serialize.Serializer;
+import com.graphaware.runtime.config.AfterCommitDelivery;
+import com.graphaware.runtime.module.TxDrivenModule;
+import org.neo4j.logging.Log;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue of states waiting to be delivered to a single {@link TxDrivenModule}'s
+ * {@link TxDrivenModule#afterCommit(Object)}, configured by {@link AfterCommitDelivery}.
+ * <p>
+ * States are delivered by tasks submitted to a (shared) {@link Executor}. At most one such task runs for a queue at
+ * any time, so states are delivered one by one, in the order in which they were queued. States spilled to disk are
+ * only queued once all states held in memory have been delivered, which preserves the order.
+ */
+final class AfterCommitQueue implements AfterCommitQueueMetrics, Runnable {
+
+    private static final Log LOG = LoggerFactory.getLogger(AfterCommitQueue.class);
+
+    static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final TxDrivenModule module;
+    private final AfterCommitDelivery delivery;
+    private final Executor executor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+    private final ArrayDeque<Entry> memory = new ArrayDeque<>();
+    private SpillFile spillFile;
+    private boolean closed;
+
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private volatile Thread drainingThread;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private volatile long lastDeliveryLag;
+
+    /**
+     * Create a new queue.
+     *
+     * @param module   to deliver states to.
+     * @param delivery configuration of the queue, must be asynchronous.
+     * @param executor that runs the delivery.
+     */
+    AfterCommitQueue(TxDrivenModule module, AfterCommitDelivery delivery, Executor executor) {
+        this.module = module;
+        this.delivery = delivery;
+        this.executor = executor;
+    }
+
+    /**
+     * Queue a state for delivery. Depending on the {@link AfterCommitDelivery.OverflowPolicy}, this can block if the
+     * queue is full. Once the queue has been {@link #close() closed}, states are delivered synchronously.
+     *
+     * @param state to deliver.
+     */
+    void offer(Object state) {
+        Entry entry = new Entry(state, System.currentTimeMillis());
+        boolean queued;
+        boolean synchronous;
+
+        lock.lock();
+        try {
+            queued = !closed && enqueue(entry);
+            synchronous = closed;
+        } finally {
+            lock.unlock();
+        }
+
+        if (queued) {
+            scheduleDrain();
+        } else if (synchronous) {
+            deliver(entry);
+        }
+    }
+
+    private boolean enqueue(Entry entry) {
+        if (spillFile != null && !spillFile.isEmpty()) {
+            return spill(entry);
+        }
+
+        while (memory.size() >= delivery.getQueueCapacity()) {
+            switch (delivery.getOverflowPolicy()) {
+                case BLOCK:
+                    if (Thread.currentThread() == drainingThread) {
+                        //the module is committing from its own afterCommit, waiting would deadlock
+                        memory.add(entry);
+                        return true;
+                    }
+                    notFull.awaitUninterruptibly();
+                    if (closed) {
+                        return false;
+                    }
+                    break;
+                case DROP:
+                    drop("queue is full");
+                    return false;
+                case SPILL:
+                    return spill(entry);
+                default:
+                    throw new IllegalStateException("Unknown overflow policy " + delivery.getOverflowPolicy());
+            }
+        }
+
+        memory.add(entry);
+        return true;
+    }
+
+    private boolean spill(Entry entry) {
+        try {
+            byte[] bytes = Serializer.toByteArray(entry.state);
+            if (spillFile == null) {
+                spillFile = new SpillFile("graphaware-" + module.getId() + "-");
+            }
+            spillFile.append(entry.timestamp, bytes);
+            spilled.incrementAndGet();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not spill after-commit state of module " + module.getId() + " to disk", e);
+            drop("state could not be spilled");
+            return false;
+        }
+    }
+
+    private void drop(String reason) {
+        if (dropped.incrementAndGet() % 1000 == 1) {
+            LOG.warn("Dropping after-commit state of module " + module.getId() + ", " + reason + ". Dropped " + dropped.get() + " states so far.");
+        }
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                //shutting down, remaining states will be delivered by close()
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Deliver all queued states. Run by the executor.
+     */
+    @Override
+    public void run() {
+        lock.lock();
+        try {
+            if (closed) {
+                //close() has taken over delivery
+                draining.set(false);
+                return;
+            }
+            drainingThread = Thread.currentThread();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            Entry entry;
+            while ((entry = poll()) != null) {
+                deliver(entry);
+            }
+        } finally {
+            lock.lock();
+            try {
+                drainingThread = null;
+                draining.set(false);
+                idle.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        if (!isClosed() && getDepth() > 0) {
+            scheduleDrain();
+        }
+    }
+
+    private boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry poll() {
+        lock.lock();
+        try {
+            Entry entry = memory.poll();
+            if (entry != null) {
+                notFull.signal();
+                return entry;
+            }
+
+            while (spillFile != null && !spillFile.isEmpty()) {
+                long timestamp = spillFile.peekTimestamp();
+                try {
+                    return new Entry(Serializer.fromByteArray(spillFile.take()), timestamp);
+                } catch (RuntimeException e) {
+                    LOG.warn("Could not read spilled after-commit state of module " + module.getId(), e);
+                    drop("state could not be read back");
+                }
+            }
+
+            return null;
+        } catch (IOException e) {
+            LOG.error("Could not read spilled after-commit states of module " + module.getId() + ", discarding " + spillFile.size() + " states", e);
+            dropped.addAndGet(spillFile.size());
+            spillFile.delete();
+            spillFile = null;
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(Entry entry) {
+        lastDeliveryLag = System.currentTimeMillis() - entry.timestamp;
+        try {
+            module.afterCommit(entry.state);
+        } catch (RuntimeException e) {
+            LOG.warn("Module " + module.getId() + " threw an exception in asynchronous afterCommit", e);
+        }
+        delivered.incrementAndGet();
+    }
+
+    /**
+     * Close the queue and deliver all remaining states on the calling thread, waiting at most
+     * {@link #CLOSE_TIMEOUT_MILLIS} for a delivery in progress to finish. See {@link #close(long)}.
+     */
+    void close() {
+        close(CLOSE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Close the queue and deliver all remaining states on the calling thread. Call once the executor has been shut
+     * down. If a delivery is still in progress, waits for it to finish first, so that states are never delivered
+     * concurrently. If it doesn't finish in time, e.g. because the module is stuck in its afterCommit, the remaining
+     * states are discarded and counted as dropped. States offered after this method has been called are delivered
+     * synchronously.
+     *
+     * @param timeoutMillis maximum time to wait for a delivery in progress to finish.
+     */
+    void close(long timeoutMillis) {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (drainingThread != null && drainingThread != Thread.currentThread()) {
+                if (remaining <= 0) {
+                    discardPending("is still processing an after-commit state after " + timeoutMillis + " ms");
+                    return;
+                }
+                try {
+                    remaining = idle.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    discardPending("was interrupted while waiting for an after-commit state to be processed");
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (getDepth() > 0) {
+            LOG.info("Delivering " + getDepth() + " pending after-commit states to module " + module.getId() + "...");
+        }
+
+        Entry entry;
+        while ((entry = poll()) != null) {
+            deliver(entry);
+        }
+
+        lock.lock();
+        try {
+            if (spillFile != null) {
+                spillFile.delete();
+                spillFile = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discard all states that haven't been delivered yet. Must be called with the lock held.
+     *
+     * @param reason why the states are discarded, completing "Module X ...".
+     */
+    private void discardPending(String reason) {
+        int pending = memory.size() + (spillFile == null ? 0 : spillFile.size());
+
+        LOG.warn("Module " + module.getId() + " " + reason + ", not waiting any longer. Discarding " + pending
+                + " undelivered after-commit states (" + memory.size() + " in memory, " + (pending - memory.size()) + " spilled to disk).");
+
+        dropped.addAndGet(pending);
+        memory.clear();
+        if (spillFile != null) {
+            spillFile.delete();
+            spillFile = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getDepth() {
+        lock.lock();
+        try {
+            return memory.size() + (spillFile == null ? 0 : spillFile.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLagMillis() {
+        lock.lock();
+        try {
+            Entry oldest = memory.peek();
+            if (oldest != null) {
+                return System.currentTimeMillis() - oldest.timestamp;
+            }
+            if (spillFile != null && !spillFile.isEmpty()) {
+                return System.currentTimeMillis() - spillFile.peekTimestamp();
+            }
+            return 0;
+        } catch (IOException e) {
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLastDeliveryLagMillis() {
+        return lastDeliveryLag;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSpilled() {
+        return spilled.get();
+    }
+
+    private static final class Entry {
+        private final Object state;
+        private final long timestamp;
+
+        private Entry(Object state, long timestamp) {
+            this.state = state;
+            this.timestamp = timestamp;
+        }
+    }
+}
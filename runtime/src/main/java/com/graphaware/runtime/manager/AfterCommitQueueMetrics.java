@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.manager;
+
+/**
+ * Metrics of a queue holding states waiting to be delivered to a {@link com.graphaware.runtime.module.TxDrivenModule}
+ * configured for {@link com.graphaware.runtime.config.AfterCommitDelivery#asynchronous() asynchronous} after-commit
+ * delivery.
+ */
+public interface AfterCommitQueueMetrics {
+
+    /**
+     * @return number of states waiting for delivery, including those spilled to disk.
+     */
+    int getDepth();
+
+    /**
+     * @return number of ms the oldest state waiting for delivery has been waiting, 0 if there are none.
+     */
+    long getLagMillis();
+
+    /**
+     * @return number of ms the most recently delivered state had been waiting before it was delivered.
+     */
+    long getLastDeliveryLagMillis();
+
+    /**
+     * @return total number of states delivered.
+     */
+    long getDelivered();
+
+    /**
+     * @return total number of states discarded because the queue was full, or they could not be spilled to disk.
+     */
+    long getDropped();
+
+    /**
+     * @return total number of states spilled to disk because the queue was full.
+     */
+    long getSpilled();
+}
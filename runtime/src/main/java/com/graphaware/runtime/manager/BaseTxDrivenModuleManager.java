@@ -18,6 +18,8 @@ package com.graphaware.runtime.manager;
 
 import com.graphaware.common.log.LoggerFactory;
 import com.graphaware.common.ping.StatsCollector;
+import com.graphaware.common.policy.inclusion.InclusionPolicies;
+import com.graphaware.runtime.config.AfterCommitDelivery;
 import com.graphaware.runtime.config.util.InstanceRoleUtils;
 import com.graphaware.runtime.metadata.DefaultTxDrivenModuleMetadata;
 import com.graphaware.runtime.metadata.ModuleMetadataRepository;
@@ -27,11 +29,16 @@ import com.graphaware.runtime.module.NeedsInitializationException;
 import com.graphaware.runtime.module.TxDrivenModule;
 import com.graphaware.tx.event.improved.api.FilteredTransactionData;
 import com.graphaware.tx.event.improved.data.TransactionDataContainer;
+import com.graphaware.tx.event.improved.entity.filtered.InclusionDecisions;
 import org.neo4j.logging.Log;
 
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link BaseModuleManager} for {@link TxDrivenModule}s.
@@ -41,6 +48,9 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
     private static final Log LOG = LoggerFactory.getLogger(BaseTxDrivenModuleManager.class);
 
     private final InstanceRoleUtils instanceRoleUtils;
+    private final Map<String, InclusionSignature> signatures = new ConcurrentHashMap<>();
+    private final Map<String, AfterCommitQueue> afterCommitQueues = new ConcurrentHashMap<>();
+    private ExecutorService afterCommitExecutor;
 
     /**
      * Construct a new manager.
@@ -112,9 +122,70 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
         for (T module : modules.values()) {
             start(module);
         }
+        startAfterCommitQueues();
         LOG.info("Transaction-driven modules started.");
     }
 
+    private void startAfterCommitQueues() {
+        int asyncModules = 0;
+        for (T module : modules.values()) {
+            if (module.getConfiguration().getAfterCommitDelivery().isAsynchronous()) {
+                asyncModules++;
+            }
+        }
+
+        if (asyncModules == 0) {
+            return;
+        }
+
+        int threads = Math.min(asyncModules, Runtime.getRuntime().availableProcessors());
+        LOG.info("Starting " + threads + " thread(s) for asynchronous after-commit delivery to " + asyncModules + " module(s).");
+        afterCommitExecutor = Executors.newFixedThreadPool(threads);
+
+        for (T module : modules.values()) {
+            AfterCommitDelivery delivery = module.getConfiguration().getAfterCommitDelivery();
+            if (delivery.isAsynchronous()) {
+                afterCommitQueues.put(module.getId(), new AfterCommitQueue(module, delivery, afterCommitExecutor));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void shutdownModules() {
+        stopAfterCommitQueues();
+        super.shutdownModules();
+    }
+
+    private void stopAfterCommitQueues() {
+        if (afterCommitExecutor == null) {
+            return;
+        }
+
+        LOG.info("Terminating asynchronous after-commit delivery...");
+        afterCommitExecutor.shutdown();
+        try {
+            afterCommitExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            LOG.warn("Did not manage to finish asynchronous after-commit delivery in 5 seconds.");
+        }
+
+        for (AfterCommitQueue queue : afterCommitQueues.values()) {
+            queue.close();
+        }
+        LOG.info("Asynchronous after-commit delivery terminated.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AfterCommitQueueMetrics getAfterCommitQueueMetrics(String moduleId) {
+        return afterCommitQueues.get(moduleId);
+    }
+
     /**
      * Start module. This means preparing for doing the actual work. Call in a single-thread exactly once on each module
      * every time the runtime starts.
@@ -189,12 +260,44 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
      */
     @Override
     public Map<String, Object> beforeCommit(TransactionDataContainer transactionData) {
+        InclusionDecisions decisions = new InclusionDecisions();
+
+        try {
+            return beforeCommit(transactionData, decisions);
+        } finally {
+            //filtered entities may outlive the transaction (e.g. in state passed to afterCommit), stop caching for them
+            decisions.close();
+        }
+    }
+
+    /**
+     * Let all modules interested in the transaction process it before it commits.
+     *
+     * @param transactionData data about the transaction.
+     * @param decisions       decisions of inclusion policies, shared by all filtered views of the transaction.
+     * @return states of the modules, keyed by module ID.
+     */
+    private Map<String, Object> beforeCommit(TransactionDataContainer transactionData, InclusionDecisions decisions) {
         Map<String, Object> result = new HashMap<>();
+        TransactionSummary summary = null;
+        Map<InclusionPolicies, FilteredTransactionData> views = new HashMap<>();
 
         for (T module : modules.values()) {
-            FilteredTransactionData filteredTransactionData = new FilteredTransactionData(transactionData, module.getConfiguration().getInclusionPolicies());
+            InclusionSignature signature = signature(module);
 
-            if (!filteredTransactionData.mutationsOccurred()) {
+            if (!signature.isUnrestricted()) {
+                if (summary == null) {
+                    summary = TransactionSummary.of(transactionData.getWrapped());
+                }
+
+                if (!signature.mayBeInterestedIn(summary)) {
+                    continue;
+                }
+            }
+
+            FilteredTransactionData filteredTransactionData = filteredView(views, transactionData, signature.getPolicies(), decisions);
+
+            if (filteredTransactionData == null) {
                 continue;
             }
 
@@ -220,6 +323,52 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
         return result;
     }
 
+    /**
+     * Get a filtered view of the transaction data for the given policies. Views are shared by all modules with equal
+     * {@link InclusionPolicies} within the same transaction, so that filtering (and checking whether any mutations
+     * survived it) only happens once per distinct set of policies. All views share the same decisions of inclusion
+     * policies, so a policy instance used by several sets of policies evaluates every entity only once.
+     *
+     * @param views           views created so far in this transaction, keyed by policies. A <code>null</code> value
+     *                        means no mutations are visible through the policies.
+     * @param transactionData data about the transaction.
+     * @param policies        policies to filter by.
+     * @param decisions       decisions of inclusion policies made so far in this transaction.
+     * @return filtered view, <code>null</code> if no mutations are visible through the policies.
+     */
+    private FilteredTransactionData filteredView(Map<InclusionPolicies, FilteredTransactionData> views, TransactionDataContainer transactionData, InclusionPolicies policies, InclusionDecisions decisions) {
+        if (views.containsKey(policies)) {
+            return views.get(policies);
+        }
+
+        FilteredTransactionData view = new FilteredTransactionData(transactionData, policies, decisions);
+        if (!view.mutationsOccurred()) {
+            view = null;
+        }
+
+        views.put(policies, view);
+        return view;
+    }
+
+    /**
+     * Get the {@link InclusionSignature} of a module's inclusion policies, deriving it only when the module is seen
+     * for the first time or its policies have changed.
+     *
+     * @param module to get signature for.
+     * @return signature.
+     */
+    private InclusionSignature signature(T module) {
+        InclusionPolicies policies = module.getConfiguration().getInclusionPolicies();
+        InclusionSignature signature = signatures.get(module.getId());
+
+        if (signature == null || signature.getPolicies() != policies) {
+            signature = InclusionSignature.of(policies);
+            signatures.put(module.getId(), signature);
+        }
+
+        return signature;
+    }
+
     private Map<String, Object> handleException(Map<String, Object> result, T module, Object state, RuntimeException e) {
         result.put(module.getId(), state);      //just so the module gets afterRollback called as well
         afterRollback(result); //remove this when https://github.com/neo4j/neo4j/issues/2660 is resolved (todo this is fixed in 3.3)
@@ -233,10 +382,15 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
     public void afterCommit(Map<String, Object> states) {
         for (T module : modules.values()) {
             if (!states.containsKey(module.getId())) {
-                return; //perhaps module wasn't interested, or threw RuntimeException
+                continue; //perhaps module wasn't interested, or threw RuntimeException
             }
 
-            module.afterCommit(states.get(module.getId()));
+            AfterCommitQueue queue = afterCommitQueues.get(module.getId());
+            if (queue != null) {
+                queue.offer(states.get(module.getId()));
+            } else {
+                module.afterCommit(states.get(module.getId()));
+            }
         }
     }
 
@@ -247,7 +401,7 @@ public abstract class BaseTxDrivenModuleManager<T extends TxDrivenModule> extend
     public void afterRollback(Map<String, Object> states) {
         for (T module : modules.values()) {
             if (!states.containsKey(module.getId())) {
-                return; //rollback happened before this module had a go
+                continue; //perhaps module wasn't interested, or rollback happened before it had a go
             }
 
             module.afterRollback(states.get(module.getId()));
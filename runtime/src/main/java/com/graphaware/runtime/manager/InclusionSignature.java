@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.manager;
+
+import com.graphaware.common.policy.inclusion.InclusionPolicies;
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.PropertyInclusionPolicy;
+import com.graphaware.common.policy.inclusion.RelationshipInclusionPolicy;
+import com.graphaware.common.policy.inclusion.fluent.BaseIncludeNodes;
+import com.graphaware.common.policy.inclusion.fluent.BaseIncludeProperties;
+import com.graphaware.common.policy.inclusion.fluent.BaseIncludeRelationships;
+import com.graphaware.common.policy.inclusion.none.IncludeNoNodeProperties;
+import com.graphaware.common.policy.inclusion.none.IncludeNoNodes;
+import com.graphaware.common.policy.inclusion.none.IncludeNoRelationshipProperties;
+import com.graphaware.common.policy.inclusion.none.IncludeNoRelationships;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A coarse, conservative summary of {@link InclusionPolicies}, stating which labels, relationship types, and property
+ * keys the policies can possibly include. Used by {@link BaseTxDrivenModuleManager} to skip modules that cannot be
+ * interested in a transaction without constructing a {@link com.graphaware.tx.event.improved.api.FilteredTransactionData}
+ * for them.
+ * <p>
+ * Only policies whose semantics are known (the "include nothing" and fluent policies) narrow the signature down; any
+ * other policy is treated as potentially including everything.
+ */
+final class InclusionSignature {
+
+    /**
+     * Represents "any label / type / key".
+     */
+    static final Set<String> ANY = null;
+
+    private final InclusionPolicies policies;
+    private final Set<String> nodeLabels;
+    private final Set<String> nodePropertyKeys;
+    private final Set<String> relationshipTypes;
+    private final Set<String> relationshipPropertyKeys;
+
+    /**
+     * Derive a signature from inclusion policies.
+     *
+     * @param policies to derive the signature from. Must not be <code>null</code>.
+     * @return signature.
+     */
+    static InclusionSignature of(InclusionPolicies policies) {
+        return new InclusionSignature(policies,
+                nodeLabels(policies.getNodeInclusionPolicy()),
+                propertyKeys(policies.getNodePropertyInclusionPolicy(), IncludeNoNodeProperties.getInstance()),
+                relationshipTypes(policies.getRelationshipInclusionPolicy()),
+                propertyKeys(policies.getRelationshipPropertyInclusionPolicy(), IncludeNoRelationshipProperties.getInstance()));
+    }
+
+    private InclusionSignature(InclusionPolicies policies, Set<String> nodeLabels, Set<String> nodePropertyKeys, Set<String> relationshipTypes, Set<String> relationshipPropertyKeys) {
+        this.policies = policies;
+        this.nodeLabels = nodeLabels;
+        this.nodePropertyKeys = nodePropertyKeys;
+        this.relationshipTypes = relationshipTypes;
+        this.relationshipPropertyKeys = relationshipPropertyKeys;
+    }
+
+    /**
+     * @return the policies this signature has been derived from.
+     */
+    InclusionPolicies getPolicies() {
+        return policies;
+    }
+
+    /**
+     * @return <code>true</code> iff this signature can't rule out any transaction, i.e. checking it is pointless.
+     */
+    boolean isUnrestricted() {
+        return nodeLabels == ANY && nodePropertyKeys == ANY && relationshipTypes == ANY && relationshipPropertyKeys == ANY;
+    }
+
+    /**
+     * Decide whether a module with this signature may be interested in a transaction. Errs on the side of
+     * <code>true</code>; only returns <code>false</code> when the filtered view of the transaction is guaranteed to
+     * contain no mutations.
+     *
+     * @param summary of the transaction.
+     * @return <code>false</code> iff the module is certainly not interested.
+     */
+    boolean mayBeInterestedIn(TransactionSummary summary) {
+        if (summary.isUnknown()) {
+            return true;
+        }
+
+        if (summary.nodesTouched()
+                && (nodeLabels == ANY || intersects(nodeLabels, summary.getNodeLabels()))
+                && (summary.nodesCreatedOrDeleted() || summary.labelsChanged() || intersects(nodePropertyKeys, summary.getNodePropertyKeys()))) {
+            return true;
+        }
+
+        return intersects(relationshipTypes, summary.getRelationshipTypes())
+                && (summary.relationshipsCreatedOrDeleted() || intersects(relationshipPropertyKeys, summary.getRelationshipPropertyKeys()));
+    }
+
+    private static boolean intersects(Set<String> signature, Set<String> touched) {
+        if (touched.isEmpty()) {
+            return false;
+        }
+
+        if (signature == ANY) {
+            return true;
+        }
+
+        for (String value : signature) {
+            if (touched.contains(value)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Set<String> nodeLabels(NodeInclusionPolicy policy) {
+        if (IncludeNoNodes.getInstance().equals(policy)) {
+            return Collections.emptySet();
+        }
+
+        if (policy instanceof BaseIncludeNodes && ((BaseIncludeNodes<?>) policy).getLabel() != null) {
+            return Collections.singleton(((BaseIncludeNodes<?>) policy).getLabel());
+        }
+
+        return ANY;
+    }
+
+    private static Set<String> relationshipTypes(RelationshipInclusionPolicy policy) {
+        if (IncludeNoRelationships.getInstance().equals(policy)) {
+            return Collections.emptySet();
+        }
+
+        if (policy instanceof BaseIncludeRelationships) {
+            String[] types = ((BaseIncludeRelationships<?>) policy).getRelationshipTypes();
+            if (types != null && types.length > 0) {
+                return new HashSet<>(Arrays.asList(types));
+            }
+        }
+
+        return ANY;
+    }
+
+    private static Set<String> propertyKeys(PropertyInclusionPolicy<?> policy, PropertyInclusionPolicy<?> none) {
+        if (none.equals(policy)) {
+            return Collections.emptySet();
+        }
+
+        if (policy instanceof BaseIncludeProperties && ((BaseIncludeProperties<?, ?>) policy).getKey() != null) {
+            return Collections.singleton(((BaseIncludeProperties<?, ?>) policy).getKey());
+        }
+
+        return ANY;
+    }
+}
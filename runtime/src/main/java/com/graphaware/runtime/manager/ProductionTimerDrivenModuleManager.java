@@ -21,9 +21,12 @@ import com.graphaware.runtime.metadata.DefaultTimerDrivenModuleMetadata;
 import com.graphaware.runtime.metadata.ModuleMetadataRepository;
 import com.graphaware.runtime.metadata.TimerDrivenModuleMetadata;
 import com.graphaware.runtime.module.TimerDrivenModule;
+import com.graphaware.runtime.schedule.DueTimeTaskScheduler;
 import com.graphaware.runtime.schedule.RotatingTaskScheduler;
+import com.graphaware.runtime.schedule.SchedulingConfig;
 import com.graphaware.runtime.schedule.TaskScheduler;
 import com.graphaware.runtime.schedule.TimingStrategy;
+import com.graphaware.runtime.schedule.WeightedFairTaskScheduler;
 import org.neo4j.graphdb.GraphDatabaseService;
 
 /**
@@ -41,11 +44,25 @@ public class ProductionTimerDrivenModuleManager extends BaseModuleManager<TimerD
      * @param database           storing graph data.
      * @param metadataRepository for storing module metadata.
      * @param timingStrategy     the {@link TimingStrategy} to use for scheduling the timer-driven modules.
+     * @param schedulingConfig   the {@link SchedulingConfig} of the scheduler delegating work to the timer-driven modules.
      */
-    public ProductionTimerDrivenModuleManager(GraphDatabaseService database, ModuleMetadataRepository metadataRepository, TimingStrategy timingStrategy, StatsCollector statsCollector) {
+    public ProductionTimerDrivenModuleManager(GraphDatabaseService database, ModuleMetadataRepository metadataRepository, TimingStrategy timingStrategy, SchedulingConfig schedulingConfig, StatsCollector statsCollector) {
         super(metadataRepository, statsCollector);
         this.database = database;
-        taskScheduler = new RotatingTaskScheduler(database, metadataRepository, timingStrategy);
+        taskScheduler = createTaskScheduler(database, metadataRepository, timingStrategy, schedulingConfig);
+    }
+
+    private static TaskScheduler createTaskScheduler(GraphDatabaseService database, ModuleMetadataRepository metadataRepository, TimingStrategy timingStrategy, SchedulingConfig schedulingConfig) {
+        switch (schedulingConfig.getSchedulerType()) {
+            case ROTATING:
+                return new RotatingTaskScheduler(database, metadataRepository, timingStrategy, schedulingConfig);
+            case WEIGHTED_FAIR:
+                return new WeightedFairTaskScheduler(database, metadataRepository, timingStrategy, schedulingConfig);
+            case DUE_TIME:
+                return new DueTimeTaskScheduler(database, metadataRepository, timingStrategy, schedulingConfig);
+        }
+
+        throw new IllegalStateException("Unknown scheduler type: " + schedulingConfig.getSchedulerType());
     }
 
     /**
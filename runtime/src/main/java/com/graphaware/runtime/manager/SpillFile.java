@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.manager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * A temporary file holding a FIFO sequence of timestamped, serialized records. Used by {@link AfterCommitQueue} to
+ * hold states that didn't fit in memory. Not thread-safe; access must be guarded by the caller.
+ */
+final class SpillFile {
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private long readPosition;
+    private long writePosition;
+    private int records;
+
+    /**
+     * Create a new temporary spill file.
+     *
+     * @param prefix of the file name.
+     * @throws IOException in case the file can't be created.
+     */
+    SpillFile(String prefix) throws IOException {
+        this.file = File.createTempFile(prefix, ".spill");
+        this.file.deleteOnExit();
+        this.raf = new RandomAccessFile(file, "rw");
+    }
+
+    /**
+     * Append a record.
+     *
+     * @param timestamp of the record.
+     * @param bytes     of the record.
+     * @throws IOException in case of failure to write.
+     */
+    void append(long timestamp, byte[] bytes) throws IOException {
+        raf.seek(writePosition);
+        raf.writeLong(timestamp);
+        raf.writeInt(bytes.length);
+        raf.write(bytes);
+        writePosition = raf.getFilePointer();
+        records++;
+    }
+
+    /**
+     * @return timestamp of the oldest record. Must only be called if the file isn't {@link #isEmpty()}.
+     * @throws IOException in case of failure to read.
+     */
+    long peekTimestamp() throws IOException {
+        raf.seek(readPosition);
+        return raf.readLong();
+    }
+
+    /**
+     * Read and remove the oldest record. Must only be called if the file isn't {@link #isEmpty()}.
+     *
+     * @return bytes of the record.
+     * @throws IOException in case of failure to read.
+     */
+    byte[] take() throws IOException {
+        raf.seek(readPosition + 8);
+        byte[] bytes = new byte[raf.readInt()];
+        raf.readFully(bytes);
+        readPosition = raf.getFilePointer();
+
+        if (--records == 0) {
+            raf.setLength(0);
+            readPosition = 0;
+            writePosition = 0;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * @return number of records in the file.
+     */
+    int size() {
+        return records;
+    }
+
+    /**
+     * @return <code>true</code> iff there are no records in the file.
+     */
+    boolean isEmpty() {
+        return records == 0;
+    }
+
+    /**
+     * Close and delete the file.
+     */
+    void delete() {
+        try {
+            raf.close();
+        } catch (IOException e) {
+            //ignore
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.manager;
+
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Labels, relationship types and property keys touched by a transaction, gathered in a single pass over the raw
+ * {@link TransactionData}. Matched against {@link InclusionSignature}s of modules to find out which modules can't
+ * possibly be interested in the transaction.
+ */
+final class TransactionSummary {
+
+    private static final TransactionSummary UNKNOWN = new TransactionSummary();
+
+    private final Set<String> nodeLabels = new HashSet<>();
+    private final Set<String> nodePropertyKeys = new HashSet<>();
+    private final Set<String> relationshipTypes = new HashSet<>();
+    private final Set<String> relationshipPropertyKeys = new HashSet<>();
+    private boolean nodesCreatedOrDeleted;
+    private boolean labelsChanged;
+    private boolean relationshipsCreatedOrDeleted;
+
+    /**
+     * Summarize a transaction.
+     *
+     * @param data to summarize.
+     * @return summary. If the data could not be read for any reason, a summary is returned that matches every module.
+     */
+    static TransactionSummary of(TransactionData data) {
+        try {
+            TransactionSummary summary = new TransactionSummary();
+            summary.summarizeNodes(data);
+            summary.summarizeRelationships(data);
+            return summary;
+        } catch (RuntimeException e) {
+            return UNKNOWN;
+        }
+    }
+
+    private TransactionSummary() {
+    }
+
+    private void summarizeNodes(TransactionData data) {
+        for (Node node : data.createdNodes()) {
+            nodesCreatedOrDeleted = true;
+            addLabels(node);
+        }
+
+        nodesCreatedOrDeleted |= data.deletedNodes().iterator().hasNext();
+
+        for (LabelEntry entry : data.assignedLabels()) {
+            labelsChanged = true;
+            nodeLabels.add(entry.label().name());
+        }
+
+        //also covers labels of deleted nodes
+        for (LabelEntry entry : data.removedLabels()) {
+            labelsChanged = true;
+            nodeLabels.add(entry.label().name());
+        }
+
+        summarizeNodeProperties(data, data.assignedNodeProperties());
+        summarizeNodeProperties(data, data.removedNodeProperties());
+    }
+
+    private void summarizeNodeProperties(TransactionData data, Iterable<PropertyEntry<Node>> entries) {
+        for (PropertyEntry<Node> entry : entries) {
+            nodePropertyKeys.add(entry.key());
+            if (!data.isDeleted(entry.entity())) {
+                addLabels(entry.entity());
+            }
+        }
+    }
+
+    private void addLabels(Node node) {
+        for (Label label : node.getLabels()) {
+            nodeLabels.add(label.name());
+        }
+    }
+
+    private void summarizeRelationships(TransactionData data) {
+        for (Relationship relationship : data.createdRelationships()) {
+            relationshipsCreatedOrDeleted = true;
+            relationshipTypes.add(relationship.getType().name());
+        }
+
+        for (Relationship relationship : data.deletedRelationships()) {
+            relationshipsCreatedOrDeleted = true;
+            relationshipTypes.add(relationship.getType().name());
+        }
+
+        summarizeRelationshipProperties(data.assignedRelationshipProperties());
+        summarizeRelationshipProperties(data.removedRelationshipProperties());
+    }
+
+    private void summarizeRelationshipProperties(Iterable<PropertyEntry<Relationship>> entries) {
+        for (PropertyEntry<Relationship> entry : entries) {
+            relationshipPropertyKeys.add(entry.key());
+            relationshipTypes.add(entry.entity().getType().name());
+        }
+    }
+
+    /**
+     * @return <code>true</code> iff the transaction could not be summarized and nothing can be ruled out.
+     */
+    boolean isUnknown() {
+        return this == UNKNOWN;
+    }
+
+    Set<String> getNodeLabels() {
+        return Collections.unmodifiableSet(nodeLabels);
+    }
+
+    Set<String> getNodePropertyKeys() {
+        return Collections.unmodifiableSet(nodePropertyKeys);
+    }
+
+    Set<String> getRelationshipTypes() {
+        return Collections.unmodifiableSet(relationshipTypes);
+    }
+
+    Set<String> getRelationshipPropertyKeys() {
+        return Collections.unmodifiableSet(relationshipPropertyKeys);
+    }
+
+    boolean nodesTouched() {
+        return nodesCreatedOrDeleted || labelsChanged || !nodePropertyKeys.isEmpty();
+    }
+
+    boolean nodesCreatedOrDeleted() {
+        return nodesCreatedOrDeleted;
+    }
+
+    boolean labelsChanged() {
+        return labelsChanged;
+    }
+
+    boolean relationshipsCreatedOrDeleted() {
+        return relationshipsCreatedOrDeleted;
+    }
+}
@@ -47,4 +47,13 @@ public interface TxDrivenModuleManager<T extends TxDrivenModule> extends ModuleM
      * @param states returned by {@link #beforeCommit(com.graphaware.tx.event.improved.data.TransactionDataContainer)}.
      */
     void afterRollback(Map<String, Object> states);
+
+    /**
+     * Get metrics of the queue of states waiting to be delivered to a module after commit.
+     *
+     * @param moduleId ID of the module.
+     * @return metrics, <code>null</code> if no such module has been registered, or if it is configured to receive states
+     * synchronously (see {@link com.graphaware.runtime.config.AfterCommitDelivery}).
+     */
+    AfterCommitQueueMetrics getAfterCommitQueueMetrics(String moduleId);
 }
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.module;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.writer.neo4j.DefaultWriter;
+import com.graphaware.writer.neo4j.Neo4jWriter;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.logging.Log;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base-class for {@link TxDrivenModule}s that do not write to the graph in every transaction, but rather apply the
+ * changes from many committed transactions in periodic micro-batches. This suits aggregate-style modules, such as ones
+ * maintaining counters, which would otherwise turn the aggregate nodes into lock hotspots under high load.
+ * <p/>
+ * {@link #beforeCommit(com.graphaware.tx.event.improved.api.ImprovedTransactionData)} should capture the net changes
+ * of a transaction in a state object that does not depend on the transaction, e.g. deltas of counters. States of
+ * committed transactions are merged using {@link #merge(Object, Object)} until either the configured number of
+ * transactions has been merged or the configured delay has elapsed. The merged batch is then passed to
+ * {@link #processBatch(Object, GraphDatabaseService)}, which runs in a single transaction through a module-owned
+ * {@link DefaultWriter}, on a daemon thread owned by the module. The runtime's {@link Neo4jWriter} is deliberately not
+ * used, as asynchronous writers don't report whether a task has been committed. Batches are processed in the order in
+ * which they were formed, one at a time. A batch whose transaction fails to commit is merged into the next one and
+ * retried, at most the configured number of times in total. A batch still failing after that is logged, passed to
+ * {@link #batchDropped(Object, int)}, and dropped, so that a batch that can never be processed doesn't hold up all the
+ * following ones. While a batch is being retried, it is only processed every configured delay, even if it is full.
+ * <p/>
+ * Changes not yet processed when the database shuts down are lost, so the delay should be kept short for modules that
+ * cannot tolerate that. Such modules can rebuild their state in {@link #initialize(GraphDatabaseService)}.
+ *
+ * @param <T> type of the state object capturing the net changes of a transaction, as well as of a batch of transactions.
+ */
+public abstract class BaseMicroBatchTxDrivenModule<T> extends BaseTxDrivenModule<T> {
+
+    private static final Log LOG = LoggerFactory.getLogger(BaseMicroBatchTxDrivenModule.class);
+
+    public static final int DEFAULT_MAX_TRANSACTIONS = 1000;
+    public static final long DEFAULT_MAX_DELAY = 1000;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private final int maxTransactions;
+    private final long maxDelay;
+    private final int maxAttempts;
+
+    private final Object lock = new Object();
+    private T batch;
+    private int transactions;
+    private int failedAttempts;
+    private boolean flushPending;
+
+    private GraphDatabaseService database;
+    private Neo4jWriter writer;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Construct a new module, which processes a batch every {@link #DEFAULT_MAX_TRANSACTIONS} transactions or every
+     * {@link #DEFAULT_MAX_DELAY} ms, whichever comes first.
+     *
+     * @param moduleId ID of this module. Must not be <code>null</code> or empty.
+     */
+    protected BaseMicroBatchTxDrivenModule(String moduleId) {
+        this(moduleId, DEFAULT_MAX_TRANSACTIONS, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Construct a new module, which attempts to process each batch up to {@link #DEFAULT_MAX_ATTEMPTS} times.
+     *
+     * @param moduleId        ID of this module. Must not be <code>null</code> or empty.
+     * @param maxTransactions maximum number of transactions merged into a single batch. Must be positive.
+     * @param maxDelay        maximum number of ms between processing batches. Must be positive.
+     */
+    protected BaseMicroBatchTxDrivenModule(String moduleId, int maxTransactions, long maxDelay) {
+        this(moduleId, maxTransactions, maxDelay, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Construct a new module.
+     *
+     * @param moduleId        ID of this module. Must not be <code>null</code> or empty.
+     * @param maxTransactions maximum number of transactions merged into a single batch. Must be positive.
+     * @param maxDelay        maximum number of ms between processing batches. Must be positive.
+     * @param maxAttempts     maximum number of attempts to process a batch before it is dropped. Must be positive.
+     */
+    protected BaseMicroBatchTxDrivenModule(String moduleId, int maxTransactions, long maxDelay, int maxAttempts) {
+        super(moduleId);
+
+        if (maxTransactions <= 0) {
+            throw new IllegalArgumentException("Maximum number of transactions in a batch must be positive");
+        }
+
+        if (maxDelay <= 0) {
+            throw new IllegalArgumentException("Maximum delay between batches must be positive");
+        }
+
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Maximum number of attempts to process a batch must be positive");
+        }
+
+        this.maxTransactions = maxTransactions;
+        this.maxDelay = maxDelay;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Merge the net changes of a committed transaction into a batch.
+     *
+     * @param batch net changes of the transactions merged so far. Never <code>null</code>.
+     * @param state net changes of a committed transaction, as returned by {@link #beforeCommit(com.graphaware.tx.event.improved.api.ImprovedTransactionData)}.
+     *              Never <code>null</code>.
+     * @return merged batch. Can be one of the arguments modified in place.
+     */
+    protected abstract T merge(T batch, T state);
+
+    /**
+     * Apply a batch of net changes to the graph. Implementations can (and should) assume a running transaction.
+     *
+     * @param batch    merged net changes of one or more committed transactions.
+     * @param database to apply the changes to.
+     */
+    protected abstract void processBatch(T batch, GraphDatabaseService database);
+
+    /**
+     * Called when a batch is dropped after it has failed to be processed the maximum number of times. The failure has
+     * already been logged. Does nothing by default; override to e.g. record the batch elsewhere or mark the module for
+     * re-initialization.
+     *
+     * @param batch        the dropped batch.
+     * @param transactions number of transactions merged into the batch.
+     */
+    protected void batchDropped(T batch, int transactions) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start(GraphDatabaseService database) {
+        super.start(database);
+
+        this.database = database;
+        this.writer = new DefaultWriter(database);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GraphAware-" + getId() + "-micro-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::flush, maxDelay, maxDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Merges the state into the current batch, which is processed straight away if it is full, unless it is already
+     * about to be processed or is being retried.
+     */
+    @Override
+    public final void afterCommit(T state) {
+        if (state == null) {
+            return;
+        }
+
+        boolean flush;
+        synchronized (lock) {
+            batch = batch == null ? state : merge(batch, state);
+            flush = ++transactions >= maxTransactions && !flushPending && failedAttempts == 0;
+            if (flush) {
+                flushPending = true;
+            }
+        }
+
+        if (flush) {
+            try {
+                executor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                //shutting down
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Waits for the batch currently being processed, if any. Note that by the time modules are shut down, the database
+     * no longer accepts transactions, so a batch that has not started being processed is lost.
+     */
+    @Override
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    LOG.warn("Module " + getId() + " did not finish processing its last micro-batch in 5 seconds.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (lock) {
+            if (batch != null) {
+                LOG.warn("Module " + getId() + " is shutting down with changes from " + transactions + " transactions not processed.");
+            }
+        }
+
+        super.shutdown();
+    }
+
+    /**
+     * Process the current batch, if any.
+     */
+    protected final void flush() {
+        T toProcess;
+        int merged;
+        int attempt;
+
+        synchronized (lock) {
+            flushPending = false;
+
+            if (batch == null) {
+                return;
+            }
+
+            toProcess = batch;
+            merged = transactions;
+            attempt = failedAttempts + 1;
+            batch = null;
+            transactions = 0;
+        }
+
+        Boolean processed;
+        try {
+            processed = writer.write(() -> {
+                processBatch(toProcess, database);
+                return Boolean.TRUE;
+            }, getId() + "-batch-of-" + merged, 0);
+        } catch (RuntimeException e) {
+            LOG.warn("Module " + getId() + " failed to process a micro-batch of " + merged + " transactions (attempt " + attempt + " of " + maxAttempts + ")", e);
+            processed = Boolean.FALSE;
+        }
+
+        if (Boolean.TRUE.equals(processed)) {
+            synchronized (lock) {
+                failedAttempts = 0;
+            }
+        } else if (attempt < maxAttempts) {
+            requeue(toProcess, merged, attempt);
+        } else {
+            drop(toProcess, merged);
+        }
+    }
+
+    private void requeue(T failed, int merged, int attempts) {
+        synchronized (lock) {
+            batch = batch == null ? failed : merge(failed, batch);
+            transactions += merged;
+            failedAttempts = attempts;
+        }
+    }
+
+    private void drop(T failed, int merged) {
+        synchronized (lock) {
+            failedAttempts = 0;
+        }
+
+        LOG.error("Module " + getId() + " failed to process a micro-batch of " + merged + " transactions " + maxAttempts + " times. The batch has been dropped.");
+
+        try {
+            batchDropped(failed, merged);
+        } catch (RuntimeException e) {
+            LOG.warn("Module " + getId() + " threw an exception while handling a dropped micro-batch", e);
+        }
+    }
+}
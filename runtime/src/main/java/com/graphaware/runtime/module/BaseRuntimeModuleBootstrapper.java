@@ -18,6 +18,7 @@ package com.graphaware.runtime.module;
 
 import com.graphaware.common.log.LoggerFactory;
 import com.graphaware.common.policy.inclusion.*;
+import com.graphaware.runtime.config.AfterCommitDelivery;
 import com.graphaware.runtime.config.BaseTxDrivenModuleConfiguration;
 import com.graphaware.runtime.config.TxDrivenModuleConfiguration;
 import com.graphaware.runtime.config.function.StringToNodeInclusionPolicy;
@@ -45,6 +46,10 @@ public abstract class BaseRuntimeModuleBootstrapper<C extends BaseTxDrivenModule
     protected static final String RELATIONSHIP = "relationship";
     protected static final String RELATIONSHIP_PROPERTY = "relationship.property";
 
+    protected static final String AFTER_COMMIT_ASYNC = "afterCommit.async";
+    protected static final String AFTER_COMMIT_QUEUE_CAPACITY = "afterCommit.queueCapacity";
+    protected static final String AFTER_COMMIT_OVERFLOW = "afterCommit.overflow";
+
     /**
      * Produce default configuration for the module.
      *
@@ -63,6 +68,8 @@ public abstract class BaseRuntimeModuleBootstrapper<C extends BaseTxDrivenModule
 
         configuration = configureInclusionPolicies(config, configuration);
 
+        configuration = configureAfterCommitDelivery(moduleId, config, configuration);
+
         return doBootstrapModule(moduleId, config, database, configuration);
     }
 
@@ -103,6 +110,26 @@ public abstract class BaseRuntimeModuleBootstrapper<C extends BaseTxDrivenModule
         return configuration;
     }
 
+    protected C configureAfterCommitDelivery(String moduleId, Map<String, String> config, C configuration) {
+        if (!configExists(config, AFTER_COMMIT_ASYNC) || !Boolean.parseBoolean(config.get(AFTER_COMMIT_ASYNC))) {
+            return configuration;
+        }
+
+        AfterCommitDelivery delivery = AfterCommitDelivery.asynchronous();
+
+        if (configExists(config, AFTER_COMMIT_QUEUE_CAPACITY)) {
+            delivery = AfterCommitDelivery.asynchronous(Integer.parseInt(config.get(AFTER_COMMIT_QUEUE_CAPACITY)));
+        }
+
+        if (configExists(config, AFTER_COMMIT_OVERFLOW)) {
+            delivery = delivery.withOverflowPolicy(AfterCommitDelivery.OverflowPolicy.valueOf(config.get(AFTER_COMMIT_OVERFLOW).trim().toUpperCase()));
+        }
+
+        LOG.info(moduleId + " after-commit delivery set to %s", delivery);
+
+        return configuration.withAfterCommitDelivery(delivery);
+    }
+
     /**
      * Apply module-specific configuration to the provided configuration, which has already been configured with "initializeUntil"
      * and all {@link InclusionPolicies}. Then bootstrap the module and return it.
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.module.changelog;
+
+import com.graphaware.common.log.LoggerFactory;
+import org.neo4j.logging.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An append-only binary log of records stored in a directory on local disk as a sequence of memory-mapped
+ * {@link ChangeLogSegment}s. Every record is identified by its logical offset, which is the base offset of its segment
+ * plus its position within the segment. When a segment is full, a new one is rolled, with base offset equal to the
+ * offset at which the previous segment ended. Offsets thus grow monotonically and are stable across restarts.
+ * <p/>
+ * Records are read using a {@link ChangeLogReader}, which can be open in a different thread (or process) than the
+ * writer. Thread-safe.
+ */
+public class ChangeLog implements AutoCloseable {
+
+    private static final Log LOG = LoggerFactory.getLogger(ChangeLog.class);
+
+    private final File directory;
+    private final int segmentSize;
+
+    private ChangeLogSegment current;
+    private int position;
+
+    /**
+     * Open a change log, creating the directory and first segment if needed. If the log already exists, writing
+     * continues after the last intact record of the latest segment.
+     *
+     * @param directory   to store the log in.
+     * @param segmentSize size of each segment in bytes. Records larger than the segment size are given a segment of their own.
+     */
+    public ChangeLog(File directory, int segmentSize) {
+        if (segmentSize <= ChangeLogSegment.HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be greater than " + ChangeLogSegment.HEADER_SIZE);
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IllegalStateException("Could not create change log directory " + directory);
+        }
+
+        List<File> segments = segments(directory);
+        if (segments.isEmpty()) {
+            current = ChangeLogSegment.create(directory, 0, segmentSize);
+            position = 0;
+        } else {
+            current = ChangeLogSegment.open(segments.get(segments.size() - 1), true);
+            position = current.recover();
+            LOG.info("Opened change log in " + directory + " at offset " + getEndOffset());
+        }
+    }
+
+    /**
+     * Append a record to the log.
+     *
+     * @param payload of the record, must not be empty.
+     * @return logical offset of the record.
+     */
+    public synchronized long append(byte[] payload) {
+        if (payload.length == 0) {
+            throw new IllegalArgumentException("Change log records must not be empty");
+        }
+
+        if (!current.fits(position, payload.length)) {
+            roll(payload.length);
+        }
+
+        long offset = getEndOffset();
+        position = current.write(position, payload);
+        return offset;
+    }
+
+    /**
+     * @return logical offset at which the next record will be appended.
+     */
+    public synchronized long getEndOffset() {
+        return current.getBaseOffset() + position;
+    }
+
+    /**
+     * Flush appended records to disk. Records are visible to readers even without flushing; flushing only matters for
+     * durability in case of an operating system crash.
+     */
+    public synchronized void flush() {
+        current.flush();
+    }
+
+    /**
+     * Flush and close the log.
+     */
+    @Override
+    public synchronized void close() {
+        current.flush();
+        current.close();
+    }
+
+    private void roll(int length) {
+        if (position == 0) {
+            //nothing written to the current segment yet, replace it by a large enough one
+            current.delete();
+        } else {
+            current.flush();
+            current.close();
+        }
+        current = ChangeLogSegment.create(directory, getEndOffset(), Math.max(segmentSize, ChangeLogSegment.HEADER_SIZE + length));
+        position = 0;
+    }
+
+    /**
+     * List segments in a directory.
+     *
+     * @param directory to list.
+     * @return segment files ordered by base offset.
+     */
+    static List<File> segments(File directory) {
+        List<File> result = new ArrayList<>();
+
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (ChangeLogSegment.isSegment(file)) {
+                    result.add(file);
+                }
+            }
+        }
+
+        Collections.sort(result);
+        return result;
+    }
+}
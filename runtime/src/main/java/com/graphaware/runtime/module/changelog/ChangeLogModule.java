@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.module.changelog;
+
+import com.graphaware.common.representation.DetachedNode;
+import com.graphaware.common.representation.DetachedRelationship;
+import com.graphaware.common.representation.GraphDetachedNode;
+import com.graphaware.common.representation.GraphDetachedRelationship;
+import com.graphaware.common.serialize.Serializer;
+import com.graphaware.runtime.config.TxDrivenModuleConfiguration;
+import com.graphaware.runtime.module.thirdparty.ThirdPartyIntegrationModule;
+import com.graphaware.writer.thirdparty.WriteOperation;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.io.File;
+import java.util.Collection;
+
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * A {@link ThirdPartyIntegrationModule} that appends the changes made by every committed transaction to a binary
+ * {@link ChangeLog} on local disk, one record per transaction. Each record is a serialized collection of
+ * {@link WriteOperation}s, whose nodes and relationships are represented as {@link GraphDetachedNode}s and
+ * {@link GraphDetachedRelationship}s. Label and property diffs are derived from the previous and current representations
+ * held by update operations.
+ * <p/>
+ * Downstream consumers stream the changes using a {@link ChangeLogReader}, off the commit path. For the same reason, it
+ * is recommended to configure the module with asynchronous after-commit delivery.
+ */
+public class ChangeLogModule extends ThirdPartyIntegrationModule<Long> {
+
+    private final TxDrivenModuleConfiguration configuration;
+    private final File directory;
+    private final int segmentSize;
+
+    private volatile ChangeLog changeLog;
+
+    /**
+     * Construct a new module.
+     *
+     * @param moduleId      ID of this module. Must not be <code>null</code> or empty.
+     * @param configuration of the module. Must not be <code>null</code>.
+     * @param directory     to store the change log in. Must not be <code>null</code>.
+     * @param segmentSize   size of change log segments in bytes.
+     */
+    public ChangeLogModule(String moduleId, TxDrivenModuleConfiguration configuration, File directory, int segmentSize) {
+        super(moduleId);
+
+        notNull(configuration);
+        notNull(directory);
+
+        this.configuration = configuration;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TxDrivenModuleConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start(GraphDatabaseService database) {
+        super.start(database);
+        changeLog = new ChangeLog(directory, segmentSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterCommit(Collection<WriteOperation<?>> state) {
+        if (state.isEmpty()) {
+            return;
+        }
+
+        //serialized as an array, since Kryo instantiates collections without calling their constructors
+        changeLog.append(Serializer.toByteArray(state.toArray(new WriteOperation[state.size()])));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void shutdown() {
+        if (changeLog != null) {
+            changeLog.close();
+            changeLog = null;
+        }
+        super.shutdown();
+    }
+
+    /**
+     * Create a reader of the change log written by this module. The reader must be closed by the caller.
+     *
+     * @return reader.
+     */
+    public ChangeLogReader newReader() {
+        return new ChangeLogReader(directory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DetachedRelationship<Long, ? extends DetachedNode<Long>> relationshipRepresentation(Relationship relationship) {
+        return new GraphDetachedRelationship(relationship);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DetachedNode<Long> nodeRepresentation(Node node) {
+        return new GraphDetachedNode(node);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.module.changelog;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.runtime.config.FluentTxDrivenModuleConfiguration;
+import com.graphaware.runtime.module.BaseRuntimeModuleBootstrapper;
+import com.graphaware.runtime.module.RuntimeModule;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.logging.Log;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * {@link com.graphaware.runtime.module.RuntimeModuleBootstrapper} for {@link ChangeLogModule}.
+ * <p/>
+ * Apart from the configuration common to all tx-driven modules, it accepts "directory" (mandatory), the directory to
+ * store the change log in, and "segmentSize", the size of change log segments in bytes (64 MB by default).
+ */
+public class ChangeLogModuleBootstrapper extends BaseRuntimeModuleBootstrapper<FluentTxDrivenModuleConfiguration> {
+
+    private static final Log LOG = LoggerFactory.getLogger(ChangeLogModuleBootstrapper.class);
+
+    private static final String DIRECTORY = "directory";
+    private static final String SEGMENT_SIZE = "segmentSize";
+
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected FluentTxDrivenModuleConfiguration defaultConfiguration() {
+        return FluentTxDrivenModuleConfiguration.defaultConfiguration();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected RuntimeModule doBootstrapModule(String moduleId, Map<String, String> config, GraphDatabaseService database, FluentTxDrivenModuleConfiguration configuration) {
+        if (!configExists(config, DIRECTORY)) {
+            throw new IllegalArgumentException("Change log directory must be configured for module " + moduleId);
+        }
+
+        File directory = new File(config.get(DIRECTORY));
+
+        int segmentSize = DEFAULT_SEGMENT_SIZE;
+        if (configExists(config, SEGMENT_SIZE)) {
+            segmentSize = Integer.parseInt(config.get(SEGMENT_SIZE));
+        }
+
+        LOG.info(moduleId + " change log directory set to %s, segment size %s bytes", directory.getAbsolutePath(), segmentSize);
+
+        return new ChangeLogModule(moduleId, configuration, directory, segmentSize);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.module.changelog;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A tailing reader of a {@link ChangeLog}. Consumers keep track of the offset they have read up to (typically
+ * {@link ChangeLogRecord#getNextOffset()} of the last record they have processed) and repeatedly call
+ * {@link #read(long, int)} to stream new records as they are appended. The reader is independent of the writer, so it
+ * can run outside of the commit path. Not thread-safe.
+ */
+public class ChangeLogReader implements AutoCloseable {
+
+    private final File directory;
+    private final TreeMap<Long, ChangeLogSegment> segments = new TreeMap<>();
+
+    /**
+     * Construct a new reader.
+     *
+     * @param directory containing the log.
+     */
+    public ChangeLogReader(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return logical offset of the first record in the log, i.e. the offset to start reading from.
+     */
+    public long getStartOffset() {
+        refresh();
+        if (segments.isEmpty()) {
+            throw new IllegalStateException("There is no change log in " + directory);
+        }
+        return segments.firstKey();
+    }
+
+    /**
+     * Read records from the log.
+     *
+     * @param offset     logical offset of the first record to read. Must be the offset of a record, or the offset at
+     *                   which the next record will be appended.
+     * @param maxRecords maximum number of records to read.
+     * @return records starting at the given offset, empty if there are no records at the offset (yet).
+     */
+    public List<ChangeLogRecord> read(long offset, int maxRecords) {
+        List<ChangeLogRecord> result = new ArrayList<>();
+
+        Map.Entry<Long, ChangeLogSegment> entry = segmentFor(offset);
+        while (entry != null && result.size() < maxRecords) {
+            ChangeLogSegment segment = entry.getValue();
+            int position = (int) (offset - segment.getBaseOffset());
+
+            byte[] payload = segment.readIfIntact(position);
+            if (payload != null) {
+                ChangeLogRecord record = new ChangeLogRecord(offset, payload);
+                result.add(record);
+                offset = record.getNextOffset();
+                continue;
+            }
+
+            if (position == 0 && segment.isStale()) {
+                //the writer has not finished sizing the segment yet, or has replaced it by a larger one; re-open next time
+                segments.remove(entry.getKey()).close();
+                break;
+            }
+
+            //end of written records in this segment; continue in the next segment if the writer has rolled to it
+            entry = segmentFor(offset);
+            if (entry != null && entry.getValue() == segment) {
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Close the reader.
+     */
+    @Override
+    public void close() {
+        for (ChangeLogSegment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private Map.Entry<Long, ChangeLogSegment> segmentFor(long offset) {
+        Map.Entry<Long, ChangeLogSegment> entry = segments.floorEntry(offset);
+
+        if (entry == null || (entry.getKey() != offset && segments.higherKey(entry.getKey()) == null)) {
+            refresh();
+            entry = segments.floorEntry(offset);
+        }
+
+        if (entry == null) {
+            throw new IllegalArgumentException("There is no change log record at offset " + offset + " in " + directory);
+        }
+
+        return entry;
+    }
+
+    private void refresh() {
+        for (File file : ChangeLog.segments(directory)) {
+            long baseOffset = ChangeLogSegment.baseOffsetOf(file);
+            if (!segments.containsKey(baseOffset)) {
+                segments.put(baseOffset, ChangeLogSegment.open(file, false));
+            }
+        }
+    }
+}
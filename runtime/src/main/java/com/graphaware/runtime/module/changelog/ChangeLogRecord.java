@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.module.changelog;
+
+import com.graphaware.common.serialize.Serializer;
+import com.graphaware.writer.thirdparty.WriteOperation;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A record read from a {@link ChangeLog}.
+ */
+public class ChangeLogRecord {
+
+    private final long offset;
+    private final byte[] bytes;
+
+    /**
+     * Construct a new record.
+     *
+     * @param offset logical offset of the record in the log.
+     * @param bytes  payload of the record.
+     */
+    public ChangeLogRecord(long offset, byte[] bytes) {
+        this.offset = offset;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return logical offset of the record in the log.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return logical offset of the record following this one, i.e. the offset to continue reading from.
+     */
+    public long getNextOffset() {
+        return offset + ChangeLogSegment.HEADER_SIZE + bytes.length;
+    }
+
+    /**
+     * @return payload of the record.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Deserialize the payload of a record written by {@link ChangeLogModule}.
+     *
+     * @return operations representing the changes made by a single transaction.
+     */
+    public Collection<WriteOperation<?>> getOperations() {
+        return Arrays.asList((WriteOperation<?>[]) Serializer.fromByteArray(bytes));
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.module.changelog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A single memory-mapped, fixed-size segment of a {@link ChangeLog}. Records are laid out back to back, each consisting
+ * of an <code>int</code> length, an <code>int</code> CRC32 checksum of the payload, and the payload itself. A zero
+ * length marks the end of the written part of the segment.
+ * <p/>
+ * The length of a record is written last, so that a reader never sees a partially written record. Not thread-safe.
+ */
+final class ChangeLogSegment {
+
+    static final int HEADER_SIZE = 4 + 4;
+
+    private static final String SUFFIX = ".changelog";
+
+    private final File file;
+    private final long baseOffset;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+
+    private ChangeLogSegment(File file, long baseOffset, long capacity, boolean writable) throws IOException {
+        this.file = file;
+        this.baseOffset = baseOffset;
+        this.raf = new RandomAccessFile(file, writable ? "rw" : "r");
+
+        if (writable && raf.length() < capacity) {
+            raf.setLength(capacity);
+        }
+
+        this.buffer = raf.getChannel().map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, raf.length());
+    }
+
+    /**
+     * Create a new segment.
+     *
+     * @param directory  to create the segment in.
+     * @param baseOffset logical offset of the first record in the segment.
+     * @param capacity   of the segment in bytes.
+     * @return segment open for writing.
+     */
+    static ChangeLogSegment create(File directory, long baseOffset, long capacity) {
+        try {
+            return new ChangeLogSegment(fileFor(directory, baseOffset), baseOffset, capacity, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create change log segment with base offset " + baseOffset + " in " + directory, e);
+        }
+    }
+
+    /**
+     * Open an existing segment.
+     *
+     * @param file     of the segment.
+     * @param writable whether the segment should be open for writing.
+     * @return segment.
+     */
+    static ChangeLogSegment open(File file, boolean writable) {
+        try {
+            return new ChangeLogSegment(file, baseOffsetOf(file), 0, writable);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open change log segment " + file, e);
+        }
+    }
+
+    /**
+     * Check whether a file is a segment.
+     *
+     * @param file to check.
+     * @return true iff the file is a segment.
+     */
+    static boolean isSegment(File file) {
+        return file.getName().endsWith(SUFFIX) && file.getName().length() == 20 + SUFFIX.length();
+    }
+
+    /**
+     * Get the base offset of a segment from its file name.
+     *
+     * @param file of the segment.
+     * @return base offset.
+     */
+    static long baseOffsetOf(File file) {
+        return Long.parseLong(file.getName().substring(0, 20));
+    }
+
+    private static File fileFor(File directory, long baseOffset) {
+        return new File(directory, String.format("%020d", baseOffset) + SUFFIX);
+    }
+
+    /**
+     * @return logical offset of the first record in this segment.
+     */
+    long getBaseOffset() {
+        return baseOffset;
+    }
+
+    /**
+     * @return capacity of this segment in bytes.
+     */
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Find the position after the last intact record, i.e. the position the next record should be written to. Anything
+     * after that position (such as a record torn by a crash) is zeroed out.
+     *
+     * @return position.
+     */
+    int recover() {
+        int position = 0;
+        int length;
+
+        while ((length = lengthAt(position)) > 0 && readIfIntact(position) != null) {
+            position += HEADER_SIZE + length;
+        }
+
+        if (length != 0) {
+            for (int i = position; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+
+        return position;
+    }
+
+    /**
+     * Check whether a record of the given length fits in this segment at the given position.
+     *
+     * @param position in the segment.
+     * @param length   of the record payload.
+     * @return true iff it fits.
+     */
+    boolean fits(int position, int length) {
+        return (long) position + HEADER_SIZE + length <= buffer.capacity();
+    }
+
+    /**
+     * Write a record. The caller must make sure it {@link #fits(int, int)}.
+     *
+     * @param position to write the record at.
+     * @param payload  of the record.
+     * @return position after the record.
+     */
+    int write(int position, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        for (int i = 0; i < payload.length; i++) {
+            buffer.put(position + HEADER_SIZE + i, payload[i]);
+        }
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, payload.length);
+
+        return position + HEADER_SIZE + payload.length;
+    }
+
+    /**
+     * Get the length of the payload of the record at the given position.
+     *
+     * @param position of the record.
+     * @return length, 0 if there's no record at the position (yet).
+     */
+    int lengthAt(int position) {
+        if (position + HEADER_SIZE > buffer.capacity()) {
+            return 0;
+        }
+        return buffer.getInt(position);
+    }
+
+    /**
+     * Read the payload of the record at the given position.
+     *
+     * @param position of the record, must have a positive {@link #lengthAt(int)}.
+     * @return payload.
+     */
+    byte[] read(int position) {
+        byte[] payload = new byte[lengthAt(position)];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = buffer.get(position + HEADER_SIZE + i);
+        }
+        return payload;
+    }
+
+    /**
+     * Read the payload of the record at the given position, provided the record has been completely written.
+     *
+     * @param position of the record.
+     * @return payload, <code>null</code> if there's no intact record at the position (yet).
+     */
+    byte[] readIfIntact(int position) {
+        int length = lengthAt(position);
+        if (length <= 0 || !fits(position, length)) {
+            return null;
+        }
+
+        byte[] payload = read(position);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return buffer.getInt(position + 4) == (int) crc.getValue() ? payload : null;
+    }
+
+    /**
+     * @return true iff the file backing this segment no longer has the size of the mapping, i.e. it has been replaced
+     * or resized since the segment was opened.
+     */
+    boolean isStale() {
+        return file.length() != buffer.capacity();
+    }
+
+    /**
+     * Flush written records to disk.
+     */
+    void flush() {
+        buffer.force();
+    }
+
+    /**
+     * Close the segment. Note that the memory mapping is only released once the segment is garbage-collected.
+     */
+    void close() {
+        try {
+            raf.close();
+        } catch (IOException e) {
+            //ignore
+        }
+    }
+
+    /**
+     * Close and delete the segment.
+     */
+    void delete() {
+        close();
+        file.delete();
+    }
+}
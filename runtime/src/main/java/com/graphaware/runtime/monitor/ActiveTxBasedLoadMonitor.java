@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.monitor;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.kernel.impl.transaction.stats.TransactionCounters;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+/**
+ * {@link DatabaseLoadMonitor} returning the database load as the number of currently active transactions, which, unlike
+ * the number of started transactions, also reflects long-running queries.
+ */
+public class ActiveTxBasedLoadMonitor implements DatabaseLoadMonitor {
+
+    private final TransactionCounters txCounters;
+
+    /**
+     * Construct a new monitor.
+     *
+     * @param database to monitor.
+     */
+    public ActiveTxBasedLoadMonitor(GraphDatabaseService database) {
+        this.txCounters = ((GraphDatabaseAPI) database).getDependencyResolver().resolveDependency(TransactionCounters.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return number of active transactions.
+     */
+    @Override
+    public long getLoad() {
+        return txCounters.getNumberOfActiveTransactions();
+    }
+}
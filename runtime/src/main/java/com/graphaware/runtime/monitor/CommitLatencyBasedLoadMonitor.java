@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.monitor;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link DatabaseLoadMonitor} returning the database load as the average latency of committing write transactions, i.e.
+ * the time between the point when a transaction starts committing and the point when it is committed, which grows when
+ * the database is under I/O pressure.
+ * <p/>
+ * The load is the average latency of transactions committed since the monitor was last queried, or 0 if there were none.
+ * <p/>
+ * The monitor registers itself as a {@link TransactionEventHandler} with the database upon construction and stays
+ * registered until {@link #close()} is called or the database shuts down.
+ */
+public class CommitLatencyBasedLoadMonitor implements DatabaseLoadMonitor, TransactionEventHandler<Long> {
+
+    private final GraphDatabaseService database;
+    private final AtomicReference<Window> window = new AtomicReference<>(Window.EMPTY);
+    private final AtomicBoolean registered = new AtomicBoolean(true);
+
+    /**
+     * Construct a new monitor.
+     *
+     * @param database to monitor.
+     */
+    public CommitLatencyBasedLoadMonitor(GraphDatabaseService database) {
+        this.database = database;
+        database.registerTransactionEventHandler(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Unregisters the monitor from the database. Subsequent calls have no effect.
+     */
+    @Override
+    public void close() {
+        if (registered.compareAndSet(true, false)) {
+            database.unregisterTransactionEventHandler(this);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return average commit latency in microseconds.
+     */
+    @Override
+    public long getLoad() {
+        Window current = window.getAndSet(Window.EMPTY);
+
+        if (current.commits == 0) {
+            return 0;
+        }
+
+        return Math.max(current.totalLatency / current.commits, 0) / 1000;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Long beforeCommit(TransactionData data) {
+        return System.nanoTime();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterCommit(TransactionData data, Long state) {
+        if (state == null) {
+            return;
+        }
+
+        long latency = System.nanoTime() - state;
+        window.updateAndGet(current -> current.plus(latency));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterRollback(TransactionData data, Long state) {
+        //not interesting
+    }
+
+    /**
+     * Number of commits and their total latency since the monitor was last queried. Immutable, so that both values are
+     * always swapped together and never paired across two different windows.
+     */
+    private static final class Window {
+
+        private static final Window EMPTY = new Window(0, 0);
+
+        private final long commits;
+        private final long totalLatency;
+
+        private Window(long commits, long totalLatency) {
+            this.commits = commits;
+            this.totalLatency = totalLatency;
+        }
+
+        private Window plus(long latency) {
+            return new Window(commits + 1, totalLatency + latency);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.monitor;
+
+import com.graphaware.runtime.schedule.TimingStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link DatabaseLoadMonitor} combining several other monitors, each of which measures load in its own units and has
+ * its own threshold, above which the database is deemed to be busy.
+ * <p/>
+ * The combined load is expressed relative to a common busy threshold, so that it can be used in place of a
+ * {@link StartedTxBasedLoadMonitor}: it is the highest of the components' loads, each scaled by the ratio of the common
+ * busy threshold to the component's threshold. The combined load is thus above the common busy threshold iff at least
+ * one of the components is above its own threshold. Components whose load is {@link TimingStrategy#UNKNOWN} are ignored.
+ * <p/>
+ * Instances are immutable; use {@link #with(DatabaseLoadMonitor, long)} to add components.
+ */
+public class CompositeLoadMonitor implements DatabaseLoadMonitor {
+
+    private final long busyThreshold;
+    private final List<DatabaseLoadMonitor> monitors;
+    private final List<Long> thresholds;
+
+    /**
+     * Construct a new monitor with no components.
+     *
+     * @param busyThreshold common busy threshold, must be positive.
+     */
+    public CompositeLoadMonitor(long busyThreshold) {
+        this(busyThreshold, Collections.emptyList(), Collections.emptyList());
+    }
+
+    private CompositeLoadMonitor(long busyThreshold, List<DatabaseLoadMonitor> monitors, List<Long> thresholds) {
+        if (busyThreshold < 1) {
+            throw new IllegalArgumentException("Busy threshold must be positive, was " + busyThreshold);
+        }
+
+        this.busyThreshold = busyThreshold;
+        this.monitors = monitors;
+        this.thresholds = thresholds;
+    }
+
+    /**
+     * Create a new instance of this monitor with an additional component.
+     *
+     * @param monitor   component.
+     * @param threshold load of the component, in its own units, above which the database is deemed to be busy. Must be positive.
+     * @return new instance.
+     */
+    public CompositeLoadMonitor with(DatabaseLoadMonitor monitor, long threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive, was " + threshold);
+        }
+
+        List<DatabaseLoadMonitor> newMonitors = new ArrayList<>(monitors);
+        newMonitors.add(monitor);
+        List<Long> newThresholds = new ArrayList<>(thresholds);
+        newThresholds.add(threshold);
+
+        return new CompositeLoadMonitor(busyThreshold, newMonitors, newThresholds);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Closes all components.
+     */
+    @Override
+    public void close() {
+        for (DatabaseLoadMonitor monitor : monitors) {
+            monitor.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return combined load relative to the common busy threshold, {@link TimingStrategy#UNKNOWN} if the load of all
+     * components is unknown.
+     */
+    @Override
+    public long getLoad() {
+        long result = TimingStrategy.UNKNOWN;
+
+        for (int i = 0; i < monitors.size(); i++) {
+            long load = monitors.get(i).getLoad();
+
+            if (load < 0) {
+                continue;
+            }
+
+            result = Math.max(result, Math.round((double) load * busyThreshold / thresholds.get(i)));
+        }
+
+        return result;
+    }
+}
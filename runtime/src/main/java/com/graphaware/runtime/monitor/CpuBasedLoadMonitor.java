@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.monitor;
+
+import com.graphaware.runtime.schedule.TimingStrategy;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * {@link DatabaseLoadMonitor} returning the database load as the recent CPU usage of the JVM process the database runs in,
+ * as reported by the platform's {@link OperatingSystemMXBean}. On JVMs that don't report process CPU usage, the load is
+ * {@link TimingStrategy#UNKNOWN}.
+ */
+public class CpuBasedLoadMonitor implements DatabaseLoadMonitor {
+
+    private final OperatingSystemMXBean osBean;
+
+    /**
+     * Construct a new monitor.
+     */
+    public CpuBasedLoadMonitor() {
+        this(ManagementFactory.getOperatingSystemMXBean());
+    }
+
+    /**
+     * Construct a new monitor.
+     *
+     * @param osBean to read CPU usage from.
+     */
+    public CpuBasedLoadMonitor(OperatingSystemMXBean osBean) {
+        this.osBean = osBean;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return CPU usage of the process in percent of the total CPU capacity of the machine, 0 - 100.
+     */
+    @Override
+    public long getLoad() {
+        if (!(osBean instanceof com.sun.management.OperatingSystemMXBean)) {
+            return TimingStrategy.UNKNOWN;
+        }
+
+        double load = ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuLoad();
+
+        if (load < 0) {
+            return TimingStrategy.UNKNOWN;
+        }
+
+        return Math.round(load * 100);
+    }
+}
@@ -22,9 +22,17 @@ package com.graphaware.runtime.monitor;
 public interface DatabaseLoadMonitor {
 
     /**
-     * Get the current load of the database in transactions per second.
+     * Get the current load of the database. Unless stated otherwise by the implementation, the load is expressed in
+     * transactions per second.
      *
-     * @return load in tx per second.
+     * @return load, {@link com.graphaware.runtime.schedule.TimingStrategy#UNKNOWN} if unknown.
      */
     long getLoad();
+
+    /**
+     * Stop monitoring the database and release any resources acquired by the monitor, e.g. event handlers registered
+     * with the database. The monitor must not be used afterwards. Does nothing by default.
+     */
+    default void close() {
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.monitor;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+
+/**
+ * Thresholds for load signals, other than the number of started transactions, that are taken into account when deciding
+ * whether the database is busy. A threshold of {@link #DISABLED} means the corresponding signal isn't monitored.
+ * Immutable, with fluent interface.
+ */
+public final class LoadThresholds {
+
+    public static final long DISABLED = 0;
+
+    private static final LoadThresholds NONE = new LoadThresholds(DISABLED, DISABLED, DISABLED, DISABLED);
+
+    private final long activeTransactions;
+    private final long pageCacheFaults;
+    private final long cpuPercent;
+    private final long commitLatencyMicros;
+
+    /**
+     * Get thresholds with all additional signals disabled, i.e. only the number of started transactions is monitored.
+     *
+     * @return thresholds.
+     */
+    public static LoadThresholds none() {
+        return NONE;
+    }
+
+    private LoadThresholds(long activeTransactions, long pageCacheFaults, long cpuPercent, long commitLatencyMicros) {
+        if (activeTransactions < 0 || pageCacheFaults < 0 || cpuPercent < 0 || commitLatencyMicros < 0) {
+            throw new IllegalArgumentException("Thresholds must not be negative");
+        }
+
+        this.activeTransactions = activeTransactions;
+        this.pageCacheFaults = pageCacheFaults;
+        this.cpuPercent = cpuPercent;
+        this.commitLatencyMicros = commitLatencyMicros;
+    }
+
+    /**
+     * @param activeTransactions number of active transactions above which the database is busy. See {@link ActiveTxBasedLoadMonitor}.
+     * @return new instance.
+     */
+    public LoadThresholds withActiveTransactions(long activeTransactions) {
+        return new LoadThresholds(activeTransactions, pageCacheFaults, cpuPercent, commitLatencyMicros);
+    }
+
+    /**
+     * @param pageCacheFaults page faults and evictions per second above which the database is busy. See {@link PageCacheFaultBasedLoadMonitor}.
+     * @return new instance.
+     */
+    public LoadThresholds withPageCacheFaults(long pageCacheFaults) {
+        return new LoadThresholds(activeTransactions, pageCacheFaults, cpuPercent, commitLatencyMicros);
+    }
+
+    /**
+     * @param cpuPercent CPU usage of the process in percent above which the database is busy. See {@link CpuBasedLoadMonitor}.
+     * @return new instance.
+     */
+    public LoadThresholds withCpuPercent(long cpuPercent) {
+        return new LoadThresholds(activeTransactions, pageCacheFaults, cpuPercent, commitLatencyMicros);
+    }
+
+    /**
+     * @param commitLatencyMicros average commit latency in microseconds above which the database is busy. See {@link CommitLatencyBasedLoadMonitor}.
+     * @return new instance.
+     */
+    public LoadThresholds withCommitLatencyMicros(long commitLatencyMicros) {
+        return new LoadThresholds(activeTransactions, pageCacheFaults, cpuPercent, commitLatencyMicros);
+    }
+
+    /**
+     * Create a monitor of the database load, taking into account the number of started transactions and all signals
+     * that have a threshold.
+     *
+     * @param database      to monitor.
+     * @param busyThreshold number of started transactions per second above which the database is busy.
+     * @param maxSamples    maximum number of samples in running window averages.
+     * @param maxTime       maximum time span of running window averages.
+     * @return a {@link StartedTxBasedLoadMonitor} if no additional signals have a threshold, a {@link CompositeLoadMonitor}
+     * with load expressed relative to the busy threshold otherwise.
+     */
+    public DatabaseLoadMonitor createMonitor(GraphDatabaseService database, long busyThreshold, int maxSamples, int maxTime) {
+        DatabaseLoadMonitor startedTx = new StartedTxBasedLoadMonitor(database, new RunningWindowAverage(maxSamples, maxTime));
+
+        if (this.equals(NONE)) {
+            return startedTx;
+        }
+
+        CompositeLoadMonitor result = new CompositeLoadMonitor(busyThreshold).with(startedTx, busyThreshold);
+
+        if (activeTransactions != DISABLED) {
+            result = result.with(new ActiveTxBasedLoadMonitor(database), activeTransactions);
+        }
+
+        if (pageCacheFaults != DISABLED) {
+            result = result.with(new PageCacheFaultBasedLoadMonitor(database, new RunningWindowAverage(maxSamples, maxTime)), pageCacheFaults);
+        }
+
+        if (cpuPercent != DISABLED) {
+            result = result.with(new CpuBasedLoadMonitor(), cpuPercent);
+        }
+
+        if (commitLatencyMicros != DISABLED) {
+            result = result.with(new CommitLatencyBasedLoadMonitor(database), commitLatencyMicros);
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        LoadThresholds that = (LoadThresholds) o;
+
+        if (activeTransactions != that.activeTransactions) return false;
+        if (pageCacheFaults != that.pageCacheFaults) return false;
+        if (cpuPercent != that.cpuPercent) return false;
+        if (commitLatencyMicros != that.commitLatencyMicros) return false;
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = (int) (activeTransactions ^ (activeTransactions >>> 32));
+        result = 31 * result + (int) (pageCacheFaults ^ (pageCacheFaults >>> 32));
+        result = 31 * result + (int) (cpuPercent ^ (cpuPercent >>> 32));
+        result = 31 * result + (int) (commitLatencyMicros ^ (commitLatencyMicros >>> 32));
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.monitor;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+/**
+ * {@link DatabaseLoadMonitor} returning the database load based on the number of page cache faults and evictions in
+ * a period of time, which reflects I/O pressure caused by (typically read-heavy) queries touching data that isn't cached.
+ * <p/>
+ * The load is measured as the average number of faults and evictions per second in a configurable {@link RunningWindowAverage}.
+ * <p/>
+ * Samples are taken as the monitor is queried.
+ */
+public class PageCacheFaultBasedLoadMonitor implements DatabaseLoadMonitor {
+
+    private final PageCacheCounters pageCacheCounters;
+    private final RunningWindowAverage runningWindowAverage;
+
+    /**
+     * Construct a new monitor.
+     *
+     * @param database             to monitor.
+     * @param runningWindowAverage to use for the monitoring.
+     */
+    public PageCacheFaultBasedLoadMonitor(GraphDatabaseService database, RunningWindowAverage runningWindowAverage) {
+        this.pageCacheCounters = ((GraphDatabaseAPI) database).getDependencyResolver().resolveDependency(PageCacheCounters.class);
+        this.runningWindowAverage = runningWindowAverage;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return page faults and evictions per second.
+     */
+    @Override
+    public long getLoad() {
+        runningWindowAverage.sample(System.currentTimeMillis(), pageCacheCounters.faults() + pageCacheCounters.evictions());
+        return runningWindowAverage.getAverage();
+    }
+}
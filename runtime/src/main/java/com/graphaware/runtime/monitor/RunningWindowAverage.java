@@ -16,20 +16,36 @@
 
 package com.graphaware.runtime.monitor;
 
-import com.graphaware.common.util.BoundedConcurrentStack;
-import com.graphaware.common.util.Pair;
 import com.graphaware.runtime.schedule.TimingStrategy;
 
-import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Computes the average value per second of an ever-increasing value over the last configurable number samples or
  * configurable time in milliseconds, whichever is smaller.
+ * <p>
+ * Samples are kept in a fixed-capacity ring buffer of primitive atomic arrays, so taking samples and querying the
+ * average doesn't allocate any memory. The buffer is designed for a single writer: {@link #sample(long, long)} must not
+ * be called concurrently. {@link #getAverage()} and {@link #getEwma()} can be called concurrently with the writer
+ * without locking; readers never look at the slot the writer may be filling, and retry if the writer has lapped them
+ * by the time they re-check the sample count. {@link #getPercentile(double)} uses a scratch buffer and must only be
+ * called by the writer thread.
+ * <p>
+ * Apart from the windowed average, this class also maintains an exponentially weighted moving average of the rate,
+ * with a time constant equal to the maximum time of the window, and can compute percentiles of the rates between
+ * consecutive samples in the window.
  */
 public class RunningWindowAverage {
 
-    private final BoundedConcurrentStack<Pair<Long, Long>> timesAndValues;
     private final int maxTime;
+    private final int maxSamples;
+    private final int capacity;
+    private final AtomicLongArray times;
+    private final AtomicLongArray values;
+    private final long[] scratch;
+
+    private volatile long count = 0;
+    private volatile double ewma = Double.NaN;
 
     /**
      * Construct a new instance.
@@ -38,8 +54,16 @@ public class RunningWindowAverage {
      * @param maxTime    maximum amount of time span of the window.
      */
     public RunningWindowAverage(int maxSamples, int maxTime) {
-        this.timesAndValues = new BoundedConcurrentStack<>(maxSamples);
+        if (maxSamples < 1) {
+            throw new IllegalArgumentException("Maximum number of samples must be positive, was " + maxSamples);
+        }
+
         this.maxTime = maxTime;
+        this.maxSamples = maxSamples;
+        this.capacity = maxSamples + 1; //one spare slot for the sample being written while readers read the window
+        this.times = new AtomicLongArray(capacity);
+        this.values = new AtomicLongArray(capacity);
+        this.scratch = new long[maxSamples];
     }
 
     /**
@@ -49,7 +73,18 @@ public class RunningWindowAverage {
      * @param value sample value.
      */
     public void sample(long time, long value) {
-        timesAndValues.push(new Pair<>(time, value));
+        long current = count;
+
+        if (current > 0) {
+            int previous = index(current - 1);
+            updateEwma(time - times.get(previous), value - values.get(previous));
+        }
+
+        int index = index(current);
+        times.lazySet(index, time);
+        values.lazySet(index, value);
+
+        count = current + 1; //publishes the sample
     }
 
     /**
@@ -60,39 +95,189 @@ public class RunningWindowAverage {
      * @return average of the value as described, rounded down to the nearest integer.
      */
     public long getAverage() {
-        if (timesAndValues.isEmpty()) {
+        while (true) {
+            long snapshot = count;
+
+            if (snapshot < 2) {
+                return TimingStrategy.UNKNOWN;
+            }
+
+            int latest = index(snapshot - 1);
+            long latestTime = times.get(latest);
+            long latestValue = values.get(latest);
+
+            long pastTime = 0;
+            long pastValue = 0;
+            long oldest = oldest(snapshot);
+            long read = 1;
+
+            for (long sequence = snapshot - 2; sequence >= oldest; sequence--) {
+                int index = index(sequence);
+                read++;
+
+                if (latestTime - times.get(index) > maxTime) {
+                    break;
+                }
+
+                pastTime = times.get(index);
+                pastValue = values.get(index);
+            }
+
+            if (overwritten(snapshot, read)) {
+                continue; //writer lapped us, try again
+            }
+
+            int period = (int) (latestTime - pastTime);
+
+            if (period < 1) {
+                return TimingStrategy.UNKNOWN;
+            }
+
+            return ((latestValue - pastValue) * 1000) / period;
+        }
+    }
+
+    /**
+     * Get the exponentially weighted moving average of the rate per second of the ever-increasing value.
+     *
+     * @return moving average, rounded to the nearest integer, {@link TimingStrategy#UNKNOWN} if there haven't been at least two samples.
+     */
+    public long getEwma() {
+        double current = ewma;
+
+        if (Double.isNaN(current)) {
             return TimingStrategy.UNKNOWN;
         }
 
-        Iterator<Pair<Long, Long>> iterator = timesAndValues.iterator();
-        Pair<Long, Long> latest = iterator.next();
-        long latestTime = latest.first();
-        long latestValue = latest.second();
+        return Math.round(current);
+    }
+
+    /**
+     * Get a percentile of the rates per second between consecutive samples in the window, which is defined the same way
+     * as for {@link #getAverage()}. Must only be called by the thread taking the samples.
+     *
+     * @param percentile between 0 and 1, e.g. 0.99 for the 99th percentile.
+     * @return percentile of rates, rounded down to the nearest integer, {@link TimingStrategy#UNKNOWN} if there are no rates in the window.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 1, was " + percentile);
+        }
 
-        if (!iterator.hasNext()) {
+        long snapshot = count;
+
+        if (snapshot < 2) {
             return TimingStrategy.UNKNOWN;
         }
 
-        long pastTime = 0;
-        long pastValue = 0;
+        long latestTime = times.get(index(snapshot - 1));
+        long oldest = oldest(snapshot);
+        int rates = 0;
 
-        while (iterator.hasNext()) {
-            Pair<Long, Long> next = iterator.next();
+        for (long sequence = snapshot - 1; sequence > oldest; sequence--) {
+            int index = index(sequence);
+            int previous = index(sequence - 1);
 
-            if (latestTime - next.first() > maxTime) {
+            if (latestTime - times.get(previous) > maxTime) {
                 break;
             }
 
-            pastTime = next.first();
-            pastValue = next.second();
+            long period = times.get(index) - times.get(previous);
+            if (period > 0) {
+                scratch[rates++] = ((values.get(index) - values.get(previous)) * 1000) / period;
+            }
         }
 
-        int period = Long.valueOf(latestTime - pastTime).intValue();
-
-        if (period < 1) {
+        if (rates == 0) {
             return TimingStrategy.UNKNOWN;
         }
 
-        return ((latestValue - pastValue) * 1000) / period;
+        int rank = (int) Math.min(rates - 1, Math.max(0, Math.ceil(percentile * rates) - 1));
+        return select(scratch, rates, rank);
+    }
+
+    private void updateEwma(long period, long delta) {
+        if (period <= 0) {
+            return;
+        }
+
+        double rate = (delta * 1000.0) / period;
+        double current = ewma;
+
+        if (Double.isNaN(current) || maxTime <= 0) {
+            ewma = rate;
+            return;
+        }
+
+        double alpha = 1 - Math.exp(-(double) period / maxTime);
+        ewma = current + alpha * (rate - current);
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    /**
+     * Get the sequence of the oldest sample in the window. The slot the writer may be overwriting while the count is
+     * still equal to the snapshot, i.e. the one of the sample with sequence snapshot - capacity, is never part of it.
+     *
+     * @param snapshot count at the time the reader started.
+     * @return sequence of the oldest sample.
+     */
+    private long oldest(long snapshot) {
+        return Math.max(0, snapshot - maxSamples);
+    }
+
+    /**
+     * Check whether any of the samples read by a reader have been overwritten by the writer in the meantime.
+     *
+     * @param snapshot count at the time the reader started.
+     * @param read     number of samples read, starting from the latest one and going back.
+     * @return true iff the reader must retry.
+     */
+    private boolean overwritten(long snapshot, long read) {
+        //sample with sequence s is being overwritten as soon as the writer starts on the sample with sequence s + capacity,
+        //which happens once count reaches s + capacity; the oldest sample read has sequence snapshot - read
+        return count - snapshot >= capacity - read;
+    }
+
+    /**
+     * Find the element of the given rank in the first length elements of the array (quickselect), reordering them.
+     */
+    private static long select(long[] array, int length, int rank) {
+        int left = 0;
+        int right = length - 1;
+
+        while (left < right) {
+            long pivot = array[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+
+            while (i <= j) {
+                while (array[i] < pivot) {
+                    i++;
+                }
+                while (array[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long tmp = array[i];
+                    array[i] = array[j];
+                    array[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+
+            if (rank <= j) {
+                right = j;
+            } else if (rank >= i) {
+                left = i;
+            } else {
+                return array[rank];
+            }
+        }
+
+        return array[rank];
     }
 }
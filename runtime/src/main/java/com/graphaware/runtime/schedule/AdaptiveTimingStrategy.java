@@ -17,13 +17,15 @@
 package com.graphaware.runtime.schedule;
 
 import com.graphaware.runtime.monitor.DatabaseLoadMonitor;
+import com.graphaware.runtime.monitor.LoadThresholds;
 import com.graphaware.runtime.monitor.RunningWindowAverage;
-import com.graphaware.runtime.monitor.StartedTxBasedLoadMonitor;
 import org.neo4j.graphdb.GraphDatabaseService;
 
 /**
  * Implementation of {@link TimingStrategy} that pays attention to the current level of activity in the database, i.e.
- * the number of started transactions, in order to decide how long to wait before scheduling the next task.
+ * the number of started transactions, in order to decide how long to wait before scheduling the next task. Optionally,
+ * other load signals can be taken into account by specifying {@link LoadThresholds}, and tasks can be run back-to-back
+ * when the database is idle by specifying a {@link BurstMode}.
  */
 public class AdaptiveTimingStrategy implements TimingStrategy {
 
@@ -34,9 +36,12 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
     private final long busyThreshold;
     private final int maxSamples;
     private final int maxTime;
+    private final LoadThresholds loadThresholds;
+    private final BurstMode burstMode;
 
     private DelayAdjuster delayAdjuster;
     private DatabaseLoadMonitor loadMonitor;
+    private BurstDetector burstDetector;
 
     private long previousDelay = UNKNOWN;
 
@@ -50,12 +55,14 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
      * <li>busy threshold = 100</li>
      * <li>maximum samples = 200</li>
      * <li>maximum time = 2s</li>
+     * <li>no load signals other than started transactions</li>
+     * <li>no burst mode</li>
      * </ul>
      *
      * @return instance of this strategy.
      */
     public static AdaptiveTimingStrategy defaultConfiguration() {
-        return new AdaptiveTimingStrategy(100, 2_000, 5, 5_000, 100, 200, 2_000);
+        return new AdaptiveTimingStrategy(100, 2_000, 5, 5_000, 100, 200, 2_000, LoadThresholds.none(), BurstMode.disabled());
     }
 
     /**
@@ -69,8 +76,10 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
      *                      to be busy.
      * @param maxSamples    The maximum number of running window average samples. See {@link RunningWindowAverage}.
      * @param maxTime       The maximum amount of running window average time. See {@link RunningWindowAverage}.
+     * @param loadThresholds Thresholds of load signals other than started transactions.
+     * @param burstMode     Burst mode of the strategy.
      */
-    private AdaptiveTimingStrategy(long delta, long defaultDelay, long minDelay, long maxDelay, long busyThreshold, int maxSamples, int maxTime) {
+    private AdaptiveTimingStrategy(long delta, long defaultDelay, long minDelay, long maxDelay, long busyThreshold, int maxSamples, int maxTime, LoadThresholds loadThresholds, BurstMode burstMode) {
         this.delta = delta;
         this.defaultDelay = defaultDelay;
         this.minDelay = minDelay;
@@ -78,6 +87,8 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
         this.busyThreshold = busyThreshold;
         this.maxSamples = maxSamples;
         this.maxTime = maxTime;
+        this.loadThresholds = loadThresholds;
+        this.burstMode = burstMode;
     }
 
     /**
@@ -87,7 +98,7 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
      * @return A new {@link AdaptiveTimingStrategy}.
      */
     public AdaptiveTimingStrategy withDelta(long delta) {
-        return new AdaptiveTimingStrategy(delta, this.defaultDelay, this.minDelay, this.maxDelay, this.busyThreshold, this.maxSamples, this.maxTime);
+        return new AdaptiveTimingStrategy(delta, this.defaultDelay, this.minDelay, this.maxDelay, this.busyThreshold, this.maxSamples, this.maxTime, this.loadThresholds, this.burstMode);
     }
 
     /**
@@ -98,7 +109,7 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
      * @return A new {@link AdaptiveTimingStrategy}.
      */
     public AdaptiveTimingStrategy withDefaultDelayMillis(long defaultDelay) {
-        return new AdaptiveTimingStrategy(this.delta, defaultDelay, this.minDelay, this.maxDelay, this.busyThreshold, this.maxSamples, this.maxTime);
+        return new AdaptiveTimingStrategy(this.delta, defaultDelay, this.minDelay, this.maxDelay, this.busyThreshold, this.maxSamples, this.maxTime, this.loadThresholds, this.burstMode);
     }
 
     /**
@@ -109,7 +120,7 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
      * @return A new {@link AdaptiveTimingStrategy}.
      */
     public AdaptiveTimingStrategy withMinimumDelayMillis(long minDelay) {
-        return new AdaptiveTimingStrategy(this.delta, this.defaultDelay, minDelay, this.maxDelay, this.busyThreshold, this.maxSamples, this.maxTime);
+        return new AdaptiveTimingStrategy(this.delta, this.defaultDelay, minDelay, this.maxDelay, this.busyThreshold, this.maxSamples, this.maxTime, this.loadThresholds, this.burstMode);
     }
 
     /**
@@ -120,7 +131,7 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
      * @return A new {@link AdaptiveTimingStrategy}.
      */
     public AdaptiveTimingStrategy withMaximumDelayMillis(long maxDelay) {
-        return new AdaptiveTimingStrategy(this.delta, this.defaultDelay, this.minDelay, maxDelay, this.busyThreshold, this.maxSamples, this.maxTime);
+        return new AdaptiveTimingStrategy(this.delta, this.defaultDelay, this.minDelay, maxDelay, this.busyThreshold, this.maxSamples, this.maxTime, this.loadThresholds, this.burstMode);
     }
 
     /**
@@ -130,7 +141,7 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
      * @return A new {@link AdaptiveTimingStrategy}.
      */
     public AdaptiveTimingStrategy withBusyThreshold(int busyThreshold) {
-        return new AdaptiveTimingStrategy(this.delta, this.defaultDelay, this.minDelay, this.maxDelay, busyThreshold, this.maxSamples, this.maxTime);
+        return new AdaptiveTimingStrategy(this.delta, this.defaultDelay, this.minDelay, this.maxDelay, busyThreshold, this.maxSamples, this.maxTime, this.loadThresholds, this.burstMode);
     }
 
     /**
@@ -140,7 +151,7 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
      * @return A new {@link AdaptiveTimingStrategy}.
      */
     public AdaptiveTimingStrategy withMaxSamples(int maxSamples) {
-        return new AdaptiveTimingStrategy(this.delta, this.defaultDelay, this.minDelay, this.maxDelay, this.busyThreshold, maxSamples, this.maxTime);
+        return new AdaptiveTimingStrategy(this.delta, this.defaultDelay, this.minDelay, this.maxDelay, this.busyThreshold, maxSamples, this.maxTime, this.loadThresholds, this.burstMode);
     }
 
     /**
@@ -150,7 +161,28 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
      * @return A new {@link AdaptiveTimingStrategy}.
      */
     public AdaptiveTimingStrategy withMaxTime(int maxTime) {
-        return new AdaptiveTimingStrategy(this.delta, this.defaultDelay, this.minDelay, this.maxDelay, this.busyThreshold, this.maxSamples, maxTime);
+        return new AdaptiveTimingStrategy(this.delta, this.defaultDelay, this.minDelay, this.maxDelay, this.busyThreshold, this.maxSamples, maxTime, this.loadThresholds, this.burstMode);
+    }
+
+    /**
+     * Returns a copy of this {@link AdaptiveTimingStrategy} reconfigured to take into account load signals other than
+     * started transactions.
+     *
+     * @param loadThresholds The thresholds of the other load signals.
+     * @return A new {@link AdaptiveTimingStrategy}.
+     */
+    public AdaptiveTimingStrategy withLoadThresholds(LoadThresholds loadThresholds) {
+        return new AdaptiveTimingStrategy(this.delta, this.defaultDelay, this.minDelay, this.maxDelay, this.busyThreshold, this.maxSamples, this.maxTime, loadThresholds, this.burstMode);
+    }
+
+    /**
+     * Returns a copy of this {@link AdaptiveTimingStrategy} reconfigured to run tasks back-to-back when the database is idle.
+     *
+     * @param burstMode The burst mode.
+     * @return A new {@link AdaptiveTimingStrategy}.
+     */
+    public AdaptiveTimingStrategy withBurstMode(BurstMode burstMode) {
+        return new AdaptiveTimingStrategy(this.delta, this.defaultDelay, this.minDelay, this.maxDelay, this.busyThreshold, this.maxSamples, this.maxTime, this.loadThresholds, burstMode);
     }
 
     /**
@@ -159,7 +191,8 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
     @Override
     public void initialize(GraphDatabaseService database) {
         this.delayAdjuster = new ConstantDeltaDelayAdjuster(this.delta, this.defaultDelay, this.minDelay, this.maxDelay, this.busyThreshold);
-        this.loadMonitor = new StartedTxBasedLoadMonitor(database, new RunningWindowAverage(this.maxSamples, this.maxTime));
+        this.loadMonitor = loadThresholds.createMonitor(database, this.busyThreshold, this.maxSamples, this.maxTime);
+        this.burstDetector = burstMode.createDetector();
     }
 
     /**
@@ -171,13 +204,38 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
             throw new IllegalStateException("Initialization hasn't been performed, this is a bug.");
         }
 
-        long newDelay = delayAdjuster.determineNextDelay(previousDelay, lastTaskDuration, loadMonitor.getLoad());
+        long load = loadMonitor.getLoad();
+
+        if (burstDetector.update(load, System.currentTimeMillis())) {
+            previousDelay = minDelay; //resume normal pacing from the minimum when the burst is over
+            return burstMode.getBurstDelayMillis();
+        }
+
+        long newDelay = delayAdjuster.determineNextDelay(previousDelay, lastTaskDuration, load);
 
         previousDelay = newDelay;
 
         return newDelay;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isBursting() {
+        return burstDetector != null && burstDetector.isBursting();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        if (loadMonitor != null) {
+            loadMonitor.close();
+        }
+    }
+
 
     /**
      * {@inheritDoc}
@@ -196,6 +254,8 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
         if (maxSamples != that.maxSamples) return false;
         if (maxTime != that.maxTime) return false;
         if (minDelay != that.minDelay) return false;
+        if (!loadThresholds.equals(that.loadThresholds)) return false;
+        if (!burstMode.equals(that.burstMode)) return false;
 
         return true;
     }
@@ -213,6 +273,8 @@ public class AdaptiveTimingStrategy implements TimingStrategy {
         result = 31 * result + (int) (busyThreshold ^ (busyThreshold >>> 32));
         result = 31 * result + maxSamples;
         result = 31 * result + maxTime;
+        result = 31 * result + loadThresholds.hashCode();
+        result = 31 * result + burstMode.hashCode();
         return result;
     }
 }
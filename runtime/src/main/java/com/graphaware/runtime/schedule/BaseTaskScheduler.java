@@ -0,0 +1,499 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import static com.graphaware.runtime.config.TimerDrivenModuleConfiguration.NO_TIME_BUDGET;
+import static com.graphaware.runtime.schedule.TimingStrategy.NEVER_RUN;
+import static com.graphaware.runtime.schedule.TimingStrategy.UNKNOWN;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.logging.Log;
+
+import com.graphaware.common.log.LoggerFactory;
+import com.graphaware.runtime.config.CpuBudget;
+import com.graphaware.runtime.config.TimerDrivenModuleConfiguration;
+import com.graphaware.runtime.config.util.InstanceRoleUtils;
+import com.graphaware.runtime.metadata.DefaultTimerDrivenModuleMetadata;
+import com.graphaware.runtime.metadata.ModuleMetadataRepository;
+import com.graphaware.runtime.metadata.TimerDrivenModuleContext;
+import com.graphaware.runtime.module.TimerDrivenModule;
+
+/**
+ * Base-class for {@link TaskScheduler} implementations. Delegates work to the registered {@link TimerDrivenModule}s using
+ * a configurable number of worker threads (lanes), each of which repeatedly picks a module ready to be delegated to,
+ * runs a task, and schedules its next task according to the {@link TimingStrategy}. By default, there is a single lane.
+ * <p>
+ * Every module is pinned to at most one lane at a time, so its contexts are produced and consumed sequentially, whilst
+ * with multiple lanes a single slow module can no longer hold up all the others. Subclasses decide which module's turn it
+ * is by implementing {@link #findNextModule()}. While the {@link TimingStrategy} is bursting, up to
+ * {@link SchedulingConfig#getBurstWorkerThreads()} additional lanes are started, which retire when the burst is over.
+ * <p>
+ * The latest context of each module is checkpointed, i.e. persisted using the {@link ModuleMetadataRepository}, as
+ * configured by {@link SchedulingConfig#getMaxTasksBetweenCheckpoints()} and {@link SchedulingConfig#getMaxMillisBetweenCheckpoints()}.
+ * Contexts that haven't been checkpointed are persisted when the scheduler is stopped. Should the database crash in
+ * between, modules resume from their last checkpoint and redo the work performed since.
+ * <p>
+ * The CPU time of every task delegated to a module with a limited {@link TimerDrivenModuleConfiguration#getCpuBudget()}
+ * is measured. A module that exceeds its budget isn't considered due until it is back within the budget.
+ */
+public abstract class BaseTaskScheduler implements TaskScheduler {
+    private static final Log LOG = LoggerFactory.getLogger(BaseTaskScheduler.class);
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    protected final GraphDatabaseService database;
+    protected final ModuleMetadataRepository repository;
+    protected final TimingStrategy timingStrategy;
+    private final int workerThreads;
+    private final int burstWorkerThreads;
+    private final int maxTasksBetweenCheckpoints;
+    private final long maxMillisBetweenCheckpoints;
+
+    private final List<ScheduledModule<?>> scheduledModules = new CopyOnWriteArrayList<>();
+    private volatile boolean started = false;
+    private final AtomicInteger lanes = new AtomicInteger(0);
+    private volatile int regularLanes;
+    private volatile int maxLanes;
+
+    private final ScheduledExecutorService worker;
+
+    private final InstanceRoleUtils instanceRoleUtils;
+
+    /**
+     * Construct a new task scheduler.
+     *
+     * @param database       against which the modules are running.
+     * @param repository     for persisting metadata.
+     * @param timingStrategy strategy for timing the work delegation.
+     * @param config         scheduling configuration.
+     */
+    protected BaseTaskScheduler(GraphDatabaseService database, ModuleMetadataRepository repository, TimingStrategy timingStrategy, SchedulingConfig config) {
+        if (config.getWorkerThreads() < 1) {
+            throw new IllegalArgumentException("Number of worker threads must be at least 1, was " + config.getWorkerThreads());
+        }
+
+        this.database = database;
+        this.repository = repository;
+        this.timingStrategy = timingStrategy;
+        this.workerThreads = config.getWorkerThreads();
+        this.burstWorkerThreads = Math.max(0, config.getBurstWorkerThreads());
+        this.maxTasksBetweenCheckpoints = Math.max(1, config.getMaxTasksBetweenCheckpoints());
+        this.maxMillisBetweenCheckpoints = config.getMaxMillisBetweenCheckpoints();
+        this.worker = Executors.newScheduledThreadPool(workerThreads + burstWorkerThreads);
+
+        this.instanceRoleUtils = new InstanceRoleUtils(database);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <C extends TimerDrivenModuleContext, T extends TimerDrivenModule<C>> void registerModuleAndContext(T module, C context) {
+        if (started) {
+            throw new IllegalStateException("Task scheduler can not accept modules after it has been started. This is a bug.");
+        }
+
+        LOG.info("Registering module " + module.getId() + " and its context with the task scheduler.");
+        scheduledModules.add(new ScheduledModule<>(module, context));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start() {
+        started = true;
+
+        if (scheduledModules.isEmpty()) {
+            LOG.info("There are no timer-driven runtime modules. Not scheduling any tasks.");
+            return;
+        }
+
+        //more lanes than modules would just keep looking for work that is already being done
+        regularLanes = Math.min(workerThreads, scheduledModules.size());
+        maxLanes = Math.min(workerThreads + burstWorkerThreads, scheduledModules.size());
+
+        LOG.info("There are " + scheduledModules.size() + " timer-driven runtime modules. Scheduling the first task in " + regularLanes + " lane(s)...");
+
+        timingStrategy.initialize(database);
+
+        for (int i = 0; i < regularLanes; i++) {
+            lanes.incrementAndGet();
+            scheduleNextTask(NEVER_RUN);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stop() {
+        LOG.info("Terminating task scheduler...");
+        worker.shutdown();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            LOG.warn("Did not manage to finish all tasks in 5 seconds.");
+        }
+        checkpointAll();
+        timingStrategy.destroy();
+        LOG.info("Task scheduler terminated successfully.");
+    }
+
+    /**
+     * Persist the latest contexts of all modules that haven't been checkpointed yet.
+     */
+    private void checkpointAll() {
+        for (ScheduledModule<?> scheduledModule : scheduledModules) {
+            if (!scheduledModule.hasUncheckpointedTasks() || !scheduledModule.tryAcquire()) {
+                continue;
+            }
+
+            try {
+                try (Transaction tx = database.beginTx()) {
+                    checkpoint(scheduledModule);
+                    tx.success();
+                }
+                scheduledModule.checkpointed(System.currentTimeMillis());
+            } catch (Exception e) {
+                LOG.warn("Could not checkpoint context of module " + scheduledModule.getModule().getId() + ". It will resume from its last checkpoint.", e);
+            } finally {
+                scheduledModule.release();
+            }
+        }
+    }
+
+    /**
+     * Persist the latest context of a module. Must be called within a transaction by the thread that owns the module.
+     * The module must only be marked as {@link ScheduledModule#checkpointed(long) checkpointed} once that transaction
+     * has successfully committed, otherwise a failed commit would silently lose the work done since the last checkpoint.
+     *
+     * @param scheduledModule to checkpoint.
+     */
+    private void checkpoint(ScheduledModule<?> scheduledModule) {
+        repository.persistModuleMetadata(scheduledModule.getModule(), new DefaultTimerDrivenModuleMetadata(scheduledModule.getContext()));
+    }
+
+    /**
+     * Check whether a module, which has just performed a task, should be checkpointed.
+     *
+     * @param scheduledModule to check.
+     * @return <code>true</code> iff the module's latest context should be persisted now.
+     */
+    private boolean isCheckpointDue(ScheduledModule<?> scheduledModule) {
+        if (scheduledModule.getTasksSinceCheckpoint() >= maxTasksBetweenCheckpoints) {
+            return true;
+        }
+
+        return maxMillisBetweenCheckpoints > 0 && System.currentTimeMillis() - scheduledModule.getLastCheckpoint() >= maxMillisBetweenCheckpoints;
+    }
+
+    /**
+     * Schedule next task.
+     *
+     * @param lastTaskDuration duration of the last task in millis, negative if unknown.
+     */
+    private void scheduleNextTask(long lastTaskDuration) {
+        long nextDelayMillis;
+        boolean bursting;
+        synchronized (timingStrategy) {
+            nextDelayMillis = timingStrategy.nextDelay(lastTaskDuration);
+            bursting = timingStrategy.isBursting();
+        }
+
+        if (!bursting && retireBurstLane()) {
+            LOG.debug("Burst is over, retiring a lane.");
+            return;
+        }
+
+        nextDelayMillis = adjustDelay(nextDelayMillis);
+        LOG.debug("Scheduling next task with a delay of %s ms.", nextDelayMillis);
+        worker.schedule(nextTask(), nextDelayMillis, TimeUnit.MILLISECONDS);
+
+        while (bursting && addBurstLane()) {
+            LOG.debug("Bursting, adding a lane.");
+            worker.schedule(nextTask(), 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Add a lane for the duration of a burst, unless the maximum number of lanes is already running.
+     *
+     * @return <code>true</code> iff a lane has been added and the caller must schedule its first task.
+     */
+    private boolean addBurstLane() {
+        int current;
+        do {
+            current = lanes.get();
+            if (current >= maxLanes) {
+                return false;
+            }
+        } while (!lanes.compareAndSet(current, current + 1));
+
+        return true;
+    }
+
+    /**
+     * Retire a lane added for the duration of a burst, unless only the regular lanes are running.
+     *
+     * @return <code>true</code> iff a lane has been retired and the caller must not schedule its next task.
+     */
+    private boolean retireBurstLane() {
+        int current;
+        do {
+            current = lanes.get();
+            if (current <= regularLanes) {
+                return false;
+            }
+        } while (!lanes.compareAndSet(current, current - 1));
+
+        return true;
+    }
+
+    /**
+     * Create next task wrapped in a {@link Runnable}. The {@link Runnable} schedules the next task when finished.
+     *
+     * @return next task to be run wrapped in a {@link Runnable}.
+     */
+    protected Runnable nextTask() {
+        return () -> {
+            long totalTime = UNKNOWN;
+            try {
+                LOG.debug("Running a scheduled task...");
+                long startTime = System.currentTimeMillis();
+
+                runNextTask();
+
+                totalTime = (System.currentTimeMillis() - startTime);
+                LOG.debug("Successfully completed scheduled task in " + totalTime + " ms");
+            } catch (Exception e) {
+                LOG.warn("Task execution threw an exception: " + e.getMessage(), e);
+            } finally {
+                scheduleNextTask(totalTime);
+            }
+        };
+    }
+
+    /**
+     * Run the next task.
+     *
+     * @param <C> type of the context passed into the module below.
+     */
+    private <C extends TimerDrivenModuleContext> void runNextTask() {
+        if (!database.isAvailable(0)) {
+            LOG.warn("Database not available, probably shutting down...");
+            return;
+        }
+
+        ScheduledModule<C> scheduledModule = findNextModule();
+
+        if (scheduledModule == null) {
+            return; //no module wishes to run
+        }
+
+        long startTime = System.nanoTime();
+        CpuBudget cpuBudget = CpuBudget.UNLIMITED;
+        long startCpuTime = 0;
+        try {
+            TimerDrivenModule<C> module = scheduledModule.getModule();
+
+            cpuBudget = cpuBudget(module);
+            if (cpuBudget.isLimited()) {
+                startCpuTime = currentThreadCpuTime();
+            }
+
+            boolean checkpointed = false;
+            try (Transaction tx = database.beginTx()) {
+                C newContext = doSomeWork(module, scheduledModule.getContext());
+                scheduledModule.setContext(newContext);
+                if (isCheckpointDue(scheduledModule)) {
+                    checkpoint(scheduledModule);
+                    checkpointed = true;
+                }
+                tx.success();
+            }
+
+            if (checkpointed) {
+                scheduledModule.checkpointed(System.currentTimeMillis());
+            }
+        } finally {
+            if (cpuBudget.isLimited()) {
+                scheduledModule.cpuTimeUsed(cpuBudget, System.currentTimeMillis(), currentThreadCpuTime() - startCpuTime);
+                if (scheduledModule.getThrottledUntil() > System.currentTimeMillis()) {
+                    LOG.debug("Module %s exceeded its %s, holding it back until %s.", scheduledModule.getModule().getId(), cpuBudget, scheduledModule.getThrottledUntil());
+                }
+            }
+            taskCompleted(scheduledModule, System.nanoTime() - startTime);
+            scheduledModule.release();
+        }
+    }
+
+    /**
+     * Get the CPU budget of a module.
+     *
+     * @param module to get the budget for.
+     * @return budget, never <code>null</code>.
+     */
+    private CpuBudget cpuBudget(TimerDrivenModule<?> module) {
+        TimerDrivenModuleConfiguration configuration = module.getConfiguration();
+        CpuBudget budget = configuration == null ? null : configuration.getCpuBudget();
+        return budget == null ? CpuBudget.UNLIMITED : budget;
+    }
+
+    /**
+     * Get the CPU time used by the current thread. Falls back to wall-clock time, which is an upper bound of the CPU time,
+     * when the JVM doesn't support measuring thread CPU time.
+     *
+     * @return CPU time in ns.
+     */
+    private long currentThreadCpuTime() {
+        if (THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled()) {
+            return THREADS.getCurrentThreadCpuTime();
+        }
+
+        return System.nanoTime();
+    }
+
+    /**
+     * Delegate work to a module, possibly in multiple steps, as specified by the module's
+     * {@link TimerDrivenModuleConfiguration#getMaxSteps()} and {@link TimerDrivenModuleConfiguration#getTimeBudgetMillis()}.
+     * Every step is passed the context produced by the previous one. Must be called within a transaction.
+     *
+     * @param module      to delegate work to.
+     * @param lastContext context produced by the last step of the previous task, can be <code>null</code>.
+     * @param <C>         context type.
+     * @return context produced by the last step.
+     */
+    private <C extends TimerDrivenModuleContext> C doSomeWork(TimerDrivenModule<C> module, C lastContext) {
+        C context = module.doSomeWork(lastContext, database);
+
+        TimerDrivenModuleConfiguration configuration = module.getConfiguration();
+        int maxSteps = configuration.getMaxSteps();
+
+        if (maxSteps <= 1) {
+            return context;
+        }
+
+        long timeBudget = configuration.getTimeBudgetMillis();
+        long deadline = System.currentTimeMillis() + timeBudget;
+
+        for (int step = 1; step < maxSteps; step++) {
+            long now = System.currentTimeMillis();
+
+            if (timeBudget > NO_TIME_BUDGET && now >= deadline) {
+                break;
+            }
+
+            if (ScheduledModule.dueTime(context) > now) {
+                break; //module doesn't wish to be called again yet
+            }
+
+            context = module.doSomeWork(context, database);
+        }
+
+        return context;
+    }
+
+    /**
+     * Find the next module that is ready to be delegated to and take ownership of it, typically by calling
+     * {@link #tryAcquireIfReady(ScheduledModule, long)} on candidates in the order given by the scheduling policy of the
+     * implementation. Called concurrently by all lanes. The caller will {@link ScheduledModule#release()} the returned
+     * module when done.
+     *
+     * @param <C> context type.
+     * @return module with its context, <code>null</code> if no module is ready.
+     */
+    protected abstract <C extends TimerDrivenModuleContext> ScheduledModule<C> findNextModule();
+
+    /**
+     * Called after a task delegated to a module completed, successfully or not, before the module is released by the
+     * lane that ran the task. Intended to be overridden by implementations that keep track of the cost of the modules'
+     * work. The implementation in this base class doesn't do anything.
+     *
+     * @param scheduledModule module that has been delegated to.
+     * @param durationNanos   how long the task took in nanoseconds.
+     */
+    protected void taskCompleted(ScheduledModule<?> scheduledModule, long durationNanos) {
+        //to be overridden
+    }
+
+    /**
+     * Adjust the delay before the next task, as suggested by the {@link TimingStrategy}. Intended to be overridden by
+     * implementations that know when the next module will be due. The implementation in this base class returns the
+     * suggested delay unchanged.
+     *
+     * @param strategyDelay delay in ms suggested by the timing strategy.
+     * @return delay in ms before the next task is run.
+     */
+    protected long adjustDelay(long strategyDelay) {
+        return strategyDelay;
+    }
+
+    /**
+     * Take ownership of a module, provided that it isn't being delegated to by another lane, it has the correct role
+     * to run, and it is due.
+     *
+     * @param candidate module to acquire.
+     * @param now       current time in ms since 1/1/1970.
+     * @return <code>true</code> iff the module has been acquired and must be released by the caller.
+     */
+    protected final boolean tryAcquireIfReady(ScheduledModule<?> candidate, long now) {
+        if (!candidate.tryAcquire()) {
+            return false; //another lane is running it
+        }
+
+        if (hasCorrectRole(candidate.getModule()) && candidate.isDue(now)) {
+            return true;
+        }
+
+        candidate.release();
+        return false;
+    }
+
+    /**
+     * Check if the given module has the correct role (e.g. master or slave) to run.
+     *
+     * @param module to check for.
+     * @return <code>true</code> iff can run.
+     */
+    protected boolean hasCorrectRole(TimerDrivenModule<?> module) {
+        return module.getConfiguration().getInstanceRolePolicy().comply(instanceRoleUtils.getInstanceRole());
+    }
+
+    /**
+     * @return number of lanes currently delegating work to modules, including the additional ones used when bursting.
+     */
+    protected final int getActiveLanes() {
+        return lanes.get();
+    }
+
+    /**
+     * @return all registered modules with their contexts, in the order in which they were registered.
+     */
+    protected final List<ScheduledModule<?>> getScheduledModules() {
+        return scheduledModules;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+/**
+ * Keeps track of how long the database has been idle and decides whether a {@link TimingStrategy} should be in the
+ * {@link BurstMode}. Not thread-safe, intended to be used by a single strategy, which is always called under a lock.
+ */
+class BurstDetector {
+
+    private final BurstMode burstMode;
+
+    private long idleSince = -1;
+    private boolean bursting = false;
+
+    /**
+     * Create a new detector.
+     *
+     * @param burstMode configuration of the burst mode.
+     */
+    BurstDetector(BurstMode burstMode) {
+        this.burstMode = burstMode;
+    }
+
+    /**
+     * Record the current load of the database and decide whether the strategy should be in the burst mode.
+     *
+     * @param load current load, {@link TimingStrategy#UNKNOWN} if unknown, in which case the database isn't deemed idle.
+     * @param now  current time in ms since 1/1/1970.
+     * @return <code>true</code> iff the strategy should be in the burst mode.
+     */
+    boolean update(long load, long now) {
+        if (!burstMode.isEnabled() || load < 0 || load >= burstMode.getIdleThreshold()) {
+            idleSince = -1;
+            bursting = false;
+            return false;
+        }
+
+        if (idleSince < 0) {
+            idleSince = now;
+        }
+
+        bursting = now - idleSince >= burstMode.getIdlePeriodMillis();
+        return bursting;
+    }
+
+    /**
+     * @return <code>true</code> iff the strategy was in the burst mode as of the last {@link #update(long, long)}.
+     */
+    boolean isBursting() {
+        return bursting;
+    }
+}
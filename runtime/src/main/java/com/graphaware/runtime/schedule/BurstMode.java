@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import com.graphaware.runtime.monitor.DatabaseLoadMonitor;
+
+/**
+ * Configuration of the burst mode of {@link TimingStrategy}s that pay attention to the load of the database. Once the load
+ * has stayed below the idle threshold for the idle period, e.g. at night, the strategy stops pacing the tasks and runs them
+ * back-to-back (with the burst delay, 0 by default), so that long background computations can make the most of the
+ * quiet time. As soon as the load reaches the idle threshold, the strategy falls back to normal pacing.
+ * <p>
+ * Note that the load includes the transactions started by the tasks themselves, so the idle threshold must be set high
+ * enough to accommodate them. Immutable, with fluent interface.
+ */
+public final class BurstMode {
+
+    public static final long DEFAULT_IDLE_PERIOD_MILLIS = 60_000;
+
+    private static final BurstMode DISABLED = new BurstMode(0, 0, 0);
+
+    private final long idleThreshold;
+    private final long idlePeriodMillis;
+    private final long burstDelayMillis;
+
+    /**
+     * Get burst mode that is disabled, i.e. tasks are always paced normally.
+     *
+     * @return disabled burst mode.
+     */
+    public static BurstMode disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Get burst mode that kicks in once the load stays below a threshold for a period of time.
+     *
+     * @param idleThreshold    load, as reported by the strategy's {@link DatabaseLoadMonitor}, below which the database is idle. Must be positive.
+     * @param idlePeriodMillis for how long the database must be idle before the burst mode kicks in. Must not be negative.
+     * @return burst mode.
+     */
+    public static BurstMode afterIdleFor(long idleThreshold, long idlePeriodMillis) {
+        if (idleThreshold <= 0) {
+            throw new IllegalArgumentException("Idle threshold must be positive, was " + idleThreshold);
+        }
+
+        return new BurstMode(idleThreshold, idlePeriodMillis, 0);
+    }
+
+    private BurstMode(long idleThreshold, long idlePeriodMillis, long burstDelayMillis) {
+        if (idlePeriodMillis < 0) {
+            throw new IllegalArgumentException("Idle period must not be negative, was " + idlePeriodMillis);
+        }
+
+        if (burstDelayMillis < 0) {
+            throw new IllegalArgumentException("Burst delay must not be negative, was " + burstDelayMillis);
+        }
+
+        this.idleThreshold = idleThreshold;
+        this.idlePeriodMillis = idlePeriodMillis;
+        this.burstDelayMillis = burstDelayMillis;
+    }
+
+    /**
+     * Return a new instance of this burst mode with a different delay between tasks during the burst.
+     *
+     * @param burstDelayMillis of the new instance, must not be negative.
+     * @return new instance.
+     */
+    public BurstMode withBurstDelayMillis(long burstDelayMillis) {
+        return new BurstMode(idleThreshold, idlePeriodMillis, burstDelayMillis);
+    }
+
+    /**
+     * @return <code>true</code> iff the burst mode can ever kick in.
+     */
+    public boolean isEnabled() {
+        return idleThreshold > 0;
+    }
+
+    /**
+     * @return load below which the database is idle.
+     */
+    public long getIdleThreshold() {
+        return idleThreshold;
+    }
+
+    /**
+     * @return for how long the database must be idle before the burst mode kicks in, in ms.
+     */
+    public long getIdlePeriodMillis() {
+        return idlePeriodMillis;
+    }
+
+    /**
+     * @return delay between tasks during the burst, in ms.
+     */
+    public long getBurstDelayMillis() {
+        return burstDelayMillis;
+    }
+
+    /**
+     * Create a detector of the burst mode, keeping track of the idle time of the database.
+     *
+     * @return detector.
+     */
+    BurstDetector createDetector() {
+        return new BurstDetector(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        BurstMode that = (BurstMode) o;
+
+        if (idleThreshold != that.idleThreshold) return false;
+        if (idlePeriodMillis != that.idlePeriodMillis) return false;
+        if (burstDelayMillis != that.burstDelayMillis) return false;
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = (int) (idleThreshold ^ (idleThreshold >>> 32));
+        result = 31 * result + (int) (idlePeriodMillis ^ (idlePeriodMillis >>> 32));
+        result = 31 * result + (int) (burstDelayMillis ^ (burstDelayMillis >>> 32));
+        return result;
+    }
+}
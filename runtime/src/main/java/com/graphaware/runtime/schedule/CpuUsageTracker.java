@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import com.graphaware.runtime.config.CpuBudget;
+import com.graphaware.runtime.metadata.TimerDrivenModuleContext;
+
+/**
+ * Keeps track of the CPU time used by a single module over the sliding window of its {@link CpuBudget}, divided into
+ * a fixed number of buckets, and works out until when the module must not be delegated to in order to get back within
+ * the budget. Not thread-safe, must only be used by the thread owning the module.
+ */
+final class CpuUsageTracker {
+
+    private static final int BUCKETS = 10;
+
+    private final CpuBudget budget;
+    private final long bucketMillis;
+    private final long[] bucketNanos = new long[BUCKETS];
+    private final long[] bucketIds = new long[BUCKETS];
+
+    /**
+     * Create a new tracker.
+     *
+     * @param budget to track the usage against, must be limited.
+     */
+    CpuUsageTracker(CpuBudget budget) {
+        if (!budget.isLimited()) {
+            throw new IllegalArgumentException("Only limited CPU budgets can be tracked");
+        }
+
+        this.budget = budget;
+        this.bucketMillis = Math.max(1, budget.getWindowMillis() / BUCKETS);
+    }
+
+    /**
+     * @return the budget this tracker tracks the usage against.
+     */
+    CpuBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Record CPU time used by the module.
+     *
+     * @param now      current time in ms since 1/1/1970.
+     * @param cpuNanos CPU time used in ns.
+     */
+    void record(long now, long cpuNanos) {
+        long bucketId = now / bucketMillis;
+        int index = (int) (bucketId % BUCKETS);
+
+        if (bucketIds[index] != bucketId) {
+            bucketIds[index] = bucketId;
+            bucketNanos[index] = 0;
+        }
+
+        bucketNanos[index] += Math.max(0, cpuNanos);
+    }
+
+    /**
+     * Get the CPU time used by the module within the sliding window.
+     *
+     * @param now current time in ms since 1/1/1970.
+     * @return used CPU time in ns.
+     */
+    long usedNanos(long now) {
+        long oldestBucketId = now / bucketMillis - BUCKETS + 1;
+        long used = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            if (bucketIds[i] >= oldestBucketId) {
+                used += bucketNanos[i];
+            }
+        }
+
+        return used;
+    }
+
+    /**
+     * Work out until when the module must not be delegated to. A module that has used more CPU time than its budget allows
+     * is held back until the used time is within the budget over a window extended by the hold-back period.
+     *
+     * @param now current time in ms since 1/1/1970.
+     * @return time in ms since 1/1/1970, {@link TimerDrivenModuleContext#ASAP} if the module is within its budget.
+     */
+    long throttledUntil(long now) {
+        long used = usedNanos(now);
+        double allowed = budget.getMaxShare() * budget.getWindowMillis() * 1_000_000;
+
+        if (used <= allowed) {
+            return TimerDrivenModuleContext.ASAP;
+        }
+
+        return now + (long) (used / budget.getMaxShare() / 1_000_000) - budget.getWindowMillis();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import com.graphaware.runtime.metadata.ModuleMetadataRepository;
+import com.graphaware.runtime.metadata.TimerDrivenModuleContext;
+import com.graphaware.runtime.module.TimerDrivenModule;
+
+/**
+ * {@link TaskScheduler} that keeps the registered {@link TimerDrivenModule}s in a priority queue ordered by the time they
+ * are next due, as reported by {@link TimerDrivenModuleContext#earliestNextCall()}. Finding the next module is thus
+ * proportional to the number of modules that are due, rather than to the number of all registered modules, and when no
+ * module is due, the scheduler sleeps until the next one is, rather than waking up every time the {@link TimingStrategy}
+ * would have it. The delay suggested by the {@link TimingStrategy} is still respected as a lower bound, so that the
+ * scheduler backs off when the database is busy.
+ * <p>
+ * Modules that are due at the same time are delegated to in the order in which they became due, which, for modules
+ * that always want to run {@link TimerDrivenModuleContext#ASAP}, means in round-robin fashion. Modules that don't have
+ * the correct role to run on this instance are checked again every {@link #ROLE_RECHECK_INTERVAL} ms.
+ */
+public class DueTimeTaskScheduler extends BaseTaskScheduler {
+
+    static final long ROLE_RECHECK_INTERVAL = 1000;
+
+    private final PriorityQueue<DueModule> queue = new PriorityQueue<>();
+    private long sequence = 0;
+
+    /**
+     * Construct a new task scheduler.
+     *
+     * @param database       against which the modules are running.
+     * @param repository     for persisting metadata.
+     * @param timingStrategy strategy for timing the work delegation.
+     * @param config         scheduling configuration.
+     */
+    public DueTimeTaskScheduler(GraphDatabaseService database, ModuleMetadataRepository repository, TimingStrategy timingStrategy, SchedulingConfig config) {
+        super(database, repository, timingStrategy, config);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start() {
+        synchronized (this) {
+            for (ScheduledModule<?> scheduledModule : getScheduledModules()) {
+                enqueue(scheduledModule, scheduledModule.getDueTime());
+            }
+        }
+
+        super.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected synchronized <C extends TimerDrivenModuleContext> ScheduledModule<C> findNextModule() {
+        long now = System.currentTimeMillis();
+        List<ScheduledModule<?>> busy = new ArrayList<>();
+        ScheduledModule<?> result = null;
+
+        while (result == null && !queue.isEmpty() && queue.peek().dueTime <= now) {
+            ScheduledModule<?> candidate = queue.poll().scheduledModule;
+
+            if (!candidate.tryAcquire()) {
+                //just finished in another lane, which hasn't released it yet
+                busy.add(candidate);
+            } else if (!hasCorrectRole(candidate.getModule())) {
+                candidate.release();
+                enqueue(candidate, now + ROLE_RECHECK_INTERVAL);
+            } else {
+                result = candidate;
+            }
+        }
+
+        for (ScheduledModule<?> scheduledModule : busy) {
+            enqueue(scheduledModule, now);
+        }
+
+        //noinspection unchecked
+        return (ScheduledModule<C>) result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Puts the module back into the queue, with the due time given by its new context.
+     */
+    @Override
+    protected synchronized void taskCompleted(ScheduledModule<?> scheduledModule, long durationNanos) {
+        enqueue(scheduledModule, scheduledModule.getDueTime());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Extends the delay until the first module in the queue is due.
+     */
+    @Override
+    protected synchronized long adjustDelay(long strategyDelay) {
+        if (queue.isEmpty()) {
+            return strategyDelay;
+        }
+
+        return Math.max(strategyDelay, queue.peek().dueTime - System.currentTimeMillis());
+    }
+
+    private void enqueue(ScheduledModule<?> scheduledModule, long dueTime) {
+        queue.add(new DueModule(scheduledModule, dueTime, sequence++));
+    }
+
+    /**
+     * A module in the queue, ordered by due time and then by the order in which it has been enqueued.
+     */
+    private static final class DueModule implements Comparable<DueModule> {
+
+        private final ScheduledModule<?> scheduledModule;
+        private final long dueTime;
+        private final long sequence;
+
+        private DueModule(ScheduledModule<?> scheduledModule, long dueTime, long sequence) {
+            this.scheduledModule = scheduledModule;
+            this.dueTime = dueTime;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(DueModule other) {
+            int result = Long.compare(dueTime, other.dueTime);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+/**
+ * Simple implementation of {@link SchedulingConfig} with fluent interface.
+ */
+public class FluentSchedulingConfig implements SchedulingConfig {
+
+    public static final TaskSchedulerType DEFAULT_SCHEDULER_TYPE = TaskSchedulerType.ROTATING;
+    public static final int DEFAULT_WORKER_THREADS = 1;
+    public static final int DEFAULT_BURST_WORKER_THREADS = 0;
+    public static final int DEFAULT_MAX_TASKS_BETWEEN_CHECKPOINTS = 1;
+    public static final long DEFAULT_MAX_MILLIS_BETWEEN_CHECKPOINTS = 0;
+
+    private final TaskSchedulerType schedulerType;
+    private final int workerThreads;
+    private final int burstWorkerThreads;
+    private final int maxTasksBetweenCheckpoints;
+    private final long maxMillisBetweenCheckpoints;
+
+    /**
+     * Create an instance of {@link FluentSchedulingConfig} with default configuration, i.e. with a single-threaded
+     * rotating scheduler that checkpoints module contexts after every task and doesn't use any additional threads when
+     * bursting.
+     *
+     * @return instance.
+     */
+    public static FluentSchedulingConfig defaultConfiguration() {
+        return new FluentSchedulingConfig(DEFAULT_SCHEDULER_TYPE, DEFAULT_WORKER_THREADS, DEFAULT_BURST_WORKER_THREADS, DEFAULT_MAX_TASKS_BETWEEN_CHECKPOINTS, DEFAULT_MAX_MILLIS_BETWEEN_CHECKPOINTS);
+    }
+
+    /**
+     * Return a new instance of this configuration with a different scheduler type.
+     *
+     * @param schedulerType of the new instance.
+     * @return new instance.
+     */
+    public FluentSchedulingConfig withSchedulerType(TaskSchedulerType schedulerType) {
+        return new FluentSchedulingConfig(schedulerType, workerThreads, burstWorkerThreads, maxTasksBetweenCheckpoints, maxMillisBetweenCheckpoints);
+    }
+
+    /**
+     * Return a new instance of this configuration with a different number of worker threads.
+     *
+     * @param workerThreads of the new instance, must be at least 1.
+     * @return new instance.
+     */
+    public FluentSchedulingConfig withWorkerThreads(int workerThreads) {
+        return new FluentSchedulingConfig(schedulerType, workerThreads, burstWorkerThreads, maxTasksBetweenCheckpoints, maxMillisBetweenCheckpoints);
+    }
+
+    /**
+     * Return a new instance of this configuration with a different number of additional worker threads used when bursting.
+     *
+     * @param burstWorkerThreads of the new instance, must not be negative.
+     * @return new instance.
+     */
+    public FluentSchedulingConfig withBurstWorkerThreads(int burstWorkerThreads) {
+        return new FluentSchedulingConfig(schedulerType, workerThreads, burstWorkerThreads, maxTasksBetweenCheckpoints, maxMillisBetweenCheckpoints);
+    }
+
+    /**
+     * Return a new instance of this configuration with different checkpointing of module contexts.
+     *
+     * @param maxTasksBetweenCheckpoints  of the new instance, must be at least 1.
+     * @param maxMillisBetweenCheckpoints of the new instance, 0 for no time-based checkpointing.
+     * @return new instance.
+     */
+    public FluentSchedulingConfig withCheckpointing(int maxTasksBetweenCheckpoints, long maxMillisBetweenCheckpoints) {
+        return new FluentSchedulingConfig(schedulerType, workerThreads, burstWorkerThreads, maxTasksBetweenCheckpoints, maxMillisBetweenCheckpoints);
+    }
+
+    private FluentSchedulingConfig(TaskSchedulerType schedulerType, int workerThreads, int burstWorkerThreads, int maxTasksBetweenCheckpoints, long maxMillisBetweenCheckpoints) {
+        if (schedulerType == null) {
+            throw new IllegalArgumentException("Scheduler type must not be null");
+        }
+        if (workerThreads < 1) {
+            throw new IllegalArgumentException("Number of worker threads must be at least 1, was " + workerThreads);
+        }
+        if (burstWorkerThreads < 0) {
+            throw new IllegalArgumentException("Number of burst worker threads must not be negative, was " + burstWorkerThreads);
+        }
+        if (maxTasksBetweenCheckpoints < 1) {
+            throw new IllegalArgumentException("Maximum number of tasks between checkpoints must be at least 1, was " + maxTasksBetweenCheckpoints);
+        }
+        if (maxMillisBetweenCheckpoints < 0) {
+            throw new IllegalArgumentException("Maximum time between checkpoints must not be negative, was " + maxMillisBetweenCheckpoints);
+        }
+
+        this.schedulerType = schedulerType;
+        this.workerThreads = workerThreads;
+        this.burstWorkerThreads = burstWorkerThreads;
+        this.maxTasksBetweenCheckpoints = maxTasksBetweenCheckpoints;
+        this.maxMillisBetweenCheckpoints = maxMillisBetweenCheckpoints;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TaskSchedulerType getSchedulerType() {
+        return schedulerType;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getBurstWorkerThreads() {
+        return burstWorkerThreads;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaxTasksBetweenCheckpoints() {
+        return maxTasksBetweenCheckpoints;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMaxMillisBetweenCheckpoints() {
+        return maxMillisBetweenCheckpoints;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        FluentSchedulingConfig that = (FluentSchedulingConfig) o;
+
+        if (schedulerType != that.schedulerType) return false;
+        if (workerThreads != that.workerThreads) return false;
+        if (burstWorkerThreads != that.burstWorkerThreads) return false;
+        if (maxTasksBetweenCheckpoints != that.maxTasksBetweenCheckpoints) return false;
+        if (maxMillisBetweenCheckpoints != that.maxMillisBetweenCheckpoints) return false;
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = schedulerType.hashCode();
+        result = 31 * result + workerThreads;
+        result = 31 * result + burstWorkerThreads;
+        result = 31 * result + maxTasksBetweenCheckpoints;
+        result = 31 * result + (int) (maxMillisBetweenCheckpoints ^ (maxMillisBetweenCheckpoints >>> 32));
+        return result;
+    }
+}
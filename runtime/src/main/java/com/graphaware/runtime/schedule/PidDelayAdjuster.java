@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import org.neo4j.logging.Log;
+import com.graphaware.common.log.LoggerFactory;
+
+/**
+ * {@link DelayAdjuster} based on a proportional-integral-derivative (PID) controller, which aims to let background work
+ * use a configurable share of the database's capacity.
+ * <p>
+ * Two signals are taken into account. The first one is the load of the database relative to the busy threshold, i.e.
+ * the number of transactions per second above which the database is deemed to be busy. The second one is the share of
+ * time spent doing background work, i.e. the duration of the last task relative to the duration of the last task plus
+ * the delay before it. The error fed to the controller is the larger of the two relative errors, so background work
+ * backs off when the database is busy or when it takes more than its share of time, and catches up when neither is
+ * the case. The error is capped to [-1, 1].
+ * <p>
+ * The output of the controller is applied to the current delay multiplicatively, so that the delay changes smoothly
+ * across its whole range, which typically spans several orders of magnitude. The delay at most doubles or halves in a
+ * single adjustment. To prevent integral wind-up, the error isn't accumulated while the delay is stuck at its lower or
+ * upper limit.
+ * <p>
+ * This class is stateful and not thread-safe.
+ */
+public class PidDelayAdjuster implements DelayAdjuster {
+    private static final Log LOG = LoggerFactory.getLogger(PidDelayAdjuster.class);
+
+    private static final double MAX_INTEGRAL = 10.0;
+    private static final double MAX_STEP = Math.log(2);
+
+    private final long defaultDelay;
+    private final long minDelay;
+    private final long maxDelay;
+    private final long busyThreshold;
+    private final double targetShare;
+    private final double kp;
+    private final double ki;
+    private final double kd;
+
+    private double integral = 0;
+    private double previousError = Double.NaN;
+
+    /**
+     * Constructs a new {@link PidDelayAdjuster}.
+     *
+     * @param defaultDelay  The number of milliseconds to return if there is not enough information to make a better decision.
+     * @param minDelay      The lower limit to the delay that can be returned as the next delay.
+     * @param maxDelay      The upper limit to the delay that can be returned as the next delay.
+     * @param busyThreshold The number of transactions per second, above which the database is deemed to be busy.
+     * @param targetShare   The share of time background work should take, between 0 (exclusive) and 1 (inclusive).
+     * @param kp            Proportional gain.
+     * @param ki            Integral gain.
+     * @param kd            Derivative gain.
+     */
+    public PidDelayAdjuster(long defaultDelay, long minDelay, long maxDelay, long busyThreshold, double targetShare, double kp, double ki, double kd) {
+        if (targetShare <= 0 || targetShare > 1) {
+            throw new IllegalArgumentException("Target share must be in (0, 1], was " + targetShare);
+        }
+        if (busyThreshold < 1) {
+            throw new IllegalArgumentException("Busy threshold must be positive, was " + busyThreshold);
+        }
+
+        this.defaultDelay = defaultDelay;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.busyThreshold = busyThreshold;
+        this.targetShare = targetShare;
+        this.kp = kp;
+        this.ki = ki;
+        this.kd = kd;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long determineNextDelay(long currentDelay, long lastTaskDuration, long load) {
+        if (currentDelay < 0) {
+            integral = 0;
+            previousError = Double.NaN;
+            return defaultDelay;
+        }
+
+        double error = error(currentDelay, lastTaskDuration, load);
+        double derivative = Double.isNaN(previousError) ? 0 : error - previousError;
+        previousError = error;
+
+        boolean saturated = (currentDelay <= minDelay && error < 0) || (currentDelay >= maxDelay && error > 0);
+        if (!saturated) {
+            integral = clamp(integral + error, -MAX_INTEGRAL, MAX_INTEGRAL);
+        }
+
+        double output = clamp(kp * error + ki * integral + kd * derivative, -MAX_STEP, MAX_STEP);
+
+        long result = Math.round(Math.max(currentDelay, 1) * Math.exp(output));
+        result = Math.min(Math.max(result, minDelay), maxDelay);
+
+        LOG.debug("Next delay updated to %s ms based on average load of %s tx/s and last task duration of %s ms", result, load, lastTaskDuration);
+
+        return result;
+    }
+
+    /**
+     * Compute the error, positive when background work should back off, negative when it can speed up.
+     *
+     * @param currentDelay     current delay in ms.
+     * @param lastTaskDuration duration of the last task in ms, negative if unknown.
+     * @param load             load in tx/s, negative if unknown.
+     * @return error in [-1, 1].
+     */
+    private double error(long currentDelay, long lastTaskDuration, long load) {
+        double loadError = load < 0 ? -1 : ((double) load / busyThreshold) - 1;
+
+        double share = lastTaskDuration <= 0 ? 0 : (double) lastTaskDuration / (lastTaskDuration + currentDelay);
+        double shareError = (share / targetShare) - 1;
+
+        return clamp(Math.max(loadError, shareError), -1, 1);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.min(Math.max(value, min), max);
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import com.graphaware.runtime.monitor.DatabaseLoadMonitor;
+import com.graphaware.runtime.monitor.LoadThresholds;
+import com.graphaware.runtime.monitor.RunningWindowAverage;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+/**
+ * Implementation of {@link TimingStrategy} that, like {@link AdaptiveTimingStrategy}, pays attention to the current level
+ * of activity in the database, but uses a {@link PidDelayAdjuster} rather than adjusting the delay by a constant delta.
+ * This lets background work back off smoothly when the database gets busy and catch up quickly when it is quiet again,
+ * rather than oscillating between the minimum and maximum delays under bursty load. Optionally, load signals other than
+ * the number of started transactions can be taken into account by specifying {@link LoadThresholds}, and tasks can be run
+ * back-to-back when the database is idle by specifying a {@link BurstMode}.
+ */
+public class PidTimingStrategy implements TimingStrategy {
+
+    public static final double DEFAULT_KP = 0.5;
+    public static final double DEFAULT_KI = 0.1;
+    public static final double DEFAULT_KD = 0.2;
+
+    private final long defaultDelay;
+    private final long minDelay;
+    private final long maxDelay;
+    private final long busyThreshold;
+    private final int maxSamples;
+    private final int maxTime;
+    private final double targetShare;
+    private final double kp;
+    private final double ki;
+    private final double kd;
+    private final LoadThresholds loadThresholds;
+    private final BurstMode burstMode;
+
+    private DelayAdjuster delayAdjuster;
+    private DatabaseLoadMonitor loadMonitor;
+    private BurstDetector burstDetector;
+
+    private long previousDelay = UNKNOWN;
+
+    /**
+     * Create a new instance of this strategy with default configuration, which is:
+     * <ul>
+     * <li>default delay = 2s</li>
+     * <li>minimum delay = 5ms</li>
+     * <li>maximum delay = 5s</li>
+     * <li>busy threshold = 100</li>
+     * <li>maximum samples = 200</li>
+     * <li>maximum time = 2s</li>
+     * <li>target share = 0.1</li>
+     * <li>gains: proportional = 0.5, integral = 0.1, derivative = 0.2</li>
+     * <li>no load signals other than started transactions</li>
+     * <li>no burst mode</li>
+     * </ul>
+     *
+     * @return instance of this strategy.
+     */
+    public static PidTimingStrategy defaultConfiguration() {
+        return new PidTimingStrategy(2_000, 5, 5_000, 100, 200, 2_000, 0.1, DEFAULT_KP, DEFAULT_KI, DEFAULT_KD, LoadThresholds.none(), BurstMode.disabled());
+    }
+
+    /**
+     * Constructs a new instance of this strategy with the specified configuration settings.
+     *
+     * @param defaultDelay  The number of milliseconds to return if there is not enough information to make a better decision.
+     * @param minDelay      The lower limit to the delay that can be returned as the next delay.
+     * @param maxDelay      The upper limit to the delay that can be returned as the next delay.
+     * @param busyThreshold The number of transactions per second, above which the database is deemed
+     *                      to be busy.
+     * @param maxSamples    The maximum number of running window average samples. See {@link RunningWindowAverage}.
+     * @param maxTime       The maximum amount of running window average time. See {@link RunningWindowAverage}.
+     * @param targetShare   The share of time background work should take. See {@link PidDelayAdjuster}.
+     * @param kp            Proportional gain of the controller.
+     * @param ki            Integral gain of the controller.
+     * @param kd            Derivative gain of the controller.
+     * @param loadThresholds Thresholds of load signals other than started transactions.
+     * @param burstMode     Burst mode of the strategy.
+     */
+    private PidTimingStrategy(long defaultDelay, long minDelay, long maxDelay, long busyThreshold, int maxSamples, int maxTime, double targetShare, double kp, double ki, double kd, LoadThresholds loadThresholds, BurstMode burstMode) {
+        this.defaultDelay = defaultDelay;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.busyThreshold = busyThreshold;
+        this.maxSamples = maxSamples;
+        this.maxTime = maxTime;
+        this.targetShare = targetShare;
+        this.kp = kp;
+        this.ki = ki;
+        this.kd = kd;
+        this.loadThresholds = loadThresholds;
+        this.burstMode = burstMode;
+    }
+
+    /**
+     * Returns a copy of this {@link PidTimingStrategy} reconfigured to use the specified default timer-driven
+     * module scheduling delay.
+     *
+     * @param defaultDelay The new default scheduling delay in milliseconds.
+     * @return A new {@link PidTimingStrategy}.
+     */
+    public PidTimingStrategy withDefaultDelayMillis(long defaultDelay) {
+        return new PidTimingStrategy(defaultDelay, minDelay, maxDelay, busyThreshold, maxSamples, maxTime, targetShare, kp, ki, kd, loadThresholds, burstMode);
+    }
+
+    /**
+     * Returns a copy of this {@link PidTimingStrategy} reconfigured to use the specified minimum delay between
+     * timer-driven module invocations.
+     *
+     * @param minDelay The new minimum delay between timer-driven module invocations.
+     * @return A new {@link PidTimingStrategy}.
+     */
+    public PidTimingStrategy withMinimumDelayMillis(long minDelay) {
+        return new PidTimingStrategy(defaultDelay, minDelay, maxDelay, busyThreshold, maxSamples, maxTime, targetShare, kp, ki, kd, loadThresholds, burstMode);
+    }
+
+    /**
+     * Returns a copy of this {@link PidTimingStrategy} reconfigured to use the specified maximum delay between
+     * timer-driven module invocations.
+     *
+     * @param maxDelay The new maximum delay between timer-driven module invocations.
+     * @return A new {@link PidTimingStrategy}.
+     */
+    public PidTimingStrategy withMaximumDelayMillis(long maxDelay) {
+        return new PidTimingStrategy(defaultDelay, minDelay, maxDelay, busyThreshold, maxSamples, maxTime, targetShare, kp, ki, kd, loadThresholds, burstMode);
+    }
+
+    /**
+     * Returns a copy of this {@link PidTimingStrategy} reconfigured to use the given busy threshold.
+     *
+     * @param busyThreshold The new busy threshold to use.
+     * @return A new {@link PidTimingStrategy}.
+     */
+    public PidTimingStrategy withBusyThreshold(int busyThreshold) {
+        return new PidTimingStrategy(defaultDelay, minDelay, maxDelay, busyThreshold, maxSamples, maxTime, targetShare, kp, ki, kd, loadThresholds, burstMode);
+    }
+
+    /**
+     * Returns a copy of this {@link PidTimingStrategy} reconfigured to use the maximum number of samples.
+     *
+     * @param maxSamples The new maximum number of samples to use.
+     * @return A new {@link PidTimingStrategy}.
+     */
+    public PidTimingStrategy withMaxSamples(int maxSamples) {
+        return new PidTimingStrategy(defaultDelay, minDelay, maxDelay, busyThreshold, maxSamples, maxTime, targetShare, kp, ki, kd, loadThresholds, burstMode);
+    }
+
+    /**
+     * Returns a copy of this {@link PidTimingStrategy} reconfigured to use the given maximum running average window time span.
+     *
+     * @param maxTime The new maximum time to use.
+     * @return A new {@link PidTimingStrategy}.
+     */
+    public PidTimingStrategy withMaxTime(int maxTime) {
+        return new PidTimingStrategy(defaultDelay, minDelay, maxDelay, busyThreshold, maxSamples, maxTime, targetShare, kp, ki, kd, loadThresholds, burstMode);
+    }
+
+    /**
+     * Returns a copy of this {@link PidTimingStrategy} reconfigured to use the given share of time for background work.
+     *
+     * @param targetShare The new target share, between 0 (exclusive) and 1 (inclusive).
+     * @return A new {@link PidTimingStrategy}.
+     */
+    public PidTimingStrategy withTargetShare(double targetShare) {
+        return new PidTimingStrategy(defaultDelay, minDelay, maxDelay, busyThreshold, maxSamples, maxTime, targetShare, kp, ki, kd, loadThresholds, burstMode);
+    }
+
+    /**
+     * Returns a copy of this {@link PidTimingStrategy} reconfigured to use the given controller gains.
+     *
+     * @param kp The new proportional gain.
+     * @param ki The new integral gain.
+     * @param kd The new derivative gain.
+     * @return A new {@link PidTimingStrategy}.
+     */
+    public PidTimingStrategy withGains(double kp, double ki, double kd) {
+        return new PidTimingStrategy(defaultDelay, minDelay, maxDelay, busyThreshold, maxSamples, maxTime, targetShare, kp, ki, kd, loadThresholds, burstMode);
+    }
+
+    /**
+     * Returns a copy of this {@link PidTimingStrategy} reconfigured to take into account load signals other than
+     * started transactions.
+     *
+     * @param loadThresholds The thresholds of the other load signals.
+     * @return A new {@link PidTimingStrategy}.
+     */
+    public PidTimingStrategy withLoadThresholds(LoadThresholds loadThresholds) {
+        return new PidTimingStrategy(defaultDelay, minDelay, maxDelay, busyThreshold, maxSamples, maxTime, targetShare, kp, ki, kd, loadThresholds, burstMode);
+    }
+
+    /**
+     * Returns a copy of this {@link PidTimingStrategy} reconfigured to run tasks back-to-back when the database is idle.
+     *
+     * @param burstMode The burst mode.
+     * @return A new {@link PidTimingStrategy}.
+     */
+    public PidTimingStrategy withBurstMode(BurstMode burstMode) {
+        return new PidTimingStrategy(defaultDelay, minDelay, maxDelay, busyThreshold, maxSamples, maxTime, targetShare, kp, ki, kd, loadThresholds, burstMode);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize(GraphDatabaseService database) {
+        this.delayAdjuster = new PidDelayAdjuster(this.defaultDelay, this.minDelay, this.maxDelay, this.busyThreshold, this.targetShare, this.kp, this.ki, this.kd);
+        this.loadMonitor = loadThresholds.createMonitor(database, this.busyThreshold, this.maxSamples, this.maxTime);
+        this.burstDetector = burstMode.createDetector();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long nextDelay(long lastTaskDuration) {
+        if (delayAdjuster == null || loadMonitor == null) {
+            throw new IllegalStateException("Initialization hasn't been performed, this is a bug.");
+        }
+
+        long load = loadMonitor.getLoad();
+
+        if (burstDetector.update(load, System.currentTimeMillis())) {
+            previousDelay = minDelay; //resume normal pacing from the minimum when the burst is over
+            return burstMode.getBurstDelayMillis();
+        }
+
+        long newDelay = delayAdjuster.determineNextDelay(previousDelay, lastTaskDuration, load);
+
+        previousDelay = newDelay;
+
+        return newDelay;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isBursting() {
+        return burstDetector != null && burstDetector.isBursting();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        if (loadMonitor != null) {
+            loadMonitor.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        PidTimingStrategy that = (PidTimingStrategy) o;
+
+        if (defaultDelay != that.defaultDelay) return false;
+        if (minDelay != that.minDelay) return false;
+        if (maxDelay != that.maxDelay) return false;
+        if (busyThreshold != that.busyThreshold) return false;
+        if (maxSamples != that.maxSamples) return false;
+        if (maxTime != that.maxTime) return false;
+        if (Double.compare(that.targetShare, targetShare) != 0) return false;
+        if (Double.compare(that.kp, kp) != 0) return false;
+        if (Double.compare(that.ki, ki) != 0) return false;
+        if (Double.compare(that.kd, kd) != 0) return false;
+        if (!loadThresholds.equals(that.loadThresholds)) return false;
+        if (!burstMode.equals(that.burstMode)) return false;
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = (int) (defaultDelay ^ (defaultDelay >>> 32));
+        result = 31 * result + (int) (minDelay ^ (minDelay >>> 32));
+        result = 31 * result + (int) (maxDelay ^ (maxDelay >>> 32));
+        result = 31 * result + (int) (busyThreshold ^ (busyThreshold >>> 32));
+        result = 31 * result + maxSamples;
+        result = 31 * result + maxTime;
+        result = 31 * result + Double.hashCode(targetShare);
+        result = 31 * result + Double.hashCode(kp);
+        result = 31 * result + Double.hashCode(ki);
+        result = 31 * result + Double.hashCode(kd);
+        result = 31 * result + loadThresholds.hashCode();
+        result = 31 * result + burstMode.hashCode();
+        return result;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import com.graphaware.runtime.config.CpuBudget;
+import com.graphaware.runtime.metadata.TimerDrivenModuleContext;
+import com.graphaware.runtime.module.TimerDrivenModule;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link TimerDrivenModule} registered with a {@link TaskScheduler}, together with its latest context. Guarantees that
+ * the module is only ever delegated to by one thread at a time, as long as threads only delegate to it after successfully
+ * calling {@link #tryAcquire()} and call {@link #release()} when done.
+ *
+ * @param <C> type of the module's context.
+ */
+public final class ScheduledModule<C extends TimerDrivenModuleContext> {
+
+    private final TimerDrivenModule<C> module;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile C context;
+    private volatile int tasksSinceCheckpoint = 0;
+    private volatile long lastCheckpoint = System.currentTimeMillis();
+    private CpuUsageTracker cpuUsage;
+    private volatile long throttledUntil = TimerDrivenModuleContext.ASAP;
+
+    /**
+     * Create a new scheduled module.
+     *
+     * @param module  scheduled module.
+     * @param context initial context of the module, can be <code>null</code>.
+     */
+    ScheduledModule(TimerDrivenModule<C> module, C context) {
+        this.module = module;
+        this.context = context;
+    }
+
+    /**
+     * @return the scheduled module.
+     */
+    public TimerDrivenModule<C> getModule() {
+        return module;
+    }
+
+    /**
+     * @return the latest context of the module, can be <code>null</code>.
+     */
+    public C getContext() {
+        return context;
+    }
+
+    /**
+     * Set the latest context of the module, produced by a task that has just been performed.
+     *
+     * @param context the latest context, can be <code>null</code>.
+     */
+    void setContext(C context) {
+        this.context = context;
+        tasksSinceCheckpoint++; //only ever called by the owning thread
+    }
+
+    /**
+     * Record that the latest context of the module has been persisted.
+     *
+     * @param now current time in ms since 1/1/1970.
+     */
+    void checkpointed(long now) {
+        tasksSinceCheckpoint = 0;
+        lastCheckpoint = now;
+    }
+
+    /**
+     * @return number of tasks performed since the latest context of the module was last persisted.
+     */
+    int getTasksSinceCheckpoint() {
+        return tasksSinceCheckpoint;
+    }
+
+    /**
+     * @return <code>true</code> iff the latest context of the module hasn't been persisted.
+     */
+    boolean hasUncheckpointedTasks() {
+        return tasksSinceCheckpoint > 0;
+    }
+
+    /**
+     * @return time of the last checkpoint in ms since 1/1/1970, or of the registration of the module if it hasn't been checkpointed yet.
+     */
+    long getLastCheckpoint() {
+        return lastCheckpoint;
+    }
+
+    /**
+     * Record the CPU time used by a task that has just been performed, and hold the module back if it has exceeded its
+     * CPU budget. Must only be called by the owning thread.
+     *
+     * @param budget   CPU budget of the module, must be limited.
+     * @param now      current time in ms since 1/1/1970.
+     * @param cpuNanos CPU time used by the task in ns.
+     */
+    void cpuTimeUsed(CpuBudget budget, long now, long cpuNanos) {
+        if (cpuUsage == null || !cpuUsage.getBudget().equals(budget)) {
+            cpuUsage = new CpuUsageTracker(budget);
+        }
+
+        cpuUsage.record(now, cpuNanos);
+        throttledUntil = cpuUsage.throttledUntil(now);
+    }
+
+    /**
+     * @return time in ms since 1/1/1970 until which the module is held back for exceeding its CPU budget, {@link TimerDrivenModuleContext#ASAP} if it isn't.
+     */
+    long getThrottledUntil() {
+        return throttledUntil;
+    }
+
+    /**
+     * Check whether the module wishes to be delegated to at the given time, according to its latest context and CPU budget.
+     *
+     * @param now current time in ms since 1/1/1970.
+     * @return <code>true</code> iff the module is due.
+     */
+    public boolean isDue(long now) {
+        return getDueTime() <= now;
+    }
+
+    /**
+     * Get the earliest time the module can be delegated to, according to its latest context and CPU budget.
+     *
+     * @return due time in ms since 1/1/1970, {@link TimerDrivenModuleContext#ASAP} if there is no context yet and the module is within its CPU budget.
+     */
+    public long getDueTime() {
+        return Math.max(dueTime(context), throttledUntil);
+    }
+
+    /**
+     * Get the earliest time a module wishes to be delegated to, according to the given context.
+     *
+     * @param context of a module, can be <code>null</code>.
+     * @return due time in ms since 1/1/1970, {@link TimerDrivenModuleContext#ASAP} if the context is <code>null</code>.
+     */
+    static long dueTime(TimerDrivenModuleContext context) {
+        return context == null ? TimerDrivenModuleContext.ASAP : context.earliestNextCall();
+    }
+
+    /**
+     * Attempt to take exclusive ownership of the module for the purposes of delegating work to it.
+     *
+     * @return <code>true</code> iff the calling thread now owns the module and must {@link #release()} it when done.
+     */
+    boolean tryAcquire() {
+        return running.compareAndSet(false, true);
+    }
+
+    /**
+     * Give up ownership of the module taken by {@link #tryAcquire()}.
+     */
+    void release() {
+        running.set(false);
+    }
+}
@@ -41,4 +41,22 @@ public interface TimingStrategy {
      */
     long nextDelay(long lastTaskDuration);
 
+    /**
+     * Check whether the strategy is in a burst mode as of the last call to {@link #nextDelay(long)}, i.e. it has detected
+     * that the database is idle and lets tasks run back-to-back. Schedulers may run tasks in additional threads while
+     * the strategy is bursting.
+     *
+     * @return <code>true</code> iff bursting. Always <code>false</code> by default.
+     */
+    default boolean isBursting() {
+        return false;
+    }
+
+    /**
+     * Release any resources acquired in {@link #initialize(GraphDatabaseService)}, e.g. load monitors registered with
+     * the database. Called when the runtime using this strategy stops. Does nothing by default.
+     */
+    default void destroy() {
+    }
+
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import com.graphaware.runtime.config.TimerDrivenModuleConfiguration;
+import com.graphaware.runtime.metadata.ModuleMetadataRepository;
+import com.graphaware.runtime.metadata.TimerDrivenModuleContext;
+import com.graphaware.runtime.module.TimerDrivenModule;
+
+/**
+ * {@link TaskScheduler} that shares the time spent doing background work between the registered {@link TimerDrivenModule}s
+ * in proportion to their {@link TimerDrivenModuleConfiguration#getWeight()}, rather than giving every module the same
+ * number of turns like {@link RotatingTaskScheduler} does.
+ * <p>
+ * This is an implementation of stride scheduling using the measured cost of each task. Every module has a "pass" value,
+ * which is advanced by the duration of each of its tasks divided by its weight. The module with the lowest pass that is
+ * ready to run gets the next turn, so a module whose tasks are expensive gets proportionally fewer turns and can no longer
+ * monopolize the scheduler. Modules that have not been due for a while are not allowed to accumulate credit: their pass
+ * is brought up to the scheduler's virtual time when they run again, so that they can't starve the others in a burst.
+ * Ties are broken by registration order.
+ */
+public class WeightedFairTaskScheduler extends BaseTaskScheduler {
+
+    /**
+     * Minimum cost of a single task in nanoseconds, so that even tasks that return immediately are accounted for.
+     */
+    private static final long MIN_TASK_COST = 1_000;
+
+    private final Map<ScheduledModule<?>, Long> passes = new HashMap<>();
+    private long virtualTime = 0;
+
+    /**
+     * Construct a new task scheduler.
+     *
+     * @param database       against which the modules are running.
+     * @param repository     for persisting metadata.
+     * @param timingStrategy strategy for timing the work delegation.
+     * @param config         scheduling configuration.
+     */
+    public WeightedFairTaskScheduler(GraphDatabaseService database, ModuleMetadataRepository repository, TimingStrategy timingStrategy, SchedulingConfig config) {
+        super(database, repository, timingStrategy, config);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected synchronized <C extends TimerDrivenModuleContext> ScheduledModule<C> findNextModule() {
+        List<ScheduledModule<?>> candidates = new ArrayList<>(getScheduledModules());
+        candidates.sort(Comparator.comparingLong(this::passOf)); //stable, i.e. ties broken by registration order
+
+        long now = System.currentTimeMillis();
+
+        for (ScheduledModule<?> candidate : candidates) {
+            if (tryAcquireIfReady(candidate, now)) {
+                virtualTime = Math.max(virtualTime, passOf(candidate));
+
+                //noinspection unchecked
+                return (ScheduledModule<C>) candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected synchronized void taskCompleted(ScheduledModule<?> scheduledModule, long durationNanos) {
+        long stride = Math.max(durationNanos, MIN_TASK_COST) / weightOf(scheduledModule);
+        passes.put(scheduledModule, Math.max(passOf(scheduledModule), virtualTime) + stride);
+    }
+
+    /**
+     * Get the current pass of a module. Modules that haven't run yet start at the current virtual time.
+     *
+     * @param scheduledModule module.
+     * @return pass.
+     */
+    private long passOf(ScheduledModule<?> scheduledModule) {
+        return passes.getOrDefault(scheduledModule, virtualTime);
+    }
+
+    /**
+     * Get the weight of a module.
+     *
+     * @param scheduledModule module.
+     * @return weight, at least 1.
+     */
+    private int weightOf(ScheduledModule<?> scheduledModule) {
+        return Math.max(1, scheduledModule.getModule().getConfiguration().getWeight());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.runtime.config;
+
+import com.graphaware.common.policy.inclusion.InclusionPolicies;
+import com.graphaware.common.policy.inclusion.none.IncludeNoRelationships;
+import com.graphaware.common.policy.role.AnyRole;
+import com.graphaware.common.policy.role.InstanceRolePolicy;
+import com.graphaware.common.policy.role.WritableRole;
+import com.graphaware.runtime.policy.InclusionPoliciesFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BaseTimerDrivenModuleConfigurationTest {
+
+    @Test
+    public void timerConfigurationImplementingOnlyOriginalFactoryMethodShouldSupportAllSettings() {
+        LegacyTimerConfiguration original = new LegacyTimerConfiguration(WritableRole.getInstance());
+
+        LegacyTimerConfiguration configuration = original
+                .withWeight(3)
+                .withWorkQuantum(10, 50)
+                .withCpuBudget(CpuBudget.of(0.5))
+                .with(AnyRole.getInstance());
+
+        assertEquals(AnyRole.getInstance(), configuration.getInstanceRolePolicy());
+        assertEquals(3, configuration.getWeight());
+        assertEquals(10, configuration.getMaxSteps());
+        assertEquals(50, configuration.getTimeBudgetMillis());
+        assertEquals(CpuBudget.of(0.5), configuration.getCpuBudget());
+
+        assertEquals(TimerDrivenModuleConfiguration.DEFAULT_WEIGHT, original.getWeight());
+        assertEquals(CpuBudget.UNLIMITED, original.getCpuBudget());
+    }
+
+    @Test
+    public void txAndTimerConfigurationImplementingOnlyOriginalFactoryMethodShouldSupportAllSettings() {
+        AfterCommitDelivery asynchronous = AfterCommitDelivery.asynchronous(100);
+
+        LegacyTxAndTimerConfiguration configuration = new LegacyTxAndTimerConfiguration(InclusionPoliciesFactory.allBusiness(), 5, WritableRole.getInstance())
+                .withWeight(3)
+                .withMaxSteps(10)
+                .withAfterCommitDelivery(asynchronous)
+                .with(IncludeNoRelationships.getInstance())
+                .with(AnyRole.getInstance());
+
+        assertEquals(AnyRole.getInstance(), configuration.getInstanceRolePolicy());
+        assertEquals(3, configuration.getWeight());
+        assertEquals(10, configuration.getMaxSteps());
+        assertEquals(asynchronous, configuration.getAfterCommitDelivery());
+        assertEquals(IncludeNoRelationships.getInstance(), configuration.getInclusionPolicies().getRelationshipInclusionPolicy());
+        assertEquals(5, configuration.initializeUntil());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSettingsShouldBeRejectedForConfigurationImplementingOnlyOriginalFactoryMethod() {
+        new LegacyTimerConfiguration(WritableRole.getInstance()).withWeight(0);
+    }
+
+    /**
+     * A timer-driven configuration written against the API before scheduling settings were introduced.
+     */
+    private static class LegacyTimerConfiguration extends BaseTimerDrivenModuleConfiguration<LegacyTimerConfiguration> {
+
+        private LegacyTimerConfiguration(InstanceRolePolicy instanceRolePolicy) {
+            super(instanceRolePolicy);
+        }
+
+        @Override
+        protected LegacyTimerConfiguration newInstance(InstanceRolePolicy instanceRolePolicy) {
+            return new LegacyTimerConfiguration(instanceRolePolicy);
+        }
+    }
+
+    /**
+     * A tx- and timer-driven configuration written against the API before scheduling settings were introduced.
+     */
+    private static class LegacyTxAndTimerConfiguration extends BaseTxAndTimerDrivenModuleConfiguration<LegacyTxAndTimerConfiguration> {
+
+        private LegacyTxAndTimerConfiguration(InclusionPolicies inclusionPolicies, long initializeUntil, InstanceRolePolicy instanceRolePolicy) {
+            super(inclusionPolicies, initializeUntil, instanceRolePolicy);
+        }
+
+        @Override
+        protected LegacyTxAndTimerConfiguration newInstance(InclusionPolicies inclusionPolicies, long initializeUntil, InstanceRolePolicy instanceRolePolicy) {
+            return new LegacyTxAndTimerConfiguration(inclusionPolicies, initializeUntil, instanceRolePolicy);
+        }
+    }
+}
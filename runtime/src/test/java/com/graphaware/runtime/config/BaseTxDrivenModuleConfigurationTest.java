@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.graphaware.runtime.config;
+
+import com.graphaware.common.policy.inclusion.InclusionPolicies;
+import com.graphaware.common.policy.inclusion.none.IncludeNoRelationships;
+import com.graphaware.runtime.policy.InclusionPoliciesFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BaseTxDrivenModuleConfigurationTest {
+
+    @Test
+    public void configurationImplementingOnlyOriginalFactoryMethodShouldSupportAllSettings() {
+        AfterCommitDelivery asynchronous = AfterCommitDelivery.asynchronous(100);
+
+        LegacyConfiguration configuration = new LegacyConfiguration(InclusionPoliciesFactory.allBusiness(), 5)
+                .withAfterCommitDelivery(asynchronous)
+                .with(IncludeNoRelationships.getInstance())
+                .withInitializeUntil(10);
+
+        assertEquals(asynchronous, configuration.getAfterCommitDelivery());
+        assertEquals(IncludeNoRelationships.getInstance(), configuration.getInclusionPolicies().getRelationshipInclusionPolicy());
+        assertEquals(10, configuration.initializeUntil());
+    }
+
+    @Test
+    public void settingAfterCommitDeliveryShouldNotChangeOriginalInstance() {
+        LegacyConfiguration original = new LegacyConfiguration(InclusionPoliciesFactory.allBusiness(), 5);
+        LegacyConfiguration asynchronous = original.withAfterCommitDelivery(AfterCommitDelivery.asynchronous());
+
+        assertNotSame(original, asynchronous);
+        assertEquals(AfterCommitDelivery.SYNCHRONOUS, original.getAfterCommitDelivery());
+        assertEquals(AfterCommitDelivery.asynchronous(), asynchronous.getAfterCommitDelivery());
+    }
+
+    /**
+     * A configuration written against the API before after-commit delivery was introduced.
+     */
+    private static class LegacyConfiguration extends BaseTxDrivenModuleConfiguration<LegacyConfiguration> {
+
+        private LegacyConfiguration(InclusionPolicies inclusionPolicies, long initializeUntil) {
+            super(inclusionPolicies, initializeUntil);
+        }
+
+        @Override
+        protected LegacyConfiguration newInstance(InclusionPolicies inclusionPolicies, long initializeUntil) {
+            return new LegacyConfiguration(inclusionPolicies, initializeUntil);
+        }
+    }
+}
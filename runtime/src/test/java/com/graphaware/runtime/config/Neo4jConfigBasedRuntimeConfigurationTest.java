@@ -27,7 +27,12 @@ import org.neo4j.kernel.configuration.Config;
 import com.graphaware.common.ping.GoogleAnalyticsStatsCollector;
 import com.graphaware.common.ping.NullStatsCollector;
 import com.graphaware.runtime.schedule.AdaptiveTimingStrategy;
+import com.graphaware.runtime.schedule.BurstMode;
 import com.graphaware.runtime.schedule.FixedDelayTimingStrategy;
+import com.graphaware.runtime.monitor.LoadThresholds;
+import com.graphaware.runtime.schedule.FluentSchedulingConfig;
+import com.graphaware.runtime.schedule.PidTimingStrategy;
+import com.graphaware.runtime.schedule.TaskSchedulerType;
 import com.graphaware.runtime.schedule.TimingStrategy;
 
 public class Neo4jConfigBasedRuntimeConfigurationTest {
@@ -72,6 +77,62 @@ public class Neo4jConfigBasedRuntimeConfigurationTest {
         assertEquals(expected, new Neo4jConfigBasedRuntimeConfiguration(null, config).getTimingStrategy());
     }
 
+    @Test
+    public void shouldUseLoadThresholdsSpecifiedInConfig() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.timing.strategy", "adaptive");
+        parameterMap.put("com.graphaware.runtime.timing.threshold.activeTx", "50");
+        parameterMap.put("com.graphaware.runtime.timing.threshold.cpu", "80");
+        Config config = Config.defaults(parameterMap);
+
+        TimingStrategy expected = AdaptiveTimingStrategy
+                .defaultConfiguration()
+                .withLoadThresholds(LoadThresholds.none().withActiveTransactions(50).withCpuPercent(80));
+
+        assertEquals(expected, new Neo4jConfigBasedRuntimeConfiguration(null, config).getTimingStrategy());
+    }
+
+    @Test
+    public void shouldUsePidValuesSpecifiedInConfig() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.timing.strategy", "pid");
+        parameterMap.put("com.graphaware.runtime.timing.delay", "50");
+        parameterMap.put("com.graphaware.runtime.timing.maxDelay", "100");
+        parameterMap.put("com.graphaware.runtime.timing.minDelay", "10");
+        parameterMap.put("com.graphaware.runtime.timing.busyThreshold", "94");
+        parameterMap.put("com.graphaware.runtime.timing.targetShare", "0.25");
+        parameterMap.put("com.graphaware.runtime.timing.pid.kp", "0.7");
+        Config config = Config.defaults(parameterMap);
+
+        TimingStrategy expected = PidTimingStrategy
+                .defaultConfiguration()
+                .withBusyThreshold(94)
+                .withDefaultDelayMillis(50)
+                .withMinimumDelayMillis(10)
+                .withMaximumDelayMillis(100)
+                .withTargetShare(0.25)
+                .withGains(0.7, PidTimingStrategy.DEFAULT_KI, PidTimingStrategy.DEFAULT_KD);
+
+        assertEquals(expected, new Neo4jConfigBasedRuntimeConfiguration(null, config).getTimingStrategy());
+    }
+
+    @Test
+    public void shouldUseBurstModeSpecifiedInConfig() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.timing.strategy", "pid");
+        parameterMap.put("com.graphaware.runtime.timing.burst.threshold", "10");
+        parameterMap.put("com.graphaware.runtime.timing.burst.delay", "1");
+        parameterMap.put("com.graphaware.runtime.scheduler.burst.threads", "3");
+        Config config = Config.defaults(parameterMap);
+
+        TimingStrategy expected = PidTimingStrategy
+                .defaultConfiguration()
+                .withBurstMode(BurstMode.afterIdleFor(10, BurstMode.DEFAULT_IDLE_PERIOD_MILLIS).withBurstDelayMillis(1));
+
+        assertEquals(expected, new Neo4jConfigBasedRuntimeConfiguration(null, config).getTimingStrategy());
+        assertEquals(FluentSchedulingConfig.defaultConfiguration().withBurstWorkerThreads(3), new Neo4jConfigBasedRuntimeConfiguration(null, config).getSchedulingConfig());
+    }
+
     @Test
     public void shouldFallBackToValueDefaultConfigurationIfValueIsNotFoundInConfig() {
         Map<String, String> parameterMap = new HashMap<>();
@@ -92,6 +153,66 @@ public class Neo4jConfigBasedRuntimeConfigurationTest {
         new Neo4jConfigBasedRuntimeConfiguration(null, config).getTimingStrategy();
     }
     
+    @Test
+    public void shouldUseSchedulerThreadsSpecifiedInConfig() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.scheduler.threads", "4");
+        Config config = Config.defaults(parameterMap);
+
+        assertEquals(FluentSchedulingConfig.defaultConfiguration().withWorkerThreads(4), new Neo4jConfigBasedRuntimeConfiguration(null, config).getSchedulingConfig());
+    }
+
+    @Test
+    public void shouldUseSingleSchedulerThreadByDefault() {
+        Config config = Config.defaults(new HashMap<>());
+
+        assertEquals(1, new Neo4jConfigBasedRuntimeConfiguration(null, config).getSchedulingConfig().getWorkerThreads());
+        assertEquals(TaskSchedulerType.ROTATING, new Neo4jConfigBasedRuntimeConfiguration(null, config).getSchedulingConfig().getSchedulerType());
+    }
+
+    @Test
+    public void shouldUseSchedulerTypeSpecifiedInConfig() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.scheduler", "weighted");
+        parameterMap.put("com.graphaware.runtime.scheduler.threads", "2");
+        Config config = Config.defaults(parameterMap);
+
+        assertEquals(FluentSchedulingConfig.defaultConfiguration().withSchedulerType(TaskSchedulerType.WEIGHTED_FAIR).withWorkerThreads(2), new Neo4jConfigBasedRuntimeConfiguration(null, config).getSchedulingConfig());
+    }
+
+    @Test
+    public void shouldUseCheckpointingSpecifiedInConfig() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.scheduler.checkpoint.tasks", "100");
+        parameterMap.put("com.graphaware.runtime.scheduler.checkpoint.interval", "5000");
+        Config config = Config.defaults(parameterMap);
+
+        assertEquals(FluentSchedulingConfig.defaultConfiguration().withCheckpointing(100, 5000), new Neo4jConfigBasedRuntimeConfiguration(null, config).getSchedulingConfig());
+    }
+
+    @Test
+    public void shouldUseDueTimeSchedulerSpecifiedInConfig() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.scheduler", "due");
+        Config config = Config.defaults(parameterMap);
+
+        assertEquals(TaskSchedulerType.DUE_TIME, new Neo4jConfigBasedRuntimeConfiguration(null, config).getSchedulingConfig().getSchedulerType());
+    }
+
+    @Test
+    public void transactionDataShouldNotBeSpilledByDefault() {
+        assertEquals(Long.MAX_VALUE, new Neo4jConfigBasedRuntimeConfiguration(null, Config.defaults()).getTransactionDataSpillThreshold());
+    }
+
+    @Test
+    public void shouldUseSpillThresholdSpecifiedInConfig() {
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("com.graphaware.runtime.tx.spillThreshold", "1000000");
+        Config config = Config.defaults(parameterMap);
+
+        assertEquals(1_000_000, new Neo4jConfigBasedRuntimeConfiguration(null, config).getTransactionDataSpillThreshold());
+    }
+
     @Test
     public void shouldDisableGoogleAnalytics() {
         Map<String, String> parameterMap = new HashMap<>();
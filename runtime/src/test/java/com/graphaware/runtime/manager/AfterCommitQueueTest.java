@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.manager;
+
+import com.graphaware.runtime.config.AfterCommitDelivery;
+import com.graphaware.runtime.module.TxDrivenModule;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.graphaware.runtime.config.AfterCommitDelivery.OverflowPolicy.*;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link AfterCommitQueue}.
+ */
+public class AfterCommitQueueTest {
+
+    private TxDrivenModule module;
+    private List<Object> received;
+    private List<Runnable> tasks;
+
+    @Before
+    public void setUp() {
+        received = new ArrayList<>();
+        tasks = new ArrayList<>();
+
+        module = mock(TxDrivenModule.class);
+        when(module.getId()).thenReturn("test");
+        doAnswer(invocation -> received.add(invocation.getArguments()[0])).when(module).afterCommit(any());
+    }
+
+    @Test
+    public void statesShouldBeDeliveredInOrder() {
+        AfterCommitQueue queue = new AfterCommitQueue(module, AfterCommitDelivery.asynchronous(10), tasks::add);
+
+        queue.offer("1");
+        queue.offer("2");
+        queue.offer("3");
+
+        assertTrue(received.isEmpty());
+        assertEquals(1, tasks.size());
+        assertEquals(3, queue.getDepth());
+
+        runTasks();
+
+        assertEquals(asList("1", "2", "3"), received);
+        assertEquals(0, queue.getDepth());
+        assertEquals(0, queue.getLagMillis());
+        assertEquals(3, queue.getDelivered());
+    }
+
+    @Test
+    public void statesShouldBeDroppedWhenQueueIsFull() {
+        AfterCommitQueue queue = new AfterCommitQueue(module, AfterCommitDelivery.asynchronous(2).withOverflowPolicy(DROP), tasks::add);
+
+        queue.offer("1");
+        queue.offer("2");
+        queue.offer("3");
+        runTasks();
+        queue.offer("4");
+        runTasks();
+
+        assertEquals(asList("1", "2", "4"), received);
+        assertEquals(1, queue.getDropped());
+    }
+
+    @Test
+    public void statesShouldBeSpilledWhenQueueIsFullAndOrderPreserved() {
+        AfterCommitQueue queue = new AfterCommitQueue(module, AfterCommitDelivery.asynchronous(2).withOverflowPolicy(SPILL), tasks::add);
+
+        for (int i = 1; i <= 6; i++) {
+            queue.offer(String.valueOf(i));
+        }
+
+        assertEquals(6, queue.getDepth());
+        assertEquals(4, queue.getSpilled());
+
+        runTasks();
+        queue.offer("7");
+        runTasks();
+
+        assertEquals(asList("1", "2", "3", "4", "5", "6", "7"), received);
+        assertEquals(0, queue.getDepth());
+        assertEquals(0, queue.getDropped());
+    }
+
+    @Test
+    public void committingThreadShouldBlockWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return received.add(invocation.getArguments()[0]);
+        }).when(module).afterCommit(any());
+
+        AfterCommitQueue queue = new AfterCommitQueue(module, AfterCommitDelivery.asynchronous(1), Executors.newSingleThreadExecutor());
+
+        queue.offer("1"); //taken by the worker, which blocks
+        Thread.sleep(100);
+        queue.offer("2"); //fills the queue
+
+        CountDownLatch offered = new CountDownLatch(1);
+        new Thread(() -> {
+            queue.offer("3");
+            offered.countDown();
+        }).start();
+
+        assertFalse(offered.await(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+
+        assertTrue(offered.await(1, TimeUnit.SECONDS));
+        queue.close();
+
+        assertEquals(asList("1", "2", "3"), received);
+    }
+
+    @Test
+    public void closedQueueShouldDeliverPendingAndFurtherStatesSynchronously() {
+        AfterCommitQueue queue = new AfterCommitQueue(module, AfterCommitDelivery.asynchronous(10), tasks::add);
+
+        queue.offer("1");
+        queue.offer("2");
+        queue.close();
+
+        assertEquals(asList("1", "2"), received);
+
+        queue.offer("3");
+        assertEquals(asList("1", "2", "3"), received);
+    }
+
+    @Test
+    public void closeShouldNotWaitForeverForStuckDelivery() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return received.add(invocation.getArguments()[0]);
+        }).when(module).afterCommit(any());
+
+        AfterCommitQueue queue = new AfterCommitQueue(module, AfterCommitDelivery.asynchronous(10), Executors.newSingleThreadExecutor());
+
+        queue.offer("1"); //taken by the worker, which gets stuck
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        queue.offer("2");
+        queue.offer("3");
+
+        long start = System.currentTimeMillis();
+        queue.close(100);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+
+        assertEquals(0, queue.getDepth());
+        assertEquals(2, queue.getDropped());
+
+        release.countDown();
+        Thread.sleep(100);
+
+        assertEquals(asList("1"), received);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
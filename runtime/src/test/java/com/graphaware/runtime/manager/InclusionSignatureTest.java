@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.manager;
+
+import com.graphaware.common.policy.inclusion.InclusionPolicies;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodeProperties;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
+import com.graphaware.common.policy.inclusion.fluent.IncludeRelationshipProperties;
+import com.graphaware.common.policy.inclusion.fluent.IncludeRelationships;
+import com.graphaware.common.policy.inclusion.none.IncludeNoRelationships;
+import com.graphaware.common.policy.inclusion.spel.SpelNodeInclusionPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link InclusionSignature} and {@link TransactionSummary}.
+ */
+public class InclusionSignatureTest {
+
+    private static final InclusionPolicies PEOPLE = InclusionPolicies.all()
+            .with(IncludeNodes.all().with("Person"))
+            .with(IncludeNoRelationships.getInstance());
+
+    private static final InclusionPolicies PEOPLE_NAMES = PEOPLE.with(IncludeNodeProperties.all().with("name"));
+
+    private static final InclusionPolicies FRIENDSHIPS = InclusionPolicies.all()
+            .with(IncludeRelationships.all().with("FRIEND_OF"));
+
+    private GraphDatabaseService database;
+    private TransactionSummary summary;
+
+    @Before
+    public void setUp() {
+        database = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        database.registerTransactionEventHandler(new TransactionEventHandler.Adapter<Void>() {
+            @Override
+            public Void beforeCommit(TransactionData data) {
+                summary = TransactionSummary.of(data);
+                return null;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void unknownPoliciesShouldBeUnrestricted() {
+        assertTrue(InclusionSignature.of(InclusionPolicies.all()).isUnrestricted());
+        assertTrue(InclusionSignature.of(InclusionPolicies.all().with(new SpelNodeInclusionPolicy("hasLabel('Person')"))).isUnrestricted());
+        assertFalse(InclusionSignature.of(PEOPLE).isUnrestricted());
+        assertFalse(InclusionSignature.of(InclusionPolicies.none()).isUnrestricted());
+    }
+
+    @Test
+    public void creatingNodesWithOtherLabelsShouldOnlyInterestUnrestrictedModules() {
+        perform(db -> db.createNode(Label.label("Company")).setProperty("name", "GraphAware"));
+
+        assertFalse(InclusionSignature.of(PEOPLE).mayBeInterestedIn(summary));
+        assertFalse(InclusionSignature.of(FRIENDSHIPS.with(IncludeNodes.all().with("Person"))).mayBeInterestedIn(summary));
+        assertFalse(InclusionSignature.of(InclusionPolicies.none()).mayBeInterestedIn(summary));
+        assertTrue(InclusionSignature.of(FRIENDSHIPS).mayBeInterestedIn(summary));
+    }
+
+    @Test
+    public void creatingNodesWithMatchingLabelShouldInterestModule() {
+        perform(db -> db.createNode(Label.label("Person")));
+
+        assertTrue(InclusionSignature.of(PEOPLE).mayBeInterestedIn(summary));
+        assertTrue(InclusionSignature.of(PEOPLE_NAMES).mayBeInterestedIn(summary));
+    }
+
+    @Test
+    public void changingPropertiesShouldOnlyInterestModulesIncludingTheKey() {
+        long id = createPerson();
+
+        perform(db -> db.getNodeById(id).setProperty("age", 30));
+        assertTrue(InclusionSignature.of(PEOPLE).mayBeInterestedIn(summary));
+        assertFalse(InclusionSignature.of(PEOPLE_NAMES).mayBeInterestedIn(summary));
+
+        perform(db -> db.getNodeById(id).removeProperty("name"));
+        assertTrue(InclusionSignature.of(PEOPLE_NAMES).mayBeInterestedIn(summary));
+    }
+
+    @Test
+    public void removingMatchingLabelShouldInterestModule() {
+        long id = createPerson();
+
+        perform(db -> db.getNodeById(id).removeLabel(Label.label("Person")));
+        assertTrue(InclusionSignature.of(PEOPLE_NAMES).mayBeInterestedIn(summary));
+
+        perform(db -> db.getNodeById(id).setProperty("name", "Adam"));
+        assertFalse(InclusionSignature.of(PEOPLE_NAMES).mayBeInterestedIn(summary));
+    }
+
+    @Test
+    public void deletingMatchingNodeShouldInterestModule() {
+        long id = createPerson();
+
+        perform(db -> db.getNodeById(id).delete());
+        assertTrue(InclusionSignature.of(PEOPLE_NAMES).mayBeInterestedIn(summary));
+    }
+
+    @Test
+    public void changingUnlabelledNodesShouldInterestModulesIncludingAnyNode() {
+        perform(GraphDatabaseService::createNode);
+
+        assertTrue(InclusionSignature.of(InclusionPolicies.all().with(IncludeNoRelationships.getInstance())).mayBeInterestedIn(summary));
+        assertFalse(InclusionSignature.of(PEOPLE).mayBeInterestedIn(summary));
+    }
+
+    @Test
+    public void relationshipsShouldBeMatchedByType() {
+        InclusionPolicies friendshipsOnly = FRIENDSHIPS.with(IncludeNodes.all().with("Nobody"));
+
+        perform(db -> db.createNode().createRelationshipTo(db.createNode(), RelationshipType.withName("WORKS_FOR")));
+        assertFalse(InclusionSignature.of(friendshipsOnly).mayBeInterestedIn(summary));
+
+        long id = execute(db -> db.createNode().createRelationshipTo(db.createNode(), RelationshipType.withName("FRIEND_OF"))).getId();
+        assertTrue(InclusionSignature.of(friendshipsOnly).mayBeInterestedIn(summary));
+
+        perform(db -> db.getRelationshipById(id).setProperty("since", 2013));
+        assertTrue(InclusionSignature.of(friendshipsOnly).mayBeInterestedIn(summary));
+        assertFalse(InclusionSignature.of(friendshipsOnly.with(IncludeRelationshipProperties.all().with("strength"))).mayBeInterestedIn(summary));
+    }
+
+    private long createPerson() {
+        return execute(db -> {
+            Node node = db.createNode(Label.label("Person"));
+            node.setProperty("name", "Michal");
+            return node;
+        }).getId();
+    }
+
+    private <R> R execute(Function<GraphDatabaseService, R> work) {
+        try (Transaction tx = database.beginTx()) {
+            R result = work.apply(database);
+            tx.success();
+            return result;
+        }
+    }
+
+    private void perform(Consumer<GraphDatabaseService> work) {
+        execute(db -> {
+            work.accept(db);
+            return null;
+        });
+    }
+}
@@ -16,16 +16,32 @@
 
 package com.graphaware.runtime.module;
 
+import com.graphaware.common.policy.inclusion.NodeInclusionPolicy;
+import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
 import com.graphaware.runtime.GraphAwareRuntime;
 import com.graphaware.runtime.GraphAwareRuntimeFactory;
+import com.graphaware.runtime.TxDrivenRuntime;
+import com.graphaware.runtime.config.AfterCommitDelivery;
+import com.graphaware.runtime.config.FluentTxDrivenModuleConfiguration;
+import com.graphaware.runtime.config.TxDrivenModuleConfiguration;
+import com.graphaware.runtime.manager.AfterCommitQueueMetrics;
+import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
 import org.junit.Test;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.event.TransactionData;
 import org.neo4j.graphdb.event.TransactionEventHandler;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class BeforeAfterCommitTest {
@@ -82,4 +98,99 @@ public class BeforeAfterCommitTest {
 
         database.shutdown();
     }
+
+    @Test
+    public void afterCommitShouldBeCalledAsynchronouslyWhenConfigured() throws InterruptedException {
+        GraphDatabaseService database = new TestGraphDatabaseFactory().newImpermanentDatabase();
+
+        Thread committingThread = Thread.currentThread();
+        Thread[] deliveringThread = new Thread[1];
+        CountDownLatch delivered = new CountDownLatch(1);
+
+        BeforeAfterCommitModule module = new BeforeAfterCommitModule("test", null) {
+            @Override
+            public TxDrivenModuleConfiguration getConfiguration() {
+                return FluentTxDrivenModuleConfiguration.defaultConfiguration().withAfterCommitDelivery(AfterCommitDelivery.asynchronous());
+            }
+
+            @Override
+            public void afterCommit(String state) {
+                deliveringThread[0] = Thread.currentThread();
+                super.afterCommit(state);
+                delivered.countDown();
+            }
+        };
+
+        GraphAwareRuntime runtime = GraphAwareRuntimeFactory.createRuntime(database);
+        runtime.registerModule(module);
+        runtime.start();
+        runtime.waitUntilStarted();
+
+        try (Transaction tx = database.beginTx()) {
+            database.createNode();
+            tx.success();
+        }
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertTrue(module.isAfterCommitCalled());
+        assertNotSame(committingThread, deliveringThread[0]);
+
+        AfterCommitQueueMetrics metrics = ((TxDrivenRuntime<?>) runtime).getAfterCommitQueueMetrics("test");
+        assertNotNull(metrics);
+
+        database.shutdown();
+
+        assertEquals(1, metrics.getDelivered());
+    }
+
+    @Test
+    public void modulesWithEqualInclusionPoliciesShouldShareFilteredView() {
+        GraphDatabaseService database = new TestGraphDatabaseFactory().newImpermanentDatabase();
+
+        CapturingModule person1 = new CapturingModule("person1", IncludeNodes.all().with("Person"));
+        CapturingModule person2 = new CapturingModule("person2", IncludeNodes.all().with("Person"));
+        CapturingModule company = new CapturingModule("company", IncludeNodes.all().with("Company"));
+
+        GraphAwareRuntime runtime = GraphAwareRuntimeFactory.createRuntime(database);
+        runtime.registerModule(person1);
+        runtime.registerModule(person2);
+        runtime.registerModule(company);
+        runtime.start();
+        runtime.waitUntilStarted();
+
+        try (Transaction tx = database.beginTx()) {
+            database.createNode(Label.label("Person"));
+            database.createNode(Label.label("Company"));
+            tx.success();
+        }
+
+        assertNotNull(person1.captured);
+        assertNotNull(company.captured);
+        assertSame(person1.captured, person2.captured);
+        assertNotSame(person1.captured, company.captured);
+
+        database.shutdown();
+    }
+
+    private static class CapturingModule extends BeforeAfterCommitModule {
+
+        private final TxDrivenModuleConfiguration configuration;
+        private ImprovedTransactionData captured;
+
+        CapturingModule(String moduleId, NodeInclusionPolicy policy) {
+            super(moduleId, null);
+            this.configuration = FluentTxDrivenModuleConfiguration.defaultConfiguration().with(policy);
+        }
+
+        @Override
+        public TxDrivenModuleConfiguration getConfiguration() {
+            return configuration;
+        }
+
+        @Override
+        public String beforeCommit(ImprovedTransactionData transactionData) {
+            captured = transactionData;
+            return super.beforeCommit(transactionData);
+        }
+    }
 }
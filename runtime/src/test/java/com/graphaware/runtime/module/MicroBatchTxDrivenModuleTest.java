@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.module;
+
+import com.graphaware.runtime.GraphAwareRuntime;
+import com.graphaware.runtime.GraphAwareRuntimeFactory;
+import com.graphaware.runtime.config.FluentRuntimeConfiguration;
+import com.graphaware.runtime.config.RuntimeConfiguration;
+import com.graphaware.runtime.write.DatabaseWriterType;
+import com.graphaware.runtime.write.FluentWritingConfig;
+import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link BaseMicroBatchTxDrivenModule}.
+ */
+public class MicroBatchTxDrivenModuleTest {
+
+    private static final Label PERSON = Label.label("Person");
+    private static final Label COUNTER = Label.label("Counter");
+
+    private GraphDatabaseService database;
+
+    @Before
+    public void setUp() {
+        database = new TestGraphDatabaseFactory().newImpermanentDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void batchShouldBeProcessedWhenFull() throws InterruptedException {
+        CountingModule module = start(new CountingModule(10, 60_000));
+
+        createPeople(10);
+
+        waitFor(() -> counter() == 10);
+        assertEquals(1, module.getBatches());
+
+        createPeople(5);
+
+        Thread.sleep(100);
+        assertEquals(10, counter());
+        assertEquals(1, module.getBatches());
+    }
+
+    @Test
+    public void batchShouldBeProcessedAfterDelay() throws InterruptedException {
+        CountingModule module = start(new CountingModule(1000, 50));
+
+        createPeople(5);
+
+        waitFor(() -> counter() == 5);
+        assertTrue(module.getBatches() <= 5);
+    }
+
+    @Test
+    public void failedBatchShouldBeRetriedWithNextBatch() throws InterruptedException {
+        CountingModule module = start(new CountingModule(1000, 50, 1));
+
+        createPeople(3);
+        waitFor(() -> module.getFailures() == 1);
+
+        createPeople(2);
+        waitFor(() -> counter() == 5);
+    }
+
+    @Test
+    public void failedBatchShouldBeRetriedWhenRuntimeWritesAsynchronously() throws InterruptedException {
+        CountingModule module = start(new CountingModule(1000, 50, 1), FluentRuntimeConfiguration.defaultConfiguration(database)
+                .withWritingConfig(FluentWritingConfig.defaultConfiguration().withWriterType(DatabaseWriterType.SINGLE_THREADED)));
+
+        createPeople(3);
+        waitFor(() -> module.getFailures() == 1);
+
+        createPeople(2);
+        waitFor(() -> counter() == 5);
+
+        assertTrue(module.getProcessingThread().isDaemon());
+        assertEquals("GraphAware-counting-micro-batch", module.getProcessingThread().getName());
+    }
+
+    @Test
+    public void batchThatKeepsFailingShouldBeDroppedAfterMaxAttempts() throws InterruptedException {
+        CountingModule module = start(new CountingModule(1000, 50, 2, 2));
+
+        createPeople(3);
+        waitFor(() -> module.getDropped() == 3);
+        assertEquals(2, module.getFailures());
+
+        createPeople(2);
+        waitFor(() -> counter() == 2);
+        assertEquals(3, module.getDropped());
+    }
+
+    @Test
+    public void fullBatchShouldNotBeProcessedOnEveryCommitWhileFailing() throws InterruptedException {
+        CountingModule module = start(new CountingModule(1, 60_000, Integer.MAX_VALUE, 3));
+
+        createPeople(1);
+        waitFor(() -> module.getFailures() == 1);
+
+        createPeople(10);
+
+        Thread.sleep(200);
+        assertEquals(1, module.getFailures());
+        assertEquals(0, module.getDropped());
+    }
+
+    private CountingModule start(CountingModule module) {
+        return start(module, FluentRuntimeConfiguration.defaultConfiguration(database));
+    }
+
+    private CountingModule start(CountingModule module, RuntimeConfiguration configuration) {
+        GraphAwareRuntime runtime = GraphAwareRuntimeFactory.createRuntime(database, configuration);
+        runtime.registerModule(module);
+        runtime.start();
+        runtime.waitUntilStarted();
+        return module;
+    }
+
+    private void createPeople(int number) {
+        for (int i = 0; i < number; i++) {
+            try (Transaction tx = database.beginTx()) {
+                database.createNode(PERSON);
+                tx.success();
+            }
+        }
+    }
+
+    private long counter() {
+        try (Transaction tx = database.beginTx()) {
+            Node counter = database.findNode(COUNTER, "name", "people");
+            return counter == null ? 0 : (long) counter.getProperty("count");
+        }
+    }
+
+    private void waitFor(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.holds() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.holds());
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    private static class CountingModule extends BaseMicroBatchTxDrivenModule<Long> {
+
+        private final AtomicInteger batches = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicLong dropped = new AtomicLong();
+        private final int failuresToSimulate;
+        private volatile Thread processingThread;
+
+        CountingModule(int maxTransactions, long maxDelay) {
+            this(maxTransactions, maxDelay, 0);
+        }
+
+        CountingModule(int maxTransactions, long maxDelay, int failuresToSimulate) {
+            this(maxTransactions, maxDelay, failuresToSimulate, DEFAULT_MAX_ATTEMPTS);
+        }
+
+        CountingModule(int maxTransactions, long maxDelay, int failuresToSimulate, int maxAttempts) {
+            super("counting", maxTransactions, maxDelay, maxAttempts);
+            this.failuresToSimulate = failuresToSimulate;
+        }
+
+        @Override
+        public Long beforeCommit(ImprovedTransactionData transactionData) {
+            long people = transactionData.getAllCreatedNodes().stream().filter(node -> node.hasLabel(PERSON)).count();
+            return people == 0 ? null : people;
+        }
+
+        @Override
+        protected Long merge(Long batch, Long state) {
+            return batch + state;
+        }
+
+        @Override
+        protected void processBatch(Long batch, GraphDatabaseService database) {
+            processingThread = Thread.currentThread();
+
+            if (failures.get() < failuresToSimulate) {
+                failures.incrementAndGet();
+                throw new RuntimeException("Simulated failure");
+            }
+
+            Node counter = database.findNode(COUNTER, "name", "people");
+            if (counter == null) {
+                counter = database.createNode(COUNTER);
+                counter.setProperty("name", "people");
+            }
+            counter.setProperty("count", (long) counter.getProperty("count", 0L) + batch);
+
+            batches.incrementAndGet();
+        }
+
+        @Override
+        protected void batchDropped(Long batch, int transactions) {
+            dropped.addAndGet(batch);
+        }
+
+        int getBatches() {
+            return batches.get();
+        }
+
+        int getFailures() {
+            return failures.get();
+        }
+
+        long getDropped() {
+            return dropped.get();
+        }
+
+        Thread getProcessingThread() {
+            return processingThread;
+        }
+    }
+}
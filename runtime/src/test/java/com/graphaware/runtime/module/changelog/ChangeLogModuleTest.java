@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.module.changelog;
+
+import com.graphaware.common.representation.GraphDetachedNode;
+import com.graphaware.runtime.GraphAwareRuntime;
+import com.graphaware.runtime.GraphAwareRuntimeFactory;
+import com.graphaware.runtime.config.FluentTxDrivenModuleConfiguration;
+import com.graphaware.writer.thirdparty.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.backup.OnlineBackupSettings;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.helpers.collection.MapUtil;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static com.graphaware.common.util.DatabaseUtils.registerShutdownHook;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.configuration.Settings.FALSE;
+
+/**
+ * Integration test for {@link ChangeLogModule}.
+ */
+public class ChangeLogModuleTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private GraphDatabaseService database;
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        database = new TestGraphDatabaseFactory()
+                .newImpermanentDatabaseBuilder()
+                .setConfig(OnlineBackupSettings.online_backup_enabled, FALSE)
+                .newGraphDatabase();
+
+        registerShutdownHook(database);
+
+        directory = temporaryFolder.newFolder();
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void committedChangesShouldBeWrittenToLog() {
+        ChangeLogModule module = new ChangeLogModule("CL", FluentTxDrivenModuleConfiguration.defaultConfiguration(), directory, 1024);
+
+        GraphAwareRuntime runtime = GraphAwareRuntimeFactory.createRuntime(database);
+        runtime.registerModule(module);
+        runtime.start();
+        runtime.waitUntilStarted();
+
+        database.execute("CREATE (p:Person {name:'Michal', age:30})-[:WORKS_FOR]->(c:Company {name:'GraphAware'})");
+        database.execute("MATCH (p:Person {name:'Michal'}) SET p.age=31");
+
+        try (Transaction tx = database.beginTx()) {
+            tx.failure();
+            database.createNode();
+        }
+
+        long michalId;
+        try (Transaction tx = database.beginTx()) {
+            michalId = database.findNode(Label.label("Person"), "name", "Michal").getId();
+            tx.success();
+        }
+
+        try (ChangeLogReader reader = module.newReader()) {
+            List<ChangeLogRecord> records = reader.read(reader.getStartOffset(), 10);
+            assertEquals(2, records.size());
+
+            Collection<WriteOperation<?>> created = records.get(0).getOperations();
+            assertEquals(3, created.size());
+            assertTrue(created.contains(new NodeCreated<>(new GraphDetachedNode(michalId, new String[]{"Person"}, MapUtil.map("name", "Michal", "age", 30L)))));
+
+            assertEquals(Collections.singletonList(new NodeUpdated<>(
+                            new GraphDetachedNode(michalId, new String[]{"Person"}, MapUtil.map("name", "Michal", "age", 30L)),
+                            new GraphDetachedNode(michalId, new String[]{"Person"}, MapUtil.map("name", "Michal", "age", 31L)))),
+                    records.get(1).getOperations());
+
+            assertTrue(reader.read(records.get(1).getNextOffset(), 10).isEmpty());
+        }
+    }
+
+    @Test
+    public void moduleShouldBeBootstrappedFromConfig() {
+        ChangeLogModule module = (ChangeLogModule) new ChangeLogModuleBootstrapper().bootstrapModule("CL",
+                MapUtil.stringMap("directory", directory.getAbsolutePath(), "segmentSize", "4096", "afterCommit.async", "true"), database);
+
+        assertTrue(module.getConfiguration().getAfterCommitDelivery().isAsynchronous());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bootstrappingWithoutDirectoryShouldFail() {
+        new ChangeLogModuleBootstrapper().bootstrapModule("CL", Collections.<String, String>emptyMap(), database);
+    }
+}
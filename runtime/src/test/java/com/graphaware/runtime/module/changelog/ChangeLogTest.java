@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.module.changelog;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link ChangeLog} and {@link ChangeLogReader}.
+ */
+public class ChangeLogTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void appendedRecordsShouldBeReadBackInOrder() throws IOException {
+        File directory = temporaryFolder.newFolder();
+
+        try (ChangeLog log = new ChangeLog(directory, 1024); ChangeLogReader reader = new ChangeLogReader(directory)) {
+            assertEquals(0, log.append(bytes("one")));
+            assertEquals(11, log.append(bytes("two")));
+            assertEquals(0, reader.getStartOffset());
+
+            List<ChangeLogRecord> records = reader.read(0, 10);
+            assertEquals(2, records.size());
+            assertEquals("one", string(records.get(0)));
+            assertEquals("two", string(records.get(1)));
+            assertEquals(11, records.get(1).getOffset());
+            assertEquals(log.getEndOffset(), records.get(1).getNextOffset());
+
+            assertEquals(1, reader.read(0, 1).size());
+            assertTrue(reader.read(log.getEndOffset(), 10).isEmpty());
+
+            log.append(bytes("three"));
+            records = reader.read(22, 10);
+            assertEquals(1, records.size());
+            assertEquals("three", string(records.get(0)));
+        }
+    }
+
+    @Test
+    public void readerShouldFollowWriterAcrossSegments() throws IOException {
+        File directory = temporaryFolder.newFolder();
+
+        try (ChangeLog log = new ChangeLog(directory, 64); ChangeLogReader reader = new ChangeLogReader(directory)) {
+            long offset = 0;
+            for (int i = 0; i < 100; i++) {
+                log.append(bytes("record" + i));
+
+                List<ChangeLogRecord> records = reader.read(offset, 10);
+                assertEquals(1, records.size());
+                assertEquals("record" + i, string(records.get(0)));
+                offset = records.get(0).getNextOffset();
+            }
+
+            assertTrue(ChangeLog.segments(directory).size() > 1);
+            assertEquals(100, reader.read(0, 1000).size());
+        }
+    }
+
+    @Test
+    public void recordsLargerThanSegmentShouldGetSegmentOfTheirOwn() throws IOException {
+        File directory = temporaryFolder.newFolder();
+
+        try (ChangeLog log = new ChangeLog(directory, 64); ChangeLogReader reader = new ChangeLogReader(directory)) {
+            byte[] large = new byte[1000];
+            large[999] = 42;
+
+            assertEquals(0, log.append(large));
+            log.append(bytes("small"));
+
+            List<ChangeLogRecord> records = reader.read(0, 10);
+            assertEquals(2, records.size());
+            assertArrayEquals(large, records.get(0).getBytes());
+            assertEquals("small", string(records.get(1)));
+        }
+    }
+
+    @Test
+    public void writingShouldContinueAfterReopening() throws IOException {
+        File directory = temporaryFolder.newFolder();
+
+        long end;
+        try (ChangeLog log = new ChangeLog(directory, 64)) {
+            for (int i = 0; i < 10; i++) {
+                log.append(bytes("record" + i));
+            }
+            end = log.getEndOffset();
+        }
+
+        try (ChangeLog log = new ChangeLog(directory, 64); ChangeLogReader reader = new ChangeLogReader(directory)) {
+            assertEquals(end, log.getEndOffset());
+            assertEquals(end, log.append(bytes("after")));
+
+            List<ChangeLogRecord> records = reader.read(0, 100);
+            assertEquals(11, records.size());
+            assertEquals("after", string(records.get(10)));
+        }
+    }
+
+    @Test
+    public void tornRecordShouldBeDiscardedOnRecovery() throws IOException {
+        File directory = temporaryFolder.newFolder();
+
+        try (ChangeLog log = new ChangeLog(directory, 1024)) {
+            log.append(bytes("one"));
+            log.append(bytes("two"));
+        }
+
+        //corrupt the payload of the second record, as if the write was interrupted
+        try (RandomAccessFile file = new RandomAccessFile(ChangeLog.segments(directory).get(0), "rw")) {
+            file.seek(11 + ChangeLogSegment.HEADER_SIZE);
+            file.write('x');
+        }
+
+        try (ChangeLog log = new ChangeLog(directory, 1024); ChangeLogReader reader = new ChangeLogReader(directory)) {
+            assertEquals(11, log.getEndOffset());
+            log.append(bytes("three"));
+
+            List<ChangeLogRecord> records = reader.read(0, 10);
+            assertEquals(2, records.size());
+            assertEquals("three", string(records.get(1)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyRecordsShouldNotBeAccepted() throws IOException {
+        try (ChangeLog log = new ChangeLog(temporaryFolder.newFolder(), 1024)) {
+            log.append(new byte[0]);
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes();
+    }
+
+    private static String string(ChangeLogRecord record) {
+        return new String(record.getBytes());
+    }
+}
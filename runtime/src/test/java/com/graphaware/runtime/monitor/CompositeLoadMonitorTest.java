@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.monitor;
+
+import com.graphaware.runtime.schedule.TimingStrategy;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for {@link CompositeLoadMonitor}.
+ */
+public class CompositeLoadMonitorTest {
+
+    @Test
+    public void loadShouldBeUnknownWithNoComponents() {
+        assertEquals(TimingStrategy.UNKNOWN, new CompositeLoadMonitor(100).getLoad());
+    }
+
+    @Test
+    public void loadShouldBeScaledToCommonThreshold() {
+        CompositeLoadMonitor monitor = new CompositeLoadMonitor(100)
+                .with(() -> 50, 100)
+                .with(() -> 40, 80);
+
+        assertEquals(50, monitor.getLoad());
+    }
+
+    @Test
+    public void busiestComponentShouldDetermineLoad() {
+        CompositeLoadMonitor monitor = new CompositeLoadMonitor(100)
+                .with(() -> 10, 100)
+                .with(() -> 90, 60);
+
+        assertEquals(150, monitor.getLoad());
+    }
+
+    @Test
+    public void unknownComponentsShouldBeIgnored() {
+        CompositeLoadMonitor monitor = new CompositeLoadMonitor(100)
+                .with(() -> TimingStrategy.UNKNOWN, 100)
+                .with(() -> 30, 60);
+
+        assertEquals(50, monitor.getLoad());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void thresholdMustBePositive() {
+        new CompositeLoadMonitor(100).with(() -> 10, 0);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.monitor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.backup.OnlineBackupSettings;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import static com.graphaware.common.util.DatabaseUtils.registerShutdownHook;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.kernel.configuration.Settings.FALSE;
+
+/**
+ * Integration test for {@link LoadThresholds} and the {@link DatabaseLoadMonitor}s it creates.
+ */
+public class LoadThresholdsTest {
+
+    private GraphDatabaseService database;
+
+    @Before
+    public void setUp() {
+        database = new TestGraphDatabaseFactory()
+                .newImpermanentDatabaseBuilder()
+                .setConfig(OnlineBackupSettings.online_backup_enabled, FALSE)
+                .newGraphDatabase();
+
+        registerShutdownHook(database);
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void shouldCreateStartedTxMonitorWhenNoOtherSignalsAreMonitored() {
+        assertEquals(StartedTxBasedLoadMonitor.class, LoadThresholds.none().createMonitor(database, 100, 200, 2000).getClass());
+    }
+
+    @Test
+    public void shouldCreateCompositeMonitorWhenOtherSignalsAreMonitored() throws InterruptedException {
+        DatabaseLoadMonitor monitor = LoadThresholds.none()
+                .withActiveTransactions(10)
+                .withPageCacheFaults(1000)
+                .withCpuPercent(80)
+                .withCommitLatencyMicros(10_000)
+                .createMonitor(database, 100, 200, 2000);
+
+        assertEquals(CompositeLoadMonitor.class, monitor.getClass());
+
+        monitor.getLoad();
+
+        try (Transaction tx = database.beginTx()) {
+            database.createNode();
+            tx.success();
+        }
+
+        Thread.sleep(5);
+
+        assertTrue(monitor.getLoad() >= 0);
+    }
+
+    @Test
+    public void activeTransactionsShouldBeMonitored() {
+        DatabaseLoadMonitor monitor = new ActiveTxBasedLoadMonitor(database);
+
+        assertEquals(0, monitor.getLoad());
+
+        try (Transaction tx = database.beginTx()) {
+            assertEquals(1, monitor.getLoad());
+            tx.success();
+        }
+
+        assertEquals(0, monitor.getLoad());
+    }
+
+    @Test
+    public void commitLatencyShouldBeMonitored() {
+        CommitLatencyBasedLoadMonitor monitor = new CommitLatencyBasedLoadMonitor(database);
+
+        assertEquals(0, monitor.getLoad());
+
+        for (int i = 0; i < 10; i++) {
+            try (Transaction tx = database.beginTx()) {
+                database.createNode();
+                tx.success();
+            }
+        }
+
+        assertTrue(monitor.getLoad() >= 0);
+        assertEquals(0, monitor.getLoad());
+
+        monitor.close();
+    }
+
+    @Test
+    public void commitLatencyMonitorShouldUnregisterFromDatabaseWhenClosed() {
+        CommitLatencyBasedLoadMonitor monitor = new CommitLatencyBasedLoadMonitor(database);
+
+        monitor.close();
+        monitor.close();
+
+        try {
+            database.unregisterTransactionEventHandler(monitor);
+            fail();
+        } catch (IllegalStateException e) {
+            //ok, not registered anymore
+        }
+    }
+}
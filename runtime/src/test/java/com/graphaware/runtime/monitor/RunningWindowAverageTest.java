@@ -19,7 +19,14 @@ package com.graphaware.runtime.monitor;
 import com.graphaware.runtime.schedule.TimingStrategy;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 /**
  * Unit test for {@link RunningWindowAverage}.
@@ -54,4 +61,112 @@ public class RunningWindowAverageTest {
         average.sample(14_000L, 82);
         assertEquals(32, average.getAverage()); // 32/1 (5 samples max)
     }
+
+    @Test
+    public void shouldReturnCorrectPercentiles() {
+        RunningWindowAverage average = new RunningWindowAverage(5, 2000);
+        assertEquals(TimingStrategy.UNKNOWN, average.getPercentile(0.5));
+
+        average.sample(10_000L, 10);
+        average.sample(11_000L, 20);
+        average.sample(12_000L, 40);
+        average.sample(12_500L, 45);
+        average.sample(13_000L, 50);
+
+        //rates in window: 20, 10, 10 (the 10-20 interval starts more than 2 seconds ago)
+        assertEquals(10, average.getPercentile(0));
+        assertEquals(10, average.getPercentile(0.5));
+        assertEquals(20, average.getPercentile(0.99));
+        assertEquals(20, average.getPercentile(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptInvalidPercentile() {
+        new RunningWindowAverage(5, 2000).getPercentile(1.5);
+    }
+
+    @Test
+    public void shouldReturnCorrectEwma() {
+        RunningWindowAverage average = new RunningWindowAverage(5, 2000);
+        assertEquals(TimingStrategy.UNKNOWN, average.getEwma());
+
+        average.sample(10_000L, 10);
+        assertEquals(TimingStrategy.UNKNOWN, average.getEwma());
+
+        average.sample(11_000L, 20);
+        assertEquals(10, average.getEwma());
+
+        average.sample(12_000L, 40);
+        assertEquals(14, average.getEwma()); // 10 + (1 - e^-0.5) * (20 - 10)
+
+        for (int i = 1; i <= 20; i++) {
+            average.sample(12_000L + i * 1000, 40 + i * 100);
+        }
+        assertEquals(100, average.getEwma());
+    }
+
+    @Test
+    public void concurrentReadersShouldNeverSeePartiallyOverwrittenSamples() throws InterruptedException {
+        RunningWindowAverage average = new RunningWindowAverage(2, Integer.MAX_VALUE);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong wrongAverages = new AtomicLong();
+        AtomicLong reads = new AtomicLong();
+
+        Runnable reader = () -> {
+            while (writing.get()) {
+                long result = average.getAverage();
+                if (result != TimingStrategy.UNKNOWN && result != 7000) {
+                    wrongAverages.incrementAndGet();
+                }
+                reads.incrementAndGet();
+            }
+        };
+
+        Thread[] readers = new Thread[3];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(reader);
+            readers[i].start();
+        }
+
+        //constant rate of 7 per ms, so every consistent window averages exactly 7000 per second
+        for (long time = 1; time <= 5_000_000; time++) {
+            average.sample(time, time * 7);
+        }
+
+        writing.set(false);
+        for (Thread thread : readers) {
+            thread.join();
+        }
+
+        assertTrue(reads.get() > 0);
+        assertEquals(0, wrongAverages.get());
+    }
+
+    @Test
+    public void shouldNotAllocateWhenSampling() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+
+        RunningWindowAverage average = new RunningWindowAverage(100, 10_000);
+        long result = exercise(average, 0); //warm up
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        result += exercise(average, 100_000);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(result != 0);
+        assertTrue("Allocated " + allocated + " bytes", allocated < 10_000);
+    }
+
+    private long exercise(RunningWindowAverage average, long start) {
+        long result = 0;
+        for (long i = start; i < start + 100_000; i++) {
+            average.sample(i * 10, i * 3);
+            result += average.getAverage() + average.getEwma() + average.getPercentile(0.99);
+        }
+        return result;
+    }
 }
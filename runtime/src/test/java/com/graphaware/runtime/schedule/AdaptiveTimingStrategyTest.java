@@ -16,10 +16,13 @@
 
 package com.graphaware.runtime.schedule;
 
+import com.graphaware.runtime.monitor.LoadThresholds;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.neo4j.graphdb.DependencyResolver;
+import org.neo4j.graphdb.event.TransactionEventHandler;
 import org.neo4j.kernel.impl.transaction.stats.TransactionCounters;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 
@@ -32,6 +35,7 @@ import static org.junit.Assert.assertTrue;
 public class AdaptiveTimingStrategyTest {
 
     private TransactionCounters txCounters;
+    private GraphDatabaseAPI graphDatabase;
     private AdaptiveTimingStrategy timingStrategy;
 
     /**
@@ -40,7 +44,7 @@ public class AdaptiveTimingStrategyTest {
     @Before
     public void setUp() {
         txCounters = Mockito.mock(TransactionCounters.class);
-        GraphDatabaseAPI graphDatabase = Mockito.mock(GraphDatabaseAPI.class);
+        graphDatabase = Mockito.mock(GraphDatabaseAPI.class);
         DependencyResolver dependencyResolver = Mockito.mock(DependencyResolver.class);
         Mockito.stub(graphDatabase.getDependencyResolver()).toReturn(dependencyResolver);
         Mockito.stub(dependencyResolver.resolveDependency(TransactionCounters.class)).toReturn(txCounters);
@@ -58,6 +62,20 @@ public class AdaptiveTimingStrategyTest {
         timingStrategy.initialize(graphDatabase);
     }
 
+    @Test
+    public void shouldReleaseLoadMonitorsWhenDestroyed() {
+        AdaptiveTimingStrategy strategy = timingStrategy.withLoadThresholds(LoadThresholds.none().withCommitLatencyMicros(10_000));
+
+        strategy.initialize(graphDatabase);
+
+        ArgumentCaptor<TransactionEventHandler> handler = ArgumentCaptor.forClass(TransactionEventHandler.class);
+        Mockito.verify(graphDatabase).registerTransactionEventHandler(handler.capture());
+
+        strategy.destroy();
+
+        Mockito.verify(graphDatabase).unregisterTransactionEventHandler(handler.getValue());
+    }
+
     @Test
     public void shouldUseInitialDelayFromGivenConfiguration() {
         Mockito.stub(txCounters.getNumberOfStartedTransactions()).toReturn(9L);
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for {@link BurstDetector}.
+ */
+public class BurstDetectorTest {
+
+    @Test
+    public void shouldNeverBurstWhenDisabled() {
+        BurstDetector detector = BurstMode.disabled().createDetector();
+
+        assertFalse(detector.update(0, 1000));
+        assertFalse(detector.update(0, 1_000_000));
+        assertFalse(detector.isBursting());
+    }
+
+    @Test
+    public void shouldBurstOnceIdleForLongEnough() {
+        BurstDetector detector = BurstMode.afterIdleFor(10, 5000).createDetector();
+
+        assertFalse(detector.update(5, 1000));
+        assertFalse(detector.update(9, 5999));
+        assertTrue(detector.update(0, 6000));
+        assertTrue(detector.isBursting());
+        assertTrue(detector.update(3, 100_000));
+    }
+
+    @Test
+    public void shouldStopBurstingAsSoonAsLoadRises() {
+        BurstDetector detector = BurstMode.afterIdleFor(10, 5000).createDetector();
+
+        detector.update(0, 1000);
+        assertTrue(detector.update(0, 6000));
+
+        assertFalse(detector.update(10, 6001));
+        assertFalse(detector.isBursting());
+
+        //idle period starts again
+        assertFalse(detector.update(0, 6002));
+        assertFalse(detector.update(0, 11_001));
+        assertTrue(detector.update(0, 11_002));
+    }
+
+    @Test
+    public void shouldNotTreatUnknownLoadAsIdle() {
+        BurstDetector detector = BurstMode.afterIdleFor(10, 0).createDetector();
+
+        assertFalse(detector.update(TimingStrategy.UNKNOWN, 1000));
+        assertTrue(detector.update(0, 1000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptNonPositiveThreshold() {
+        BurstMode.afterIdleFor(0, 1000);
+    }
+}
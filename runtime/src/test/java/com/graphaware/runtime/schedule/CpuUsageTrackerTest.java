@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import com.graphaware.runtime.config.CpuBudget;
+import org.junit.Test;
+
+import static com.graphaware.runtime.metadata.TimerDrivenModuleContext.ASAP;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for {@link CpuUsageTracker}.
+ */
+public class CpuUsageTrackerTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    public void shouldNotThrottleModuleWithinBudget() {
+        CpuUsageTracker tracker = new CpuUsageTracker(CpuBudget.of(0.1, 10_000));
+
+        tracker.record(100_000, 400 * MS);
+        tracker.record(105_000, 600 * MS);
+
+        assertEquals(1000 * MS, tracker.usedNanos(105_000));
+        assertEquals(ASAP, tracker.throttledUntil(105_000));
+    }
+
+    @Test
+    public void shouldThrottleModuleOverBudget() {
+        CpuUsageTracker tracker = new CpuUsageTracker(CpuBudget.of(0.1, 10_000));
+
+        tracker.record(100_000, 1500 * MS);
+
+        //1.5s of CPU at 10% needs 15s, i.e. 5s on top of the window
+        assertEquals(105_000, tracker.throttledUntil(100_000));
+    }
+
+    @Test
+    public void shouldForgetUsageOutsideOfWindow() {
+        CpuUsageTracker tracker = new CpuUsageTracker(CpuBudget.of(0.1, 10_000));
+
+        tracker.record(100_000, 1500 * MS);
+        tracker.record(109_500, 100 * MS);
+
+        assertEquals(1600 * MS, tracker.usedNanos(109_999));
+        assertEquals(100 * MS, tracker.usedNanos(110_000));
+        assertEquals(ASAP, tracker.throttledUntil(110_000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotTrackUnlimitedBudget() {
+        new CpuUsageTracker(CpuBudget.UNLIMITED);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptInvalidShare() {
+        CpuBudget.of(1.5);
+    }
+}
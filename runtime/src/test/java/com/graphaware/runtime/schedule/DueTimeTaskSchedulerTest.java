@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import static com.graphaware.runtime.config.RuntimeConfiguration.TX_MODULES_PROPERTY_PREFIX;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.graphaware.runtime.config.FluentRuntimeConfiguration;
+import com.graphaware.runtime.metadata.GraphPropertiesMetadataRepository;
+import com.graphaware.runtime.metadata.ModuleMetadataRepository;
+import com.graphaware.runtime.metadata.TimerDrivenModuleContext;
+import com.graphaware.test.integration.EmbeddedDatabaseIntegrationTest;
+
+public class DueTimeTaskSchedulerTest extends EmbeddedDatabaseIntegrationTest {
+
+	private ModuleMetadataRepository txRepo;
+
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		txRepo = new GraphPropertiesMetadataRepository(getDatabase(),
+				FluentRuntimeConfiguration.defaultConfiguration(getDatabase()), TX_MODULES_PROPERTY_PREFIX);
+	}
+
+	@Test
+	public void shouldSleepUntilNextModuleIsDue() throws InterruptedException {
+		IntervalTimerDrivenModule module = new IntervalTimerDrivenModule("interval", 200);
+		AtomicInteger lookups = new AtomicInteger();
+
+		DueTimeTaskScheduler scheduler = new DueTimeTaskScheduler(getDatabase(), txRepo, FixedDelayTimingStrategy.getInstance().withInitialDelay(0).withDelay(1), FluentSchedulingConfig.defaultConfiguration().withWorkerThreads(1)) {
+			@Override
+			protected <C extends TimerDrivenModuleContext> ScheduledModule<C> findNextModule() {
+				lookups.incrementAndGet();
+				return super.findNextModule();
+			}
+		};
+		scheduler.registerModuleAndContext(module, null);
+		scheduler.start();
+
+		Thread.sleep(1100);
+		scheduler.stop();
+
+		assertTrue(module.getRuns() >= 4);
+		assertTrue(module.getRuns() <= 7);
+		assertTrue(lookups.get() <= 2 * module.getRuns() + 2);
+	}
+
+	@Test
+	public void modulesDueAsapShouldRunInTurns() throws InterruptedException {
+		SleepingTimerDrivenModule module1 = new SleepingTimerDrivenModule("module1", 5);
+		SleepingTimerDrivenModule module2 = new SleepingTimerDrivenModule("module2", 5);
+		IntervalTimerDrivenModule module3 = new IntervalTimerDrivenModule("module3", 10_000);
+
+		DueTimeTaskScheduler scheduler = new DueTimeTaskScheduler(getDatabase(), txRepo, FixedDelayTimingStrategy.getInstance().withInitialDelay(0).withDelay(1), FluentSchedulingConfig.defaultConfiguration().withWorkerThreads(1));
+		scheduler.registerModuleAndContext(module1, null);
+		scheduler.registerModuleAndContext(module2, null);
+		scheduler.registerModuleAndContext(module3, null);
+		scheduler.start();
+
+		Thread.sleep(500);
+		scheduler.stop();
+
+		assertTrue(module1.getRuns() > 10);
+		assertTrue(Math.abs(module1.getRuns() - module2.getRuns()) <= 1);
+		assertTrue(module3.getRuns() == 1);
+	}
+}
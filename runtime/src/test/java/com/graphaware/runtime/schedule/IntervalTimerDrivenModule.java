@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import com.graphaware.runtime.metadata.EmptyContext;
+import com.graphaware.runtime.module.BaseTimerDrivenModule;
+
+/**
+ * Timer-driven module for testing that wishes to be called again a given amount of time after each run, and keeps track
+ * of how many times it was run.
+ */
+class IntervalTimerDrivenModule extends BaseTimerDrivenModule<EmptyContext> {
+
+	private final long intervalMillis;
+	private final AtomicInteger runs = new AtomicInteger();
+	private volatile EmptyContext lastContext;
+
+	IntervalTimerDrivenModule(String moduleId, long intervalMillis) {
+		super(moduleId);
+		this.intervalMillis = intervalMillis;
+	}
+
+	@Override
+	public EmptyContext createInitialContext(GraphDatabaseService database) {
+		return null;
+	}
+
+	@Override
+	public EmptyContext doSomeWork(EmptyContext lastContext, GraphDatabaseService database) {
+		runs.incrementAndGet();
+		this.lastContext = new EmptyContext(System.currentTimeMillis() + intervalMillis);
+		return this.lastContext;
+	}
+
+	int getRuns() {
+		return runs.get();
+	}
+
+	EmptyContext getLastContext() {
+		return lastContext;
+	}
+}
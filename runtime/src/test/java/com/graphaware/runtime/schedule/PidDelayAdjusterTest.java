@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PidDelayAdjusterTest {
+
+    private PidDelayAdjuster adjuster;
+
+    @Before
+    public void setUp() {
+        adjuster = new PidDelayAdjuster(1000, 5, 5000, 100, 0.1, 0.5, 0.1, 0.2);
+    }
+
+    @Test
+    public void shouldUseDefaultDelayWhenCurrentDelayIsUnknown() {
+        assertEquals(1000, adjuster.determineNextDelay(TimingStrategy.UNKNOWN, 0, 0));
+    }
+
+    @Test
+    public void shouldConvergeToMinimumDelayWhenDatabaseIsQuiet() {
+        long delay = adjuster.determineNextDelay(TimingStrategy.UNKNOWN, 0, 0);
+
+        for (int i = 0; i < 50; i++) {
+            delay = adjuster.determineNextDelay(delay, 0, 10);
+        }
+
+        assertEquals(5, delay);
+    }
+
+    @Test
+    public void shouldConvergeToMaximumDelayWhenDatabaseIsBusy() {
+        long delay = adjuster.determineNextDelay(TimingStrategy.UNKNOWN, 0, 0);
+
+        for (int i = 0; i < 50; i++) {
+            delay = adjuster.determineNextDelay(delay, 0, 500);
+        }
+
+        assertEquals(5000, delay);
+    }
+
+    @Test
+    public void shouldChangeDelaySmoothly() {
+        long delay = adjuster.determineNextDelay(TimingStrategy.UNKNOWN, 0, 0);
+
+        for (int i = 0; i < 50; i++) {
+            long next = adjuster.determineNextDelay(delay, 0, i % 2 == 0 ? 10_000 : 0);
+            assertTrue(next <= 2 * delay + 1);
+            assertTrue(next >= delay / 2 - 1);
+            delay = next;
+        }
+    }
+
+    @Test
+    public void shouldKeepBackgroundWorkWithinTargetShare() {
+        long delay = adjuster.determineNextDelay(TimingStrategy.UNKNOWN, 0, 0);
+
+        for (int i = 0; i < 200; i++) {
+            delay = adjuster.determineNextDelay(delay, 10, 0);
+        }
+
+        //10ms tasks should take about 10% of the time, i.e. 90ms delay
+        assertTrue("Delay was " + delay, delay > 60 && delay < 130);
+    }
+
+    @Test
+    public void shouldRecoverQuicklyAfterLongBusyPeriod() {
+        long delay = adjuster.determineNextDelay(TimingStrategy.UNKNOWN, 0, 0);
+
+        for (int i = 0; i < 1000; i++) {
+            delay = adjuster.determineNextDelay(delay, 0, 500);
+        }
+
+        assertEquals(5000, delay);
+
+        for (int i = 0; i < 20; i++) {
+            delay = adjuster.determineNextDelay(delay, 0, 0);
+        }
+
+        assertEquals(5, delay);
+    }
+}
@@ -16,28 +16,54 @@
 package com.graphaware.runtime.schedule;
 
 import static com.graphaware.runtime.config.RuntimeConfiguration.TX_MODULES_PROPERTY_PREFIX;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.graphaware.common.policy.role.*;
 import org.junit.Before;
 import org.junit.Test;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
 
+import com.graphaware.runtime.config.CpuBudget;
 import com.graphaware.runtime.config.FluentRuntimeConfiguration;
+import com.graphaware.runtime.config.FluentTimerDrivenModuleConfiguration;
+import com.graphaware.runtime.config.TimerDrivenModuleConfiguration;
 import com.graphaware.runtime.metadata.GraphPropertiesMetadataRepository;
+import com.graphaware.runtime.metadata.TimerDrivenModuleMetadata;
 import com.graphaware.runtime.metadata.ModuleMetadataRepository;
+import com.graphaware.runtime.metadata.TimerDrivenModuleContext;
+import com.graphaware.runtime.module.BaseTimerDrivenModule;
 import com.graphaware.test.integration.EmbeddedDatabaseIntegrationTest;
 
 public class RotatingTaskSchedulerTest extends EmbeddedDatabaseIntegrationTest{
 
 	private RotatingTaskScheduler rotatingTaskScheduler;
+	private ModuleMetadataRepository txRepo;
 
 	@Before
 	public void setUp() throws Exception{
 		super.setUp();
 		GraphDatabaseService database = getDatabase();
-		ModuleMetadataRepository txRepo = new GraphPropertiesMetadataRepository(database,
+		txRepo = new GraphPropertiesMetadataRepository(database,
 				FluentRuntimeConfiguration.defaultConfiguration(database), TX_MODULES_PROPERTY_PREFIX);
 		
 		AdaptiveTimingStrategy timingStrategy = AdaptiveTimingStrategy.defaultConfiguration().withBusyThreshold(10)
@@ -68,4 +94,283 @@ public class RotatingTaskSchedulerTest extends EmbeddedDatabaseIntegrationTest{
 	public void testHasCorrectRole_WRITEABLE() {
 		assertTrue(rotatingTaskScheduler.hasCorrectRole(MockTimerModuleContext.buildModule(WritableRole.getInstance())));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void slowModuleShouldNotStarveOthersWithMoreWorkerThreads() throws InterruptedException {
+		CountDownLatch slowStarted = new CountDownLatch(1);
+		CountDownLatch releaseSlow = new CountDownLatch(1);
+
+		SleepingTimerDrivenModule slowModule = new SleepingTimerDrivenModule("slow", 0) {
+			@Override
+			public TimerDrivenModuleContext doSomeWork(TimerDrivenModuleContext lastContext, GraphDatabaseService database) {
+				slowStarted.countDown();
+				try {
+					releaseSlow.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.doSomeWork(lastContext, database);
+			}
+		};
+		SleepingTimerDrivenModule fastModule = new SleepingTimerDrivenModule("fast", 0);
+
+		RotatingTaskScheduler scheduler = new RotatingTaskScheduler(getDatabase(), txRepo, FixedDelayTimingStrategy.getInstance().withInitialDelay(0).withDelay(10), 2);
+		scheduler.registerModuleAndContext(slowModule, null);
+		scheduler.registerModuleAndContext(fastModule, null);
+		scheduler.start();
+
+		//wait for progress rather than for a fixed time, so that a loaded machine doesn't make the test fail
+		assertTrue(slowStarted.await(10, TimeUnit.SECONDS));
+		int fastRunsBefore = fastModule.getRuns();
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (fastModule.getRuns() < fastRunsBefore + 10 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertEquals(0, slowModule.getRuns());
+		assertTrue(fastModule.getRuns() >= fastRunsBefore + 10);
+
+		releaseSlow.countDown();
+		scheduler.stop();
+	}
+
+	@Test
+	public void moduleShouldOnlyRunInOneLaneAtATime() throws InterruptedException {
+		SleepingTimerDrivenModule module1 = new SleepingTimerDrivenModule("module1", 20);
+		SleepingTimerDrivenModule module2 = new SleepingTimerDrivenModule("module2", 20);
+
+		RotatingTaskScheduler scheduler = new RotatingTaskScheduler(getDatabase(), txRepo, FixedDelayTimingStrategy.getInstance().withInitialDelay(0).withDelay(1), 4);
+		scheduler.registerModuleAndContext(module1, null);
+		scheduler.registerModuleAndContext(module2, null);
+		scheduler.start();
+
+		Thread.sleep(500);
+		scheduler.stop();
+
+		assertTrue(module1.getRuns() > 1);
+		assertTrue(module2.getRuns() > 1);
+		assertEquals(1, module1.getMaxRunning());
+		assertEquals(1, module2.getMaxRunning());
+	}
+
+	@Test
+	public void shouldRunMultipleStepsPerTaskWhenConfigured() throws InterruptedException {
+		SleepingTimerDrivenModule module = new SleepingTimerDrivenModule("module", 0, FluentTimerDrivenModuleConfiguration.defaultConfiguration().withMaxSteps(10));
+		AtomicInteger tasks = new AtomicInteger();
+		AtomicInteger runsNotMatchingTasks = new AtomicInteger();
+
+		RotatingTaskScheduler scheduler = new RotatingTaskScheduler(getDatabase(), txRepo, FixedDelayTimingStrategy.getInstance().withInitialDelay(0).withDelay(10), 1) {
+			@Override
+			protected void taskCompleted(ScheduledModule<?> scheduledModule, long durationNanos) {
+				//compare when the task completes; stop() may interrupt a later task half-way through its steps
+				if (module.getRuns() != 10 * tasks.incrementAndGet()) {
+					runsNotMatchingTasks.incrementAndGet();
+				}
+			}
+		};
+		scheduler.registerModuleAndContext(module, null);
+		scheduler.start();
+
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (tasks.get() < 3 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		scheduler.stop();
+
+		assertTrue(tasks.get() >= 3);
+		assertEquals(0, runsNotMatchingTasks.get());
+	}
+
+	@Test
+	public void shouldStopStepsWhenTimeBudgetIsExhausted() throws InterruptedException {
+		SleepingTimerDrivenModule module = new SleepingTimerDrivenModule("module", 20, FluentTimerDrivenModuleConfiguration.defaultConfiguration().withWorkQuantum(Integer.MAX_VALUE, 50));
+		AtomicInteger tasks = new AtomicInteger();
+
+		RotatingTaskScheduler scheduler = new RotatingTaskScheduler(getDatabase(), txRepo, FixedDelayTimingStrategy.getInstance().withInitialDelay(0).withDelay(10), 1) {
+			@Override
+			protected void taskCompleted(ScheduledModule<?> scheduledModule, long durationNanos) {
+				tasks.incrementAndGet();
+			}
+		};
+		scheduler.registerModuleAndContext(module, null);
+		scheduler.start();
+
+		Thread.sleep(500);
+		scheduler.stop();
+
+		assertTrue(tasks.get() > 1);
+		assertTrue(module.getRuns() >= 2 * tasks.get());
+		assertTrue(module.getRuns() <= 4 * tasks.get());
+	}
+
+	@Test
+	public void shouldCheckpointContextsEveryConfiguredNumberOfTasksAndOnStop() throws InterruptedException {
+		IntervalTimerDrivenModule module = new IntervalTimerDrivenModule("module", 0);
+		ModuleMetadataRepository repository = spy(txRepo);
+		AtomicInteger tasks = new AtomicInteger();
+
+		RotatingTaskScheduler scheduler = new RotatingTaskScheduler(getDatabase(), repository, FixedDelayTimingStrategy.getInstance().withInitialDelay(0).withDelay(5),
+				FluentSchedulingConfig.defaultConfiguration().withCheckpointing(10, 0)) {
+			@Override
+			protected void taskCompleted(ScheduledModule<?> scheduledModule, long durationNanos) {
+				tasks.incrementAndGet();
+			}
+		};
+		scheduler.registerModuleAndContext(module, null);
+		scheduler.start();
+
+		Thread.sleep(500);
+		scheduler.stop();
+
+		assertTrue(tasks.get() > 20);
+		verify(repository, atLeast(tasks.get() / 10)).persistModuleMetadata(eq(module), any());
+		verify(repository, atMost(tasks.get() / 10 + 1)).persistModuleMetadata(eq(module), any());
+
+		TimerDrivenModuleMetadata metadata = txRepo.getModuleMetadata(module);
+		assertEquals(module.getLastContext(), metadata.lastContext());
+	}
+
+	@Test
+	public void shouldRetryCheckpointWhenItsTransactionFailsToCommit() throws InterruptedException {
+		IntervalTimerDrivenModule module = new IntervalTimerDrivenModule("module", 0);
+		ModuleMetadataRepository repository = spy(txRepo);
+		AtomicInteger tasks = new AtomicInteger();
+		AtomicBoolean failNextCommit = new AtomicBoolean(false);
+		List<Integer> checkpointedAtTask = new CopyOnWriteArrayList<>();
+
+		doAnswer(invocation -> {
+			checkpointedAtTask.add(tasks.get());
+			if (checkpointedAtTask.size() == 1) {
+				failNextCommit.set(true);
+			}
+			return invocation.callRealMethod();
+		}).when(repository).persistModuleMetadata(eq(module), any());
+
+		getDatabase().registerTransactionEventHandler(new TransactionEventHandler.Adapter<Void>() {
+			@Override
+			public Void beforeCommit(TransactionData data) {
+				if (failNextCommit.compareAndSet(true, false)) {
+					throw new RuntimeException("Simulated commit failure");
+				}
+				return null;
+			}
+		});
+
+		RotatingTaskScheduler scheduler = new RotatingTaskScheduler(getDatabase(), repository, FixedDelayTimingStrategy.getInstance().withInitialDelay(0).withDelay(5),
+				FluentSchedulingConfig.defaultConfiguration().withCheckpointing(10, 0)) {
+			@Override
+			protected void taskCompleted(ScheduledModule<?> scheduledModule, long durationNanos) {
+				tasks.incrementAndGet();
+			}
+		};
+		scheduler.registerModuleAndContext(module, null);
+		scheduler.start();
+
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (checkpointedAtTask.size() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		scheduler.stop();
+
+		assertTrue(checkpointedAtTask.size() >= 2);
+		//the checkpoint that failed to commit must be retried by the very next task, not 10 tasks later
+		assertEquals(checkpointedAtTask.get(0) + 1, (int) checkpointedAtTask.get(1));
+	}
+
+	@Test
+	public void moduleExceedingCpuBudgetShouldBeHeldBack() throws InterruptedException {
+		SpinningTimerDrivenModule module = new SpinningTimerDrivenModule("module", 20, FluentTimerDrivenModuleConfiguration.defaultConfiguration().withCpuBudget(CpuBudget.of(0.05, 1000)));
+
+		RotatingTaskScheduler scheduler = new RotatingTaskScheduler(getDatabase(), txRepo, FixedDelayTimingStrategy.getInstance().withInitialDelay(0).withDelay(5), 1);
+		scheduler.registerModuleAndContext(module, null);
+		scheduler.start();
+
+		Thread.sleep(1000);
+		scheduler.stop();
+
+		//50 ms of CPU per second, 20 ms per task, would be about 40 tasks without the budget
+		assertTrue(module.getRuns() >= 1);
+		assertTrue(module.getRuns() <= 6);
+	}
+
+	@Test
+	public void shouldAddLanesWhileBurstingAndRetireThemAfterwards() throws InterruptedException {
+		SleepingTimerDrivenModule module1 = new SleepingTimerDrivenModule("module1", 10);
+		SleepingTimerDrivenModule module2 = new SleepingTimerDrivenModule("module2", 10);
+		SleepingTimerDrivenModule module3 = new SleepingTimerDrivenModule("module3", 10);
+		AtomicBoolean bursting = new AtomicBoolean(false);
+
+		TimingStrategy strategy = new TimingStrategy() {
+			@Override
+			public void initialize(GraphDatabaseService database) {
+			}
+
+			@Override
+			public long nextDelay(long lastTaskDuration) {
+				return 5;
+			}
+
+			@Override
+			public boolean isBursting() {
+				return bursting.get();
+			}
+		};
+
+		RotatingTaskScheduler scheduler = new RotatingTaskScheduler(getDatabase(), txRepo, strategy, FluentSchedulingConfig.defaultConfiguration().withBurstWorkerThreads(5));
+		scheduler.registerModuleAndContext(module1, null);
+		scheduler.registerModuleAndContext(module2, null);
+		scheduler.registerModuleAndContext(module3, null);
+		scheduler.start();
+
+		Thread.sleep(200);
+		assertEquals(1, scheduler.getActiveLanes());
+
+		bursting.set(true);
+		Thread.sleep(200);
+		assertEquals(3, scheduler.getActiveLanes()); //no more lanes than modules
+
+		bursting.set(false);
+		Thread.sleep(200);
+		assertEquals(1, scheduler.getActiveLanes());
+
+		scheduler.stop();
+	}
+
+	private static class SpinningTimerDrivenModule extends BaseTimerDrivenModule<TimerDrivenModuleContext> {
+
+		private final long spinMillis;
+		private final TimerDrivenModuleConfiguration configuration;
+		private final AtomicInteger runs = new AtomicInteger();
+
+		SpinningTimerDrivenModule(String moduleId, long spinMillis, TimerDrivenModuleConfiguration configuration) {
+			super(moduleId);
+			this.spinMillis = spinMillis;
+			this.configuration = configuration;
+		}
+
+		@Override
+		public TimerDrivenModuleConfiguration getConfiguration() {
+			return configuration;
+		}
+
+		@Override
+		public TimerDrivenModuleContext createInitialContext(GraphDatabaseService database) {
+			return null;
+		}
+
+		@Override
+		public TimerDrivenModuleContext doSomeWork(TimerDrivenModuleContext lastContext, GraphDatabaseService database) {
+			ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			long until = threads.getCurrentThreadCpuTime() + spinMillis * 1_000_000;
+			while (threads.getCurrentThreadCpuTime() < until) {
+				Thread.yield();
+			}
+			runs.incrementAndGet();
+			return null;
+		}
+
+		int getRuns() {
+			return runs.get();
+		}
+	}
+}
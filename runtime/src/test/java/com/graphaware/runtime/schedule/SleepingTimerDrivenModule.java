@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import com.graphaware.runtime.config.FluentTimerDrivenModuleConfiguration;
+import com.graphaware.runtime.config.TimerDrivenModuleConfiguration;
+import com.graphaware.runtime.metadata.TimerDrivenModuleContext;
+import com.graphaware.runtime.module.BaseTimerDrivenModule;
+
+/**
+ * Timer-driven module for testing that sleeps for a given amount of time whenever it is delegated to, and keeps track
+ * of how many times it was run and how many threads were running it at the same time.
+ */
+class SleepingTimerDrivenModule extends BaseTimerDrivenModule<TimerDrivenModuleContext> {
+
+	private final long sleepMillis;
+	private final TimerDrivenModuleConfiguration configuration;
+	private final AtomicInteger runs = new AtomicInteger();
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxRunning = new AtomicInteger();
+
+	SleepingTimerDrivenModule(String moduleId, long sleepMillis) {
+		this(moduleId, sleepMillis, TimerDrivenModuleConfiguration.DEFAULT_WEIGHT);
+	}
+
+	SleepingTimerDrivenModule(String moduleId, long sleepMillis, int weight) {
+		this(moduleId, sleepMillis, FluentTimerDrivenModuleConfiguration.defaultConfiguration().withWeight(weight));
+	}
+
+	SleepingTimerDrivenModule(String moduleId, long sleepMillis, TimerDrivenModuleConfiguration configuration) {
+		super(moduleId);
+		this.sleepMillis = sleepMillis;
+		this.configuration = configuration;
+	}
+
+	@Override
+	public TimerDrivenModuleConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	@Override
+	public TimerDrivenModuleContext createInitialContext(GraphDatabaseService database) {
+		return null;
+	}
+
+	@Override
+	public TimerDrivenModuleContext doSomeWork(TimerDrivenModuleContext lastContext, GraphDatabaseService database) {
+		maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+		try {
+			Thread.sleep(sleepMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			running.decrementAndGet();
+		}
+		runs.incrementAndGet();
+		return null;
+	}
+
+	int getRuns() {
+		return runs.get();
+	}
+
+	int getMaxRunning() {
+		return maxRunning.get();
+	}
+}
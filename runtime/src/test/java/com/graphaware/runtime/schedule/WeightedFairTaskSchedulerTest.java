@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.runtime.schedule;
+
+import static com.graphaware.runtime.config.RuntimeConfiguration.TX_MODULES_PROPERTY_PREFIX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.graphaware.runtime.config.FluentRuntimeConfiguration;
+import com.graphaware.runtime.metadata.GraphPropertiesMetadataRepository;
+import com.graphaware.runtime.metadata.ModuleMetadataRepository;
+import com.graphaware.test.integration.EmbeddedDatabaseIntegrationTest;
+
+public class WeightedFairTaskSchedulerTest extends EmbeddedDatabaseIntegrationTest {
+
+	private ModuleMetadataRepository txRepo;
+
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		txRepo = new GraphPropertiesMetadataRepository(getDatabase(),
+				FluentRuntimeConfiguration.defaultConfiguration(getDatabase()), TX_MODULES_PROPERTY_PREFIX);
+	}
+
+	@Test
+	public void expensiveModuleShouldGetFewerTurns() throws InterruptedException {
+		SleepingTimerDrivenModule expensiveModule = new SleepingTimerDrivenModule("expensive", 50);
+		SleepingTimerDrivenModule cheapModule = new SleepingTimerDrivenModule("cheap", 5);
+
+		WeightedFairTaskScheduler scheduler = new WeightedFairTaskScheduler(getDatabase(), txRepo, FixedDelayTimingStrategy.getInstance().withInitialDelay(0).withDelay(1), FluentSchedulingConfig.defaultConfiguration().withWorkerThreads(1));
+		scheduler.registerModuleAndContext(expensiveModule, null);
+		scheduler.registerModuleAndContext(cheapModule, null);
+		scheduler.start();
+
+		Thread.sleep(1500);
+		scheduler.stop();
+
+		assertTrue(expensiveModule.getRuns() > 1);
+		assertTrue(cheapModule.getRuns() > 4 * expensiveModule.getRuns());
+	}
+
+	@Test
+	public void heavierModuleShouldGetMoreTurns() throws InterruptedException {
+		SleepingTimerDrivenModule lightModule = new SleepingTimerDrivenModule("light", 10, 1);
+		SleepingTimerDrivenModule heavyModule = new SleepingTimerDrivenModule("heavy", 10, 4);
+
+		WeightedFairTaskScheduler scheduler = new WeightedFairTaskScheduler(getDatabase(), txRepo, FixedDelayTimingStrategy.getInstance().withInitialDelay(0).withDelay(1), FluentSchedulingConfig.defaultConfiguration().withWorkerThreads(1));
+		scheduler.registerModuleAndContext(lightModule, null);
+		scheduler.registerModuleAndContext(heavyModule, null);
+		scheduler.start();
+
+		Thread.sleep(1500);
+		scheduler.stop();
+
+		assertTrue(lightModule.getRuns() > 1);
+		assertTrue(heavyModule.getRuns() > 2 * lightModule.getRuns());
+	}
+
+	@Test
+	public void moduleShouldOnlyRunInOneLaneAtATime() throws InterruptedException {
+		SleepingTimerDrivenModule module1 = new SleepingTimerDrivenModule("module1", 20);
+		SleepingTimerDrivenModule module2 = new SleepingTimerDrivenModule("module2", 20, 3);
+
+		WeightedFairTaskScheduler scheduler = new WeightedFairTaskScheduler(getDatabase(), txRepo, FixedDelayTimingStrategy.getInstance().withInitialDelay(0).withDelay(1), FluentSchedulingConfig.defaultConfiguration().withWorkerThreads(4));
+		scheduler.registerModuleAndContext(module1, null);
+		scheduler.registerModuleAndContext(module2, null);
+		scheduler.start();
+
+		Thread.sleep(500);
+		scheduler.stop();
+
+		assertTrue(module1.getRuns() > 1);
+		assertTrue(module2.getRuns() > 1);
+		assertEquals(1, module1.getMaxRunning());
+		assertEquals(1, module2.getMaxRunning());
+	}
+}
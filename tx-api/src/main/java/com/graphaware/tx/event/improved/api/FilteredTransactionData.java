@@ -27,6 +27,7 @@ import com.graphaware.tx.event.improved.data.RelationshipTransactionData;
 import com.graphaware.tx.event.improved.data.TransactionDataContainer;
 import com.graphaware.tx.event.improved.data.filtered.FilteredNodeTransactionData;
 import com.graphaware.tx.event.improved.data.filtered.FilteredRelationshipTransactionData;
+import com.graphaware.tx.event.improved.entity.filtered.InclusionDecisions;
 
 /**
  * {@link ImprovedTransactionData} with filtering capabilities defined by {@link InclusionPolicies}, delegating to
@@ -46,8 +47,8 @@ import com.graphaware.tx.event.improved.data.filtered.FilteredRelationshipTransa
 public class FilteredTransactionData extends BaseImprovedTransactionData implements ImprovedTransactionData, TransactionDataContainer {
 
     private final InclusionPolicies inclusionPolicies;
-    private final NodeTransactionData nodeTransactionData;
-    private final RelationshipTransactionData relationshipTransactionData;
+    private final FilteredNodeTransactionData nodeTransactionData;
+    private final FilteredRelationshipTransactionData relationshipTransactionData;
 
     /**
      * Construct a new filtered transaction data.
@@ -56,10 +57,23 @@ public class FilteredTransactionData extends BaseImprovedTransactionData impleme
      * @param inclusionPolicies      policies for filtering.
      */
     public FilteredTransactionData(TransactionDataContainer transactionDataContainer, InclusionPolicies inclusionPolicies) {
+        this(transactionDataContainer, inclusionPolicies, InclusionDecisions.none());
+    }
+
+    /**
+     * Construct a new filtered transaction data.
+     *
+     * @param transactionDataContainer container for original unfiltered transaction data.
+     * @param inclusionPolicies        policies for filtering.
+     * @param inclusionDecisions       decisions of inclusion policies made so far in the same transaction. Pass the same
+     *                                 instance to all filtered transaction data of one transaction, so that policies they
+     *                                 share only evaluate each entity once.
+     */
+    public FilteredTransactionData(TransactionDataContainer transactionDataContainer, InclusionPolicies inclusionPolicies, InclusionDecisions inclusionDecisions) {
         super(transactionDataContainer.getWrapped());
         this.inclusionPolicies = inclusionPolicies;
-        nodeTransactionData = new FilteredNodeTransactionData(transactionDataContainer.getNodeTransactionData(), inclusionPolicies);
-        relationshipTransactionData = new FilteredRelationshipTransactionData(transactionDataContainer.getRelationshipTransactionData(), inclusionPolicies);
+        nodeTransactionData = new FilteredNodeTransactionData(transactionDataContainer.getNodeTransactionData(), inclusionPolicies, inclusionDecisions);
+        relationshipTransactionData = new FilteredRelationshipTransactionData(transactionDataContainer.getRelationshipTransactionData(), inclusionPolicies, inclusionDecisions);
     }
 
     /**
@@ -84,11 +98,11 @@ public class FilteredTransactionData extends BaseImprovedTransactionData impleme
     @Override
     public boolean mutationsOccurred() {
         //overridden for optimization - we don't want to load things (and especially properties) if we don't need to
-        return (!inclusionPolicies.getNodeInclusionPolicy().equals(IncludeNoNodes.getInstance()) && !getAllCreatedNodes().isEmpty())
-                || (!inclusionPolicies.getRelationshipInclusionPolicy().equals(IncludeNoRelationships.getInstance()) && !getAllCreatedRelationships().isEmpty())
-                || (!inclusionPolicies.getNodeInclusionPolicy().equals(IncludeNoNodes.getInstance()) && !getAllDeletedNodes().isEmpty())
-                || (!inclusionPolicies.getRelationshipInclusionPolicy().equals(IncludeNoRelationships.getInstance()) && !getAllDeletedRelationships().isEmpty())
-                || (!inclusionPolicies.getNodePropertyInclusionPolicy().equals(IncludeNoNodeProperties.getInstance()) && !getAllChangedNodes().isEmpty())
-                || (!inclusionPolicies.getRelationshipPropertyInclusionPolicy().equals(IncludeNoRelationshipProperties.getInstance()) && !getAllChangedRelationships().isEmpty());
+        return (!inclusionPolicies.getNodeInclusionPolicy().equals(IncludeNoNodes.getInstance()) && nodeTransactionData.hasAnyCreated())
+                || (!inclusionPolicies.getRelationshipInclusionPolicy().equals(IncludeNoRelationships.getInstance()) && relationshipTransactionData.hasAnyCreated())
+                || (!inclusionPolicies.getNodeInclusionPolicy().equals(IncludeNoNodes.getInstance()) && nodeTransactionData.hasAnyDeleted())
+                || (!inclusionPolicies.getRelationshipInclusionPolicy().equals(IncludeNoRelationships.getInstance()) && relationshipTransactionData.hasAnyDeleted())
+                || (!inclusionPolicies.getNodePropertyInclusionPolicy().equals(IncludeNoNodeProperties.getInstance()) && nodeTransactionData.hasAnyChanged())
+                || (!inclusionPolicies.getRelationshipPropertyInclusionPolicy().equals(IncludeNoRelationshipProperties.getInstance()) && relationshipTransactionData.hasAnyChanged());
     }
 }
@@ -20,6 +20,7 @@ import com.graphaware.tx.event.improved.data.BaseImprovedTransactionData;
 import com.graphaware.tx.event.improved.data.NodeTransactionData;
 import com.graphaware.tx.event.improved.data.RelationshipTransactionData;
 import com.graphaware.tx.event.improved.data.TransactionDataContainer;
+import com.graphaware.tx.event.improved.data.lazy.LazyEntityTransactionData;
 import com.graphaware.tx.event.improved.data.lazy.LazyNodeTransactionData;
 import com.graphaware.tx.event.improved.data.lazy.LazyRelationshipTransactionData;
 import org.neo4j.graphdb.event.TransactionData;
@@ -27,21 +28,36 @@ import org.neo4j.graphdb.event.TransactionData;
 /**
  * {@link ImprovedTransactionData} delegating all work to {@link com.graphaware.tx.event.improved.data.lazy.LazyNodeTransactionData}
  * and {@link com.graphaware.tx.event.improved.data.lazy.LazyRelationshipTransactionData}.
+ * <p>
+ * For very large transactions, a spill threshold can be provided, above which properties of changed entities are moved
+ * from heap to temporary files. In that case, the instance must be {@link #close() closed} once it is no longer needed.
  */
-public class LazyTransactionData extends BaseImprovedTransactionData implements ImprovedTransactionData, TransactionDataContainer {
+public class LazyTransactionData extends BaseImprovedTransactionData implements ImprovedTransactionData, TransactionDataContainer, AutoCloseable {
 
-    private final NodeTransactionData nodeTransactionData;
-    private final RelationshipTransactionData relationshipTransactionData;
+    private final LazyNodeTransactionData nodeTransactionData;
+    private final LazyRelationshipTransactionData relationshipTransactionData;
 
     /**
-     * Create an instance from Neo4j {@link org.neo4j.graphdb.event.TransactionData}.
+     * Create an instance from Neo4j {@link org.neo4j.graphdb.event.TransactionData}, which holds all data on heap.
      *
      * @param transactionData data about the transaction.
      */
     public LazyTransactionData(TransactionData transactionData) {
+        this(transactionData, LazyEntityTransactionData.NEVER_SPILL);
+    }
+
+    /**
+     * Create an instance from Neo4j {@link org.neo4j.graphdb.event.TransactionData}.
+     *
+     * @param transactionData data about the transaction.
+     * @param spillThreshold  number of created, deleted, and changed properties (separately for nodes and relationships)
+     *                        above which properties are moved from heap to a temporary file.
+     *                        {@link LazyEntityTransactionData#NEVER_SPILL} to always keep them on heap.
+     */
+    public LazyTransactionData(TransactionData transactionData, long spillThreshold) {
         super(transactionData);
-        nodeTransactionData = new LazyNodeTransactionData(transactionData, this);
-        relationshipTransactionData = new LazyRelationshipTransactionData(transactionData, this);
+        nodeTransactionData = new LazyNodeTransactionData(transactionData, this, spillThreshold);
+        relationshipTransactionData = new LazyRelationshipTransactionData(transactionData, this, spillThreshold);
     }
 
     /**
@@ -59,4 +75,13 @@ public class LazyTransactionData extends BaseImprovedTransactionData implements
     public RelationshipTransactionData getRelationshipTransactionData() {
         return relationshipTransactionData;
     }
+
+    /**
+     * Delete temporary files the transaction data might have been spilled to.
+     */
+    @Override
+    public void close() {
+        nodeTransactionData.close();
+        relationshipTransactionData.close();
+    }
 }
@@ -23,9 +23,13 @@ import com.graphaware.common.policy.inclusion.none.IncludeNoProperties;
 import com.graphaware.common.policy.inclusion.none.IncludeNone;
 import com.graphaware.common.util.Change;
 import com.graphaware.tx.event.improved.data.EntityTransactionData;
+import com.graphaware.tx.event.improved.data.lazy.LazyEntityTransactionData;
+import com.graphaware.tx.event.improved.entity.filtered.FilteredEntity;
+import com.graphaware.tx.event.improved.entity.filtered.InclusionDecisions;
 import org.neo4j.graphdb.Entity;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Decorator of {@link com.graphaware.tx.event.improved.data.EntityTransactionData} that filters out {@link org.neo4j.graphdb.Entity}s and properties
@@ -45,18 +49,38 @@ import java.util.*;
  * nodes, properties, and relationships not included by the {@link InclusionPolicies} will be excluded. The only exception
  * to this are relationship start and end nodes - they are returned even if they would normally be filtered out. This is
  * a design decision in order to honor the requirement that relationships must have start and end node.
+ * <p/>
+ * Results of {@link #getAllCreated()}, {@link #getAllDeleted()}, and {@link #getAllChanged()}, as well as filtered
+ * properties of individual entities, are computed once and cached, so that an instance can be cheaply shared by multiple
+ * callers interested in the same transaction with the same {@link InclusionPolicies}. The three methods return a copy
+ * of the cached result on every call, so that callers sharing an instance can't affect each other. Per-entity caches
+ * are keyed by the identity of the (unwrapped) entity and live only as long as this object, i.e. for the duration of
+ * the transaction. Filtered properties aren't cached when the wrapped {@link LazyEntityTransactionData} has spilled
+ * them to disk.
  */
 public abstract class FilteredEntityTransactionData<T extends Entity> {
 
     protected final InclusionPolicies policies;
+    protected final InclusionDecisions decisions;
+
+    private Collection<T> allCreated;
+    private Collection<T> allDeleted;
+    private Collection<Change<T>> allChanged;
+
+    private final Map<T, Map<String, Object>> createdProperties = new IdentityHashMap<>();
+    private final Map<T, Map<String, Object>> deletedProperties = new IdentityHashMap<>();
+    private final Map<T, Map<String, Object>> propertiesOfDeletedEntity = new IdentityHashMap<>();
+    private final Map<T, Map<String, Change<Object>>> changedProperties = new IdentityHashMap<>();
 
     /**
      * Construct filtered entity transaction data.
      *
-     * @param policies for filtering.
+     * @param policies  for filtering.
+     * @param decisions of the policies made so far in the transaction, possibly shared with other filtered data.
      */
-    protected FilteredEntityTransactionData(InclusionPolicies policies) {
+    protected FilteredEntityTransactionData(InclusionPolicies policies, InclusionDecisions decisions) {
         this.policies = policies;
+        this.decisions = decisions;
     }
 
     /**
@@ -104,10 +128,27 @@ public abstract class FilteredEntityTransactionData<T extends Entity> {
      * @return read-only collection of all created entities. Filtered according to provided policies.
      */
     public Collection<T> getAllCreated() {
+        return new HashSet<>(filteredCreated());
+    }
+
+    /**
+     * Check whether any entities included by the policies have been created in the transaction. Cheaper than
+     * <code>!getAllCreated().isEmpty()</code>, as it doesn't copy the result.
+     *
+     * @return true iff {@link #getAllCreated()} would return a non-empty collection.
+     */
+    public boolean hasAnyCreated() {
+        return !filteredCreated().isEmpty();
+    }
+
+    private Collection<T> filteredCreated() {
         if (getEntityInclusionPolicy() instanceof IncludeNone) {
             return Collections.emptySet();
         }
-        return filterEntities(getWrapped().getAllCreated());
+        if (allCreated == null) {
+            allCreated = filterEntities(getWrapped().getAllCreated());
+        }
+        return allCreated;
     }
 
     /**
@@ -140,10 +181,27 @@ public abstract class FilteredEntityTransactionData<T extends Entity> {
      * (snapshots). Filtered according to provided policies.
      */
     public Collection<T> getAllDeleted() {
+        return new HashSet<>(filteredDeleted());
+    }
+
+    /**
+     * Check whether any entities included by the policies have been deleted in the transaction. Cheaper than
+     * <code>!getAllDeleted().isEmpty()</code>, as it doesn't copy the result.
+     *
+     * @return true iff {@link #getAllDeleted()} would return a non-empty collection.
+     */
+    public boolean hasAnyDeleted() {
+        return !filteredDeleted().isEmpty();
+    }
+
+    private Collection<T> filteredDeleted() {
         if (getEntityInclusionPolicy() instanceof IncludeNone) {
             return Collections.emptySet();
         }
-        return filterEntities(getWrapped().getAllDeleted());
+        if (allDeleted == null) {
+            allDeleted = filterEntities(getWrapped().getAllDeleted());
+        }
+        return allDeleted;
     }
 
     /**
@@ -175,10 +233,27 @@ public abstract class FilteredEntityTransactionData<T extends Entity> {
      * as they are now. Filtered according to provided policies.
      */
     public Collection<Change<T>> getAllChanged() {
+        return new HashSet<>(filteredChanged());
+    }
+
+    /**
+     * Check whether any entities included by the policies have been changed in the transaction. Cheaper than
+     * <code>!getAllChanged().isEmpty()</code>, as it doesn't copy the result.
+     *
+     * @return true iff {@link #getAllChanged()} would return a non-empty collection.
+     */
+    public boolean hasAnyChanged() {
+        return !filteredChanged().isEmpty();
+    }
+
+    private Collection<Change<T>> filteredChanged() {
         if (getEntityInclusionPolicy() instanceof IncludeNone) {
             return Collections.emptySet();
         }
-        return filterChangedEntities(getWrapped().getAllChanged());
+        if (allChanged == null) {
+            allChanged = filterChangedEntities(getWrapped().getAllChanged());
+        }
+        return allChanged;
     }
 
     /**
@@ -205,7 +280,7 @@ public abstract class FilteredEntityTransactionData<T extends Entity> {
             return Collections.emptyMap();
         }
 
-        return filterProperties(getWrapped().createdProperties(entity), entity);
+        return filterPropertiesOnce(createdProperties, entity, getWrapped()::createdProperties);
     }
 
     /**
@@ -232,7 +307,7 @@ public abstract class FilteredEntityTransactionData<T extends Entity> {
         if (getPropertyInclusionPolicy() instanceof IncludeNoProperties) {
             return Collections.emptyMap();
         }
-        return filterProperties(getWrapped().deletedProperties(entity), entity);
+        return filterPropertiesOnce(deletedProperties, entity, getWrapped()::deletedProperties);
     }
 
     /**
@@ -246,7 +321,7 @@ public abstract class FilteredEntityTransactionData<T extends Entity> {
         if (getPropertyInclusionPolicy() instanceof IncludeNoProperties) {
             return Collections.emptyMap();
         }
-        return filterProperties(getWrapped().propertiesOfDeletedEntity(entity), entity);
+        return filterPropertiesOnce(propertiesOfDeletedEntity, entity, getWrapped()::propertiesOfDeletedEntity);
     }
 
     /**
@@ -273,7 +348,7 @@ public abstract class FilteredEntityTransactionData<T extends Entity> {
         if (getPropertyInclusionPolicy() instanceof IncludeNoProperties) {
             return Collections.emptyMap();
         }
-        return filterProperties(getWrapped().changedProperties(entity), entity);
+        return filterPropertiesOnce(changedProperties, entity, getWrapped()::changedProperties);
     }
 
     /**
@@ -285,7 +360,7 @@ public abstract class FilteredEntityTransactionData<T extends Entity> {
     protected final Collection<T> filterEntities(Collection<T> toFilter) {
         Collection<T> result = new HashSet<>();
         for (T candidate : toFilter) {
-            if (getEntityInclusionPolicy().include(candidate)) {
+            if (decisions.include(getEntityInclusionPolicy(), candidate)) {
                 result.add(filtered(candidate));
             }
         }
@@ -311,7 +386,7 @@ public abstract class FilteredEntityTransactionData<T extends Entity> {
     }
 
     private boolean include(Change<T> candidate) {
-        return getEntityInclusionPolicy().include(candidate.getPrevious()) || getEntityInclusionPolicy().include(candidate.getCurrent());
+        return decisions.include(getEntityInclusionPolicy(), candidate.getPrevious()) || decisions.include(getEntityInclusionPolicy(), candidate.getCurrent());
     }
 
     protected boolean hasChanged(Change<T> candidate) {
@@ -339,6 +414,45 @@ public abstract class FilteredEntityTransactionData<T extends Entity> {
         return result;
     }
 
+    /**
+     * Filter properties of an entity according to provided {@link PropertyInclusionPolicy}, unless they have already
+     * been filtered for the same entity, in which case the cached result is returned. Nothing is cached when the
+     * wrapped transaction data has spilled its properties to disk, as that would pull them all back onto the heap.
+     *
+     * @param cache      of already filtered properties.
+     * @param entity     to which the properties belong.
+     * @param properties function producing unfiltered properties of the entity.
+     * @param <V>        property value type.
+     * @return read-only filtered properties.
+     */
+    private <V> Map<String, V> filterPropertiesOnce(Map<T, Map<String, V>> cache, T entity, Function<T, Map<String, V>> properties) {
+        T key = unwrap(entity);
+
+        Map<String, V> result = cache.get(key);
+        if (result == null) {
+            result = Collections.unmodifiableMap(filterProperties(properties.apply(entity), entity));
+            if (!isSpilled()) {
+                cache.put(key, result);
+            }
+        }
+
+        return result;
+    }
+
+    private boolean isSpilled() {
+        EntityTransactionData<T> wrapped = getWrapped();
+        return wrapped instanceof LazyEntityTransactionData && ((LazyEntityTransactionData<?>) wrapped).isSpilled();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T unwrap(T entity) {
+        T result = entity;
+        while (result instanceof FilteredEntity) {
+            result = ((FilteredEntity<T>) result).getWrapped();
+        }
+        return result;
+    }
+
     /**
      * Make both objects contained in the changed object filtered.
      *
@@ -22,6 +22,7 @@ import com.graphaware.common.policy.inclusion.PropertyInclusionPolicy;
 import com.graphaware.common.util.Change;
 import com.graphaware.tx.event.improved.data.NodeTransactionData;
 import com.graphaware.tx.event.improved.entity.filtered.FilteredNode;
+import com.graphaware.tx.event.improved.entity.filtered.InclusionDecisions;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 
@@ -41,7 +42,18 @@ public class FilteredNodeTransactionData extends FilteredEntityTransactionData<N
      * @param policies for filtering.
      */
     public FilteredNodeTransactionData(NodeTransactionData wrapped, InclusionPolicies policies) {
-        super(policies);
+        this(wrapped, policies, InclusionDecisions.none());
+    }
+
+    /**
+     * Construct filtered node transaction data.
+     *
+     * @param wrapped   wrapped node transaction data.
+     * @param policies  for filtering.
+     * @param decisions of the policies made so far in the transaction, possibly shared with other filtered data.
+     */
+    public FilteredNodeTransactionData(NodeTransactionData wrapped, InclusionPolicies policies, InclusionDecisions decisions) {
+        super(policies, decisions);
         this.wrapped = wrapped;
     }
 
@@ -58,7 +70,7 @@ public class FilteredNodeTransactionData extends FilteredEntityTransactionData<N
      */
     @Override
     protected Node filtered(Node original) {
-        return new FilteredNode(original, policies);
+        return new FilteredNode(original, policies, decisions);
     }
 
     /**
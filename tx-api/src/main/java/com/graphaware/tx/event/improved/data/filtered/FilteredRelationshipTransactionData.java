@@ -22,6 +22,7 @@ import com.graphaware.common.policy.inclusion.PropertyInclusionPolicy;
 import com.graphaware.tx.event.improved.data.EntityTransactionData;
 import com.graphaware.tx.event.improved.data.RelationshipTransactionData;
 import com.graphaware.tx.event.improved.entity.filtered.FilteredRelationship;
+import com.graphaware.tx.event.improved.entity.filtered.InclusionDecisions;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
@@ -43,7 +44,18 @@ public class FilteredRelationshipTransactionData extends FilteredEntityTransacti
      * @param policies for filtering.
      */
     public FilteredRelationshipTransactionData(RelationshipTransactionData wrapped, InclusionPolicies policies) {
-        super(policies);
+        this(wrapped, policies, InclusionDecisions.none());
+    }
+
+    /**
+     * Construct filtered relationship transaction data.
+     *
+     * @param wrapped   wrapped relationship transaction data.
+     * @param policies  for filtering.
+     * @param decisions of the policies made so far in the transaction, possibly shared with other filtered data.
+     */
+    public FilteredRelationshipTransactionData(RelationshipTransactionData wrapped, InclusionPolicies policies, InclusionDecisions decisions) {
+        super(policies, decisions);
         this.wrapped = wrapped;
     }
 
@@ -60,7 +72,7 @@ public class FilteredRelationshipTransactionData extends FilteredEntityTransacti
      */
     @Override
     protected Relationship filtered(Relationship original) {
-        return new FilteredRelationship(original, policies);
+        return new FilteredRelationship(original, policies, decisions);
     }
 
     /**
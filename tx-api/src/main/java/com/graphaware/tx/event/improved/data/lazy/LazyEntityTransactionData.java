@@ -17,47 +17,83 @@
 package com.graphaware.tx.event.improved.data.lazy;
 
 
+import com.graphaware.common.util.ArrayMap;
 import com.graphaware.common.util.Change;
+import com.graphaware.common.util.LongObjectMap;
 import com.graphaware.tx.event.improved.data.EntityTransactionData;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.event.PropertyEntry;
 import org.neo4j.logging.Log;
 import com.graphaware.common.log.LoggerFactory;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * {@link com.graphaware.tx.event.improved.data.EntityTransactionData} that lazily initializes its internal structures (indexed transaction data)
  * as they are needed by callers to prevent unnecessary overheads.
+ * <p>
+ * The structures are keyed by primitive entity IDs ({@link LongObjectMap}) and properties of each entity are held in
+ * compact {@link ArrayMap}s, so that transactions touching millions of entities don't allocate millions of boxed keys
+ * and hash map nodes.
+ * <p>
+ * Once the number of created, deleted, and changed properties exceeds a configurable spill threshold, the properties
+ * are moved to a temporary file and only an index of positions in that file is kept on heap. The file is deleted when
+ * this object is {@link #close() closed}. By default, properties are never spilled.
  *
  * @param <T> type of the entity.
  */
 public abstract class LazyEntityTransactionData<T extends Entity> implements EntityTransactionData<T> {
     private static final Log LOG = LoggerFactory.getLogger(LazyEntityTransactionData.class);
 
-    private Map<Long, T> created = null;
-    private Map<Long, T> deleted = null;
-    private Map<Long, Change<T>> changed = null;
+    /**
+     * Spill threshold meaning that properties are always held on heap.
+     */
+    public static final long NEVER_SPILL = Long.MAX_VALUE;
+
+    private final long spillThreshold;
+    private long propertyCount = 0;
+    private PropertySpillFile spillFile = null;
+    private boolean spillFailed = false;
+
+    private LongObjectMap<T> created = null;
+    private LongObjectMap<T> deleted = null;
+    private LongObjectMap<Change<T>> changed = null;
 
     /**
      * <ID, <key, new value>>
      */
-    private Map<Long, Map<String, Object>> createdProperties = null;
+    private PropertyStore<Object> createdProperties = null;
     /**
      * <ID, <key, old value>>
      */
-    private Map<Long, Map<String, Object>> deletedProperties = null;
+    private PropertyStore<Object> deletedProperties = null;
     /**
      * <ID, <key, old and new value>>
      */
-    private Map<Long, Map<String, Change<Object>>> changedProperties = null;
+    private PropertyStore<Change<Object>> changedProperties = null;
     /**
      * <ID, <key, old value>> of properties of deleted entities
      */
-    private Map<Long, Map<String, Object>> deletedEntityProperties = null;
+    private PropertyStore<Object> deletedEntityProperties = null;
+
+    /**
+     * Create transaction data that never spills properties to disk.
+     */
+    protected LazyEntityTransactionData() {
+        this(NEVER_SPILL);
+    }
+
+    /**
+     * Create transaction data.
+     *
+     * @param spillThreshold number of properties above which properties are moved from heap to a temporary file.
+     */
+    protected LazyEntityTransactionData(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
 
     /**
      * Create an old snapshot of an original entity.
@@ -90,13 +126,13 @@ public abstract class LazyEntityTransactionData<T extends Entity> implements Ent
     @Override
     public Collection<T> getAllCreated() {
         initializeCreated();
-        return Collections.unmodifiableCollection(created.values());
+        return created.values();
     }
 
     private void initializeCreated() {
         if (created == null) {
 
-            created = new HashMap<>();
+            created = new LongObjectMap<>();
 
             for (T created : created()) {
                 this.created.put(created.getId(), newSnapshot(created));
@@ -140,13 +176,13 @@ public abstract class LazyEntityTransactionData<T extends Entity> implements Ent
     @Override
     public Collection<T> getAllDeleted() {
         initializeDeleted();
-        return Collections.unmodifiableCollection(deleted.values());
+        return deleted.values();
     }
 
     private void initializeDeleted() {
         if (deleted == null) {
 
-            deleted = new HashMap<>();
+            deleted = new LongObjectMap<>();
 
             for (T deleted : deleted()) {
                 this.deleted.put(deleted.getId(), oldSnapshot(deleted));
@@ -190,38 +226,105 @@ public abstract class LazyEntityTransactionData<T extends Entity> implements Ent
     @Override
     public Collection<Change<T>> getAllChanged() {
         initializeChanged();
-        return Collections.unmodifiableCollection(changed.values());
+        return changed.values();
     }
 
+    /**
+     * Initialize the changed entities and the created, changed, and deleted properties in a single pass over the
+     * assigned and removed properties provided by Neo4j, which can be expensive to iterate for large transactions.
+     */
     protected void initializeChanged() {
         initializeCreated();
         initializeDeleted();
 
         if (changed == null) {
-            changed = new HashMap<>();
+            changed = new LongObjectMap<>();
+            createdProperties = new PropertyStore<>();
+            deletedProperties = new PropertyStore<>();
+            changedProperties = new PropertyStore<>();
+            deletedEntityProperties = new PropertyStore<>();
 
             for (PropertyEntry<T> propertyEntry : assignedProperties()) {
-                if (hasNotActuallyChanged(propertyEntry)) {
+                T entity = propertyEntry.entity();
+
+                if (created.containsKey(entity.getId()) || hasNotActuallyChanged(propertyEntry)) {
                     continue;
                 }
 
-                T candidate = propertyEntry.entity();
-                if (!hasBeenCreated(candidate)) {
-                    registerChange(candidate);
+                registerChange(entity);
+
+                if (propertyEntry.previouslyCommitedValue() == null) {
+                    createdProperties.put(entity.getId(), propertyEntry.key(), propertyEntry.value());
+                } else {
+                    changedProperties.put(entity.getId(), propertyEntry.key(), new Change<>(propertyEntry.previouslyCommitedValue(), propertyEntry.value()));
                 }
+                propertyStored();
             }
 
             for (PropertyEntry<T> propertyEntry : removedProperties()) {
-                T candidate = propertyEntry.entity();
-                if (!hasBeenDeleted(candidate)) {
-                    registerChange(candidate);
+                T entity = propertyEntry.entity();
+
+                if (deleted.containsKey(entity.getId())) {
+                    deletedEntityProperties.put(entity.getId(), propertyEntry.key(), propertyEntry.previouslyCommitedValue());
+                    propertyStored();
+                    continue;
                 }
+
+                registerChange(entity);
+
+                deletedProperties.put(entity.getId(), propertyEntry.key(), propertyEntry.previouslyCommitedValue());
+                propertyStored();
             }
 
             doInitializeChanged();
         }
     }
 
+    /**
+     * Count a stored property and spill all properties to disk, if the spill threshold has just been exceeded.
+     */
+    private void propertyStored() {
+        if (++propertyCount <= spillThreshold || spillFile != null || spillFailed) {
+            return;
+        }
+
+        try {
+            spillFile = new PropertySpillFile();
+        } catch (IOException e) {
+            LOG.warn("Could not create a file to spill transaction data to, keeping it on heap.", e);
+            spillFailed = true;
+            return;
+        }
+
+        LOG.info("Transaction has more than " + spillThreshold + " property changes, spilling them to disk.");
+
+        createdProperties.spillTo(spillFile);
+        deletedProperties.spillTo(spillFile);
+        changedProperties.spillTo(spillFile);
+        deletedEntityProperties.spillTo(spillFile);
+    }
+
+    /**
+     * Check whether properties have been spilled to disk. Properties of spilled transaction data are read back from
+     * disk on every access, so callers should avoid retaining them on heap.
+     *
+     * @return true iff properties are held in a temporary file rather than on heap.
+     */
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Release resources held by this object, i.e. delete the file properties have been spilled to, if any. The object
+     * must not be used after it has been closed.
+     */
+    public void close() {
+        if (spillFile != null) {
+            spillFile.delete();
+            spillFile = null;
+        }
+    }
+
     protected void doInitializeChanged() {
         //for subclasses
     }
@@ -260,18 +363,16 @@ public abstract class LazyEntityTransactionData<T extends Entity> implements Ent
      */
     @Override
     public boolean hasPropertyBeenCreated(T entity, String key) {
-        initializeProperties();
+        initializeChanged();
 
         if (!hasBeenChanged(entity)) {
             LOG.warn(entity + " has not been changed but the caller thinks it should have created properties.");
             return false;
         }
 
-        if (!createdProperties.containsKey(entity.getId())) {
-            return false;
-        }
+        Map<String, Object> properties = createdProperties.get(entity.getId());
 
-        return createdProperties.get(entity.getId()).containsKey(key);
+        return properties != null && properties.containsKey(key);
     }
 
     /**
@@ -279,18 +380,20 @@ public abstract class LazyEntityTransactionData<T extends Entity> implements Ent
      */
     @Override
     public Map<String, Object> createdProperties(T entity) {
-        initializeProperties();
+        initializeChanged();
 
         if (!hasBeenChanged(entity)) {
             LOG.warn(entity + " has not been changed but the caller thinks it should have created properties.");
             return Collections.emptyMap();
         }
 
-        if (!createdProperties.containsKey(entity.getId())) {
+        Map<String, Object> properties = createdProperties.get(entity.getId());
+
+        if (properties == null) {
             return Collections.emptyMap();
         }
 
-        return Collections.unmodifiableMap(createdProperties.get(entity.getId()));
+        return Collections.unmodifiableMap(properties);
     }
 
     /**
@@ -298,18 +401,16 @@ public abstract class LazyEntityTransactionData<T extends Entity> implements Ent
      */
     @Override
     public boolean hasPropertyBeenDeleted(T entity, String key) {
-        initializeProperties();
+        initializeChanged();
 
         if (!hasBeenChanged(entity)) {
             LOG.warn(entity + " has not been changed but the caller thinks it should have deleted properties.");
             return false;
         }
 
-        if (!deletedProperties.containsKey(entity.getId())) {
-            return false;
-        }
+        Map<String, Object> properties = deletedProperties.get(entity.getId());
 
-        return deletedProperties.get(entity.getId()).containsKey(key);
+        return properties != null && properties.containsKey(key);
     }
 
     /**
@@ -317,18 +418,20 @@ public abstract class LazyEntityTransactionData<T extends Entity> implements Ent
      */
     @Override
     public Map<String, Object> deletedProperties(T entity) {
-        initializeProperties();
+        initializeChanged();
 
         if (!hasBeenChanged(entity)) {
             LOG.warn(entity + " has not been changed but the caller thinks it should have deleted properties.");
             return Collections.emptyMap();
         }
 
-        if (!deletedProperties.containsKey(entity.getId())) {
+        Map<String, Object> properties = deletedProperties.get(entity.getId());
+
+        if (properties == null) {
             return Collections.emptyMap();
         }
 
-        return Collections.unmodifiableMap(deletedProperties.get(entity.getId()));
+        return Collections.unmodifiableMap(properties);
     }
 
     /**
@@ -336,18 +439,20 @@ public abstract class LazyEntityTransactionData<T extends Entity> implements Ent
      */
     @Override
     public Map<String, Object> propertiesOfDeletedEntity(T entity) {
-        initializeProperties();
+        initializeChanged();
 
         if (!hasBeenDeleted(entity)) {
             LOG.error(entity + " has not been deleted but the caller thinks it has! This is a bug.");
             throw new IllegalStateException(entity + " has not been deleted but the caller thinks it has! This is a bug.");
         }
 
-        if (!deletedEntityProperties.containsKey(entity.getId())) {
+        Map<String, Object> properties = deletedEntityProperties.get(entity.getId());
+
+        if (properties == null) {
             return Collections.emptyMap();
         }
 
-        return Collections.unmodifiableMap(deletedEntityProperties.get(entity.getId()));
+        return Collections.unmodifiableMap(properties);
     }
 
     /**
@@ -355,18 +460,16 @@ public abstract class LazyEntityTransactionData<T extends Entity> implements Ent
      */
     @Override
     public boolean hasPropertyBeenChanged(T entity, String key) {
-        initializeProperties();
+        initializeChanged();
 
         if (!hasBeenChanged(entity)) {
             LOG.warn(entity + " has not been changed but the caller thinks it should have changed properties.");
             return false;
         }
 
-        if (!changedProperties.containsKey(entity.getId())) {
-            return false;
-        }
+        Map<String, Change<Object>> properties = changedProperties.get(entity.getId());
 
-        return changedProperties.get(entity.getId()).containsKey(key);
+        return properties != null && properties.containsKey(key);
     }
 
     /**
@@ -374,85 +477,20 @@ public abstract class LazyEntityTransactionData<T extends Entity> implements Ent
      */
     @Override
     public Map<String, Change<Object>> changedProperties(T entity) {
-        initializeProperties();
+        initializeChanged();
 
         if (!hasBeenChanged(entity)) {
             LOG.warn(entity + " has not been changed but the caller thinks it should have changed properties.");
             return Collections.emptyMap();
         }
 
-        if (!changedProperties.containsKey(entity.getId())) {
-            return Collections.emptyMap();
-        }
-
-        return Collections.unmodifiableMap(changedProperties.get(entity.getId()));
-    }
-
-    private void initializeProperties() {
-        if (createdProperties != null) {
-            assert changedProperties != null;
-            assert deletedProperties != null;
-            assert deletedEntityProperties != null;
-
-            return;
-        }
-
-        //initializeCreated(); // - called by initializeChanged()
-        //initializeDeleted(); // - called by initializeChanged()
-        initializeChanged();
-
-        createdProperties = new HashMap<>();
-        deletedProperties = new HashMap<>();
-        changedProperties = new HashMap<>();
-        deletedEntityProperties = new HashMap<>();
-
-        for (PropertyEntry<T> propertyEntry : assignedProperties()) {
-            T entity = propertyEntry.entity();
-
-            if (hasBeenCreated(entity)) {
-                continue;
-            }
+        Map<String, Change<Object>> properties = changedProperties.get(entity.getId());
 
-            if (hasNotActuallyChanged(propertyEntry)) {
-                continue;
-            }
-
-            if (propertyEntry.previouslyCommitedValue() == null) {
-                if (!createdProperties.containsKey(entity.getId())) {
-                    createdProperties.put(entity.getId(), new HashMap<String, Object>());
-                }
-                createdProperties.get(entity.getId()).put(propertyEntry.key(), propertyEntry.value());
-            } else {
-                if (!changedProperties.containsKey(entity.getId())) {
-                    changedProperties.put(entity.getId(), new HashMap<String, Change<Object>>());
-                }
-                changedProperties.get(entity.getId()).put(propertyEntry.key(), new Change<>(propertyEntry.previouslyCommitedValue(), propertyEntry.value()));
-            }
+        if (properties == null) {
+            return Collections.emptyMap();
         }
 
-        for (PropertyEntry<T> propertyEntry : removedProperties()) {
-            T entity = propertyEntry.entity();
-
-            if (deleted.containsKey(entity.getId())) {
-                if (!deletedEntityProperties.containsKey(entity.getId())) {
-                    deletedEntityProperties.put(entity.getId(), new HashMap<String, Object>());
-                }
-                deletedEntityProperties.get(entity.getId()).put(propertyEntry.key(), propertyEntry.previouslyCommitedValue());
-                continue;
-            }
-
-            if (!changedContainsKey(entity)) {
-                throw new IllegalStateException(entity + " seems to have not been deleted or changed, this is a bug");
-            }
-
-            assert changedContainsKey(entity);
-
-            if (!deletedProperties.containsKey(entity.getId())) {
-                deletedProperties.put(entity.getId(), new HashMap<String, Object>());
-            }
-
-            deletedProperties.get(entity.getId()).put(propertyEntry.key(), propertyEntry.previouslyCommitedValue());
-        }
+        return Collections.unmodifiableMap(properties);
     }
 
     private boolean hasNotActuallyChanged(PropertyEntry<T> propertyEntry) {
@@ -16,6 +16,7 @@
 
 package com.graphaware.tx.event.improved.data.lazy;
 
+import com.graphaware.common.util.LongObjectMap;
 import com.graphaware.tx.event.improved.data.NodeTransactionData;
 import com.graphaware.tx.event.improved.data.TransactionDataContainer;
 import com.graphaware.tx.event.improved.entity.snapshot.NodeSnapshot;
@@ -38,9 +39,9 @@ public class LazyNodeTransactionData extends LazyEntityTransactionData<Node> imp
     private final TransactionData transactionData;
     private final TransactionDataContainer transactionDataContainer;
 
-    private Map<Long, Set<Label>> assignedLabels = null;
-    private Map<Long, Set<Label>> removedLabels = null;
-    private Map<Long, Set<Label>> deletedNodeLabels = null;
+    private LongObjectMap<Set<Label>> assignedLabels = null;
+    private LongObjectMap<Set<Label>> removedLabels = null;
+    private LongObjectMap<Set<Label>> deletedNodeLabels = null;
 
     /**
      * Construct node transaction data from Neo4j {@link org.neo4j.graphdb.event.TransactionData}.
@@ -49,6 +50,18 @@ public class LazyNodeTransactionData extends LazyEntityTransactionData<Node> imp
      * @param transactionDataContainer containing {@link com.graphaware.tx.event.improved.data.EntityTransactionData}..
      */
     public LazyNodeTransactionData(TransactionData transactionData, TransactionDataContainer transactionDataContainer) {
+        this(transactionData, transactionDataContainer, NEVER_SPILL);
+    }
+
+    /**
+     * Construct node transaction data from Neo4j {@link org.neo4j.graphdb.event.TransactionData}.
+     *
+     * @param transactionData          provided by Neo4j.
+     * @param transactionDataContainer containing {@link com.graphaware.tx.event.improved.data.EntityTransactionData}.
+     * @param spillThreshold           number of properties above which properties are moved from heap to a temporary file.
+     */
+    public LazyNodeTransactionData(TransactionData transactionData, TransactionDataContainer transactionDataContainer, long spillThreshold) {
+        super(spillThreshold);
         this.transactionData = transactionData;
         this.transactionDataContainer = transactionDataContainer;
     }
@@ -113,11 +126,9 @@ public class LazyNodeTransactionData extends LazyEntityTransactionData<Node> imp
             return false;
         }
 
-        if (!assignedLabels.containsKey(node.getId())) {
-            return false;
-        }
+        Set<Label> labels = assignedLabels.get(node.getId());
 
-        return assignedLabels.get(node.getId()).contains(label);
+        return labels != null && labels.contains(label);
     }
 
     /**
@@ -132,11 +143,13 @@ public class LazyNodeTransactionData extends LazyEntityTransactionData<Node> imp
             return Collections.emptySet();
         }
 
-        if (!assignedLabels.containsKey(node.getId())) {
+        Set<Label> labels = assignedLabels.get(node.getId());
+
+        if (labels == null) {
             return Collections.emptySet();
         }
 
-        return Collections.unmodifiableSet(assignedLabels.get(node.getId()));
+        return Collections.unmodifiableSet(labels);
     }
 
     /**
@@ -151,11 +164,9 @@ public class LazyNodeTransactionData extends LazyEntityTransactionData<Node> imp
             return false;
         }
 
-        if (!removedLabels.containsKey(node.getId())) {
-            return false;
-        }
+        Set<Label> labels = removedLabels.get(node.getId());
 
-        return removedLabels.get(node.getId()).contains(label);
+        return labels != null && labels.contains(label);
     }
 
     /**
@@ -170,11 +181,13 @@ public class LazyNodeTransactionData extends LazyEntityTransactionData<Node> imp
             return Collections.emptySet();
         }
 
-        if (!removedLabels.containsKey(node.getId())) {
+        Set<Label> labels = removedLabels.get(node.getId());
+
+        if (labels == null) {
             return Collections.emptySet();
         }
 
-        return Collections.unmodifiableSet(removedLabels.get(node.getId()));
+        return Collections.unmodifiableSet(labels);
     }
 
     /**
@@ -189,20 +202,22 @@ public class LazyNodeTransactionData extends LazyEntityTransactionData<Node> imp
             throw new IllegalStateException(node + " has not been deleted but the caller thinks it has! This is a bug.");
         }
 
-        if (!deletedNodeLabels.containsKey(node.getId())) {
+        Set<Label> labels = deletedNodeLabels.get(node.getId());
+
+        if (labels == null) {
             return Collections.emptySet();
         }
 
-        return Collections.unmodifiableSet(deletedNodeLabels.get(node.getId()));
+        return Collections.unmodifiableSet(labels);
     }
 
     @Override
     protected void doInitializeChanged() {
-        assignedLabels = new HashMap<>();
-        removedLabels = new HashMap<>();
-        deletedNodeLabels = new HashMap<>();
+        assignedLabels = new LongObjectMap<>();
+        removedLabels = new LongObjectMap<>();
+        deletedNodeLabels = new LongObjectMap<>();
 
-        Map<Long, Node> potentiallyChangedNodes = new HashMap<>();
+        LongObjectMap<Node> potentiallyChangedNodes = new LongObjectMap<>();
 
         for (LabelEntry labelEntry : transactionData.assignedLabels()) {
             Node node = labelEntry.node();
@@ -211,11 +226,7 @@ public class LazyNodeTransactionData extends LazyEntityTransactionData<Node> imp
                 continue;
             }
 
-            if (!assignedLabels.containsKey(node.getId())) {
-                assignedLabels.put(node.getId(), new HashSet<Label>());
-            }
-
-            assignedLabels.get(node.getId()).add(labelEntry.label());
+            labelsOf(assignedLabels, node).add(labelEntry.label());
 
             potentiallyChangedNodes.put(node.getId(), node);
         }
@@ -224,27 +235,32 @@ public class LazyNodeTransactionData extends LazyEntityTransactionData<Node> imp
             Node node = labelEntry.node();
 
             if (hasBeenDeleted(node)) {
-                if (!deletedNodeLabels.containsKey(node.getId())) {
-                    deletedNodeLabels.put(node.getId(), new HashSet<Label>());
-                }
-                deletedNodeLabels.get(node.getId()).add(labelEntry.label());
+                labelsOf(deletedNodeLabels, node).add(labelEntry.label());
                 continue;
             }
 
-            if (!removedLabels.containsKey(node.getId())) {
-                removedLabels.put(node.getId(), new HashSet<Label>());
-            }
-            removedLabels.get(node.getId()).add(labelEntry.label());
+            labelsOf(removedLabels, node).add(labelEntry.label());
 
             potentiallyChangedNodes.put(node.getId(), node);
         }
 
-        for (Long nodeId : assignedLabels.keySet()) {
-            registerChange(potentiallyChangedNodes.get(nodeId));
+        for (int i = 0; i < assignedLabels.size(); i++) {
+            registerChange(potentiallyChangedNodes.get(assignedLabels.keyAt(i)));
         }
 
-        for (Long nodeId : removedLabels.keySet()) {
-            registerChange(potentiallyChangedNodes.get(nodeId));
+        for (int i = 0; i < removedLabels.size(); i++) {
+            registerChange(potentiallyChangedNodes.get(removedLabels.keyAt(i)));
         }
     }
+
+    private Set<Label> labelsOf(LongObjectMap<Set<Label>> labels, Node node) {
+        Set<Label> result = labels.get(node.getId());
+
+        if (result == null) {
+            result = new HashSet<>();
+            labels.put(node.getId(), result);
+        }
+
+        return result;
+    }
 }
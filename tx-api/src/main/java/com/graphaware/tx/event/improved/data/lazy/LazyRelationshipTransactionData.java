@@ -17,6 +17,7 @@
 package com.graphaware.tx.event.improved.data.lazy;
 
 import com.graphaware.common.util.Change;
+import com.graphaware.common.util.LongObjectMap;
 import com.graphaware.tx.event.improved.data.RelationshipTransactionData;
 import com.graphaware.tx.event.improved.data.TransactionDataContainer;
 import com.graphaware.tx.event.improved.entity.snapshot.RelationshipSnapshot;
@@ -27,8 +28,11 @@ import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.event.PropertyEntry;
 import org.neo4j.graphdb.event.TransactionData;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static com.graphaware.common.util.DirectionUtils.matches;
@@ -36,12 +40,19 @@ import static org.neo4j.graphdb.Direction.BOTH;
 
 /**
  * {@link LazyEntityTransactionData} for {@link org.neo4j.graphdb.Relationship}s.
+ * <p/>
+ * Created and deleted relationships are indexed by the IDs of their start and end nodes the first time relationships
+ * of a specific node are requested, so that looking them up (e.g. when computing the degree of a
+ * {@link com.graphaware.tx.event.improved.entity.snapshot.NodeSnapshot}) only considers relationships of that node.
  */
 public class LazyRelationshipTransactionData extends LazyEntityTransactionData<Relationship> implements RelationshipTransactionData {
 
     private final TransactionData transactionData;
     private final TransactionDataContainer transactionDataContainer;
 
+    private LongObjectMap<List<Relationship>> createdByNode = null;
+    private LongObjectMap<List<Relationship>> deletedByNode = null;
+
     /**
      * Construct relationship transaction data from Neo4j {@link org.neo4j.graphdb.event.TransactionData}.
      *
@@ -49,6 +60,18 @@ public class LazyRelationshipTransactionData extends LazyEntityTransactionData<R
      * @param transactionDataContainer containing {@link com.graphaware.tx.event.improved.data.EntityTransactionData}.
      */
     public LazyRelationshipTransactionData(TransactionData transactionData, TransactionDataContainer transactionDataContainer) {
+        this(transactionData, transactionDataContainer, NEVER_SPILL);
+    }
+
+    /**
+     * Construct relationship transaction data from Neo4j {@link org.neo4j.graphdb.event.TransactionData}.
+     *
+     * @param transactionData          provided by Neo4j.
+     * @param transactionDataContainer containing {@link com.graphaware.tx.event.improved.data.EntityTransactionData}.
+     * @param spillThreshold           number of properties above which properties are moved from heap to a temporary file.
+     */
+    public LazyRelationshipTransactionData(TransactionData transactionData, TransactionDataContainer transactionDataContainer, long spillThreshold) {
+        super(spillThreshold);
         this.transactionData = transactionData;
         this.transactionDataContainer = transactionDataContainer;
     }
@@ -114,7 +137,11 @@ public class LazyRelationshipTransactionData extends LazyEntityTransactionData<R
      */
     @Override
     public Collection<Relationship> getCreated(Node node, Direction direction, RelationshipType... types) {
-        return filterRelationships(getAllCreated(), node, direction, types);
+        if (createdByNode == null) {
+            createdByNode = indexByNode(getAllCreated());
+        }
+
+        return filterRelationships(relationshipsOf(createdByNode, node), node, direction, types);
     }
 
     /**
@@ -130,7 +157,49 @@ public class LazyRelationshipTransactionData extends LazyEntityTransactionData<R
      */
     @Override
     public Collection<Relationship> getDeleted(Node node, Direction direction, RelationshipType... types) {
-        return filterRelationships(getAllDeleted(), node, direction, types);
+        if (deletedByNode == null) {
+            deletedByNode = indexByNode(getAllDeleted());
+        }
+
+        return filterRelationships(relationshipsOf(deletedByNode, node), node, direction, types);
+    }
+
+    /**
+     * Index relationships by the IDs of their start and end nodes. A relationship whose start and end node are the same
+     * is only indexed once.
+     *
+     * @param relationships to index.
+     * @return relationships keyed by node ID.
+     */
+    private LongObjectMap<List<Relationship>> indexByNode(Collection<Relationship> relationships) {
+        LongObjectMap<List<Relationship>> result = new LongObjectMap<>();
+        for (Relationship r : relationships) {
+            long startNodeId = r.getStartNode().getId();
+            long endNodeId = r.getEndNode().getId();
+
+            index(result, startNodeId, r);
+            if (endNodeId != startNodeId) {
+                index(result, endNodeId, r);
+            }
+        }
+        return result;
+    }
+
+    private void index(LongObjectMap<List<Relationship>> index, long nodeId, Relationship relationship) {
+        List<Relationship> relationships = index.get(nodeId);
+        if (relationships == null) {
+            relationships = new ArrayList<>(2);
+            index.put(nodeId, relationships);
+        }
+        relationships.add(relationship);
+    }
+
+    private Collection<Relationship> relationshipsOf(LongObjectMap<List<Relationship>> index, Node node) {
+        List<Relationship> relationships = index.get(node.getId());
+        if (relationships == null) {
+            return Collections.emptyList();
+        }
+        return relationships;
     }
 
     /**
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.event.improved.data.lazy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A temporary, append-only file holding serialized properties of entities that didn't fit the heap budget of
+ * {@link LazyEntityTransactionData}. Records are chained: each one holds the position of the previous record of the same
+ * entity, so that all records of an entity can be read back knowing only the position of its last record.
+ * <p/>
+ * Writes are buffered, reads are positional, so the file never needs to be mapped or held in memory as a whole.
+ * The file must be removed by {@link #delete()}. It is deliberately not registered with {@link File#deleteOnExit()},
+ * which retains every registered path in memory until the JVM exits. Not thread-safe.
+ */
+final class PropertySpillFile {
+
+    static final long NONE = -1;
+
+    private static final int HEADER_SIZE = 8 + 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    private long flushedPosition;
+
+    /**
+     * Create a new temporary spill file.
+     *
+     * @throws IOException in case the file can't be created.
+     */
+    PropertySpillFile() throws IOException {
+        this.file = File.createTempFile("graphaware-tx-", ".spill");
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Append a record.
+     *
+     * @param previous position of the previous record of the same entity, {@link #NONE} if there is none.
+     * @param bytes    of the record.
+     * @return position of the appended record.
+     * @throws UncheckedIOException in case of failure to write.
+     */
+    long append(long previous, byte[] bytes) {
+        long position = flushedPosition + writeBuffer.position();
+
+        try {
+            if (writeBuffer.remaining() < HEADER_SIZE + bytes.length) {
+                flush();
+            }
+
+            if (writeBuffer.remaining() < HEADER_SIZE + bytes.length) {
+                ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + bytes.length);
+                record.putLong(previous).putInt(bytes.length).put(bytes).flip();
+                write(record);
+                return position;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to " + file, e);
+        }
+
+        writeBuffer.putLong(previous).putInt(bytes.length).put(bytes);
+        return position;
+    }
+
+    /**
+     * Read a record.
+     *
+     * @param position of the record, as returned by {@link #append(long, byte[])}.
+     * @return the record.
+     * @throws UncheckedIOException in case of failure to read.
+     */
+    Record read(long position) {
+        try {
+            flush();
+
+            header.clear();
+            readFully(header, position);
+            header.flip();
+
+            long previous = header.getLong();
+            ByteBuffer bytes = ByteBuffer.allocate(header.getInt());
+            readFully(bytes, position + HEADER_SIZE);
+
+            return new Record(previous, bytes.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read from " + file, e);
+        }
+    }
+
+    /**
+     * @return number of bytes written to the file.
+     */
+    long size() {
+        return flushedPosition + writeBuffer.position();
+    }
+
+    /**
+     * Close and delete the file.
+     */
+    void delete() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            //ignore
+        }
+        file.delete();
+    }
+
+    private void flush() throws IOException {
+        if (writeBuffer.position() == 0) {
+            return;
+        }
+
+        writeBuffer.flip();
+        write(writeBuffer);
+        writeBuffer.clear();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            flushedPosition += channel.write(buffer, flushedPosition);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file at position " + position);
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * A record read from the file.
+     */
+    static final class Record {
+
+        private final long previous;
+        private final byte[] bytes;
+
+        private Record(long previous, byte[] bytes) {
+            this.previous = previous;
+            this.bytes = bytes;
+        }
+
+        /**
+         * @return position of the previous record of the same entity, {@link #NONE} if there is none.
+         */
+        long getPrevious() {
+            return previous;
+        }
+
+        /**
+         * @return bytes of the record.
+         */
+        byte[] getBytes() {
+            return bytes;
+        }
+    }
+}
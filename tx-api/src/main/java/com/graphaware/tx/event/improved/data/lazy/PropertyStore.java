@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.event.improved.data.lazy;
+
+import com.graphaware.common.serialize.Serializer;
+import com.graphaware.common.util.ArrayMap;
+import com.graphaware.common.util.LongLongMap;
+import com.graphaware.common.util.LongObjectMap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Properties of entities keyed by entity ID, used by {@link LazyEntityTransactionData}. Properties are held on heap in
+ * compact {@link ArrayMap}s until the store is {@link #spillTo(PropertySpillFile) spilled}, after which they are
+ * serialized into a {@link PropertySpillFile} and only the position of the last record of each entity is kept on heap.
+ * Not thread-safe.
+ *
+ * @param <V> type of property values.
+ */
+final class PropertyStore<V> {
+
+    private LongObjectMap<Map<String, V>> heap = new LongObjectMap<>();
+    private PropertySpillFile file;
+    private LongLongMap lastRecords;
+
+    /**
+     * Store a property of an entity.
+     *
+     * @param id    of the entity.
+     * @param key   of the property.
+     * @param value of the property.
+     */
+    void put(long id, String key, V value) {
+        if (file != null) {
+            append(id, key, value);
+            return;
+        }
+
+        Map<String, V> properties = heap.get(id);
+        if (properties == null) {
+            properties = new ArrayMap<>();
+            heap.put(id, properties);
+        }
+        properties.put(key, value);
+    }
+
+    /**
+     * Get properties of an entity.
+     *
+     * @param id of the entity.
+     * @return properties of the entity, <code>null</code> if there are none. Callers must not modify the result.
+     */
+    Map<String, V> get(long id) {
+        if (file == null) {
+            return heap.get(id);
+        }
+
+        long position = lastRecords.get(id, PropertySpillFile.NONE);
+        if (position == PropertySpillFile.NONE) {
+            return null;
+        }
+
+        List<byte[]> records = new ArrayList<>();
+        while (position != PropertySpillFile.NONE) {
+            PropertySpillFile.Record record = file.read(position);
+            records.add(record.getBytes());
+            position = record.getPrevious();
+        }
+
+        Map<String, V> result = new ArrayMap<>(records.size());
+        for (int i = records.size() - 1; i >= 0; i--) {
+            readInto(records.get(i), result);
+        }
+        return result;
+    }
+
+    /**
+     * Move all properties held on heap to the given file and store all further properties there, too.
+     *
+     * @param file to spill to.
+     */
+    void spillTo(PropertySpillFile file) {
+        if (this.file != null) {
+            return;
+        }
+
+        this.file = file;
+        this.lastRecords = new LongLongMap(Math.max(heap.size(), 8));
+
+        for (int i = 0; i < heap.size(); i++) {
+            long id = heap.keyAt(i);
+            for (Map.Entry<String, V> property : heap.valueAt(i).entrySet()) {
+                append(id, property.getKey(), property.getValue());
+            }
+        }
+
+        heap = null;
+    }
+
+    private void append(long id, String key, V value) {
+        byte[] keyBytes = key.getBytes(UTF_8);
+        byte[] valueBytes = Serializer.toByteArray(value);
+
+        byte[] record = ByteBuffer.allocate(4 + keyBytes.length + valueBytes.length)
+                .putInt(keyBytes.length)
+                .put(keyBytes)
+                .put(valueBytes)
+                .array();
+
+        lastRecords.put(id, file.append(lastRecords.get(id, PropertySpillFile.NONE), record));
+    }
+
+    private void readInto(byte[] record, Map<String, V> properties) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        int keyLength = buffer.getInt();
+        String key = new String(record, 4, keyLength, UTF_8);
+        V value = Serializer.fromByteArray(Arrays.copyOfRange(record, 4 + keyLength, record.length));
+        properties.put(key, value);
+    }
+}
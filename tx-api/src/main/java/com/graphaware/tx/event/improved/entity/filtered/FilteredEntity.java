@@ -30,16 +30,19 @@ public abstract class FilteredEntity<T extends Entity> extends BaseEntityWrapper
 
     protected final T wrapped;
     protected final InclusionPolicies policies;
+    protected final InclusionDecisions decisions;
 
     /**
      * Create a new filtering decorator.
      *
-     * @param wrapped    decorated entity.
-     * @param policies for filtering.
+     * @param wrapped   decorated entity.
+     * @param policies  for filtering.
+     * @param decisions of the policies made so far in the transaction.
      */
-    protected FilteredEntity(T wrapped, InclusionPolicies policies) {
+    protected FilteredEntity(T wrapped, InclusionPolicies policies, InclusionDecisions decisions) {
         this.wrapped = wrapped;
         this.policies = policies;
+        this.decisions = decisions;
     }
 
     /**
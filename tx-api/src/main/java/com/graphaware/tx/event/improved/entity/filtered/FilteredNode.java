@@ -36,7 +36,18 @@ public class FilteredNode extends FilteredEntity<Node> implements Node, NodeWrap
      * @param policies for filtering.
      */
     public FilteredNode(Node wrapped, InclusionPolicies policies) {
-        super(wrapped, policies);
+        this(wrapped, policies, InclusionDecisions.none());
+    }
+
+    /**
+     * Create a new filtering node decorator.
+     *
+     * @param wrapped   decorated node.
+     * @param policies  for filtering.
+     * @param decisions of the policies made so far in the transaction.
+     */
+    public FilteredNode(Node wrapped, InclusionPolicies policies, InclusionDecisions decisions) {
+        super(wrapped, policies, decisions);
     }
 
     /**
@@ -60,7 +71,7 @@ public class FilteredNode extends FilteredEntity<Node> implements Node, NodeWrap
      */
     @Override
     protected Iterable<Relationship> wrapRelationships(Iterable<Relationship> relationships, Direction direction, RelationshipType... relationshipTypes) {
-        return new FilteredRelationshipIterator(relationships, policies);
+        return new FilteredRelationshipIterator(relationships, policies, decisions);
     }
 
     /**
@@ -68,6 +79,6 @@ public class FilteredNode extends FilteredEntity<Node> implements Node, NodeWrap
      */
     @Override
     protected Relationship wrapRelationship(Relationship relationship) {
-        return new FilteredRelationship(relationship, policies);
+        return new FilteredRelationship(relationship, policies, decisions);
     }
 }
@@ -34,7 +34,18 @@ public class FilteredRelationship extends FilteredEntity<Relationship> implement
      * @param policies for filtering.
      */
     public FilteredRelationship(Relationship wrapped, InclusionPolicies policies) {
-        super(wrapped, policies);
+        this(wrapped, policies, InclusionDecisions.none());
+    }
+
+    /**
+     * Create a new filtering relationship decorator.
+     *
+     * @param wrapped   decorated relationship.
+     * @param policies  for filtering.
+     * @param decisions of the policies made so far in the transaction.
+     */
+    public FilteredRelationship(Relationship wrapped, InclusionPolicies policies, InclusionDecisions decisions) {
+        super(wrapped, policies, decisions);
     }
 
     /**
@@ -58,7 +69,7 @@ public class FilteredRelationship extends FilteredEntity<Relationship> implement
      */
     @Override
     protected Node wrapNode(Node node) {
-        return new FilteredNode(node, policies);
+        return new FilteredNode(node, policies, decisions);
     }
 }
 
@@ -32,6 +32,7 @@ public class FilteredRelationshipIterator extends PrefetchingIterator<Relationsh
 
     private final Iterator<Relationship> wrappedIterator;
     private final InclusionPolicies policies;
+    private final InclusionDecisions decisions;
 
     /**
      * Construct the iterator.
@@ -40,8 +41,20 @@ public class FilteredRelationshipIterator extends PrefetchingIterator<Relationsh
      * @param policies      for filtering.
      */
     public FilteredRelationshipIterator(Iterable<Relationship> wrappedIterable, InclusionPolicies policies) {
+        this(wrappedIterable, policies, InclusionDecisions.none());
+    }
+
+    /**
+     * Construct the iterator.
+     *
+     * @param wrappedIterable this decorates.
+     * @param policies        for filtering.
+     * @param decisions       of the policies made so far in the transaction.
+     */
+    public FilteredRelationshipIterator(Iterable<Relationship> wrappedIterable, InclusionPolicies policies, InclusionDecisions decisions) {
         this.wrappedIterator = wrappedIterable.iterator();
         this.policies = policies;
+        this.decisions = decisions;
     }
 
     /**
@@ -59,11 +72,11 @@ public class FilteredRelationshipIterator extends PrefetchingIterator<Relationsh
     protected Relationship fetchNextOrNull() {
         while (wrappedIterator.hasNext()) {
             Relationship next = wrappedIterator.next();
-            if (!policies.getRelationshipInclusionPolicy().include(next)) {
+            if (!decisions.include(policies.getRelationshipInclusionPolicy(), next)) {
                 continue;
             }
 
-            return new FilteredRelationship(next, policies);
+            return new FilteredRelationship(next, policies, decisions);
         }
 
         return null;
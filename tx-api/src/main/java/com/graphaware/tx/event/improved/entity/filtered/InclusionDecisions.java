@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.event.improved.entity.filtered;
+
+import com.graphaware.common.policy.inclusion.EntityInclusionPolicy;
+import com.graphaware.common.policy.inclusion.all.IncludeAllNodes;
+import com.graphaware.common.policy.inclusion.all.IncludeAllRelationships;
+import com.graphaware.common.policy.inclusion.none.IncludeNoEntities;
+import com.graphaware.common.util.LongLongMap;
+import com.graphaware.tx.event.improved.entity.snapshot.EntitySnapshot;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Decisions of {@link EntityInclusionPolicy}s made during a single transaction, so that no policy has to evaluate the
+ * same entity more than once, no matter how many times (and by how many modules sharing the policy instance) it is asked.
+ * <p/>
+ * Decisions are keyed by the identity of the policy, the type and ID of the entity, and by whether the entity is a
+ * snapshot of its state before the transaction started or its current state, as the two may well be judged differently.
+ * Changes made to the graph while decisions are being cached (e.g. by a module in <code>beforeCommit</code>) are not
+ * reflected in decisions already made.
+ * <p/>
+ * An instance is confined to the thread that created it, i.e. the thread committing the transaction, and must only be
+ * used for the duration of one transaction. Filtered entities referencing it may escape both, e.g. when a module
+ * hands them over to be processed asynchronously after commit. Therefore, decisions are only cached for the owning
+ * thread until the instance is {@link #close()}d; any other use evaluates the policy directly, without touching the
+ * (unsynchronised) cache.
+ * <p/>
+ * Filtered data and entities constructed without decisions use {@link #none()}, which never caches, as nothing would
+ * close their instance at the end of the transaction.
+ */
+public class InclusionDecisions {
+
+    private static final int NODE_CURRENT = 0;
+    private static final int NODE_PREVIOUS = 1;
+    private static final int RELATIONSHIP_CURRENT = 2;
+    private static final int RELATIONSHIP_PREVIOUS = 3;
+
+    private static final long UNKNOWN = -1;
+    private static final long EXCLUDED = 0;
+    private static final long INCLUDED = 1;
+
+    private static final InclusionDecisions NONE = new InclusionDecisions(false);
+
+    private final Thread owner = Thread.currentThread();
+    private final boolean caching;
+    private boolean closed = false;
+    private Map<EntityInclusionPolicy<?>, LongLongMap[]> decisions;
+
+    /**
+     * Create new decisions, cached for the current thread until {@link #close()}d.
+     */
+    public InclusionDecisions() {
+        this(true);
+    }
+
+    private InclusionDecisions(boolean caching) {
+        this.caching = caching;
+    }
+
+    /**
+     * Get decisions that are never cached, i.e. every call to {@link #include(EntityInclusionPolicy, Entity)} evaluates
+     * the policy. Can be shared by any number of threads and never needs closing.
+     *
+     * @return decisions that are never cached.
+     */
+    public static InclusionDecisions none() {
+        return NONE;
+    }
+
+    /**
+     * Decide whether an entity should be included, evaluating the policy only if it hasn't decided about the entity yet.
+     *
+     * @param policy to decide by.
+     * @param entity to decide about. Can be wrapped, e.g. in a {@link FilteredEntity}.
+     * @param <T>    type of the entity.
+     * @return true iff the policy includes the entity.
+     */
+    public <T extends Entity> boolean include(EntityInclusionPolicy<T> policy, T entity) {
+        if (isTrivial(policy) || !isCaching()) {
+            return policy.include(entity);
+        }
+
+        LongLongMap cache = decisionsOf(policy, entity);
+
+        long decision = cache.get(entity.getId(), UNKNOWN);
+        if (decision == UNKNOWN) {
+            decision = policy.include(entity) ? INCLUDED : EXCLUDED;
+            cache.put(entity.getId(), decision);
+        }
+
+        return decision == INCLUDED;
+    }
+
+    /**
+     * Discard all decisions made so far and stop caching new ones. To be called by the owning thread when the
+     * transaction ends.
+     */
+    public void close() {
+        if (!caching) {
+            return;
+        }
+
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("Inclusion decisions can only be closed by the thread that created them");
+        }
+
+        closed = true;
+        decisions = null;
+    }
+
+    private boolean isCaching() {
+        return caching && Thread.currentThread() == owner && !closed;
+    }
+
+    private boolean isTrivial(EntityInclusionPolicy<?> policy) {
+        return policy instanceof IncludeAllNodes || policy instanceof IncludeAllRelationships || policy instanceof IncludeNoEntities;
+    }
+
+    private LongLongMap decisionsOf(EntityInclusionPolicy<?> policy, Entity entity) {
+        if (decisions == null) {
+            decisions = new IdentityHashMap<>();
+        }
+
+        LongLongMap[] byVersion = decisions.get(policy);
+        if (byVersion == null) {
+            byVersion = new LongLongMap[4];
+            decisions.put(policy, byVersion);
+        }
+
+        int version = version(entity);
+        if (byVersion[version] == null) {
+            byVersion[version] = new LongLongMap();
+        }
+
+        return byVersion[version];
+    }
+
+    private int version(Entity entity) {
+        Entity unwrapped = entity;
+        while (unwrapped instanceof FilteredEntity) {
+            unwrapped = ((FilteredEntity<?>) unwrapped).getWrapped();
+        }
+
+        boolean previous = unwrapped instanceof EntitySnapshot;
+
+        if (unwrapped instanceof Node) {
+            return previous ? NODE_PREVIOUS : NODE_CURRENT;
+        }
+
+        return previous ? RELATIONSHIP_PREVIOUS : RELATIONSHIP_CURRENT;
+    }
+}
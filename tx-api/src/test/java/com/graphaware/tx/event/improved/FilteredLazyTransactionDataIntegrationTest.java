@@ -18,10 +18,14 @@ package com.graphaware.tx.event.improved;
 
 import com.graphaware.common.policy.inclusion.*;
 import com.graphaware.common.policy.inclusion.fluent.IncludeNodes;
+import com.graphaware.common.policy.inclusion.none.IncludeNoNodeProperties;
 import com.graphaware.common.util.Change;
 import com.graphaware.tx.event.improved.api.FilteredTransactionData;
 import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
 import com.graphaware.tx.event.improved.api.LazyTransactionData;
+import com.graphaware.tx.event.improved.data.lazy.LazyEntityTransactionData;
+import com.graphaware.tx.event.improved.entity.filtered.FilteredNode;
+import com.graphaware.tx.event.improved.entity.filtered.InclusionDecisions;
 import com.graphaware.tx.executor.single.*;
 import org.junit.After;
 import org.junit.Test;
@@ -36,6 +40,7 @@ import org.neo4j.test.TestGraphDatabaseFactory;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.graphaware.common.util.DatabaseUtils.registerShutdownHook;
@@ -139,6 +144,31 @@ public class FilteredLazyTransactionDataIntegrationTest {
         assertTrue(mutationsOccurred.get());
     }
 
+    @Test
+    public void filteredCollectionsShouldBeComputedOnceAndCopiedForEachCaller() {
+        createTestDatabase();
+        mutateGraph(
+                new BeforeCommitCallback() {
+                    @Override
+                    public void doBeforeCommit(ImprovedTransactionData transactionData) {
+                        assertNotSame(transactionData.getAllCreatedNodes(), transactionData.getAllCreatedNodes());
+                        assertEquals(transactionData.getAllDeletedRelationships(), transactionData.getAllDeletedRelationships());
+                        assertEquals(transactionData.getAllChangedNodes(), transactionData.getAllChangedNodes());
+
+                        Change<Node> changed = changesToMap(transactionData.getAllChangedNodes()).get(1L);
+                        assertSame(transactionData.changedProperties(changed.getCurrent()), transactionData.changedProperties(changed.getCurrent()));
+                        assertSame(transactionData.changedProperties(changed.getCurrent()), transactionData.changedProperties(transactionData.getChanged(changed.getCurrent()).getCurrent()));
+
+                        int created = transactionData.getAllCreatedNodes().size();
+                        assertTrue(created > 0);
+
+                        transactionData.getAllCreatedNodes().clear();
+                        assertEquals(created, transactionData.getAllCreatedNodes().size());
+                    }
+                }
+        );
+    }
+
     @Test
     public void removedLabelShouldBePickedUp() {
         database = new TestGraphDatabaseFactory()
@@ -1432,6 +1462,196 @@ public class FilteredLazyTransactionDataIntegrationTest {
         );
     }
 
+    @Test
+    public void sharedInclusionPoliciesShouldDecideAboutEachEntityOnlyOncePerTransaction() {
+        createTestDatabase();
+
+        final Map<String, Integer> nodeEvaluations = new HashMap<>();
+        final Map<String, Integer> relationshipEvaluations = new HashMap<>();
+
+        final NodeInclusionPolicy nodePolicy = new BaseNodeInclusionPolicy() {
+            @Override
+            public boolean include(Node node) {
+                nodeEvaluations.merge(node.getClass().getSimpleName() + node.getId(), 1, Integer::sum);
+                return !node.getProperty("name", "").equals("Four");
+            }
+        };
+
+        final RelationshipInclusionPolicy relationshipPolicy = new RelationshipInclusionPolicy.Adapter() {
+            @Override
+            public boolean include(Relationship relationship) {
+                relationshipEvaluations.merge(relationship.getClass().getSimpleName() + relationship.getId(), 1, Integer::sum);
+                return !relationship.isType(withName("R3"));
+            }
+        };
+
+        database.registerTransactionEventHandler(new TransactionEventHandler.Adapter<Void>() {
+            @Override
+            public Void beforeCommit(TransactionData data) {
+                LazyTransactionData lazyTransactionData = new LazyTransactionData(data);
+                InclusionDecisions decisions = new InclusionDecisions();
+
+                FilteredTransactionData first = new FilteredTransactionData(lazyTransactionData, InclusionPolicies.all().with(nodePolicy).with(relationshipPolicy), decisions);
+                FilteredTransactionData second = new FilteredTransactionData(lazyTransactionData, InclusionPolicies.all().with(nodePolicy).with(relationshipPolicy).with(IncludeNoNodeProperties.getInstance()), decisions);
+
+                for (FilteredTransactionData view : Arrays.asList(first, second, first)) {
+                    assertEquals(1, view.getAllCreatedNodes().size());
+                    assertEquals(1, view.getAllDeletedNodes().size());
+                    view.getAllChangedNodes();
+
+                    for (Change<Node> change : view.getAllChangedNodes()) {
+                        count(change.getPrevious().getRelationships());
+                        count(change.getCurrent().getRelationships());
+                    }
+                }
+
+                return null;
+            }
+        });
+
+        new SimpleTransactionExecutor(database).executeInTransaction(new TestGraphMutation(), RethrowException.getInstance());
+
+        assertFalse(nodeEvaluations.isEmpty());
+        assertFalse(relationshipEvaluations.isEmpty());
+        assertTrue(nodeEvaluations.containsKey("NodeSnapshot" + 1));
+        for (Integer evaluations : nodeEvaluations.values()) {
+            assertEquals(1, (int) evaluations);
+        }
+        for (Integer evaluations : relationshipEvaluations.values()) {
+            assertEquals(1, (int) evaluations);
+        }
+    }
+
+    @Test
+    public void inclusionDecisionsShouldOnlyBeCachedForOwningThreadUntilClosed() throws InterruptedException {
+        createTestDatabase();
+
+        final AtomicInteger evaluations = new AtomicInteger();
+        final NodeInclusionPolicy policy = new BaseNodeInclusionPolicy() {
+            @Override
+            public boolean include(Node node) {
+                evaluations.incrementAndGet();
+                return true;
+            }
+        };
+
+        final InclusionDecisions decisions = new InclusionDecisions();
+        final AtomicBoolean closedByOtherThread = new AtomicBoolean(false);
+
+        try (Transaction tx = database.beginTx()) {
+            final Node node = database.getNodeById(1);
+
+            assertTrue(decisions.include(policy, node));
+            assertTrue(decisions.include(policy, node));
+            assertEquals(1, evaluations.get());
+
+            //e.g. a filtered node handed over to an asynchronous afterCommit
+            Thread other = new Thread(() -> {
+                decisions.include(policy, node);
+                decisions.include(policy, node);
+
+                try {
+                    decisions.close();
+                    closedByOtherThread.set(true);
+                } catch (IllegalStateException e) {
+                    //expected
+                }
+            });
+            other.start();
+            other.join();
+
+            assertEquals(3, evaluations.get());
+            assertFalse(closedByOtherThread.get());
+
+            decisions.close();
+
+            assertTrue(decisions.include(policy, node));
+            assertTrue(decisions.include(policy, node));
+            assertEquals(5, evaluations.get());
+
+            tx.success();
+        }
+    }
+
+    @Test
+    public void filteredEntitiesConstructedWithoutDecisionsShouldNotCacheThem() {
+        createTestDatabase();
+
+        final AtomicInteger evaluations = new AtomicInteger();
+        final RelationshipInclusionPolicy policy = new RelationshipInclusionPolicy.Adapter() {
+            @Override
+            public boolean include(Relationship relationship) {
+                evaluations.incrementAndGet();
+                return true;
+            }
+        };
+
+        try (Transaction tx = database.beginTx()) {
+            Node node = database.getNodeById(1);
+            int degree = node.getDegree();
+            assertTrue(degree > 0);
+
+            FilteredNode filteredNode = new FilteredNode(node, InclusionPolicies.all().with(policy));
+
+            assertEquals(degree, count(filteredNode.getRelationships()));
+            assertEquals(degree, count(filteredNode.getRelationships()));
+            assertEquals(2 * degree, evaluations.get());
+
+            tx.success();
+        }
+    }
+
+    @Test
+    public void filteredViewShouldNotRetainPropertiesOfSpilledTransaction() {
+        createTestDatabase();
+
+        final int nodes = 1000;
+        final long[] ids = new long[nodes];
+        final AtomicInteger checked = new AtomicInteger();
+
+        try (Transaction tx = database.beginTx()) {
+            for (int i = 0; i < nodes; i++) {
+                ids[i] = database.createNode().getId();
+            }
+            tx.success();
+        }
+
+        database.registerTransactionEventHandler(new TransactionEventHandler.Adapter<Void>() {
+            @Override
+            public Void beforeCommit(TransactionData data) {
+                LazyTransactionData lazyTransactionData = new LazyTransactionData(data, 0);
+                FilteredTransactionData filtered = new FilteredTransactionData(lazyTransactionData, InclusionPolicies.all());
+
+                for (Change<Node> change : filtered.getAllChangedNodes()) {
+                    Node node = change.getCurrent();
+                    Map<String, Object> properties = filtered.createdProperties(node);
+                    assertEquals(2, properties.size());
+
+                    //read back from disk every time rather than cached on heap for the rest of the transaction
+                    assertNotSame(properties, filtered.createdProperties(node));
+                    assertEquals(properties, filtered.createdProperties(node));
+                    checked.incrementAndGet();
+                }
+
+                assertTrue(((LazyEntityTransactionData<?>) lazyTransactionData.getNodeTransactionData()).isSpilled());
+
+                lazyTransactionData.close();
+                return null;
+            }
+        });
+
+        try (Transaction tx = database.beginTx()) {
+            for (int i = 0; i < nodes; i++) {
+                Node node = database.getNodeById(ids[i]);
+                node.setProperty("name", "node" + i);
+                node.setProperty("index", i);
+            }
+            tx.success();
+        }
+
+        assertEquals(nodes, checked.get());
+    }
+
     //test helpers
 
     private void mutateGraph(BeforeCommitCallback beforeCommitCallback) {
@@ -1622,6 +1622,10 @@ public class LazyTransactionDataComprehensiveTest {
         assertTrue(beforeCommitCallback.mutationsOccurred());
     }
 
+    protected LazyTransactionData createTransactionData(TransactionData data) {
+        return new LazyTransactionData(data);
+    }
+
     private class TestingTxEventHandler implements TransactionEventHandler {
 
         private final BeforeCommitCallback beforeCommitCallback;
@@ -1632,7 +1636,9 @@ public class LazyTransactionDataComprehensiveTest {
 
         @Override
         public Object beforeCommit(TransactionData data) throws Exception {
-            beforeCommitCallback.beforeCommit(new LazyTransactionData(data));
+            try (LazyTransactionData transactionData = createTransactionData(data)) {
+                beforeCommitCallback.beforeCommit(transactionData);
+            }
             return null;
         }
 
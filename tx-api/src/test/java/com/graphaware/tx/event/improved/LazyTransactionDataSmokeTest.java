@@ -16,25 +16,35 @@
 
 package com.graphaware.tx.event.improved;
 
+import com.graphaware.common.util.Change;
 import com.graphaware.tx.event.improved.api.ImprovedTransactionData;
 import com.graphaware.tx.event.improved.api.LazyTransactionData;
+import com.graphaware.tx.event.improved.data.RelationshipTransactionData;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.event.TransactionData;
 import org.neo4j.graphdb.event.TransactionEventHandler;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import java.lang.reflect.Proxy;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import static com.graphaware.common.util.DatabaseUtils.registerShutdownHook;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.neo4j.graphdb.Direction.INCOMING;
+import static org.neo4j.graphdb.Direction.OUTGOING;
 import static org.neo4j.graphdb.Label.label;
+import static org.neo4j.graphdb.RelationshipType.withName;
 
 /**
  * Unit test for {@link com.graphaware.tx.event.improved.api.LazyTransactionData}.
@@ -185,6 +195,80 @@ public class LazyTransactionDataSmokeTest {
         );
     }
 
+    @Test
+    public void neo4jTransactionDataShouldOnlyBeTraversedOnce() {
+        execute("CREATE ({name:'Michal'})-[:FRIEND_OF {since:2007}]->(:Person {name:'Daniela'})");
+
+        Map<String, Integer> invocations = new HashMap<>();
+        database.registerTransactionEventHandler(new TransactionEventHandler.Adapter<Void>() {
+            @Override
+            public Void beforeCommit(TransactionData data) {
+                TransactionData counting = (TransactionData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{TransactionData.class}, (proxy, method, args) -> {
+                    invocations.merge(method.getName(), 1, Integer::sum);
+                    return method.invoke(data, args);
+                });
+
+                ImprovedTransactionData improvedTransactionData = new LazyTransactionData(counting);
+                improvedTransactionData.mutationsToStrings();
+                for (Change<Node> change : improvedTransactionData.getAllChangedNodes()) {
+                    improvedTransactionData.changedProperties(change.getCurrent());
+                    improvedTransactionData.createdProperties(change.getCurrent());
+                    improvedTransactionData.deletedProperties(change.getCurrent());
+                }
+                return null;
+            }
+        });
+
+        execute("MATCH (p1 {name:'Michal'})-[r:FRIEND_OF]->(p2:Person) SET p1.name='Adam', p1:Person, p2.age=30, r.since=2008 REMOVE p2.name, p2:Person");
+
+        assertEquals(Integer.valueOf(1), invocations.get("assignedNodeProperties"));
+        assertEquals(Integer.valueOf(1), invocations.get("removedNodeProperties"));
+        assertEquals(Integer.valueOf(1), invocations.get("assignedRelationshipProperties"));
+        assertEquals(Integer.valueOf(1), invocations.get("removedRelationshipProperties"));
+        assertEquals(Integer.valueOf(1), invocations.get("assignedLabels"));
+        assertEquals(Integer.valueOf(1), invocations.get("removedLabels"));
+    }
+
+    @Test
+    public void createdAndDeletedRelationshipsShouldBeLookedUpByNode() {
+        execute("CREATE (hub:Hub)-[:R]->({name:'b'}), (hub)-[:R]->({name:'c'})");
+
+        Map<String, Long> results = new HashMap<>();
+        database.registerTransactionEventHandler(new TransactionEventHandler.Adapter<Void>() {
+            @Override
+            public Void beforeCommit(TransactionData data) {
+                LazyTransactionData improvedTransactionData = new LazyTransactionData(data);
+                RelationshipTransactionData relationshipTransactionData = improvedTransactionData.getRelationshipTransactionData();
+                Relationship deleted = improvedTransactionData.getAllDeletedRelationships().iterator().next();
+                Node hub = deleted.getStartNode();
+                Node c = deleted.getEndNode();
+
+                results.put("created", (long) improvedTransactionData.getAllCreatedRelationships().size());
+                results.put("hubCreated", (long) relationshipTransactionData.getCreated(hub).size());
+                results.put("hubCreatedOutgoing", (long) relationshipTransactionData.getCreated(hub, OUTGOING).size());
+                results.put("hubCreatedIncoming", (long) relationshipTransactionData.getCreated(hub, INCOMING).size());
+                results.put("hubCreatedS", (long) relationshipTransactionData.getCreated(hub, withName("S")).size());
+                results.put("hubDeleted", (long) relationshipTransactionData.getDeleted(hub).size());
+                results.put("cCreated", (long) relationshipTransactionData.getCreated(c).size());
+                results.put("cDeletedIncoming", (long) relationshipTransactionData.getDeleted(c, INCOMING).size());
+                results.put("hubDegreeR", (long) hub.getDegree(withName("R")));
+                return null;
+            }
+        });
+
+        execute("MATCH (hub:Hub)-[r]->({name:'c'}), (b {name:'b'}) DELETE r CREATE (hub)-[:S]->(b), (hub)-[:S]->(hub), (b)-[:R]->(hub)");
+
+        assertEquals(Long.valueOf(3), results.get("created"));
+        assertEquals(Long.valueOf(3), results.get("hubCreated"));
+        assertEquals(Long.valueOf(2), results.get("hubCreatedOutgoing"));
+        assertEquals(Long.valueOf(2), results.get("hubCreatedIncoming"));
+        assertEquals(Long.valueOf(2), results.get("hubCreatedS"));
+        assertEquals(Long.valueOf(1), results.get("hubDeleted"));
+        assertEquals(Long.valueOf(0), results.get("cCreated"));
+        assertEquals(Long.valueOf(1), results.get("cDeletedIncoming"));
+        assertEquals(Long.valueOf(2), results.get("hubDegreeR"));
+    }
+
     @Test
     public void multipleChangesShouldBeCorrectlyPickedUp2() {
         execute("CREATE ({name:'Michal'})-[:FRIEND_OF {since:2007}]->(:Person {name:'Daniela'})");
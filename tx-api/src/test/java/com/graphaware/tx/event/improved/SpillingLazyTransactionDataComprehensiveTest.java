@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2013-2019 GraphAware
+ *
+ * This file is part of the GraphAware Framework.
+ *
+ * GraphAware Framework is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.graphaware.tx.event.improved;
+
+import com.graphaware.tx.event.improved.api.LazyTransactionData;
+import org.junit.After;
+import org.junit.Before;
+import org.neo4j.graphdb.event.TransactionData;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link LazyTransactionDataComprehensiveTest} with all properties spilled to disk. Also verifies that no spill files
+ * are left behind once the transaction data is closed.
+ */
+public class SpillingLazyTransactionDataComprehensiveTest extends LazyTransactionDataComprehensiveTest {
+
+    private Set<String> spillFilesBefore;
+
+    @Before
+    public void rememberSpillFiles() {
+        spillFilesBefore = spillFiles();
+    }
+
+    @After
+    public void spillFilesShouldBeDeleted() {
+        assertEquals(spillFilesBefore, spillFiles());
+    }
+
+    @Override
+    protected LazyTransactionData createTransactionData(TransactionData data) {
+        return new LazyTransactionData(data, 0);
+    }
+
+    private Set<String> spillFiles() {
+        String[] names = new File(System.getProperty("java.io.tmpdir")).list((dir, name) -> name.startsWith("graphaware-tx-") && name.endsWith(".spill"));
+        return names == null ? new HashSet<>() : new HashSet<>(Arrays.asList(names));
+    }
+}